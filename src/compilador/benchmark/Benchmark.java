@@ -0,0 +1,385 @@
+package compilador.benchmark;
+
+import compilador.execucao.CompiladorDeBytecode;
+import compilador.execucao.CompiladorJvm;
+import compilador.execucao.EntradaESaida;
+import compilador.execucao.InterpretadorDeArvore;
+import compilador.execucao.MaquinaVirtual;
+import compilador.execucao.ProgramaCompilado;
+import compilador.execucao.ProgramaNaJvm;
+import compilador.execucao.exceptions.ErroSemantico;
+import compilador.lexico.AnalisadorLexico;
+import compilador.lexico.EscritorDeTokens;
+import compilador.lexico.FluxoEmPipeline;
+import compilador.lexico.FonteDeCaracteres;
+import compilador.lexico.LeitorDeTokens;
+import compilador.lexico.MotorLexico;
+import compilador.lexico.TabelaDeNomes;
+import compilador.lexico.TipoToken;
+import compilador.lexico.Token;
+import compilador.lexico.TokenBuffer;
+import compilador.saida.EscritorDeSaida;
+import compilador.saida.FormatoDeSaida;
+import compilador.sintatico.Arvore;
+import compilador.sintatico.Otimizador;
+import compilador.sintatico.Parser;
+import compilador.sintatico.exceptions.SyntaxError;
+import compilador.tabela.Simbolo;
+import compilador.tabela.TabelaDeSimbolos;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Medições de desempenho do lexer, do parser, da tabela de símbolos e do Otimizador sobre
+// programas gerados por GeradorDeProgramas, e da execução de um laço na JVM (CompiladorJvm),
+// pela MaquinaVirtual e pelo InterpretadorDeArvore. Cada medição roda algumas iterações de
+// aquecimento (para o JIT) e depois várias iterações medidas, e imprime a mediana e a melhor.
+//
+// Uso: java compilador.benchmark.Benchmark [--semente N] [--tamanho CHARS] [--profundidade N]
+//          [--expressao N] [--rotinas N] [--densidade 0..1] [--iteracoes N]
+//          [--arquivo programa.txt] [--gerar saida.txt]
+//          [lexer|parser|tabela|alocacao|execucao|otimizador|tokens|saida ...]
+public class Benchmark {
+    private static final int AQUECIMENTO = 5;
+
+    // Laço usado na medição de execução; VOLTAS é trocado pela quantidade de voltas
+    private static final String PROGRAMA_DE_EXECUCAO = """
+            programa laco;
+            funcao int calcula(int n) {
+                int i, s;
+                i = 0;
+                s = 0;
+                enquanto (i < n) {
+                    s = s + i * 3 - i / 7;
+                    se (s > 1000000 || s < -1000000) entao {
+                        s = s / 2;
+                    }
+                    i = i + 1;
+                }
+                retorne s;
+            }
+            escreva(calcula(VOLTAS));
+            """;
+
+    // Resultados somados aqui para o JIT não eliminar o trabalho medido
+    private static volatile long sorvedouro;
+
+    private interface Medicao {
+        long executar() throws Exception; // devolve a quantidade de itens processados
+    }
+
+    public static void main(String[] args) throws Exception {
+        long semente = 42;
+        int iteracoes = 10;
+        String arquivo = null;
+        String gerar = null;
+        GeradorDeProgramas gerador = null;
+        List<String> medicoes = new ArrayList<>();
+        int tamanho = 8 * 1024 * 1024;
+        int profundidade = 3;
+        int expressao = 4;
+        int rotinas = 200;
+        double densidade = 0.6;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--semente" -> semente = Long.parseLong(args[++i]);
+                case "--tamanho" -> tamanho = Integer.parseInt(args[++i]);
+                case "--profundidade" -> profundidade = Integer.parseInt(args[++i]);
+                case "--expressao" -> expressao = Integer.parseInt(args[++i]);
+                case "--rotinas" -> rotinas = Integer.parseInt(args[++i]);
+                case "--densidade" -> densidade = Double.parseDouble(args[++i]);
+                case "--iteracoes" -> iteracoes = Integer.parseInt(args[++i]);
+                case "--arquivo" -> arquivo = args[++i];
+                case "--gerar" -> gerar = args[++i];
+                default -> medicoes.add(args[i]);
+            }
+        }
+        if (medicoes.isEmpty()) {
+            medicoes.addAll(Arrays.asList("lexer", "parser", "tabela", "alocacao", "execucao"));
+        }
+
+        String codigo;
+        if (arquivo != null) {
+            codigo = Files.readString(Paths.get(arquivo), StandardCharsets.UTF_8);
+        } else {
+            gerador = new GeradorDeProgramas(semente);
+            gerador.tamanhoAlvo = tamanho;
+            gerador.profundidadeMaxima = profundidade;
+            gerador.tamanhoDaExpressao = expressao;
+            gerador.quantidadeDeRotinas = rotinas;
+            gerador.densidadeDeIdentificadores = densidade;
+            codigo = gerador.gerar();
+        }
+        if (gerar != null) {
+            Files.writeString(Paths.get(gerar), codigo, StandardCharsets.UTF_8);
+            System.out.println("Programa gravado em " + gerar + " (" + codigo.length() + " caracteres)");
+            return;
+        }
+
+        int bytes = codigo.getBytes(StandardCharsets.UTF_8).length;
+        TokenBuffer buffer = new AnalisadorLexico(codigo).tokenizarTudo();
+        int tokens = buffer.tamanho();
+        System.out.printf("Entrada: %d bytes, %d tokens%s%n", bytes, tokens,
+                gerador != null ? " (semente " + semente + ")" : " (" + arquivo + ")");
+        new Parser(buffer).parsePrograma(); // o programa precisa ser válido para medir o parser
+
+        for (String medicao : medicoes) {
+            switch (medicao) {
+                case "lexer" -> {
+                    for (MotorLexico motor : MotorLexico.values()) {
+                        double[] ns = medir(iteracoes, () -> contarTokens(codigo, motor));
+                        relatorio("lexer " + motor, ns, bytes, tokens);
+                    }
+                    double[] ns = medir(iteracoes, () -> new AnalisadorLexico(codigo).tokenizarTudo().tamanho());
+                    relatorio("lexer tokenizarTudo", ns, bytes, tokens);
+                }
+                case "parser" -> {
+                    double[] ns = medir(iteracoes, () -> {
+                        new Parser(buffer).parsePrograma();
+                        return tokens;
+                    });
+                    relatorio("parser (TokenBuffer)", ns, bytes, tokens);
+                    ns = medir(iteracoes, () -> {
+                        new Parser(new AnalisadorLexico(codigo)).parsePrograma();
+                        return tokens;
+                    });
+                    relatorio("lexer + parser", ns, bytes, tokens);
+                    ns = medir(iteracoes, () -> {
+                        try (FluxoEmPipeline fluxo = new FluxoEmPipeline(FonteDeCaracteres.daString(codigo))) {
+                            new Parser(fluxo).parsePrograma();
+                        }
+                        return tokens;
+                    });
+                    relatorio("lexer + parser (pipeline)", ns, bytes, tokens);
+                }
+                case "tabela" -> {
+                    for (int niveis : new int[] { 4, 32, 256 }) {
+                        double[] ns = medir(iteracoes, () -> tabela(niveis, 16, 100_000));
+                        System.out.printf("%-28s mediana %8.2f ns/operação, melhor %8.2f ns/operação%n",
+                                "tabela " + niveis + " escopos", ns[0] / 100_000, ns[1] / 100_000);
+                    }
+                }
+                case "alocacao" -> alocacao(codigo, buffer, tokens);
+                case "execucao" -> execucao(iteracoes);
+                case "otimizador" -> otimizador(buffer, iteracoes, bytes, tokens);
+                case "tokens" -> fluxoBinario(codigo, iteracoes, bytes, tokens);
+                case "saida" -> saida(codigo, iteracoes, bytes, tokens);
+                default -> System.err.println("Medição desconhecida: " + medicao);
+            }
+        }
+    }
+
+    private static long contarTokens(String codigo, MotorLexico motor) {
+        AnalisadorLexico lexer = new AnalisadorLexico(codigo, motor);
+        long quantidade = 0;
+        while (lexer.proximoTipo() != TipoToken.EOF) {
+            quantidade++;
+        }
+        return quantidade + 1;
+    }
+
+    // Tamanho do fluxo binário de tokens (EscritorDeTokens) e o parser lendo dele pelo mmap
+    private static void fluxoBinario(String codigo, int iteracoes, int bytes, int tokens) throws Exception {
+        Path arquivo = Files.createTempFile("benchmark", ".tok");
+        try {
+            double[] ns = medir(iteracoes, () -> EscritorDeTokens.gravar(new AnalisadorLexico(codigo), arquivo));
+            relatorio("lexer + EscritorDeTokens", ns, bytes, tokens);
+            long tamanho = Files.size(arquivo);
+            System.out.printf("%-28s %d bytes (%.1f%% da fonte, %.2f bytes/token)%n", "fluxo binario", tamanho,
+                    100.0 * tamanho / bytes, tamanho / (double) tokens);
+            ns = medir(iteracoes, () -> {
+                try (LeitorDeTokens leitor = LeitorDeTokens.abrir(arquivo)) {
+                    new Parser(leitor).parsePrograma();
+                }
+                return tokens;
+            });
+            relatorio("parser (LeitorDeTokens)", ns, bytes, tokens);
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    // Lista de tokens num arquivo: um println(Token) por token, como o TestadorLexico fazia, e o
+    // EscritorDeSaida em cada formato
+    private static void saida(String codigo, int iteracoes, int bytes, int tokens) throws Exception {
+        Path arquivo = Files.createTempFile("benchmark", ".txt");
+        try {
+            double[] ns = medir(iteracoes, () -> {
+                AnalisadorLexico lexer = new AnalisadorLexico(codigo);
+                try (PrintStream saida = new PrintStream(new BufferedOutputStream(Files.newOutputStream(arquivo)),
+                        false, StandardCharsets.UTF_8)) {
+                    Token token;
+                    while ((token = lexer.proximoToken()).tipo != TipoToken.EOF) {
+                        saida.println(token);
+                    }
+                }
+                return tokens;
+            });
+            relatorio("lexer + println(Token)", ns, bytes, tokens);
+            for (FormatoDeSaida formato : FormatoDeSaida.values()) {
+                ns = medir(iteracoes, () -> {
+                    AnalisadorLexico lexer = new AnalisadorLexico(codigo);
+                    try (EscritorDeSaida saida = EscritorDeSaida.abrir(arquivo, formato)) {
+                        while (lexer.proximoTipo() != TipoToken.EOF) {
+                            saida.token(lexer);
+                        }
+                    }
+                    return tokens;
+                });
+                relatorio("lexer + EscritorDeSaida " + formato.name().toLowerCase(), ns, bytes, tokens);
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    // Empilha 'niveis' escopos com 'porEscopo' símbolos cada e faz 'buscas' buscas, metade delas
+    // por nomes do escopo mais externo (o pior caso de uma busca do topo para a base)
+    private static long tabela(int niveis, int porEscopo, int buscas) {
+        TabelaDeNomes nomes = new TabelaDeNomes();
+        TabelaDeSimbolos tabela = new TabelaDeSimbolos(nomes);
+        int[][] ids = new int[niveis][porEscopo];
+        for (int n = 0; n < niveis; n++) {
+            tabela.entrarEscopo();
+            for (int s = 0; s < porEscopo; s++) {
+                String nome = "n" + n + "_" + s;
+                ids[n][s] = nomes.idDe(nome);
+                tabela.adicionar(new Simbolo(ids[n][s], nome, TipoToken.INT));
+            }
+        }
+        long encontrados = 0;
+        for (int i = 0; i < buscas; i++) {
+            int nivel = (i & 1) == 0 ? 0 : (i * 31) % niveis;
+            if (tabela.buscar(ids[nivel][i % porEscopo]) != null) {
+                encontrados++;
+            }
+        }
+        for (int n = 0; n < niveis; n++) {
+            tabela.sairEscopo();
+        }
+        return encontrados;
+    }
+
+    // Voltas por segundo do laço de PROGRAMA_DE_EXECUCAO; a árvore roda menos voltas por ser bem mais lenta
+    private static void execucao(int iteracoes) throws Exception {
+        int voltas = 5_000_000;
+        ProgramaCompilado compilado = new CompiladorDeBytecode(arvoreDoLaco(voltas)).compilar();
+        double[] ns = medir(iteracoes, () -> {
+            new MaquinaVirtual(compilado, entradaESaidaVazias()).executar();
+            return voltas;
+        });
+        System.out.printf("%-28s %8.2f Mvoltas/s  (mediana %.2f ms, melhor %.2f ms)%n",
+                "execucao maquina virtual", voltas / (ns[0] / 1e9) / 1e6, ns[0] / 1e6, ns[1] / 1e6);
+
+        // A classe é gerada uma vez; cada iteração mede só a execução
+        ProgramaNaJvm naJvm = new CompiladorJvm(compilado).compilar();
+        ns = medir(iteracoes, () -> {
+            naJvm.executar(entradaESaidaVazias());
+            return voltas;
+        });
+        System.out.printf("%-28s %8.2f Mvoltas/s  (mediana %.2f ms, melhor %.2f ms)%n",
+                "execucao jvm", voltas / (ns[0] / 1e9) / 1e6, ns[0] / 1e6, ns[1] / 1e6);
+
+        int voltasNaArvore = voltas / 20;
+        Arvore arvore = arvoreDoLaco(voltasNaArvore);
+        ns = medir(iteracoes, () -> {
+            new InterpretadorDeArvore(arvore, entradaESaidaVazias()).executar();
+            return voltasNaArvore;
+        });
+        System.out.printf("%-28s %8.2f Mvoltas/s  (mediana %.2f ms, melhor %.2f ms)%n",
+                "execucao arvore", voltasNaArvore / (ns[0] / 1e9) / 1e6, ns[0] / 1e6, ns[1] / 1e6);
+    }
+
+    // Velocidade do Otimizador sobre o programa de entrada, nós que ele elimina e o tamanho do
+    // código compilado antes e depois
+    private static void otimizador(TokenBuffer buffer, int iteracoes, int bytes, int tokens) throws Exception {
+        Arvore arvore = new Arvore();
+        new Parser(buffer).comArvore(arvore).parsePrograma();
+        double[] ns = medir(iteracoes, () -> new Otimizador(arvore).otimizar().tamanho());
+        relatorio("otimizador", ns, bytes, tokens);
+
+        Otimizador otimizador = new Otimizador(arvore);
+        Arvore otimizada = otimizador.otimizar();
+        System.out.printf("%-28s %d de %d nós eliminados (%.1f%%)%n", "otimizador", otimizador.eliminados(),
+                arvore.tamanho(), 100.0 * otimizador.eliminados() / arvore.tamanho());
+        try {
+            int antes = new CompiladorDeBytecode(arvore).compilar().tamanho();
+            int depois = new CompiladorDeBytecode(otimizada).compilar().tamanho();
+            System.out.printf("%-28s %d -> %d ints de código (%.1f%%)%n", "otimizador bytecode", antes, depois,
+                    100.0 * (antes - depois) / antes);
+        } catch (ErroSemantico e) {
+            System.out.println("otimizador bytecode: o programa não compila (" + e.getMessage() + ")");
+        }
+    }
+
+    private static Arvore arvoreDoLaco(int voltas) throws SyntaxError {
+        Arvore arvore = new Arvore();
+        String programa = PROGRAMA_DE_EXECUCAO.replace("VOLTAS", Integer.toString(voltas));
+        new Parser(new AnalisadorLexico(programa)).comArvore(arvore).parsePrograma();
+        return arvore;
+    }
+
+    private static EntradaESaida entradaESaidaVazias() {
+        return new EntradaESaida(new ByteArrayInputStream(new byte[0]), OutputStream.nullOutputStream());
+    }
+
+    // Bytes alocados pela thread atual por token, lendo o contador da JVM antes e depois
+    private static void alocacao(String codigo, TokenBuffer buffer, int tokens) throws SyntaxError {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadAllocatedMemorySupported()) {
+            System.out.println("alocacao: contador de alocação por thread indisponível nesta JVM");
+            return;
+        }
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            contarTokens(codigo, MotorLexico.CLASSICO);
+            new Parser(buffer).parsePrograma();
+        }
+        for (MotorLexico motor : MotorLexico.values()) {
+            long antes = bean.getThreadAllocatedBytes(thread);
+            sorvedouro += contarTokens(codigo, motor);
+            long depois = bean.getThreadAllocatedBytes(thread);
+            System.out.printf("%-28s %8.2f bytes/token%n", "alocacao lexer " + motor, (depois - antes) / (double) tokens);
+        }
+        long antes = bean.getThreadAllocatedBytes(thread);
+        sorvedouro += new AnalisadorLexico(codigo).tokenizarTudo().tamanho();
+        long depois = bean.getThreadAllocatedBytes(thread);
+        System.out.printf("%-28s %8.2f bytes/token%n", "alocacao tokenizarTudo", (depois - antes) / (double) tokens);
+        antes = bean.getThreadAllocatedBytes(thread);
+        new Parser(buffer).parsePrograma();
+        depois = bean.getThreadAllocatedBytes(thread);
+        System.out.printf("%-28s %8.2f bytes/token%n", "alocacao parser", (depois - antes) / (double) tokens);
+    }
+
+    // Devolve { mediana, melhor } em nanossegundos por iteração
+    private static double[] medir(int iteracoes, Medicao medicao) throws Exception {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            sorvedouro += medicao.executar();
+        }
+        long[] tempos = new long[Math.max(iteracoes, 1)];
+        for (int i = 0; i < tempos.length; i++) {
+            long inicio = System.nanoTime();
+            sorvedouro += medicao.executar();
+            tempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tempos);
+        return new double[] { tempos[tempos.length / 2], tempos[0] };
+    }
+
+    private static void relatorio(String nome, double[] ns, int bytes, int tokens) {
+        double segundos = ns[0] / 1e9;
+        System.out.printf("%-28s %8.1f MB/s  %8.2f Mtokens/s  (mediana %.2f ms, melhor %.2f ms)%n",
+                nome, bytes / segundos / 1e6, tokens / segundos / 1e6, ns[0] / 1e6, ns[1] / 1e6);
+    }
+}
@@ -0,0 +1,271 @@
+package compilador.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Gera programas válidos para a gramática do Parser (ver Parser.parseCmd), de forma
+// determinística: a mesma semente e os mesmos parâmetros sempre produzem o mesmo texto.
+// Os nomes são únicos no programa inteiro, então nunca há declaração repetida num escopo.
+public class GeradorDeProgramas {
+    // Parâmetros do formato; podem ser alterados antes de chamar gerar()
+    public int tamanhoAlvo = 64 * 1024;          // em caracteres, aproximado
+    public int profundidadeMaxima = 3;           // aninhamento de se/enquanto
+    public int tamanhoDaExpressao = 4;           // operandos por expressão
+    public int quantidadeDeRotinas = 16;         // funções + procedimentos
+    public int comandosPorBloco = 6;
+    public double densidadeDeIdentificadores = 0.6; // chance de um operando ser um nome (e não um literal)
+
+    private final long semente;
+    private Random aleatorio;
+    private StringBuilder saida;
+    private int contador;
+    private final List<String> globais = new ArrayList<>();
+    private final List<String> locais = new ArrayList<>();
+    private final List<Rotina> funcoes = new ArrayList<>();
+    private final List<Rotina> procedimentos = new ArrayList<>();
+
+    private static class Rotina {
+        final String nome;
+        final int parametros;
+
+        Rotina(String nome, int parametros) {
+            this.nome = nome;
+            this.parametros = parametros;
+        }
+    }
+
+    public GeradorDeProgramas(long semente) {
+        this.semente = semente;
+    }
+
+    public String gerar() {
+        aleatorio = new Random(semente);
+        saida = new StringBuilder(tamanhoAlvo + 1024);
+        contador = 0;
+        globais.clear();
+        locais.clear();
+        funcoes.clear();
+        procedimentos.clear();
+
+        saida.append("programa p").append(Long.toHexString(semente)).append(";\n");
+        declaracao(0, globais);
+        declaracao(0, globais);
+
+        int rotinasRestantes = quantidadeDeRotinas;
+        while (saida.length() < tamanhoAlvo || rotinasRestantes > 0) {
+            // Espalha as rotinas pelo programa, sem deixá-las todas para o fim
+            int restante = Math.max(tamanhoAlvo - saida.length(), 1);
+            if (rotinasRestantes > 0 && (saida.length() >= tamanhoAlvo
+                    || aleatorio.nextInt(restante) < rotinasRestantes * 512)) {
+                rotina();
+                rotinasRestantes--;
+            } else if (aleatorio.nextInt(8) == 0) {
+                declaracao(0, globais);
+            } else {
+                comando(0, 0, 0, false);
+            }
+        }
+        return saida.toString();
+    }
+
+    private String novoNome(char prefixo) {
+        return prefixo + Integer.toString(contador++, 36);
+    }
+
+    private void indentar(int nivel) {
+        for (int i = 0; i < nivel; i++) {
+            saida.append("    ");
+        }
+    }
+
+    // int a, b, c;
+    private void declaracao(int nivel, List<String> destino) {
+        indentar(nivel);
+        saida.append("int ");
+        int quantidade = 1 + aleatorio.nextInt(3);
+        for (int i = 0; i < quantidade; i++) {
+            String nome = novoNome('v');
+            destino.add(nome);
+            if (i > 0) saida.append(", ");
+            saida.append(nome);
+        }
+        saida.append(";\n");
+    }
+
+    private void rotina() {
+        boolean funcao = aleatorio.nextBoolean();
+        String nome = novoNome(funcao ? 'f' : 'p');
+        int parametros = aleatorio.nextInt(4);
+        locais.clear();
+
+        saida.append(funcao ? "funcao int " : "procedimento ").append(nome).append('(');
+        for (int i = 0; i < parametros; i++) {
+            String parametro = novoNome('a');
+            locais.add(parametro);
+            if (i > 0) saida.append(", ");
+            saida.append("int ").append(parametro);
+        }
+        saida.append(") {\n");
+        declaracao(1, locais);
+        for (int i = 0; i < comandosPorBloco; i++) {
+            comando(1, 0, 0, funcao);
+        }
+        if (funcao) {
+            saida.append("    retorne ");
+            expressao(tamanhoDaExpressao);
+            saida.append(";\n");
+        }
+        saida.append("}\n");
+        locais.clear();
+
+        // Só depois de declarada a rotina pode ser chamada (recursão fica de fora)
+        (funcao ? funcoes : procedimentos).add(new Rotina(nome, parametros));
+    }
+
+    // 'nivel' é só a indentação; 'profundidade' conta os se/enquanto em volta do comando
+    private void comando(int nivel, int profundidade, int laco, boolean emFuncao) {
+        boolean podeAninhar = profundidade < profundidadeMaxima;
+        int escolha = aleatorio.nextInt(podeAninhar ? 10 : 7);
+        indentar(nivel);
+        switch (escolha) {
+            case 0, 1, 2 -> {
+                saida.append(variavel()).append(" = ");
+                expressao(tamanhoDaExpressao);
+                saida.append(";\n");
+            }
+            case 3 -> {
+                saida.append("escreva(");
+                expressao(tamanhoDaExpressao);
+                saida.append(");\n");
+            }
+            case 4 -> saida.append("leia(").append(variavel()).append(");\n");
+            case 5 -> {
+                if (procedimentos.isEmpty()) {
+                    saida.append(variavel()).append(" = ").append(aleatorio.nextInt(1000)).append(";\n");
+                } else {
+                    Rotina procedimento = procedimentos.get(aleatorio.nextInt(procedimentos.size()));
+                    chamada(procedimento);
+                    saida.append(";\n");
+                }
+            }
+            case 6 -> {
+                if (laco > 0 && aleatorio.nextInt(3) == 0) {
+                    saida.append(aleatorio.nextBoolean() ? "pare;\n" : "continue;\n");
+                } else if (emFuncao && aleatorio.nextInt(4) == 0) {
+                    saida.append("retorne ");
+                    expressao(tamanhoDaExpressao);
+                    saida.append(";\n");
+                } else {
+                    saida.append("escreva(").append(variavel()).append(");\n");
+                }
+            }
+            case 7, 8 -> {
+                saida.append("se (");
+                condicao();
+                saida.append(") entao ");
+                bloco(nivel, profundidade, laco, emFuncao);
+                if (aleatorio.nextBoolean()) {
+                    saida.append(" senao ");
+                    bloco(nivel, profundidade, laco, emFuncao);
+                }
+                saida.append('\n');
+            }
+            default -> {
+                saida.append("enquanto (");
+                condicao();
+                saida.append(") ");
+                bloco(nivel, profundidade, laco + 1, emFuncao);
+                saida.append('\n');
+            }
+        }
+    }
+
+    private void bloco(int nivel, int profundidade, int laco, boolean emFuncao) {
+        saida.append("{\n");
+        int quantidade = 1 + aleatorio.nextInt(comandosPorBloco);
+        for (int i = 0; i < quantidade; i++) {
+            comando(nivel + 1, profundidade + 1, laco, emFuncao);
+        }
+        indentar(nivel);
+        saida.append('}');
+    }
+
+    // Uma comparação, às vezes combinada com && / || / !
+    private void condicao() {
+        if (aleatorio.nextInt(4) == 0) {
+            saida.append('!');
+        }
+        comparacao();
+        if (aleatorio.nextInt(3) == 0) {
+            saida.append(aleatorio.nextBoolean() ? " && " : " || ");
+            comparacao();
+        }
+    }
+
+    private static final String[] RELACIONAIS = { " == ", " != ", " < ", " <= ", " > ", " >= " };
+    private static final String[] ARITMETICOS = { " + ", " - ", " * ", " / " };
+
+    private void comparacao() {
+        saida.append('(');
+        expressao(Math.max(tamanhoDaExpressao / 2, 1));
+        saida.append(RELACIONAIS[aleatorio.nextInt(RELACIONAIS.length)]);
+        expressao(Math.max(tamanhoDaExpressao / 2, 1));
+        saida.append(')');
+    }
+
+    // Expressão aritmética com 'operandos' operandos
+    private void expressao(int operandos) {
+        int i = 0;
+        while (i < operandos) {
+            if (i > 0) {
+                saida.append(ARITMETICOS[aleatorio.nextInt(ARITMETICOS.length)]);
+            }
+            int restantes = operandos - i;
+            if (restantes >= 3 && aleatorio.nextInt(4) == 0) {
+                int dentro = 2 + aleatorio.nextInt(restantes - 1);
+                saida.append('(');
+                expressao(dentro);
+                saida.append(')');
+                i += dentro;
+            } else {
+                operando();
+                i++;
+            }
+        }
+    }
+
+    private void operando() {
+        if (aleatorio.nextInt(10) == 0) {
+            saida.append('-');
+        }
+        if (aleatorio.nextDouble() >= densidadeDeIdentificadores) {
+            saida.append(aleatorio.nextInt(1000));
+        } else if (!funcoes.isEmpty() && aleatorio.nextInt(8) == 0) {
+            chamada(funcoes.get(aleatorio.nextInt(funcoes.size())));
+        } else {
+            saida.append(variavel());
+        }
+    }
+
+    private void chamada(Rotina rotina) {
+        saida.append(rotina.nome).append('(');
+        for (int i = 0; i < rotina.parametros; i++) {
+            if (i > 0) saida.append(", ");
+            // Argumentos curtos, para a recursão do gerador terminar
+            if (aleatorio.nextDouble() < densidadeDeIdentificadores) {
+                saida.append(variavel());
+            } else {
+                saida.append(aleatorio.nextInt(1000));
+            }
+        }
+        saida.append(')');
+    }
+
+    // Um nome visível: local/parâmetro da rotina atual ou global
+    private String variavel() {
+        int total = locais.size() + globais.size();
+        int i = aleatorio.nextInt(total);
+        return i < locais.size() ? locais.get(i) : globais.get(i - locais.size());
+    }
+}
@@ -0,0 +1,258 @@
+package compilador.cache;
+
+import compilador.lexico.TokenBuffer;
+import compilador.sintatico.Diagnosticos;
+import compilador.tabela.Simbolo;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Cache em disco do resultado da análise léxica e sintática, endereçado pelo conteúdo: a chave
+// é um hash de 128 bits dos bytes da fonte semeado com a versão do compilador, então um arquivo
+// que não mudou (mesmo renomeado ou copiado) não é analisado de novo, e uma mudança no lexer ou
+// no Parser invalida tudo sozinha. Cada entrada guarda os tokens, os diagnósticos e os símbolos
+// globais (ver FormatoDoCache), num arquivo diretorio/ab/abcdef....
+//
+// Vários processos podem usar o mesmo diretório: uma entrada é escrita num arquivo temporário e
+// renomeada atomicamente, então quem lê vê a entrada inteira ou nenhuma; uma entrada ilegível é
+// tratada como falta e apagada. O tamanho é limitado por aplicarLimite(), que apaga as entradas
+// usadas há mais tempo (a data de modificação é atualizada a cada acerto) com uma trava no
+// arquivo .trava, para dois processos não limparem ao mesmo tempo.
+public class CacheDeAnalise {
+    // Pacotes (com subpacotes) cujas classes definem o conteúdo de uma entrada: todas as classes
+    // deles entram na versão, para uma classe nova do lexer ou do Parser não ficar de fora
+    private static final String[] PACOTES_DA_ANALISE = { "lexico", "sintatico", "tabela", "cache" };
+    private static final long VERSAO = versaoDoCompilador();
+
+    private static final String TEMPORARIO = ".tmp";
+    private static final String TRAVA = ".trava";
+    private static final long IDADE_DE_TEMPORARIO_ABANDONADO = 60L * 60 * 1000;
+
+    private final Path diretorio;
+    private final long tamanhoMaximo;
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong faltas = new AtomicLong();
+    private final AtomicLong bytesGravados = new AtomicLong();
+    private boolean limiteVerificado; // aplicarLimite() já olhou o diretório uma vez
+
+    public CacheDeAnalise(Path diretorio, long tamanhoMaximo) throws IOException {
+        if (tamanhoMaximo <= 0) {
+            throw new IllegalArgumentException("O tamanho máximo do cache precisa ser positivo");
+        }
+        this.diretorio = diretorio.toAbsolutePath(); // Files.walk devolve caminhos absolutos também
+        this.tamanhoMaximo = tamanhoMaximo;
+        Files.createDirectories(diretorio);
+    }
+
+    // Chave dos bytes de uma fonte, para buscar() e gravar()
+    public Chave chave(byte[] fonte) {
+        return new Chave(HashDeConteudo.hash(fonte, fonte.length, VERSAO), fonte.length);
+    }
+
+    // A entrada da chave, ou null se não há (ou se a que há não pôde ser lida)
+    public EntradaDoCache buscar(Chave chave) {
+        Path arquivo = arquivo(chave);
+        EntradaDoCache entrada = null;
+        try (DataInputStream leitor = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            entrada = FormatoDoCache.ler(leitor, VERSAO, chave.hash, chave.tamanho);
+        } catch (NoSuchFileException e) {
+            faltas.incrementAndGet();
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // truncada ou corrompida: cai no apagar abaixo
+        }
+        if (entrada == null) {
+            faltas.incrementAndGet();
+            apagar(arquivo);
+            return null;
+        }
+        acertos.incrementAndGet();
+        try {
+            Files.setLastModifiedTime(arquivo, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // outro processo pode ter acabado de apagá-la; a entrada lida continua valendo
+        }
+        return entrada;
+    }
+
+    // Grava a análise de uma fonte; um erro de disco só faz a entrada não existir
+    public void gravar(Chave chave, TokenBuffer tokens, Diagnosticos diagnosticos, List<Simbolo> simbolosGlobais) {
+        Path arquivo = arquivo(chave);
+        Path temporario = null;
+        try {
+            byte[] bytes = FormatoDoCache.escrever(VERSAO, chave.hash, chave.tamanho, tokens, diagnosticos,
+                    simbolosGlobais);
+            Files.createDirectories(arquivo.getParent());
+            temporario = Files.createTempFile(arquivo.getParent(), "entrada", TEMPORARIO);
+            Files.write(temporario, bytes);
+            try {
+                Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING);
+            }
+            bytesGravados.addAndGet(bytes.length);
+        } catch (IOException e) {
+            if (temporario != null) {
+                apagar(temporario);
+            }
+        }
+    }
+
+    // Se o diretório passou do tamanho máximo, apaga as entradas menos usadas até ficar em 90%
+    // dele. Depois da primeira chamada, só olha o diretório se este processo gravou algo desde a
+    // anterior; se outro processo já está limpando, não faz nada.
+    public synchronized void aplicarLimite() throws IOException {
+        if (bytesGravados.getAndSet(0) == 0 && limiteVerificado) {
+            return;
+        }
+        limiteVerificado = true;
+        try (FileChannel trava = FileChannel.open(diretorio.resolve(TRAVA), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+                FileLock lock = trava.tryLock()) {
+            if (lock == null) {
+                return;
+            }
+            limpar();
+        }
+    }
+
+    private void limpar() throws IOException {
+        List<Path> entradas = new ArrayList<>();
+        List<FileTime> datas = new ArrayList<>();
+        List<Long> tamanhos = new ArrayList<>();
+        long total = 0;
+        long agora = System.currentTimeMillis();
+        try (Stream<Path> arquivos = Files.walk(diretorio, 2)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                if (diretorio.relativize(arquivo).getNameCount() != 2) {
+                    continue; // só as entradas dentro dos subdiretórios (nem a raiz nem o .trava)
+                }
+                String nome = arquivo.getFileName().toString();
+                try {
+                    FileTime data = Files.getLastModifiedTime(arquivo);
+                    if (nome.endsWith(TEMPORARIO)) {
+                        // de um processo que morreu no meio da gravação
+                        if (agora - data.toMillis() > IDADE_DE_TEMPORARIO_ABANDONADO) {
+                            apagar(arquivo);
+                        }
+                        continue;
+                    }
+                    long tamanho = Files.size(arquivo);
+                    entradas.add(arquivo);
+                    datas.add(data);
+                    tamanhos.add(tamanho);
+                    total += tamanho;
+                } catch (NoSuchFileException e) {
+                    // apagada por outro processo enquanto a lista era montada
+                }
+            }
+        }
+        if (total <= tamanhoMaximo) {
+            return;
+        }
+        List<Integer> ordem = new ArrayList<>(entradas.size());
+        for (int i = 0; i < entradas.size(); i++) {
+            ordem.add(i);
+        }
+        ordem.sort(Comparator.comparing(datas::get));
+        long alvo = tamanhoMaximo / 10 * 9;
+        for (int i : ordem) {
+            if (total <= alvo) {
+                break;
+            }
+            apagar(entradas.get(i));
+            total -= tamanhos.get(i);
+        }
+    }
+
+    public long acertos() {
+        return acertos.get();
+    }
+
+    public long faltas() {
+        return faltas.get();
+    }
+
+    private Path arquivo(Chave chave) {
+        String hex = FormatoDoCache.hex(chave.hash);
+        return diretorio.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+    }
+
+    private static void apagar(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            // fica para a próxima limpeza
+        }
+    }
+
+    // Hash dos .class dos pacotes da análise, lidos de onde esta classe foi carregada (diretório
+    // ou jar): qualquer recompilação que mude o código deles muda a versão. Sem os .class (não
+    // deveria acontecer), cada execução tem uma versão própria e o cache só vale dentro dela.
+    private static long versaoDoCompilador() {
+        try {
+            Path origem = Paths.get(CacheDeAnalise.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isDirectory(origem)) {
+                return hashDasClasses(origem);
+            }
+            try (FileSystem jar = FileSystems.newFileSystem(origem)) {
+                return hashDasClasses(jar.getPath("/"));
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return System.nanoTime();
+        }
+    }
+
+    private static long hashDasClasses(Path raiz) throws IOException {
+        List<String> classes = new ArrayList<>();
+        for (String pacote : PACOTES_DA_ANALISE) {
+            try (Stream<Path> arquivos = Files.walk(raiz.resolve("compilador").resolve(pacote))) {
+                arquivos.filter(arquivo -> arquivo.toString().endsWith(".class"))
+                        .forEach(arquivo -> classes.add(raiz.relativize(arquivo).toString()));
+            }
+        }
+        if (classes.isEmpty()) {
+            return System.nanoTime();
+        }
+        Collections.sort(classes); // a ordem do Files.walk depende do sistema de arquivos
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (String classe : classes) {
+            bytes.write(classe.getBytes(StandardCharsets.UTF_8)); // renomear também muda a versão
+            bytes.write(Files.readAllBytes(raiz.resolve(classe)));
+        }
+        byte[] todos = bytes.toByteArray();
+        return HashDeConteudo.hash(todos, todos.length, FormatoDoCache.MAGIA)[0];
+    }
+
+    // Hash e tamanho de uma fonte
+    public static final class Chave {
+        private final long[] hash;
+        private final int tamanho;
+
+        private Chave(long[] hash, int tamanho) {
+            this.hash = hash;
+            this.tamanho = tamanho;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package compilador.cache;
+
+import compilador.lexico.FonteDeCaracteres;
+import compilador.lexico.TabelaDeNomes;
+import compilador.lexico.TokenBuffer;
+import compilador.sintatico.Diagnosticos;
+import compilador.tabela.Simbolo;
+import java.util.List;
+
+// O que o CacheDeAnalise guardou de um arquivo: os diagnósticos e os símbolos globais já
+// decodificados, e os tokens ainda na forma compactada, só decodificados se forem pedidos
+// (o lote só precisa dos diagnósticos).
+public class EntradaDoCache {
+    private final Diagnosticos diagnosticos;
+    private final List<Simbolo> simbolosGlobais;
+    private final int quantidadeDeTokens;
+    private final byte[] tokens;
+    private final String[] nomes;
+
+    EntradaDoCache(Diagnosticos diagnosticos, List<Simbolo> simbolosGlobais, int quantidadeDeTokens, byte[] tokens,
+            String[] nomes) {
+        this.diagnosticos = diagnosticos;
+        this.simbolosGlobais = simbolosGlobais;
+        this.quantidadeDeTokens = quantidadeDeTokens;
+        this.tokens = tokens;
+        this.nomes = nomes;
+    }
+
+    public Diagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
+    public List<Simbolo> getSimbolosGlobais() {
+        return simbolosGlobais;
+    }
+
+    public int getQuantidadeDeTokens() {
+        return quantidadeDeTokens;
+    }
+
+    // Refaz o TokenBuffer sobre a fonte (o mesmo texto que foi analisado), com uma TabelaDeNomes
+    // nova com os nomes na ordem original, para os ids continuarem valendo
+    public TokenBuffer tokens(FonteDeCaracteres fonte) {
+        TabelaDeNomes tabela = new TabelaDeNomes();
+        for (String nome : nomes) {
+            tabela.idDe(nome);
+        }
+        return FormatoDoCache.lerTokens(tokens, quantidadeDeTokens, fonte, tabela);
+    }
+}
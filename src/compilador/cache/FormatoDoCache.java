@@ -0,0 +1,196 @@
+package compilador.cache;
+
+import compilador.lexico.FonteDeCaracteres;
+import compilador.lexico.TabelaDeNomes;
+import compilador.lexico.TextoCesu8;
+import compilador.lexico.TipoToken;
+import compilador.lexico.TokenBuffer;
+import compilador.sintatico.Diagnosticos;
+import compilador.tabela.Simbolo;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Formato binário de uma entrada do cache (big-endian, via Data*Stream):
+//   magia, versão do compilador, hash (2 longs) e tamanho da fonte
+//   diagnósticos: quantidade, e por diagnóstico linha, tipo (0 sintático, 1 semântico), detalhe
+//   símbolos globais: quantidade, e por símbolo nome e ordinal do tipo (-1 sem tipo)
+//   tokens: quantidade, tamanho em bytes e os bytes (ver escreverTokens), e depois os nomes
+// Os textos são gravados como tamanho + bytes em CESU-8 (writeUTF não aceita mais de 64 KB). O
+// UTF-8 trocaria por '?' as metades de par substituto que o lexer separa em tokens de erro.
+final class FormatoDoCache {
+    static final int MAGIA = 0x43414332; // "CAC2": textos em CESU-8; "CAC1" os tinha em UTF-8
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    private FormatoDoCache() {
+    }
+
+    static byte[] escrever(long versao, long[] hash, int tamanhoDaFonte, TokenBuffer tokens, Diagnosticos diagnosticos,
+            List<Simbolo> simbolosGlobais) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + tokens.tamanho() * 6);
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(MAGIA);
+        saida.writeLong(versao);
+        saida.writeLong(hash[0]);
+        saida.writeLong(hash[1]);
+        saida.writeInt(tamanhoDaFonte);
+
+        saida.writeInt(diagnosticos.tamanho());
+        for (int i = 0; i < diagnosticos.tamanho(); i++) {
+            saida.writeInt(diagnosticos.linha(i));
+            saida.writeByte(diagnosticos.ehSemantico(i) ? 1 : 0);
+            escreverTexto(saida, diagnosticos.detalhe(i));
+        }
+
+        saida.writeInt(simbolosGlobais.size());
+        for (Simbolo simbolo : simbolosGlobais) {
+            escreverTexto(saida, simbolo.nome());
+            saida.writeByte(simbolo.tipo() == null ? -1 : simbolo.tipo().ordinal());
+        }
+
+        byte[] colunas = escreverTokens(tokens);
+        saida.writeInt(tokens.tamanho());
+        saida.writeInt(colunas.length);
+        saida.write(colunas);
+        TabelaDeNomes nomes = tokens.nomes();
+        saida.writeInt(nomes.tamanho());
+        for (int id = 0; id < nomes.tamanho(); id++) {
+            escreverTexto(saida, nomes.nome(id));
+        }
+        saida.flush();
+        return bytes.toByteArray();
+    }
+
+    // Lê uma entrada inteira; devolve null se ela não é da versão, do hash ou do tamanho esperados.
+    // Bytes truncados ou corrompidos aparecem como IOException (ou RuntimeException) para quem chama.
+    static EntradaDoCache ler(DataInputStream entrada, long versao, long[] hash, int tamanhoDaFonte) throws IOException {
+        if (entrada.readInt() != MAGIA || entrada.readLong() != versao || entrada.readLong() != hash[0]
+                || entrada.readLong() != hash[1] || entrada.readInt() != tamanhoDaFonte) {
+            return null;
+        }
+
+        int quantidade = tamanhoValido(entrada.readInt());
+        int[] linhas = new int[quantidade];
+        boolean[] semanticos = new boolean[quantidade];
+        String[] detalhes = new String[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            linhas[i] = entrada.readInt();
+            semanticos[i] = entrada.readByte() == 1;
+            detalhes[i] = lerTexto(entrada);
+        }
+
+        quantidade = tamanhoValido(entrada.readInt());
+        List<Simbolo> simbolos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            String nome = lerTexto(entrada);
+            int tipo = entrada.readByte();
+            simbolos.add(new Simbolo(nome, tipo < 0 ? null : TIPOS[tipo]));
+        }
+
+        int quantidadeDeTokens = tamanhoValido(entrada.readInt());
+        byte[] tokens = new byte[tamanhoValido(entrada.readInt())];
+        entrada.readFully(tokens);
+        String[] nomes = new String[tamanhoValido(entrada.readInt())];
+        for (int i = 0; i < nomes.length; i++) {
+            nomes[i] = lerTexto(entrada);
+        }
+        return new EntradaDoCache(Diagnosticos.de(linhas, semanticos, detalhes), List.copyOf(simbolos),
+                quantidadeDeTokens, tokens, nomes);
+    }
+
+    // Um token por vez, cada campo como varint: tipo, início (diferença para o início do token
+    // anterior), comprimento, linha (diferença para a anterior) e id + 1 (0 se não é nome).
+    // Os tokens de um programa costumam caber em 5 ou 6 bytes, em vez dos 20 das colunas int.
+    private static byte[] escreverTokens(TokenBuffer tokens) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(tokens.tamanho() * 6);
+        int inicioAnterior = 0;
+        int linhaAnterior = 0;
+        for (int i = 0; i < tokens.tamanho(); i++) {
+            escreverVarint(saida, tokens.tipoOrdinal(i));
+            escreverVarint(saida, zigzag(tokens.inicio(i) - inicioAnterior));
+            escreverVarint(saida, tokens.comprimento(i));
+            escreverVarint(saida, zigzag(tokens.linha(i) - linhaAnterior));
+            escreverVarint(saida, tokens.id(i) + 1);
+            inicioAnterior = tokens.inicio(i);
+            linhaAnterior = tokens.linha(i);
+        }
+        return saida.toByteArray();
+    }
+
+    static TokenBuffer lerTokens(byte[] bytes, int quantidade, FonteDeCaracteres fonte, TabelaDeNomes nomes) {
+        int capacidade = Math.max(quantidade, 16);
+        int[] tipos = new int[capacidade];
+        int[] inicios = new int[capacidade];
+        int[] comprimentos = new int[capacidade];
+        int[] linhas = new int[capacidade];
+        int[] ids = new int[capacidade];
+        int[] posicao = { 0 };
+        int inicio = 0;
+        int linha = 0;
+        for (int i = 0; i < quantidade; i++) {
+            tipos[i] = lerVarint(bytes, posicao);
+            inicio += deszigzag(lerVarint(bytes, posicao));
+            inicios[i] = inicio;
+            comprimentos[i] = lerVarint(bytes, posicao);
+            linha += deszigzag(lerVarint(bytes, posicao));
+            linhas[i] = linha;
+            ids[i] = lerVarint(bytes, posicao) - 1;
+        }
+        return TokenBuffer.deColunas(fonte, nomes, tipos, inicios, comprimentos, linhas, ids, quantidade);
+    }
+
+    private static void escreverVarint(ByteArrayOutputStream saida, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            saida.write((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        saida.write(valor);
+    }
+
+    private static int lerVarint(byte[] bytes, int[] posicao) {
+        int valor = 0;
+        for (int deslocamento = 0; deslocamento < 32; deslocamento += 7) {
+            int b = bytes[posicao[0]++];
+            valor |= (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IllegalStateException("varint malformado no cache");
+    }
+
+    private static int zigzag(int valor) {
+        return (valor << 1) ^ (valor >> 31);
+    }
+
+    private static int deszigzag(int valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+        byte[] bytes = TextoCesu8.codificar(texto);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+
+    private static String lerTexto(DataInputStream entrada) throws IOException {
+        byte[] bytes = new byte[tamanhoValido(entrada.readInt())];
+        entrada.readFully(bytes);
+        return TextoCesu8.decodificar(bytes);
+    }
+
+    // Um tamanho lido de um arquivo possivelmente corrompido não pode virar um array gigante
+    private static int tamanhoValido(int tamanho) throws IOException {
+        if (tamanho < 0 || tamanho > (1 << 28)) {
+            throw new IOException("tamanho inválido no cache: " + tamanho);
+        }
+        return tamanho;
+    }
+
+    static String hex(long[] hash) {
+        return String.format("%016x%016x", hash[0], hash[1]);
+    }
+}
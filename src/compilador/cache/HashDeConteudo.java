@@ -0,0 +1,82 @@
+package compilador.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// MurmurHash3 de 128 bits (variante x64): rápido, lê 16 bytes por passo, e com 128 bits a
+// chance de dois arquivos diferentes colidirem no cache é desprezível. Não é criptográfico.
+final class HashDeConteudo {
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private HashDeConteudo() {
+    }
+
+    // Devolve {h1, h2}
+    static long[] hash(byte[] dados, int tamanho, long semente) {
+        long h1 = semente;
+        long h2 = semente;
+        int blocos = tamanho / 16 * 16;
+        for (int i = 0; i < blocos; i += 16) {
+            long k1 = (long) LONG.get(dados, i);
+            long k2 = (long) LONG.get(dados, i + 8);
+            h1 ^= misturarK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= misturarK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        int resto = tamanho - blocos;
+        for (int i = resto - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (dados[blocos + i] & 0xff);
+        }
+        for (int i = Math.min(resto, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (dados[blocos + i] & 0xff);
+        }
+        if (resto > 8) {
+            h2 ^= misturarK2(k2);
+        }
+        if (resto > 0) {
+            h1 ^= misturarK1(k1);
+        }
+
+        h1 ^= tamanho;
+        h2 ^= tamanho;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] { h1, h2 };
+    }
+
+    private static long misturarK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long misturarK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
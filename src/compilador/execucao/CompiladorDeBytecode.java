@@ -0,0 +1,609 @@
+package compilador.execucao;
+
+import static compilador.execucao.Instrucoes.*;
+
+import compilador.execucao.exceptions.ErroSemantico;
+import compilador.lexico.TipoToken;
+import compilador.sintatico.Arvore;
+import compilador.sintatico.Resolucao;
+import compilador.sintatico.TipoNo;
+import java.util.Arrays;
+
+// Traduz a Arvore de um programa para o código da MaquinaVirtual. Cada rotina tem um quadro de
+// registradores: primeiro os parâmetros, depois as variáveis locais e por fim os temporários
+// das expressões. As variáveis do programa são globais. Os nomes são resolvidos aqui, pelo id
+// da TabelaDeNomes, na ordem do texto: um nome só é visível depois da sua declaração (as
+// rotinas são a exceção, podem ser chamadas antes de declaradas). Com uma Resolucao, a
+// numeração das rotinas, as posições das variáveis e o tamanho das variáveis de cada quadro
+// vêm dela, e as conferências de nome e de aridade, já feitas pelo Resolvedor, não se repetem.
+//
+// Todas as variáveis começam com 0 (ou falso); a declaração em si não gera código. Um valor
+// lógico é 1 ou 0, e nas condições qualquer valor diferente de 0 é verdadeiro.
+public class CompiladorDeBytecode {
+    private final Arvore arvore;
+    private final Resolucao resolucao; // null: os nomes são resolvidos aqui
+
+    private int[] codigo = new int[256];
+    private int tamanho = 0;
+
+    // Por id de nome: registrador da variável local, posição da global e índice da rotina (ou -1)
+    private final int[] locais;
+    private final int[] globais;
+    private final int[] rotinas;
+    private final boolean[] localLogica;
+    private final boolean[] globalLogica;
+    private int quantidadeDeGlobais = 0;
+
+    // Por índice de rotina
+    private String[] nomesDasRotinas;
+    private int[] inicios;
+    private int[] fins;
+    private int[] quadros;
+    private int[] aridades;
+    private boolean[] funcoes;
+    private boolean[] retornaLogico;
+    private int[] chamadasPendentes; // cadeia das instruções CHAMAR a completar no fim
+
+    // Rotina sendo compilada (nenhuma quando emRotina é false)
+    private boolean emRotina = false;
+    private int[] declaradosNaRotina = new int[16];
+    private int quantidadeDeclarada = 0;
+    private int proximoLocal = 0;  // registrador da próxima variável local declarada
+    private int registradores = 0; // próximo registrador livre para temporários
+    private int quadro = 0;        // maior quantidade de registradores usada
+
+    // Saltos de pare/continue do laço mais interno, ainda sem destino
+    private int cadeiaDePare = -1;
+    private int cadeiaDeContinue = -1;
+
+    // Resolve os nomes durante a compilação (árvores que não passaram pelo Resolvedor)
+    public CompiladorDeBytecode(Arvore arvore) {
+        this(arvore, null);
+    }
+
+    // Usa os símbolos da resolução, que não pode ter erros
+    public CompiladorDeBytecode(Resolucao resolucao) {
+        this(resolucao.arvore(), resolucao);
+        if (!resolucao.diagnosticos().vazio()) {
+            throw new IllegalArgumentException("A resolução tem erros; o programa não pode ser compilado");
+        }
+    }
+
+    private CompiladorDeBytecode(Arvore arvore, Resolucao resolucao) {
+        this.arvore = arvore;
+        this.resolucao = resolucao;
+        int nomes = arvore.nomes().tamanho();
+        locais = new int[nomes];
+        globais = new int[nomes];
+        rotinas = new int[nomes];
+        localLogica = new boolean[nomes];
+        globalLogica = new boolean[nomes];
+        Arrays.fill(locais, -1);
+        Arrays.fill(globais, -1);
+        Arrays.fill(rotinas, -1);
+    }
+
+    public ProgramaCompilado compilar() throws ErroSemantico {
+        EventoSemantico evento = new EventoSemantico();
+        evento.begin();
+        boolean erro = true;
+        try {
+            ProgramaCompilado programa = gerar();
+            erro = false;
+            return programa;
+        } finally {
+            if (evento.shouldCommit()) {
+                evento.nos = arvore.tamanho();
+                evento.rotinas = inicios == null ? 0 : inicios.length;
+                evento.tamanhoDoCodigo = tamanho;
+                evento.erro = erro;
+                evento.commit();
+            }
+        }
+    }
+
+    private ProgramaCompilado gerar() throws ErroSemantico {
+        int programa = arvore.raiz();
+        declararRotinas(programa);
+        for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.DECL_FUNCAO || tipo == TipoNo.DECL_PROCEDIMENTO) {
+                rotina(no);
+            } else {
+                comando(no);
+            }
+        }
+        emitir(PARAR);
+        if (resolucao != null) {
+            quantidadeDeGlobais = resolucao.quantidadeDeGlobais();
+        }
+
+        // Agora todas as rotinas têm início e tamanho de quadro conhecidos
+        for (int r = 0; r < inicios.length; r++) {
+            int p = chamadasPendentes[r];
+            while (p >= 0) {
+                int proxima = codigo[p];
+                codigo[p] = inicios[r];
+                codigo[p + 1] = quadros[r];
+                p = proxima;
+            }
+        }
+        return new ProgramaCompilado(Arrays.copyOf(codigo, tamanho), quadro, quantidadeDeGlobais, nomesDasRotinas,
+                inicios, fins, aridades, quadros, funcoes);
+    }
+
+    // Numera as rotinas antes de compilar, para que possam ser chamadas antes da declaração
+    private void declararRotinas(int programa) {
+        int quantidade = 0;
+        for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.DECL_FUNCAO || tipo == TipoNo.DECL_PROCEDIMENTO) {
+                quantidade++;
+            }
+        }
+        nomesDasRotinas = new String[quantidade];
+        inicios = new int[quantidade];
+        fins = new int[quantidade];
+        quadros = new int[quantidade];
+        aridades = new int[quantidade];
+        funcoes = new boolean[quantidade];
+        retornaLogico = new boolean[quantidade];
+        chamadasPendentes = new int[quantidade];
+        Arrays.fill(chamadasPendentes, -1);
+        int r = 0;
+        for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.DECL_FUNCAO || tipo == TipoNo.DECL_PROCEDIMENTO) {
+                rotinas[arvore.valor(no)] = r;
+                nomesDasRotinas[r] = arvore.nome(no);
+                funcoes[r] = tipo == TipoNo.DECL_FUNCAO;
+                retornaLogico[r] = arvore.operador(no) == TipoToken.BOOL;
+                aridades[r] = arvore.quantidadeDeFilhos(no) - 1; // parâmetros e o BLOCO
+                r++;
+            }
+        }
+    }
+
+    private void rotina(int no) throws ErroSemantico {
+        int r = numeroDaRotina(no);
+        int pulo = saltoPendente(SALTAR, -1); // o corpo principal passa por cima da rotina
+        inicios[r] = tamanho;
+        // Os registradores de todas as variáveis da rotina vêm antes dos temporários: uma
+        // variável declarada mais adiante pode estar viva antes (na volta seguinte de um laço)
+        int variaveis = resolucao != null ? resolucao.tamanhoDoQuadro(r) : aridades[r] + contarVariaveis(no);
+        emitir(ZERAR, aridades[r], variaveis - aridades[r]);
+        emRotina = true;
+        proximoLocal = 0;
+        registradores = variaveis;
+        int quadroPrincipal = quadro;
+        quadro = variaveis;
+        for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+            if (arvore.tipo(filho) == TipoNo.PARAMETRO) {
+                declararLocal(filho);
+            } else {
+                bloco(filho);
+            }
+        }
+        emitir(RETORNAR_NADA);
+        quadros[r] = quadro;
+        fins[r] = tamanho;
+
+        for (int i = 0; i < quantidadeDeclarada; i++) {
+            locais[declaradosNaRotina[i]] = -1;
+        }
+        quantidadeDeclarada = 0;
+        emRotina = false;
+        registradores = 0;
+        quadro = quadroPrincipal;
+        resolver(pulo, tamanho);
+    }
+
+    // Parâmetros e variáveis declaradas em qualquer lugar dentro do nó
+    private int contarVariaveis(int no) {
+        int quantidade = 0;
+        for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+            switch (arvore.tipo(filho)) {
+                case VARIAVEL -> quantidade++;
+                case DECL_VAR, BLOCO, SE, ENQUANTO -> quantidade += contarVariaveis(filho);
+                default -> { }
+            }
+        }
+        return quantidade;
+    }
+
+    private void declararLocal(int no) {
+        if (resolucao != null) {
+            return; // a posição já vem da resolução
+        }
+        int id = arvore.valor(no);
+        locais[id] = proximoLocal++;
+        localLogica[id] = arvore.operador(no) == TipoToken.BOOL;
+        if (quantidadeDeclarada == declaradosNaRotina.length) {
+            declaradosNaRotina = Arrays.copyOf(declaradosNaRotina, quantidadeDeclarada * 2);
+        }
+        declaradosNaRotina[quantidadeDeclarada++] = id;
+    }
+
+    private void bloco(int no) throws ErroSemantico {
+        for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+            comando(filho);
+        }
+    }
+
+    private void comando(int no) throws ErroSemantico {
+        switch (arvore.tipo(no)) {
+            case DECL_VAR -> {
+                if (resolucao != null) {
+                    return; // posições já atribuídas pelo Resolvedor
+                }
+                for (int v = arvore.primeiroFilho(no); v >= 0; v = arvore.proximoIrmao(v)) {
+                    if (emRotina) {
+                        declararLocal(v);
+                    } else {
+                        int id = arvore.valor(v);
+                        globais[id] = quantidadeDeGlobais++;
+                        globalLogica[id] = arvore.operador(v) == TipoToken.BOOL;
+                    }
+                }
+            }
+            case ATRIBUICAO -> {
+                int local = local(no);
+                int expressao = arvore.primeiroFilho(no);
+                if (local >= 0) {
+                    expressao(expressao, local);
+                } else {
+                    int g = global(no);
+                    int marca = registradores;
+                    emitir(GRAVAR_GLOBAL, g, expressao(expressao, -1));
+                    registradores = marca;
+                }
+            }
+            case CHAMADA -> {
+                int marca = registradores;
+                chamada(no, -1, false);
+                registradores = marca;
+            }
+            case SE -> {
+                int condicao = arvore.primeiroFilho(no);
+                int entao = arvore.proximoIrmao(condicao);
+                int senao = arvore.proximoIrmao(entao);
+                int falsos = condicao(condicao, false, -1);
+                bloco(entao);
+                if (senao >= 0) {
+                    int fim = saltoPendente(SALTAR, -1);
+                    resolver(falsos, tamanho);
+                    bloco(senao);
+                    resolver(fim, tamanho);
+                } else {
+                    resolver(falsos, tamanho);
+                }
+            }
+            case ENQUANTO -> {
+                // O teste fica depois do corpo: uma volta custa um salto condicional só
+                int condicao = arvore.primeiroFilho(no);
+                int pareExterno = cadeiaDePare;
+                int continueExterno = cadeiaDeContinue;
+                cadeiaDePare = -1;
+                cadeiaDeContinue = -1;
+                int paraOTeste = saltoPendente(SALTAR, -1);
+                int corpo = tamanho;
+                bloco(arvore.proximoIrmao(condicao));
+                resolver(paraOTeste, tamanho);
+                resolver(cadeiaDeContinue, tamanho);
+                resolver(condicao(condicao, true, -1), corpo);
+                resolver(cadeiaDePare, tamanho);
+                cadeiaDePare = pareExterno;
+                cadeiaDeContinue = continueExterno;
+            }
+            case LEIA -> {
+                int local = local(no);
+                int linha = arvore.linha(no);
+                int leitura = logica(no) ? LER_LOGICO : LER_INTEIRO;
+                if (local >= 0) {
+                    emitir(leitura, local, linha);
+                } else {
+                    int g = global(no);
+                    int t = reservar();
+                    emitir(leitura, t, linha);
+                    emitir(GRAVAR_GLOBAL, g, t);
+                    registradores--;
+                }
+            }
+            case ESCREVA -> {
+                int expressao = arvore.primeiroFilho(no);
+                int marca = registradores;
+                emitir(logica(expressao) ? ESCREVER_LOGICO : ESCREVER_INTEIRO, expressao(expressao, -1));
+                registradores = marca;
+            }
+            case PARE -> cadeiaDePare = saltoPendente(SALTAR, cadeiaDePare);
+            case CONTINUE -> cadeiaDeContinue = saltoPendente(SALTAR, cadeiaDeContinue);
+            case RETORNE -> {
+                int marca = registradores;
+                emitir(RETORNAR, expressao(arvore.primeiroFilho(no), -1));
+                registradores = marca;
+            }
+            default -> throw new IllegalStateException("Nó inesperado no lugar de um comando: " + arvore.tipo(no));
+        }
+    }
+
+    // Compila a expressão e devolve o registrador com o valor dela. Com destino >= 0, o valor
+    // fica nesse registrador.
+    private int expressao(int no, int destino) throws ErroSemantico {
+        switch (arvore.tipo(no)) {
+            case NUMERO, LOGICO -> {
+                int d = alvo(destino);
+                emitir(CONSTANTE, d, arvore.valor(no));
+                return d;
+            }
+            case NOME -> {
+                int local = local(no);
+                if (local >= 0) {
+                    if (destino < 0 || destino == local) {
+                        return local;
+                    }
+                    emitir(MOVER, destino, local);
+                    return destino;
+                }
+                int g = global(no);
+                int d = alvo(destino);
+                emitir(LER_GLOBAL, d, g);
+                return d;
+            }
+            case CHAMADA -> {
+                return chamada(no, destino, true);
+            }
+            case UNARIA -> {
+                int marca = registradores;
+                int a = expressao(arvore.primeiroFilho(no), -1);
+                registradores = marca;
+                int d = alvo(destino);
+                emitir(arvore.operador(no) == TipoToken.MENOS ? NEGAR : NAO, d, a);
+                return d;
+            }
+            case BINARIA -> {
+                TipoToken operador = arvore.operador(no);
+                if (operador == TipoToken.E_LOGICO || operador == TipoToken.OU_LOGICO) {
+                    return logicaComoValor(no, destino);
+                }
+                int esquerda = arvore.primeiroFilho(no);
+                int direita = arvore.proximoIrmao(esquerda);
+                int marca = registradores;
+                // x + k e x - k não precisam carregar a constante num registrador
+                if ((operador == TipoToken.MAIS || operador == TipoToken.MENOS) && arvore.tipo(direita) == TipoNo.NUMERO) {
+                    int a = expressao(esquerda, -1);
+                    registradores = marca;
+                    int d = alvo(destino);
+                    int k = arvore.valor(direita);
+                    emitir(SOMAR_CONSTANTE, d, a, operador == TipoToken.MAIS ? k : -k);
+                    return d;
+                }
+                int a = expressao(esquerda, -1);
+                int b = expressao(direita, -1);
+                registradores = marca;
+                int d = alvo(destino);
+                switch (operador) {
+                    case MAIS -> emitir(SOMAR, d, a, b);
+                    case MENOS -> emitir(SUBTRAIR, d, a, b);
+                    case VEZES -> emitir(MULTIPLICAR, d, a, b);
+                    case DIVISAO -> emitir(DIVIDIR, d, a, b, arvore.linha(no));
+                    default -> emitir(comparacao(operador, IGUAL), d, a, b);
+                }
+                return d;
+            }
+            default -> throw new IllegalStateException("Nó inesperado no lugar de uma expressão: " + arvore.tipo(no));
+        }
+    }
+
+    // && e || fora de uma condição: a mesma sequência de saltos, guardando 1 ou 0
+    private int logicaComoValor(int no, int destino) throws ErroSemantico {
+        // Usa um temporário: o destino pode ser uma variável lida pela própria expressão
+        int t = reservar();
+        int falsos = condicao(no, false, -1);
+        emitir(CONSTANTE, t, 1);
+        int fim = saltoPendente(SALTAR, -1);
+        resolver(falsos, tamanho);
+        emitir(CONSTANTE, t, 0);
+        resolver(fim, tamanho);
+        if (destino >= 0) {
+            emitir(MOVER, destino, t);
+            registradores--;
+            return destino;
+        }
+        return t;
+    }
+
+    // Emite saltos que são tomados quando o valor da expressão é 'quando' e devolve a cadeia
+    // deles (ligada à 'cadeia' recebida) para serem resolvidos depois
+    private int condicao(int no, boolean quando, int cadeia) throws ErroSemantico {
+        TipoNo tipo = arvore.tipo(no);
+        if (tipo == TipoNo.LOGICO) {
+            return (arvore.valor(no) != 0) == quando ? saltoPendente(SALTAR, cadeia) : cadeia;
+        }
+        if (tipo == TipoNo.UNARIA && arvore.operador(no) == TipoToken.NAO_LOGICO) {
+            return condicao(arvore.primeiroFilho(no), !quando, cadeia);
+        }
+        if (tipo == TipoNo.BINARIA) {
+            TipoToken operador = arvore.operador(no);
+            int esquerda = arvore.primeiroFilho(no);
+            int direita = arvore.proximoIrmao(esquerda);
+            if (operador == TipoToken.E_LOGICO || operador == TipoToken.OU_LOGICO) {
+                // a && b é falso se a é falso; a || b é verdadeiro se a é verdadeiro
+                boolean curto = operador == TipoToken.OU_LOGICO;
+                if (quando == curto) {
+                    cadeia = condicao(esquerda, quando, cadeia);
+                    return condicao(direita, quando, cadeia);
+                }
+                int pula = condicao(esquerda, curto, -1);
+                cadeia = condicao(direita, quando, cadeia);
+                resolver(pula, tamanho);
+                return cadeia;
+            }
+            int comparacao = comparacao(operador, SALTAR_SE_IGUAL);
+            if (comparacao >= 0) {
+                int marca = registradores;
+                int a = expressao(esquerda, -1);
+                int b = expressao(direita, -1);
+                registradores = marca;
+                if (!quando) {
+                    comparacao = SALTAR_SE_IGUAL + CONTRARIAS[comparacao - SALTAR_SE_IGUAL];
+                }
+                emitir(comparacao, a, b, cadeia);
+                return tamanho - 1;
+            }
+        }
+        int marca = registradores;
+        int a = expressao(no, -1);
+        registradores = marca;
+        emitir(quando ? SALTAR_SE_NAO_ZERO : SALTAR_SE_ZERO, a, cadeia);
+        return tamanho - 1;
+    }
+
+    // Para cada comparação (na ordem de IGUAL..MAIOR_IGUAL), a que dá o resultado contrário
+    private static final int[] CONTRARIAS = { 1, 0, 5, 4, 3, 2 };
+
+    // Instrução da família que começa em 'primeira' (IGUAL ou SALTAR_SE_IGUAL) para o
+    // operador relacional, ou -1 se não for relacional
+    private static int comparacao(TipoToken operador, int primeira) {
+        return switch (operador) {
+            case IGUAL -> primeira;
+            case DIFERENTE -> primeira + 1;
+            case MENOR -> primeira + 2;
+            case MENOR_IGUAL -> primeira + 3;
+            case MAIOR -> primeira + 4;
+            case MAIOR_IGUAL -> primeira + 5;
+            default -> -1;
+        };
+    }
+
+    // Os argumentos são calculados nos registradores logo acima dos que estão em uso, que
+    // viram os primeiros registradores (os parâmetros) do quadro da rotina chamada
+    private int chamada(int no, int destino, boolean comoExpressao) throws ErroSemantico {
+        int r = numeroDaRotina(no);
+        if (resolucao == null) {
+            if (r < 0 || local(no) >= 0) {
+                throw naoDeclarado(no, "rotina");
+            }
+            if (comoExpressao && !funcoes[r]) {
+                throw new ErroSemantico(arvore.linha(no),
+                        "O procedimento '" + arvore.nome(no) + "' não devolve valor e não pode ser usado numa expressão.");
+            }
+            int argumentos = arvore.quantidadeDeFilhos(no);
+            if (argumentos != aridades[r]) {
+                throw new ErroSemantico(arvore.linha(no), "A rotina '" + arvore.nome(no) + "' espera " + aridades[r]
+                        + " argumento(s) mas recebeu " + argumentos + ".");
+            }
+        }
+        int base = registradores;
+        int i = 0;
+        for (int argumento = arvore.primeiroFilho(no); argumento >= 0; argumento = arvore.proximoIrmao(argumento)) {
+            registradores = base + i;
+            reservar();
+            expressao(argumento, base + i);
+            i++;
+        }
+        registradores = base;
+        int d = alvo(destino);
+        emitir(CHAMAR, chamadasPendentes[r], 0, base, d, arvore.linha(no));
+        chamadasPendentes[r] = tamanho - 5;
+        return d;
+    }
+
+    // Número da rotina declarada ou chamada pelo nó, ou -1
+    private int numeroDaRotina(int no) {
+        if (resolucao != null) {
+            return resolucao.posicao(resolucao.simbolo(no)); // a posição de uma rotina é o número dela
+        }
+        return rotinas[arvore.valor(no)];
+    }
+
+    // Registrador do parâmetro ou variável local usado pelo nó (NOME, ATRIBUICAO, LEIA ou
+    // CHAMADA), ou -1 se o nome não é de uma variável local
+    private int local(int no) {
+        if (resolucao != null) {
+            int simbolo = resolucao.simbolo(no);
+            byte categoria = resolucao.categoria(simbolo);
+            return categoria == Resolucao.PARAMETRO || categoria == Resolucao.LOCAL ? resolucao.posicao(simbolo) : -1;
+        }
+        return emRotina ? locais[arvore.valor(no)] : -1;
+    }
+
+    private int global(int no) throws ErroSemantico {
+        if (resolucao != null) {
+            return resolucao.posicao(resolucao.simbolo(no));
+        }
+        int g = globais[arvore.valor(no)];
+        if (g < 0) {
+            throw naoDeclarado(no, "variável");
+        }
+        return g;
+    }
+
+    private ErroSemantico naoDeclarado(int no, String esperado) {
+        int id = arvore.valor(no);
+        if ((emRotina && locais[id] >= 0) || globais[id] >= 0 || rotinas[id] >= 0) {
+            return new ErroSemantico(arvore.linha(no), "'" + arvore.nome(no) + "' não é uma " + esperado + ".");
+        }
+        return new ErroSemantico(arvore.linha(no), "Identificador '" + arvore.nome(no) + "' não foi declarado.");
+    }
+
+    // Se a expressão produz um valor lógico (para escreva mostrar verdadeiro/falso), ou se a
+    // variável de um leia é bool
+    private boolean logica(int no) {
+        if (resolucao != null) {
+            return arvore.tipo(no) == TipoNo.LEIA
+                    ? resolucao.tipoDoSimbolo(resolucao.simbolo(no)) == Resolucao.BOOL
+                    : resolucao.tipo(no) == Resolucao.BOOL;
+        }
+        return switch (arvore.tipo(no)) {
+            case LOGICO -> true;
+            case NUMERO -> false;
+            case UNARIA -> arvore.operador(no) == TipoToken.NAO_LOGICO;
+            case BINARIA -> switch (arvore.operador(no)) {
+                case MAIS, MENOS, VEZES, DIVISAO -> false;
+                default -> true;
+            };
+            case NOME, LEIA -> {
+                int id = arvore.valor(no);
+                yield emRotina && locais[id] >= 0 ? localLogica[id] : globais[id] >= 0 && globalLogica[id];
+            }
+            case CHAMADA -> rotinas[arvore.valor(no)] >= 0 && retornaLogico[rotinas[arvore.valor(no)]];
+            default -> false;
+        };
+    }
+
+    private int alvo(int destino) {
+        return destino >= 0 ? destino : reservar();
+    }
+
+    private int reservar() {
+        int r = registradores++;
+        if (registradores > quadro) {
+            quadro = registradores;
+        }
+        return r;
+    }
+
+    // Emite um salto com o destino ainda desconhecido, ligado à 'cadeia' dos outros saltos
+    // que vão para o mesmo lugar; o destino de cada um guarda a posição do anterior
+    private int saltoPendente(int instrucao, int cadeia) {
+        emitir(instrucao, cadeia);
+        return tamanho - 1;
+    }
+
+    // Faz todos os saltos da cadeia irem para 'destino'
+    private void resolver(int cadeia, int destino) {
+        while (cadeia >= 0) {
+            int anterior = codigo[cadeia];
+            codigo[cadeia] = destino;
+            cadeia = anterior;
+        }
+    }
+
+    private void emitir(int... instrucao) {
+        if (tamanho + instrucao.length > codigo.length) {
+            codigo = Arrays.copyOf(codigo, Math.max(codigo.length * 2, tamanho + instrucao.length));
+        }
+        System.arraycopy(instrucao, 0, codigo, tamanho, instrucao.length);
+        tamanho += instrucao.length;
+    }
+}
@@ -0,0 +1,430 @@
+package compilador.execucao;
+
+import static compilador.execucao.Instrucoes.*;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+
+// Traduz um ProgramaCompilado para uma classe da JVM, carregada como classe oculta: cada rotina
+// vira um método estático (os registradores do quadro viram as variáveis locais do método,
+// e CHAMAR vira invokestatic), o corpo principal vira o método principal() e as globais
+// viram campos estáticos. Assim o JIT da JVM compila os laços do programa para código nativo.
+//
+// A tradução é instrução por instrução, e cada instrução da MaquinaVirtual deixa a pilha da
+// JVM vazia; todas as variáveis locais são int e são zeradas na entrada do método. Por isso
+// todo ponto de desvio tem o mesmo quadro da StackMapTable: só ints nas locais, pilha vazia.
+// Valores lógicos também são int (0 ou 1), como na MaquinaVirtual.
+public class CompiladorJvm {
+    private static final String CLASSE = "compilador/execucao/ProgramaGerado";
+    private static final String ES = "compilador/execucao/EntradaESaida";
+    private static final String SUPORTE = "compilador/execucao/ProgramaNaJvm";
+
+    // Um método maior que isso não cabe nos desvios de 16 bits (goto/if_icmp)
+    private static final int METODO_MAXIMO = 32 * 1024 - 1;
+
+    // Opcodes da JVM usados aqui
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD = 0x15;
+    private static final int ILOAD_0 = 0x1a;
+    private static final int ISTORE = 0x36;
+    private static final int ISTORE_0 = 0x3b;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IMUL = 0x68;
+    private static final int INEG = 0x74;
+    private static final int IINC = 0x84;
+    private static final int IFEQ = 0x99;
+    private static final int IFNE = 0x9a;
+    private static final int IF_ICMPEQ = 0x9f; // seguido de NE, LT, GE, GT, LE
+    private static final int GOTO = 0xa7;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2;
+    private static final int PUTSTATIC = 0xb3;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int WIDE = 0xc4;
+
+    // if_icmpXX da JVM para cada comparação, na ordem de SALTAR_SE_IGUAL..SALTAR_SE_MAIOR_IGUAL
+    private static final int[] DESVIOS = { 0x9f, 0xa0, 0xa1, 0xa4, 0xa3, 0xa2 };
+    // e o desvio contrário, para as comparações que guardam 1 ou 0
+    private static final int[] CONTRARIOS = { 0xa0, 0x9f, 0xa2, 0xa3, 0xa4, 0xa1 };
+
+    private final ProgramaCompilado programa;
+    private final EscritorDeClasse classe = new EscritorDeClasse(CLASSE);
+
+    // Por posição no código da MaquinaVirtual: índice da rotina que começa ali (ou -1), se é
+    // destino de algum salto e onde ficou no código da JVM
+    private final int[] rotinaEm;
+    private final boolean[] destinos;
+    private final int[] posicoes;
+
+    // Método sendo gerado
+    private byte[] jvm = new byte[1024];
+    private int tamanho;
+    private int locais;
+    private int parametros;
+    private int[] desvios = new int[64]; // pares (posição do offset, posição de destino na MaquinaVirtual)
+    private int quantidadeDeDesvios;
+    private int[] quadros = new int[64]; // posições no código da JVM que precisam de um quadro
+    private int quantidadeDeQuadros;
+
+    public CompiladorJvm(ProgramaCompilado programa) {
+        this.programa = programa;
+        int[] codigo = programa.codigo;
+        rotinaEm = new int[codigo.length];
+        Arrays.fill(rotinaEm, -1);
+        for (int r = 0; r < programa.inicios.length; r++) {
+            rotinaEm[programa.inicios[r]] = r;
+        }
+        destinos = new boolean[codigo.length + 1];
+        posicoes = new int[codigo.length + 1];
+        for (int pc = 0; pc < codigo.length; pc += 1 + OPERANDOS[codigo[pc]]) {
+            int instrucao = codigo[pc];
+            if (instrucao >= SALTAR && instrucao <= SALTAR_SE_MAIOR_IGUAL) {
+                destinos[codigo[pc + OPERANDOS[instrucao]]] = true; // o alvo é o último operando
+            }
+        }
+    }
+
+    // Gera e carrega a classe. Lança UnsupportedOperationException se o programa passa dos
+    // limites de um .class (rotina grande demais, constantes demais).
+    public ProgramaNaJvm compilar() {
+        classe.adicionarCampo(EscritorDeClasse.ESTATICO, "es", "L" + ES + ";");
+        for (int g = 0; g < programa.quantidadeDeGlobais; g++) {
+            classe.adicionarCampo(EscritorDeClasse.ESTATICO, "g" + g, "I");
+        }
+        for (int r = 0; r < programa.inicios.length; r++) {
+            metodo(nomeDoMetodo(r), descritor(r), programa.inicios[r], programa.fins[r],
+                    programa.aridades[r], programa.quadros[r], programa.funcoes[r]);
+        }
+        metodo("principal", "()V", 0, programa.codigo.length, 0, programa.quadroPrincipal, false);
+
+        try {
+            MethodHandles.Lookup oculta = MethodHandles.lookup().defineHiddenClass(classe.bytes(), true);
+            return new ProgramaNaJvm(oculta);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String nomeDoMetodo(int r) {
+        return "rotina_" + programa.nomesDasRotinas[r];
+    }
+
+    private String descritor(int r) {
+        return "(" + "I".repeat(programa.aridades[r]) + ")" + (programa.funcoes[r] ? "I" : "V");
+    }
+
+    // Traduz as instruções de [inicio, fim), pulando o código das rotinas que estiverem no meio
+    private void metodo(String nome, String descritor, int inicio, int fim, int aridade, int quadro, boolean funcao) {
+        tamanho = 0;
+        quantidadeDeDesvios = 0;
+        quantidadeDeQuadros = 0;
+        locais = Math.max(quadro, aridade);
+        parametros = aridade;
+        for (int local = aridade; local < locais; local++) {
+            inteiro(0);
+            guardar(local);
+        }
+
+        int[] codigo = programa.codigo;
+        boolean depoisDeDesvioIncondicional = false;
+        int pc = inicio;
+        while (pc < fim) {
+            if (pc != inicio && rotinaEm[pc] >= 0) {
+                pc = programa.fins[rotinaEm[pc]];
+                continue;
+            }
+            if (destinos[pc] || depoisDeDesvioIncondicional) {
+                quadro();
+            }
+            posicoes[pc] = tamanho;
+            int instrucao = codigo[pc];
+            depoisDeDesvioIncondicional = false;
+            switch (instrucao) {
+                case CONSTANTE -> {
+                    inteiro(codigo[pc + 2]);
+                    guardar(codigo[pc + 1]);
+                }
+                case MOVER -> {
+                    carregar(codigo[pc + 2]);
+                    guardar(codigo[pc + 1]);
+                }
+                case LER_GLOBAL -> {
+                    u1(GETSTATIC);
+                    u2(classe.campo(CLASSE, "g" + codigo[pc + 2], "I"));
+                    guardar(codigo[pc + 1]);
+                }
+                case GRAVAR_GLOBAL -> {
+                    carregar(codigo[pc + 2]);
+                    u1(PUTSTATIC);
+                    u2(classe.campo(CLASSE, "g" + codigo[pc + 1], "I"));
+                }
+                case SOMAR, SUBTRAIR, MULTIPLICAR -> {
+                    carregar(codigo[pc + 2]);
+                    carregar(codigo[pc + 3]);
+                    u1(instrucao == SOMAR ? IADD : instrucao == SUBTRAIR ? ISUB : IMUL);
+                    guardar(codigo[pc + 1]);
+                }
+                case DIVIDIR -> {
+                    carregar(codigo[pc + 2]);
+                    carregar(codigo[pc + 3]);
+                    inteiro(codigo[pc + 4]);
+                    u1(INVOKESTATIC);
+                    u2(classe.metodo(SUPORTE, "dividir", "(III)I"));
+                    guardar(codigo[pc + 1]);
+                }
+                case SOMAR_CONSTANTE -> {
+                    int d = codigo[pc + 1];
+                    int k = codigo[pc + 3];
+                    if (d == codigo[pc + 2] && k == (short) k) {
+                        incrementar(d, k);
+                    } else {
+                        carregar(codigo[pc + 2]);
+                        inteiro(k);
+                        u1(IADD);
+                        guardar(d);
+                    }
+                }
+                case NEGAR -> {
+                    carregar(codigo[pc + 2]);
+                    u1(INEG);
+                    guardar(codigo[pc + 1]);
+                }
+                case NAO -> {
+                    carregar(codigo[pc + 2]);
+                    umOuZero(IFNE, codigo[pc + 1]);
+                }
+                case IGUAL, DIFERENTE, MENOR, MENOR_IGUAL, MAIOR, MAIOR_IGUAL -> {
+                    carregar(codigo[pc + 2]);
+                    carregar(codigo[pc + 3]);
+                    umOuZero(CONTRARIOS[instrucao - IGUAL], codigo[pc + 1]);
+                }
+                case SALTAR -> {
+                    desviar(GOTO, codigo[pc + 1]);
+                    depoisDeDesvioIncondicional = true;
+                }
+                case SALTAR_SE_ZERO, SALTAR_SE_NAO_ZERO -> {
+                    carregar(codigo[pc + 1]);
+                    desviar(instrucao == SALTAR_SE_ZERO ? IFEQ : IFNE, codigo[pc + 2]);
+                }
+                case SALTAR_SE_IGUAL, SALTAR_SE_DIFERENTE, SALTAR_SE_MENOR, SALTAR_SE_MENOR_IGUAL,
+                        SALTAR_SE_MAIOR, SALTAR_SE_MAIOR_IGUAL -> {
+                    carregar(codigo[pc + 1]);
+                    carregar(codigo[pc + 2]);
+                    desviar(DESVIOS[instrucao - SALTAR_SE_IGUAL], codigo[pc + 3]);
+                }
+                case CHAMAR -> {
+                    int r = rotinaEm[codigo[pc + 1]];
+                    int base = codigo[pc + 3];
+                    for (int i = 0; i < programa.aridades[r]; i++) {
+                        carregar(base + i);
+                    }
+                    u1(INVOKESTATIC);
+                    u2(classe.metodo(CLASSE, nomeDoMetodo(r), descritor(r)));
+                    if (programa.funcoes[r]) {
+                        guardar(codigo[pc + 4]);
+                    }
+                }
+                case RETORNAR -> {
+                    carregar(codigo[pc + 1]);
+                    u1(IRETURN);
+                    depoisDeDesvioIncondicional = true;
+                }
+                case RETORNAR_NADA -> {
+                    if (funcao) {
+                        inteiro(0);
+                        u1(IRETURN);
+                    } else {
+                        u1(RETURN);
+                    }
+                    depoisDeDesvioIncondicional = true;
+                }
+                case ZERAR -> {
+                    // as locais já foram zeradas na entrada do método
+                }
+                case LER_INTEIRO, LER_LOGICO -> {
+                    u1(GETSTATIC);
+                    u2(classe.campo(CLASSE, "es", "L" + ES + ";"));
+                    inteiro(codigo[pc + 2]);
+                    u1(INVOKEVIRTUAL);
+                    u2(classe.metodo(ES, instrucao == LER_INTEIRO ? "lerInteiro" : "lerLogico", "(I)I"));
+                    guardar(codigo[pc + 1]);
+                }
+                case ESCREVER_INTEIRO, ESCREVER_LOGICO -> {
+                    u1(GETSTATIC);
+                    u2(classe.campo(CLASSE, "es", "L" + ES + ";"));
+                    carregar(codigo[pc + 1]);
+                    u1(INVOKEVIRTUAL);
+                    u2(classe.metodo(ES, instrucao == ESCREVER_INTEIRO ? "escreverInteiro" : "escreverLogico", "(I)V"));
+                }
+                case PARAR -> {
+                    u1(RETURN);
+                    depoisDeDesvioIncondicional = true;
+                }
+                default -> throw new IllegalStateException("Instrução desconhecida " + instrucao + " em " + pc);
+            }
+            pc += 1 + OPERANDOS[instrucao];
+        }
+
+        if (tamanho > METODO_MAXIMO) {
+            throw new UnsupportedOperationException("'" + nome + "' é grande demais para um método da JVM");
+        }
+        for (int i = 0; i < quantidadeDeDesvios; i += 2) {
+            int posicao = desvios[i];
+            int deslocamento = posicoes[desvios[i + 1]] - (posicao - 1);
+            jvm[posicao] = (byte) (deslocamento >> 8);
+            jvm[posicao + 1] = (byte) deslocamento;
+        }
+        classe.adicionarMetodo(EscritorDeClasse.ESTATICO, nome, descritor, Math.max(3, aridade + 1), locais,
+                jvm, tamanho, mapaDePilha(), quantidadeDeQuadros);
+    }
+
+    // Guarda 1 em 'destino' se o desvio NÃO for tomado, e 0 se for
+    private void umOuZero(int desvio, int destino) {
+        u1(desvio);
+        int paraZero = tamanho;
+        u2(0);
+        inteiro(1);
+        guardar(destino);
+        u1(GOTO);
+        int paraFim = tamanho;
+        u2(0);
+        quadro();
+        remendar(paraZero, tamanho);
+        inteiro(0);
+        guardar(destino);
+        quadro();
+        remendar(paraFim, tamanho);
+    }
+
+    private void remendar(int posicao, int destino) {
+        int deslocamento = destino - (posicao - 1);
+        jvm[posicao] = (byte) (deslocamento >> 8);
+        jvm[posicao + 1] = (byte) deslocamento;
+    }
+
+    // Desvio para uma posição da MaquinaVirtual, resolvido no fim do método
+    private void desviar(int opcode, int destino) {
+        u1(opcode);
+        if (quantidadeDeDesvios + 2 > desvios.length) {
+            desvios = Arrays.copyOf(desvios, desvios.length * 2);
+        }
+        desvios[quantidadeDeDesvios++] = tamanho;
+        desvios[quantidadeDeDesvios++] = destino;
+        u2(0);
+    }
+
+    private void quadro() {
+        if (quantidadeDeQuadros > 0 && quadros[quantidadeDeQuadros - 1] == tamanho) {
+            return;
+        }
+        if (quantidadeDeQuadros == quadros.length) {
+            quadros = Arrays.copyOf(quadros, quantidadeDeQuadros * 2);
+        }
+        quadros[quantidadeDeQuadros++] = tamanho;
+    }
+
+    // Todos os quadros são iguais: o primeiro diz que todas as locais são int (se houver mais
+    // locais que parâmetros) e os seguintes repetem o anterior
+    private byte[] mapaDePilha() {
+        ByteArrayOutputStream mapa = new ByteArrayOutputStream();
+        int anterior = -1;
+        for (int i = 0; i < quantidadeDeQuadros; i++) {
+            int delta = quadros[i] - anterior - 1;
+            if (i == 0 && locais > parametros) {
+                mapa.write(255); // full_frame
+                mapa.write(delta >> 8);
+                mapa.write(delta);
+                mapa.write(locais >> 8);
+                mapa.write(locais);
+                for (int local = 0; local < locais; local++) {
+                    mapa.write(1); // ITEM_Integer
+                }
+                mapa.write(0);
+                mapa.write(0);
+            } else if (delta < 64) {
+                mapa.write(delta); // same_frame
+            } else {
+                mapa.write(251); // same_frame_extended
+                mapa.write(delta >> 8);
+                mapa.write(delta);
+            }
+            anterior = quadros[i];
+        }
+        return mapa.toByteArray();
+    }
+
+    private void inteiro(int valor) {
+        if (valor >= -1 && valor <= 5) {
+            u1(ICONST_0 + valor);
+        } else if (valor == (byte) valor) {
+            u1(BIPUSH);
+            u1(valor);
+        } else if (valor == (short) valor) {
+            u1(SIPUSH);
+            u2(valor);
+        } else {
+            int indice = classe.inteiro(valor);
+            if (indice < 256) {
+                u1(LDC);
+                u1(indice);
+            } else {
+                u1(LDC_W);
+                u2(indice);
+            }
+        }
+    }
+
+    private void carregar(int local) {
+        acessar(ILOAD, ILOAD_0, local);
+    }
+
+    private void guardar(int local) {
+        acessar(ISTORE, ISTORE_0, local);
+    }
+
+    private void acessar(int opcode, int curto, int local) {
+        if (local <= 3) {
+            u1(curto + local);
+        } else if (local < 256) {
+            u1(opcode);
+            u1(local);
+        } else {
+            u1(WIDE);
+            u1(opcode);
+            u2(local);
+        }
+    }
+
+    private void incrementar(int local, int valor) {
+        if (local < 256 && valor == (byte) valor) {
+            u1(IINC);
+            u1(local);
+            u1(valor);
+        } else {
+            u1(WIDE);
+            u1(IINC);
+            u2(local);
+            u2(valor);
+        }
+    }
+
+    private void u1(int valor) {
+        if (tamanho == jvm.length) {
+            jvm = Arrays.copyOf(jvm, tamanho * 2);
+        }
+        jvm[tamanho++] = (byte) valor;
+    }
+
+    private void u2(int valor) {
+        u1(valor >> 8);
+        u1(valor);
+    }
+}
@@ -0,0 +1,137 @@
+package compilador.execucao;
+
+import compilador.execucao.exceptions.ErroDeExecucao;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// leia/escreva com buffers próprios: os números são lidos e escritos direto dos bytes, sem
+// passar por String, e a saída só vai para o OutputStream quando o buffer enche ou em
+// descarregar(). Os valores lidos são separados por espaços ou quebras de linha.
+public class EntradaESaida {
+    private static final byte[] VERDADEIRO = "verdadeiro\n".getBytes();
+    private static final byte[] FALSO = "falso\n".getBytes();
+
+    private final InputStream entrada;
+    private final OutputStream saida;
+
+    private final byte[] lidos = new byte[64 * 1024];
+    private int posicaoLida = 0;
+    private int quantidadeLida = 0;
+
+    private final byte[] escritos = new byte[64 * 1024];
+    private int quantidadeEscrita = 0;
+
+    public EntradaESaida(InputStream entrada, OutputStream saida) {
+        this.entrada = entrada;
+        this.saida = saida;
+    }
+
+    // Próximo byte da entrada, ou -1 no fim
+    private int lerByte() throws IOException {
+        if (posicaoLida == quantidadeLida) {
+            quantidadeLida = entrada.read(lidos, 0, lidos.length);
+            posicaoLida = 0;
+            if (quantidadeLida <= 0) {
+                quantidadeLida = 0;
+                return -1;
+            }
+        }
+        return lidos[posicaoLida++] & 0xFF; // 0..255: só o fim é negativo
+    }
+
+    // Pula os espaços e devolve o primeiro byte do próximo valor, ou -1 no fim
+    private int inicioDoValor(int linha) throws IOException, ErroDeExecucao {
+        int b = lerByte();
+        while (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+            b = lerByte();
+        }
+        if (b < 0) {
+            throw new ErroDeExecucao(linha, "leia chegou ao fim da entrada");
+        }
+        return b;
+    }
+
+    private static boolean separador(int b) {
+        return b < 0 || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    // Inteiro em decimal, com sinal opcional (estoura como a aritmética de int)
+    public int lerInteiro(int linha) throws IOException, ErroDeExecucao {
+        int b = inicioDoValor(linha);
+        boolean negativo = b == '-';
+        if (b == '-' || b == '+') {
+            b = lerByte();
+        }
+        if (b < '0' || b > '9') {
+            throw new ErroDeExecucao(linha, "leia esperava um número inteiro");
+        }
+        int valor = 0;
+        while (b >= '0' && b <= '9') {
+            valor = valor * 10 + (b - '0');
+            b = lerByte();
+        }
+        if (!separador(b)) {
+            throw new ErroDeExecucao(linha, "leia esperava um número inteiro");
+        }
+        return negativo ? -valor : valor;
+    }
+
+    // verdadeiro/falso (ou 1/0); devolve 1 ou 0
+    public int lerLogico(int linha) throws IOException, ErroDeExecucao {
+        int b = inicioDoValor(linha);
+        StringBuilder palavra = new StringBuilder();
+        while (!separador(b)) {
+            palavra.append((char) b);
+            b = lerByte();
+        }
+        switch (palavra.toString()) {
+            case "verdadeiro", "1" -> {
+                return 1;
+            }
+            case "falso", "0" -> {
+                return 0;
+            }
+            default -> throw new ErroDeExecucao(linha, "leia esperava verdadeiro ou falso mas veio '" + palavra + "'");
+        }
+    }
+
+    public void escreverInteiro(int valor) throws IOException {
+        if (escritos.length - quantidadeEscrita < 12) {
+            descarregar();
+        }
+        long v = valor;
+        if (v < 0) {
+            escritos[quantidadeEscrita++] = '-';
+            v = -v;
+        }
+        // Dígitos do fim para o começo, depois no lugar certo
+        int inicio = quantidadeEscrita;
+        do {
+            escritos[quantidadeEscrita++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        for (int i = inicio, j = quantidadeEscrita - 1; i < j; i++, j--) {
+            byte troca = escritos[i];
+            escritos[i] = escritos[j];
+            escritos[j] = troca;
+        }
+        escritos[quantidadeEscrita++] = '\n';
+    }
+
+    public void escreverLogico(int valor) throws IOException {
+        byte[] texto = valor != 0 ? VERDADEIRO : FALSO;
+        if (escritos.length - quantidadeEscrita < texto.length) {
+            descarregar();
+        }
+        System.arraycopy(texto, 0, escritos, quantidadeEscrita, texto.length);
+        quantidadeEscrita += texto.length;
+    }
+
+    // Manda para o OutputStream tudo o que foi escrito até agora
+    public void descarregar() throws IOException {
+        saida.write(escritos, 0, quantidadeEscrita);
+        quantidadeEscrita = 0;
+        saida.flush();
+    }
+}
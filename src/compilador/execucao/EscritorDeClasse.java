@@ -0,0 +1,197 @@
+package compilador.execucao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Monta um arquivo .class (formato da JVM 17) só com o que o CompiladorJvm precisa: constantes
+// Utf8/Integer/Class/NameAndType/Fieldref/Methodref, campos estáticos e métodos com o
+// atributo Code (e StackMapTable). As constantes repetidas são reaproveitadas.
+final class EscritorDeClasse {
+    static final int ESTATICO = 0x0008;
+    static final int FINAL = 0x0010;
+    private static final int SUPER = 0x0020;
+
+    private final ByteArrayOutputStream constantes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(constantes);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int quantidadeDeConstantes = 1; // a posição 0 não é usada
+
+    private final ByteArrayOutputStream campos = new ByteArrayOutputStream();
+    private int quantidadeDeCampos = 0;
+    private final ByteArrayOutputStream metodos = new ByteArrayOutputStream();
+    private int quantidadeDeMetodos = 0;
+
+    private final int estaClasse;
+    private final int superClasse;
+    private final int code;
+    private final int stackMapTable;
+
+    EscritorDeClasse(String nome) {
+        estaClasse = classe(nome);
+        superClasse = classe("java/lang/Object");
+        code = utf8("Code");
+        stackMapTable = utf8("StackMapTable");
+    }
+
+    int utf8(String texto) {
+        Integer indice = indices.get("U" + texto);
+        if (indice != null) {
+            return indice;
+        }
+        try {
+            pool.writeByte(1);
+            pool.writeUTF(texto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return nova("U" + texto);
+    }
+
+    int inteiro(int valor) {
+        Integer indice = indices.get("I" + valor);
+        if (indice != null) {
+            return indice;
+        }
+        escrever(3, valor);
+        return nova("I" + valor);
+    }
+
+    int classe(String nome) {
+        Integer indice = indices.get("C" + nome);
+        if (indice != null) {
+            return indice;
+        }
+        int n = utf8(nome);
+        escrever(7, n);
+        return nova("C" + nome);
+    }
+
+    int campo(String dono, String nome, String descritor) {
+        return referencia(9, dono, nome, descritor);
+    }
+
+    int metodo(String dono, String nome, String descritor) {
+        return referencia(10, dono, nome, descritor);
+    }
+
+    private int referencia(int tag, String dono, String nome, String descritor) {
+        String chave = "R" + tag + dono + "." + nome + ":" + descritor;
+        Integer indice = indices.get(chave);
+        if (indice != null) {
+            return indice;
+        }
+        int c = classe(dono);
+        int nomeETipo = nomeETipo(nome, descritor);
+        escrever(tag, c, nomeETipo);
+        return nova(chave);
+    }
+
+    private int nomeETipo(String nome, String descritor) {
+        String chave = "N" + nome + ":" + descritor;
+        Integer indice = indices.get(chave);
+        if (indice != null) {
+            return indice;
+        }
+        int n = utf8(nome);
+        int d = utf8(descritor);
+        escrever(12, n, d);
+        return nova(chave);
+    }
+
+    // Uma constante: a tag e os índices u2 (ou o valor de uma constante Integer)
+    private void escrever(int tag, int... partes) {
+        try {
+            pool.writeByte(tag);
+            if (partes.length == 1 && tag == 3) {
+                pool.writeInt(partes[0]);
+            } else {
+                for (int parte : partes) {
+                    pool.writeShort(parte);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int nova(String chave) {
+        if (quantidadeDeConstantes == 0xFFFF) {
+            throw new UnsupportedOperationException("constantes demais para uma classe da JVM");
+        }
+        indices.put(chave, quantidadeDeConstantes);
+        return quantidadeDeConstantes++;
+    }
+
+    void adicionarCampo(int acesso, String nome, String descritor) {
+        DataOutputStream saida = new DataOutputStream(campos);
+        try {
+            saida.writeShort(acesso);
+            saida.writeShort(utf8(nome));
+            saida.writeShort(utf8(descritor));
+            saida.writeShort(0); // sem atributos
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        quantidadeDeCampos++;
+    }
+
+    // 'quadros' é o conteúdo da StackMapTable sem o cabeçalho (vazio se não houver quadros)
+    void adicionarMetodo(int acesso, String nome, String descritor, int maxPilha, int maxLocais,
+            byte[] codigo, int tamanhoDoCodigo, byte[] quadros, int quantidadeDeQuadros) {
+        DataOutputStream saida = new DataOutputStream(metodos);
+        try {
+            saida.writeShort(acesso);
+            saida.writeShort(utf8(nome));
+            saida.writeShort(utf8(descritor));
+            saida.writeShort(1); // só Code
+            saida.writeShort(code);
+            int mapa = quantidadeDeQuadros > 0 ? 2 + 4 + 2 + quadros.length : 0;
+            saida.writeInt(2 + 2 + 4 + tamanhoDoCodigo + 2 + 2 + mapa);
+            saida.writeShort(maxPilha);
+            saida.writeShort(maxLocais);
+            saida.writeInt(tamanhoDoCodigo);
+            saida.write(codigo, 0, tamanhoDoCodigo);
+            saida.writeShort(0); // sem tratadores de exceção
+            if (quantidadeDeQuadros > 0) {
+                saida.writeShort(1);
+                saida.writeShort(stackMapTable);
+                saida.writeInt(2 + quadros.length);
+                saida.writeShort(quantidadeDeQuadros);
+                saida.write(quadros);
+            } else {
+                saida.writeShort(0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        quantidadeDeMetodos++;
+    }
+
+    byte[] bytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        try {
+            saida.writeInt(0xCAFEBABE);
+            saida.writeShort(0);
+            saida.writeShort(61); // Java 17
+            saida.writeShort(quantidadeDeConstantes);
+            constantes.writeTo(saida);
+            saida.writeShort(FINAL | SUPER);
+            saida.writeShort(estaClasse);
+            saida.writeShort(superClasse);
+            saida.writeShort(0); // sem interfaces
+            saida.writeShort(quantidadeDeCampos);
+            campos.writeTo(saida);
+            saida.writeShort(quantidadeDeMetodos);
+            metodos.writeTo(saida);
+            saida.writeShort(0); // sem atributos
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,30 @@
+package compilador.execucao;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Evento do JDK Flight Recorder para cada CompiladorDeBytecode.compilar(): resolução dos
+// nomes, verificações semânticas e geração do código
+@Name("compilador.AnaliseSemantica")
+@Label("Análise semântica e compilação")
+@Description("Resolução de nomes, verificações semânticas e geração do bytecode de um programa")
+@Category("Compilador")
+@StackTrace(false)
+final class EventoSemantico extends Event {
+    @Label("Nós da árvore")
+    int nos;
+
+    @Label("Rotinas")
+    int rotinas;
+
+    @Label("Tamanho do código")
+    @Description("Quantidade de ints do código da MaquinaVirtual")
+    int tamanhoDoCodigo;
+
+    @Label("Erro semântico")
+    boolean erro;
+}
@@ -0,0 +1,129 @@
+package compilador.execucao;
+
+import compilador.execucao.exceptions.ErroDeExecucao;
+import compilador.execucao.exceptions.ErroSemantico;
+import compilador.lexico.AnalisadorLexico;
+import compilador.sintatico.Arvore;
+import compilador.sintatico.Diagnosticos;
+import compilador.sintatico.Otimizador;
+import compilador.sintatico.Parser;
+import compilador.sintatico.Resolucao;
+import compilador.sintatico.Resolvedor;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Executa um programa: leia lê da entrada padrão e escreva escreve na saída padrão.
+//
+// Antes de executar, o Resolvedor confere nomes e tipos e mostra todos os erros de uma vez.
+//
+// Uso: java compilador.execucao.Executor programa.txt [--otimizar] [--arvore] [--jvm] [--bytecode] [--simbolos]
+//   --otimizar  passa o Otimizador na árvore antes de executar e mostra quantos nós ele eliminou
+//   --arvore    executa com o InterpretadorDeArvore em vez da MaquinaVirtual
+//   --jvm       traduz o bytecode para uma classe da JVM (CompiladorJvm) e executa a classe
+//   --bytecode  só mostra o código compilado
+//   --simbolos  só mostra os símbolos resolvidos (posição no quadro ou nas globais, tipo, aridade)
+// Código de saída: 0 se o programa rodou até o fim, 1 com erro no programa (sintático, semântico
+// ou de execução) e 2 se não foi possível ler o arquivo ou a entrada.
+public class Executor {
+    public static void main(String[] args) {
+        String nomeDoArquivo = null;
+        boolean naArvore = false;
+        boolean otimizar = false;
+        boolean naJvm = false;
+        boolean mostrarBytecode = false;
+        boolean mostrarSimbolos = false;
+        for (String arg : args) {
+            switch (arg) {
+                case "--otimizar" -> otimizar = true;
+                case "--arvore" -> naArvore = true;
+                case "--jvm" -> naJvm = true;
+                case "--bytecode" -> mostrarBytecode = true;
+                case "--simbolos" -> mostrarSimbolos = true;
+                default -> nomeDoArquivo = arg;
+            }
+        }
+        if (nomeDoArquivo == null) {
+            System.err.println("Uso: java compilador.execucao.Executor programa.txt [--otimizar] [--arvore] [--jvm] [--bytecode] [--simbolos]");
+            System.exit(2);
+        }
+
+        String codigo;
+        try {
+            codigo = Files.readString(Paths.get(nomeDoArquivo), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Erro ao ler arquivo '" + nomeDoArquivo + "': " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        try {
+            Arvore arvore = new Arvore();
+            // Com erro sintático a árvore fica incompleta e não há o que resolver. Os identificadores
+            // declarados duas vezes não param aqui: o Resolvedor os mostra junto com os outros erros.
+            Diagnosticos sintaxe = new Parser(new AnalisadorLexico(codigo)).comArvore(arvore).parseProgramaComRecuperacao();
+            if (temErroSintatico(sintaxe)) {
+                for (String mensagem : sintaxe.mensagens()) {
+                    System.err.println(mensagem);
+                }
+                System.exit(1);
+            }
+            // Antes do Otimizador, para que os erros do código eliminado também apareçam
+            Resolucao resolucao = new Resolvedor(arvore).resolver();
+            if (!resolucao.diagnosticos().vazio()) {
+                for (String mensagem : resolucao.diagnosticos().mensagens()) {
+                    System.err.println(mensagem);
+                }
+                System.exit(1);
+            }
+            if (mostrarSimbolos) {
+                System.out.print(resolucao);
+                return;
+            }
+            if (otimizar) {
+                Otimizador otimizador = new Otimizador(arvore);
+                int nos = arvore.tamanho();
+                arvore = otimizador.otimizar();
+                System.err.println("Otimizador: " + otimizador.eliminados() + " de " + nos + " nós eliminados");
+                resolucao = new Resolvedor(arvore).resolver(); // a árvore otimizada é uma cópia, com outros nós
+            }
+            EntradaESaida es = new EntradaESaida(System.in, System.out);
+            if (naArvore) {
+                new InterpretadorDeArvore(arvore, es).executar();
+                return;
+            }
+            ProgramaCompilado programa = new CompiladorDeBytecode(resolucao).compilar();
+            if (mostrarBytecode) {
+                System.out.print(programa);
+                return;
+            }
+            if (naJvm) {
+                ProgramaNaJvm naClasse = null;
+                try {
+                    naClasse = new CompiladorJvm(programa).compilar();
+                } catch (UnsupportedOperationException e) {
+                    System.err.println("Executando na MaquinaVirtual: " + e.getMessage());
+                }
+                if (naClasse != null) {
+                    naClasse.executar(es);
+                    return;
+                }
+            }
+            new MaquinaVirtual(programa, es).executar();
+        } catch (ErroSemantico | ErroDeExecucao e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Erro de entrada/saída: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static boolean temErroSintatico(Diagnosticos diagnosticos) {
+        for (int i = 0; i < diagnosticos.tamanho(); i++) {
+            if (!diagnosticos.ehSemantico(i)) return true;
+        }
+        return false;
+    }
+}
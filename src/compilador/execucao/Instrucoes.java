@@ -0,0 +1,77 @@
+package compilador.execucao;
+
+// Códigos das instruções da MaquinaVirtual. Uma instrução é o código seguido dos operandos,
+// tudo no mesmo int[]. Nos comentários: d, a e b são registradores (relativos ao quadro da
+// rotina), g é uma variável global, k é uma constante e alvo é uma posição no código.
+final class Instrucoes {
+    static final int CONSTANTE = 0;          // d k
+    static final int MOVER = 1;              // d a
+    static final int LER_GLOBAL = 2;         // d g
+    static final int GRAVAR_GLOBAL = 3;      // g a
+
+    static final int SOMAR = 4;              // d a b
+    static final int SUBTRAIR = 5;           // d a b
+    static final int MULTIPLICAR = 6;        // d a b
+    static final int DIVIDIR = 7;            // d a b linha
+    static final int SOMAR_CONSTANTE = 8;    // d a k
+    static final int NEGAR = 9;              // d a
+    static final int NAO = 10;               // d a
+
+    // Comparações que guardam 1 ou 0 em d
+    static final int IGUAL = 11;             // d a b
+    static final int DIFERENTE = 12;
+    static final int MENOR = 13;
+    static final int MENOR_IGUAL = 14;
+    static final int MAIOR = 15;
+    static final int MAIOR_IGUAL = 16;
+
+    static final int SALTAR = 17;            // alvo
+    static final int SALTAR_SE_ZERO = 18;    // a alvo
+    static final int SALTAR_SE_NAO_ZERO = 19; // a alvo
+
+    // Comparação e salto numa instrução só (condições de se/enquanto)
+    static final int SALTAR_SE_IGUAL = 20;   // a b alvo
+    static final int SALTAR_SE_DIFERENTE = 21;
+    static final int SALTAR_SE_MENOR = 22;
+    static final int SALTAR_SE_MENOR_IGUAL = 23;
+    static final int SALTAR_SE_MAIOR = 24;
+    static final int SALTAR_SE_MAIOR_IGUAL = 25;
+
+    // O quadro da rotina chamada começa no registrador 'base' de quem chama, onde estão os
+    // argumentos; o valor devolvido vai para d
+    static final int CHAMAR = 26;            // alvo tamanhoDoQuadro base d linha
+    static final int RETORNAR = 27;          // a
+    static final int RETORNAR_NADA = 28;     // (devolve 0)
+
+    static final int LER_INTEIRO = 29;       // d linha
+    static final int LER_LOGICO = 30;        // d linha
+    static final int ESCREVER_INTEIRO = 31;  // a
+    static final int ESCREVER_LOGICO = 32;   // a
+    static final int PARAR = 33;
+    static final int ZERAR = 34;             // d quantidade (zera d..d+quantidade-1)
+
+    static final String[] NOMES = {
+        "CONSTANTE", "MOVER", "LER_GLOBAL", "GRAVAR_GLOBAL",
+        "SOMAR", "SUBTRAIR", "MULTIPLICAR", "DIVIDIR", "SOMAR_CONSTANTE", "NEGAR", "NAO",
+        "IGUAL", "DIFERENTE", "MENOR", "MENOR_IGUAL", "MAIOR", "MAIOR_IGUAL",
+        "SALTAR", "SALTAR_SE_ZERO", "SALTAR_SE_NAO_ZERO",
+        "SALTAR_SE_IGUAL", "SALTAR_SE_DIFERENTE", "SALTAR_SE_MENOR", "SALTAR_SE_MENOR_IGUAL",
+        "SALTAR_SE_MAIOR", "SALTAR_SE_MAIOR_IGUAL",
+        "CHAMAR", "RETORNAR", "RETORNAR_NADA",
+        "LER_INTEIRO", "LER_LOGICO", "ESCREVER_INTEIRO", "ESCREVER_LOGICO", "PARAR", "ZERAR"
+    };
+
+    // Quantidade de operandos de cada instrução
+    static final int[] OPERANDOS = {
+        2, 2, 2, 2,
+        3, 3, 3, 4, 3, 2, 2,
+        3, 3, 3, 3, 3, 3,
+        1, 2, 2,
+        3, 3, 3, 3, 3, 3,
+        5, 1, 0,
+        2, 2, 1, 1, 0, 2
+    };
+
+    private Instrucoes() {
+    }
+}
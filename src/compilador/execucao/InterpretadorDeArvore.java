@@ -0,0 +1,269 @@
+package compilador.execucao;
+
+import compilador.execucao.exceptions.ErroDeExecucao;
+import compilador.lexico.TipoToken;
+import compilador.sintatico.Arvore;
+import compilador.sintatico.TipoNo;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Execução ingênua, andando direto na Arvore: as variáveis ficam em HashMaps (um para as
+// globais e um por chamada), e os nomes são procurados a cada uso. Serve de referência
+// para a MaquinaVirtual, com a mesma semântica, e de base de comparação no Benchmark.
+public class InterpretadorDeArvore {
+    // Como terminou a execução de um comando
+    private static final int NORMAL = 0;
+    private static final int PARE = 1;
+    private static final int CONTINUE = 2;
+    private static final int RETORNE = 3;
+
+    private final Arvore arvore;
+    private final EntradaESaida es;
+
+    private final Map<Integer, Integer> globais = new HashMap<>();
+    private final Map<Integer, Integer> rotinas = new HashMap<>();           // id do nome -> nó
+    private final Map<Integer, List<Integer>> locaisDasRotinas = new HashMap<>(); // nó -> ids
+    private final Map<Integer, TipoToken> tipos = new HashMap<>();           // id do nome -> INT/BOOL
+
+    private Map<Integer, Integer> locais; // da chamada atual, ou null no corpo principal
+    private int valorDoRetorno;
+
+    public InterpretadorDeArvore(Arvore arvore, EntradaESaida es) {
+        this.arvore = arvore;
+        this.es = es;
+    }
+
+    public void executar() throws ErroDeExecucao, IOException {
+        int programa = arvore.raiz();
+        for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.DECL_FUNCAO || tipo == TipoNo.DECL_PROCEDIMENTO) {
+                rotinas.put(arvore.valor(no), no);
+            }
+        }
+        for (int no = 0; no < arvore.tamanho(); no++) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.VARIAVEL || tipo == TipoNo.PARAMETRO) {
+                tipos.putIfAbsent(arvore.valor(no), arvore.operador(no));
+            }
+        }
+        try {
+            for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+                TipoNo tipo = arvore.tipo(no);
+                if (tipo != TipoNo.DECL_FUNCAO && tipo != TipoNo.DECL_PROCEDIMENTO) {
+                    executar(no);
+                }
+            }
+        } catch (StackOverflowError e) {
+            // as chamadas do programa viram chamadas Java aqui, como no CompiladorJvm
+            throw new ErroDeExecucao("estouro da pilha (recursão profunda demais)");
+        } finally {
+            es.descarregar();
+        }
+    }
+
+    private int bloco(int no) throws ErroDeExecucao, IOException {
+        for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+            int resultado = executar(filho);
+            if (resultado != NORMAL) {
+                return resultado;
+            }
+        }
+        return NORMAL;
+    }
+
+    private int executar(int no) throws ErroDeExecucao, IOException {
+        switch (arvore.tipo(no)) {
+            case DECL_VAR -> {
+                return NORMAL; // as variáveis começam com 0
+            }
+            case ATRIBUICAO -> gravar(arvore.valor(no), avaliar(arvore.primeiroFilho(no)));
+            case CHAMADA -> chamar(no);
+            case SE -> {
+                int condicao = arvore.primeiroFilho(no);
+                int entao = arvore.proximoIrmao(condicao);
+                if (avaliar(condicao) != 0) {
+                    return bloco(entao);
+                }
+                int senao = arvore.proximoIrmao(entao);
+                if (senao >= 0) {
+                    return bloco(senao);
+                }
+            }
+            case ENQUANTO -> {
+                int condicao = arvore.primeiroFilho(no);
+                int corpo = arvore.proximoIrmao(condicao);
+                while (avaliar(condicao) != 0) {
+                    int resultado = bloco(corpo);
+                    if (resultado == PARE) {
+                        break;
+                    }
+                    if (resultado == RETORNE) {
+                        return RETORNE;
+                    }
+                }
+            }
+            case LEIA -> {
+                int id = arvore.valor(no);
+                boolean logica = tipoDaVariavel(id) == TipoToken.BOOL;
+                gravar(id, logica ? es.lerLogico(arvore.linha(no)) : es.lerInteiro(arvore.linha(no)));
+            }
+            case ESCREVA -> {
+                int expressao = arvore.primeiroFilho(no);
+                if (logica(expressao)) {
+                    es.escreverLogico(avaliar(expressao));
+                } else {
+                    es.escreverInteiro(avaliar(expressao));
+                }
+            }
+            case PARE -> {
+                return PARE;
+            }
+            case CONTINUE -> {
+                return CONTINUE;
+            }
+            case RETORNE -> {
+                valorDoRetorno = avaliar(arvore.primeiroFilho(no));
+                return RETORNE;
+            }
+            default -> throw new IllegalStateException("Nó inesperado no lugar de um comando: " + arvore.tipo(no));
+        }
+        return NORMAL;
+    }
+
+    private int avaliar(int no) throws ErroDeExecucao, IOException {
+        switch (arvore.tipo(no)) {
+            case NUMERO, LOGICO -> {
+                return arvore.valor(no);
+            }
+            case NOME -> {
+                return ler(arvore.valor(no));
+            }
+            case CHAMADA -> {
+                return chamar(no);
+            }
+            case UNARIA -> {
+                int valor = avaliar(arvore.primeiroFilho(no));
+                return arvore.operador(no) == TipoToken.MENOS ? -valor : (valor == 0 ? 1 : 0);
+            }
+            default -> {
+                int esquerda = arvore.primeiroFilho(no);
+                int direita = arvore.proximoIrmao(esquerda);
+                int a = avaliar(esquerda);
+                switch (arvore.operador(no)) {
+                    case E_LOGICO -> {
+                        return a != 0 && avaliar(direita) != 0 ? 1 : 0;
+                    }
+                    case OU_LOGICO -> {
+                        return a != 0 || avaliar(direita) != 0 ? 1 : 0;
+                    }
+                    default -> {
+                    }
+                }
+                int b = avaliar(direita);
+                return switch (arvore.operador(no)) {
+                    case MAIS -> a + b;
+                    case MENOS -> a - b;
+                    case VEZES -> a * b;
+                    case DIVISAO -> {
+                        if (b == 0) {
+                            throw new ErroDeExecucao(arvore.linha(no), "divisão por zero");
+                        }
+                        yield a / b;
+                    }
+                    case IGUAL -> a == b ? 1 : 0;
+                    case DIFERENTE -> a != b ? 1 : 0;
+                    case MENOR -> a < b ? 1 : 0;
+                    case MENOR_IGUAL -> a <= b ? 1 : 0;
+                    case MAIOR -> a > b ? 1 : 0;
+                    default -> a >= b ? 1 : 0;
+                };
+            }
+        }
+    }
+
+    private int chamar(int no) throws ErroDeExecucao, IOException {
+        int rotina = rotinas.get(arvore.valor(no));
+        Map<Integer, Integer> novos = new HashMap<>();
+        for (int id : locaisDe(rotina)) {
+            novos.put(id, 0);
+        }
+        int parametro = arvore.primeiroFilho(rotina);
+        for (int argumento = arvore.primeiroFilho(no); argumento >= 0; argumento = arvore.proximoIrmao(argumento)) {
+            novos.put(arvore.valor(parametro), avaliar(argumento));
+            parametro = arvore.proximoIrmao(parametro);
+        }
+        Map<Integer, Integer> anteriores = locais;
+        locais = novos;
+        valorDoRetorno = 0;
+        int corpo = arvore.primeiroFilho(rotina);
+        while (arvore.tipo(corpo) == TipoNo.PARAMETRO) {
+            corpo = arvore.proximoIrmao(corpo);
+        }
+        bloco(corpo);
+        locais = anteriores;
+        int valor = valorDoRetorno;
+        valorDoRetorno = 0;
+        return valor;
+    }
+
+    // Parâmetros e variáveis declaradas em qualquer lugar do corpo da rotina
+    private List<Integer> locaisDe(int rotina) {
+        List<Integer> ids = locaisDasRotinas.get(rotina);
+        if (ids == null) {
+            ids = new ArrayList<>();
+            coletarLocais(rotina, ids);
+            locaisDasRotinas.put(rotina, ids);
+        }
+        return ids;
+    }
+
+    private void coletarLocais(int no, List<Integer> ids) {
+        for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+            TipoNo tipo = arvore.tipo(filho);
+            if (tipo == TipoNo.PARAMETRO || tipo == TipoNo.VARIAVEL) {
+                ids.add(arvore.valor(filho));
+            } else if (tipo == TipoNo.DECL_VAR || tipo == TipoNo.BLOCO || tipo == TipoNo.SE || tipo == TipoNo.ENQUANTO) {
+                coletarLocais(filho, ids);
+            }
+        }
+    }
+
+    private int ler(int id) {
+        if (locais != null && locais.containsKey(id)) {
+            return locais.get(id);
+        }
+        return globais.getOrDefault(id, 0);
+    }
+
+    private void gravar(int id, int valor) {
+        if (locais != null && locais.containsKey(id)) {
+            locais.put(id, valor);
+        } else {
+            globais.put(id, valor);
+        }
+    }
+
+    // Tipo da primeira declaração do nome no programa (INT se não houver)
+    private TipoToken tipoDaVariavel(int id) {
+        return tipos.getOrDefault(id, TipoToken.INT);
+    }
+
+    private boolean logica(int no) {
+        return switch (arvore.tipo(no)) {
+            case LOGICO -> true;
+            case NUMERO -> false;
+            case UNARIA -> arvore.operador(no) == TipoToken.NAO_LOGICO;
+            case BINARIA -> switch (arvore.operador(no)) {
+                case MAIS, MENOS, VEZES, DIVISAO -> false;
+                default -> true;
+            };
+            case NOME -> tipoDaVariavel(arvore.valor(no)) == TipoToken.BOOL;
+            case CHAMADA -> rotinas.containsKey(arvore.valor(no)) && arvore.operador(rotinas.get(arvore.valor(no))) == TipoToken.BOOL;
+            default -> false;
+        };
+    }
+}
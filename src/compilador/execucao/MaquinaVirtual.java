@@ -0,0 +1,191 @@
+package compilador.execucao;
+
+import static compilador.execucao.Instrucoes.*;
+
+import compilador.execucao.exceptions.ErroDeExecucao;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Executa um ProgramaCompilado. Os quadros de todas as rotinas ficam num único int[] (a pilha),
+// e um registrador é só uma posição relativa ao início do quadro atual. Todos os valores
+// são int: não há objetos nem boxing durante a execução.
+public class MaquinaVirtual {
+    // Limites da pilha de quadros e da pilha de retornos (em ints), para uma recursão sem fim
+    // virar um erro. Crescer copia o array, então no pior caso o antigo e o novo coexistem:
+    // 1,5 vez os dois limites (cerca de 72 MB) cabe no heap padrão da JVM.
+    private static final int PILHA_MAXIMA = 8 * 1024 * 1024;
+    private static final int RETORNOS_MAXIMOS = 3 * 1024 * 1024; // um milhão de chamadas
+
+    private final ProgramaCompilado programa;
+    private final EntradaESaida es;
+
+    private int[] pilha;
+
+    // Para cada chamada em andamento: posição de retorno, quadro de quem chamou e onde vai o valor
+    private int[] retornos = new int[3 * 64];
+
+    public MaquinaVirtual(ProgramaCompilado programa, EntradaESaida es) {
+        this.programa = programa;
+        this.es = es;
+    }
+
+    public void executar() throws ErroDeExecucao, IOException {
+        int[] codigo = programa.codigo;
+        int[] r = pilha = new int[Math.max(programa.quadroPrincipal, 1024)];
+        int[] g = new int[programa.quantidadeDeGlobais];
+        int[] retornos = this.retornos;
+        int chamadas = 0;
+        int bp = 0;
+        int pc = 0;
+        try {
+            while (true) {
+                switch (codigo[pc]) {
+                    case CONSTANTE -> {
+                        r[bp + codigo[pc + 1]] = codigo[pc + 2];
+                        pc += 3;
+                    }
+                    case MOVER -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]];
+                        pc += 3;
+                    }
+                    case LER_GLOBAL -> {
+                        r[bp + codigo[pc + 1]] = g[codigo[pc + 2]];
+                        pc += 3;
+                    }
+                    case GRAVAR_GLOBAL -> {
+                        g[codigo[pc + 1]] = r[bp + codigo[pc + 2]];
+                        pc += 3;
+                    }
+                    case SOMAR -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] + r[bp + codigo[pc + 3]];
+                        pc += 4;
+                    }
+                    case SUBTRAIR -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] - r[bp + codigo[pc + 3]];
+                        pc += 4;
+                    }
+                    case MULTIPLICAR -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] * r[bp + codigo[pc + 3]];
+                        pc += 4;
+                    }
+                    case DIVIDIR -> {
+                        int divisor = r[bp + codigo[pc + 3]];
+                        if (divisor == 0) {
+                            throw new ErroDeExecucao(codigo[pc + 4], "divisão por zero");
+                        }
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] / divisor;
+                        pc += 5;
+                    }
+                    case SOMAR_CONSTANTE -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] + codigo[pc + 3];
+                        pc += 4;
+                    }
+                    case NEGAR -> {
+                        r[bp + codigo[pc + 1]] = -r[bp + codigo[pc + 2]];
+                        pc += 3;
+                    }
+                    case NAO -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] == 0 ? 1 : 0;
+                        pc += 3;
+                    }
+                    case IGUAL -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] == r[bp + codigo[pc + 3]] ? 1 : 0;
+                        pc += 4;
+                    }
+                    case DIFERENTE -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] != r[bp + codigo[pc + 3]] ? 1 : 0;
+                        pc += 4;
+                    }
+                    case MENOR -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] < r[bp + codigo[pc + 3]] ? 1 : 0;
+                        pc += 4;
+                    }
+                    case MENOR_IGUAL -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] <= r[bp + codigo[pc + 3]] ? 1 : 0;
+                        pc += 4;
+                    }
+                    case MAIOR -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] > r[bp + codigo[pc + 3]] ? 1 : 0;
+                        pc += 4;
+                    }
+                    case MAIOR_IGUAL -> {
+                        r[bp + codigo[pc + 1]] = r[bp + codigo[pc + 2]] >= r[bp + codigo[pc + 3]] ? 1 : 0;
+                        pc += 4;
+                    }
+                    case SALTAR -> pc = codigo[pc + 1];
+                    case SALTAR_SE_ZERO -> pc = r[bp + codigo[pc + 1]] == 0 ? codigo[pc + 2] : pc + 3;
+                    case SALTAR_SE_NAO_ZERO -> pc = r[bp + codigo[pc + 1]] != 0 ? codigo[pc + 2] : pc + 3;
+                    case SALTAR_SE_IGUAL -> pc = r[bp + codigo[pc + 1]] == r[bp + codigo[pc + 2]] ? codigo[pc + 3] : pc + 4;
+                    case SALTAR_SE_DIFERENTE -> pc = r[bp + codigo[pc + 1]] != r[bp + codigo[pc + 2]] ? codigo[pc + 3] : pc + 4;
+                    case SALTAR_SE_MENOR -> pc = r[bp + codigo[pc + 1]] < r[bp + codigo[pc + 2]] ? codigo[pc + 3] : pc + 4;
+                    case SALTAR_SE_MENOR_IGUAL -> pc = r[bp + codigo[pc + 1]] <= r[bp + codigo[pc + 2]] ? codigo[pc + 3] : pc + 4;
+                    case SALTAR_SE_MAIOR -> pc = r[bp + codigo[pc + 1]] > r[bp + codigo[pc + 2]] ? codigo[pc + 3] : pc + 4;
+                    case SALTAR_SE_MAIOR_IGUAL -> pc = r[bp + codigo[pc + 1]] >= r[bp + codigo[pc + 2]] ? codigo[pc + 3] : pc + 4;
+                    case CHAMAR -> {
+                        int novoBp = bp + codigo[pc + 3];
+                        if (novoBp + codigo[pc + 2] > r.length) {
+                            r = pilha = crescerPilha(novoBp + codigo[pc + 2], codigo[pc + 5]);
+                        }
+                        if (chamadas + 3 > retornos.length) {
+                            if (retornos.length >= RETORNOS_MAXIMOS) {
+                                throw estouro(codigo[pc + 5]);
+                            }
+                            retornos = this.retornos = Arrays.copyOf(retornos, Math.min(retornos.length * 2, RETORNOS_MAXIMOS));
+                        }
+                        retornos[chamadas] = pc + 6;
+                        retornos[chamadas + 1] = bp;
+                        retornos[chamadas + 2] = bp + codigo[pc + 4];
+                        chamadas += 3;
+                        bp = novoBp;
+                        pc = codigo[pc + 1];
+                    }
+                    case RETORNAR, RETORNAR_NADA -> {
+                        int valor = codigo[pc] == RETORNAR ? r[bp + codigo[pc + 1]] : 0;
+                        chamadas -= 3;
+                        r[retornos[chamadas + 2]] = valor;
+                        bp = retornos[chamadas + 1];
+                        pc = retornos[chamadas];
+                    }
+                    case ZERAR -> {
+                        int inicio = bp + codigo[pc + 1];
+                        Arrays.fill(r, inicio, inicio + codigo[pc + 2], 0);
+                        pc += 3;
+                    }
+                    case LER_INTEIRO -> {
+                        r[bp + codigo[pc + 1]] = es.lerInteiro(codigo[pc + 2]);
+                        pc += 3;
+                    }
+                    case LER_LOGICO -> {
+                        r[bp + codigo[pc + 1]] = es.lerLogico(codigo[pc + 2]);
+                        pc += 3;
+                    }
+                    case ESCREVER_INTEIRO -> {
+                        es.escreverInteiro(r[bp + codigo[pc + 1]]);
+                        pc += 2;
+                    }
+                    case ESCREVER_LOGICO -> {
+                        es.escreverLogico(r[bp + codigo[pc + 1]]);
+                        pc += 2;
+                    }
+                    case PARAR -> {
+                        return;
+                    }
+                    default -> throw new IllegalStateException("Instrução desconhecida " + codigo[pc] + " em " + pc);
+                }
+            }
+        } finally {
+            es.descarregar();
+        }
+    }
+
+    private int[] crescerPilha(int necessario, int linha) throws ErroDeExecucao {
+        if (necessario > PILHA_MAXIMA) {
+            throw estouro(linha);
+        }
+        return Arrays.copyOf(pilha, Math.min(Math.max(pilha.length * 2, necessario), PILHA_MAXIMA));
+    }
+
+    private static ErroDeExecucao estouro(int linha) {
+        return new ErroDeExecucao(linha, "estouro da pilha (recursão profunda demais)");
+    }
+}
@@ -0,0 +1,53 @@
+package compilador.execucao;
+
+import java.util.Arrays;
+
+// Resultado do CompiladorDeBytecode: o código de todas as rotinas num único int[]. O corpo
+// principal começa na posição 0 e as rotinas ficam no meio dele, puladas por um SALTAR.
+public class ProgramaCompilado {
+    final int[] codigo;
+    final int quadroPrincipal;      // registradores do corpo principal
+    final int quantidadeDeGlobais;
+
+    // Por rotina: onde o código dela começa e termina (fim exclusivo) e o formato do quadro
+    final String[] nomesDasRotinas;
+    final int[] inicios;
+    final int[] fins;
+    final int[] aridades;
+    final int[] quadros;
+    final boolean[] funcoes;
+
+    ProgramaCompilado(int[] codigo, int quadroPrincipal, int quantidadeDeGlobais, String[] nomesDasRotinas,
+            int[] inicios, int[] fins, int[] aridades, int[] quadros, boolean[] funcoes) {
+        this.codigo = codigo;
+        this.quadroPrincipal = quadroPrincipal;
+        this.quantidadeDeGlobais = quantidadeDeGlobais;
+        this.nomesDasRotinas = nomesDasRotinas;
+        this.inicios = inicios;
+        this.fins = fins;
+        this.aridades = aridades;
+        this.quadros = quadros;
+        this.funcoes = funcoes;
+    }
+
+    // Quantidade de ints do código
+    public int tamanho() {
+        return codigo.length;
+    }
+
+    // Uma instrução por linha, para depuração
+    @Override
+    public String toString() {
+        StringBuilder saida = new StringBuilder();
+        int pc = 0;
+        while (pc < codigo.length) {
+            int instrucao = codigo[pc];
+            int operandos = Instrucoes.OPERANDOS[instrucao];
+            saida.append(String.format("%5d  %-22s", pc, Instrucoes.NOMES[instrucao]));
+            saida.append(Arrays.toString(Arrays.copyOfRange(codigo, pc + 1, pc + 1 + operandos)));
+            saida.append('\n');
+            pc += 1 + operandos;
+        }
+        return saida.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package compilador.execucao;
+
+import compilador.execucao.exceptions.ErroDeExecucao;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// Programa gerado pelo CompiladorJvm, já carregado. Pode ser executado várias vezes, mas não
+// ao mesmo tempo (a EntradaESaida e as globais ficam em campos estáticos da classe gerada).
+public class ProgramaNaJvm {
+    // A recursão do programa vira recursão na JVM, então ele roda numa thread com pilha grande
+    private static final long TAMANHO_DA_PILHA = 512L * 1024 * 1024;
+
+    private final MethodHandle principal;
+    private final MethodHandle gravarEntradaESaida;
+
+    ProgramaNaJvm(MethodHandles.Lookup classe) throws IllegalAccessException {
+        try {
+            principal = classe.findStatic(classe.lookupClass(), "principal", MethodType.methodType(void.class));
+            gravarEntradaESaida = classe.findStaticSetter(classe.lookupClass(), "es", EntradaESaida.class);
+        } catch (NoSuchMethodException | NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void executar(EntradaESaida es) throws ErroDeExecucao, IOException {
+        Throwable[] erro = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                gravarEntradaESaida.invokeExact(es);
+                principal.invokeExact();
+            } catch (Throwable e) {
+                erro[0] = e;
+            }
+        }, "programa", TAMANHO_DA_PILHA);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("execução interrompida", e);
+        } finally {
+            es.descarregar();
+        }
+
+        Throwable e = erro[0];
+        if (e == null) {
+            return;
+        }
+        if (e instanceof StackOverflowError) {
+            throw new ErroDeExecucao("estouro da pilha (recursão profunda demais)");
+        }
+        if (e instanceof ErroDeExecucao erroDeExecucao) {
+            throw erroDeExecucao;
+        }
+        if (e instanceof IOException erroDeEntrada) {
+            throw erroDeEntrada;
+        }
+        if (e instanceof RuntimeException erroInesperado) {
+            throw erroInesperado;
+        }
+        if (e instanceof Error erroDaJvm) {
+            throw erroDaJvm;
+        }
+        throw new IllegalStateException(e);
+    }
+
+    // Chamado pelo código gerado no lugar de idiv, para ter a mesma mensagem da MaquinaVirtual
+    public static int dividir(int a, int b, int linha) throws ErroDeExecucao {
+        if (b == 0) {
+            throw new ErroDeExecucao(linha, "divisão por zero");
+        }
+        return a / b;
+    }
+}
@@ -0,0 +1,79 @@
+package compilador.execucao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Uso: java -cp bin compilador.execucao.TesteExecutor
+// Roda o Executor numa JVM à parte (ele termina com System.exit) em programas pequenos e confere o
+// código de saída e as mensagens de erro. Sai com código 1 se algum caso falhar.
+public class TesteExecutor {
+    private static int falhas = 0;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        caso("programa válido",
+                "programa p; int x; x = 6 * 7; escreva(x);",
+                0, "42\n", List.of());
+        caso("variável global declarada duas vezes",
+                "programa p; int x; int x; escreva(x);",
+                1, "", List.of("Erro Semântico na linha 1: Identificador 'x' já foi declarado."));
+        caso("duplicatas junto com os outros erros semânticos",
+                "programa p;\n"
+                        + "funcao int f(int a) {\n"
+                        + "    int a;\n"
+                        + "    retorne a;\n"
+                        + "}\n"
+                        + "int f;\n"
+                        + "escreva(z);\n",
+                1, "", List.of(
+                        "Erro Semântico na linha 3: Identificador 'a' já foi declarado.",
+                        "Erro Semântico na linha 6: Identificador 'f' já foi declarado.",
+                        "Erro Semântico na linha 7: Identificador 'z' não foi declarado."));
+        caso("duplicata e erro sintático",
+                "programa p;\nint x;\nint x;\nx = 1 +;\n",
+                1, "", List.of(
+                        "Erro Semântico na linha 3: Identificador 'x' já foi declarado.",
+                        "Erro sintático na linha 4: Esperado expressão mas veio PONTO_E_VIRGULA"));
+        caso("mesmo nome em rotinas diferentes",
+                "programa p;\n"
+                        + "procedimento a(int x) { escreva(x); }\n"
+                        + "procedimento b(int x) { int y; y = x; escreva(y); }\n"
+                        + "a(1); b(2);\n",
+                0, "1\n2\n", List.of());
+        if (falhas > 0) {
+            System.out.println(falhas + " caso(s) falharam");
+            System.exit(1);
+        }
+        System.out.println("Todos os casos passaram");
+    }
+
+    private static void caso(String nome, String codigo, int saidaEsperada, String textoEsperado,
+            List<String> errosEsperados) throws IOException, InterruptedException {
+        Path programa = Files.createTempFile("teste-executor", ".txt");
+        try {
+            Files.writeString(programa, codigo, StandardCharsets.UTF_8);
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            Process processo = new ProcessBuilder(java, "-Dfile.encoding=UTF-8",
+                    "-cp", System.getProperty("java.class.path"),
+                    Executor.class.getName(), programa.toString())
+                    .start();
+            processo.getOutputStream().close(); // nenhum caso usa leia
+            String saida = new String(processo.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            String erros = new String(processo.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+            int codigoDeSaida = processo.waitFor();
+            List<String> linhasDeErro = erros.isEmpty() ? List.of() : List.of(erros.split("\n"));
+            if (codigoDeSaida != saidaEsperada || !saida.equals(textoEsperado) || !linhasDeErro.equals(errosEsperados)) {
+                falhas++;
+                System.out.println("FALHOU: " + nome + " (código de saída " + codigoDeSaida + ")");
+                System.out.print(saida);
+                System.out.print(erros);
+            } else {
+                System.out.println("ok: " + nome);
+            }
+        } finally {
+            Files.deleteIfExists(programa);
+        }
+    }
+}
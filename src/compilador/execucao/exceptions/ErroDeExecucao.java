@@ -0,0 +1,29 @@
+package compilador.execucao.exceptions;
+
+// Erro que só aparece ao executar o programa (divisão por zero, entrada inválida...)
+public class ErroDeExecucao extends Exception {
+    private final int linha;
+    private final String detalhe;
+
+    public ErroDeExecucao(int linha, String detalhe) {
+        super("Erro de execução na linha " + linha + ": " + detalhe);
+        this.linha = linha;
+        this.detalhe = detalhe;
+    }
+
+    // Quando não se sabe a linha (getLinha devolve -1)
+    public ErroDeExecucao(String detalhe) {
+        super("Erro de execução: " + detalhe);
+        this.linha = -1;
+        this.detalhe = detalhe;
+    }
+
+    public int getLinha() {
+        return linha;
+    }
+
+    // Mensagem sem o prefixo com a linha
+    public String getDetalhe() {
+        return detalhe;
+    }
+}
@@ -0,0 +1,23 @@
+package compilador.execucao.exceptions;
+
+// Programa sintaticamente válido que não pode ser executado (nome não declarado, chamada
+// com o número errado de argumentos...)
+public class ErroSemantico extends Exception {
+    private final int linha;
+    private final String detalhe;
+
+    public ErroSemantico(int linha, String detalhe) {
+        super("Erro Semântico na linha " + linha + ": " + detalhe);
+        this.linha = linha;
+        this.detalhe = detalhe;
+    }
+
+    public int getLinha() {
+        return linha;
+    }
+
+    // Mensagem sem o prefixo com a linha
+    public String getDetalhe() {
+        return detalhe;
+    }
+}
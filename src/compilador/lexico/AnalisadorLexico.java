@@ -4,41 +4,121 @@ import java.util.Map;
 import java.util.HashMap;
 
 public class AnalisadorLexico {
-    private final String codigoFonte;
+    private final FonteDeCaracteres fonte;
+    private final MotorLexico motor;
+    private final TabelaDeNomes nomes;
+    private final byte[] latin1; // texto da fonte para as varreduras em bloco, ou null
     private int posicaoAtual = 0;
     private int linha = 1;
 
+    // Token reconhecido pela última chamada a proximoTipo()
+    private TipoToken tipoToken;
+    private int inicioToken;
+    private int comprimentoToken;
+    private int linhaToken;
+    private int idToken = -1;
+
     private static final Map<String, TipoToken> PALAVRAS_CHAVE;
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    // Imutável: é compartilhado por todos os lexers, inclusive em threads diferentes
+    static {
+        Map<String, TipoToken> palavras = new HashMap<>();
+        palavras.put("programa", TipoToken.PROGRAMA);
+        palavras.put("int", TipoToken.INT);
+        palavras.put("bool", TipoToken.BOOL);
+        palavras.put("procedimento", TipoToken.PROCEDIMENTO);
+        palavras.put("funcao", TipoToken.FUNCAO);
+        palavras.put("se", TipoToken.SE);
+        palavras.put("entao", TipoToken.ENTAO);
+        palavras.put("senao", TipoToken.SENAO);
+        palavras.put("enquanto", TipoToken.ENQUANTO);
+        palavras.put("leia", TipoToken.LEIA);
+        palavras.put("escreva", TipoToken.ESCREVA);
+        palavras.put("verdadeiro", TipoToken.VERDADEIRO);
+        palavras.put("falso", TipoToken.FALSO);
+        palavras.put("pare", TipoToken.PARE);
+        palavras.put("continue", TipoToken.CONTINUE);
+        palavras.put("retorne", TipoToken.RETORNE);
+        PALAVRAS_CHAVE = Map.copyOf(palavras);
+    }
+
+    // Hash perfeito das palavras-chave por (comprimento, primeira letra), usado para
+    // classificar identificadores direto do código-fonte, sem criar a String
+    private static final int MAIOR_PALAVRA_CHAVE = 12;
+    private static final String[] PALAVRA_POR_CHAVE = new String[(MAIOR_PALAVRA_CHAVE + 1) * 26];
+    private static final TipoToken[] TIPO_POR_CHAVE = new TipoToken[(MAIOR_PALAVRA_CHAVE + 1) * 26];
+
+    static {
+        for (Map.Entry<String, TipoToken> entrada : PALAVRAS_CHAVE.entrySet()) {
+            String palavra = entrada.getKey();
+            int chave = palavra.length() * 26 + (palavra.charAt(0) - 'a');
+            if (palavra.length() > MAIOR_PALAVRA_CHAVE || PALAVRA_POR_CHAVE[chave] != null) {
+                throw new IllegalStateException("Palavra-chave '" + palavra + "' colide no hash perfeito");
+            }
+            PALAVRA_POR_CHAVE[chave] = palavra;
+            TIPO_POR_CHAVE[chave] = entrada.getValue();
+        }
+    }
+
+    // Lexemas que não dependem do código-fonte, indexados pelo ordinal de TipoToken
+    private static final String[] LEXEMAS_FIXOS = new String[TipoToken.values().length];
 
     static {
-        PALAVRAS_CHAVE = new HashMap<>();
-        PALAVRAS_CHAVE.put("programa", TipoToken.PROGRAMA);
-        PALAVRAS_CHAVE.put("int", TipoToken.INT);
-        PALAVRAS_CHAVE.put("bool", TipoToken.BOOL);
-        PALAVRAS_CHAVE.put("procedimento", TipoToken.PROCEDIMENTO);
-        PALAVRAS_CHAVE.put("funcao", TipoToken.FUNCAO);
-        PALAVRAS_CHAVE.put("se", TipoToken.SE);
-        PALAVRAS_CHAVE.put("entao", TipoToken.ENTAO);
-        PALAVRAS_CHAVE.put("senao", TipoToken.SENAO);
-        PALAVRAS_CHAVE.put("enquanto", TipoToken.ENQUANTO);
-        PALAVRAS_CHAVE.put("leia", TipoToken.LEIA);
-        PALAVRAS_CHAVE.put("escreva", TipoToken.ESCREVA);
-        PALAVRAS_CHAVE.put("verdadeiro", TipoToken.VERDADEIRO);
-        PALAVRAS_CHAVE.put("falso", TipoToken.FALSO);
-        PALAVRAS_CHAVE.put("pare", TipoToken.PARE);
-        PALAVRAS_CHAVE.put("continue", TipoToken.CONTINUE);
-        PALAVRAS_CHAVE.put("retorne", TipoToken.RETORNE);
+        for (Map.Entry<String, TipoToken> entrada : PALAVRAS_CHAVE.entrySet()) {
+            LEXEMAS_FIXOS[entrada.getValue().ordinal()] = entrada.getKey();
+        }
+        LEXEMAS_FIXOS[TipoToken.PONTO_E_VIRGULA.ordinal()] = ";";
+        LEXEMAS_FIXOS[TipoToken.VIRGULA.ordinal()] = ",";
+        LEXEMAS_FIXOS[TipoToken.ABRE_PARENTESES.ordinal()] = "(";
+        LEXEMAS_FIXOS[TipoToken.FECHA_PARENTESES.ordinal()] = ")";
+        LEXEMAS_FIXOS[TipoToken.ABRE_CHAVES.ordinal()] = "{";
+        LEXEMAS_FIXOS[TipoToken.FECHA_CHAVES.ordinal()] = "}";
+        LEXEMAS_FIXOS[TipoToken.DOIS_PONTOS.ordinal()] = ":";
+        LEXEMAS_FIXOS[TipoToken.ATRIBUICAO.ordinal()] = "=";
+        LEXEMAS_FIXOS[TipoToken.IGUAL.ordinal()] = "==";
+        LEXEMAS_FIXOS[TipoToken.DIFERENTE.ordinal()] = "!=";
+        LEXEMAS_FIXOS[TipoToken.MENOR.ordinal()] = "<";
+        LEXEMAS_FIXOS[TipoToken.MENOR_IGUAL.ordinal()] = "<=";
+        LEXEMAS_FIXOS[TipoToken.MAIOR.ordinal()] = ">";
+        LEXEMAS_FIXOS[TipoToken.MAIOR_IGUAL.ordinal()] = ">=";
+        LEXEMAS_FIXOS[TipoToken.MAIS.ordinal()] = "+";
+        LEXEMAS_FIXOS[TipoToken.MENOS.ordinal()] = "-";
+        LEXEMAS_FIXOS[TipoToken.VEZES.ordinal()] = "*";
+        LEXEMAS_FIXOS[TipoToken.DIVISAO.ordinal()] = "/";
+        LEXEMAS_FIXOS[TipoToken.E_LOGICO.ordinal()] = "&&";
+        LEXEMAS_FIXOS[TipoToken.OU_LOGICO.ordinal()] = "||";
+        LEXEMAS_FIXOS[TipoToken.NAO_LOGICO.ordinal()] = "!";
+        LEXEMAS_FIXOS[TipoToken.EOF.ordinal()] = "";
     }
 
     public AnalisadorLexico(String codigoFonte) {
-        this.codigoFonte = codigoFonte;
+        this(FonteDeCaracteres.daString(codigoFonte));
+    }
+
+    // Lê de qualquer fonte: String, arquivo mapeado na memória, Reader ou canal em pedaços
+    public AnalisadorLexico(FonteDeCaracteres fonte) {
+        this(fonte, MotorLexico.CLASSICO);
+    }
+
+    public AnalisadorLexico(String codigoFonte, MotorLexico motor) {
+        this(FonteDeCaracteres.daString(codigoFonte), motor);
+    }
+
+    public AnalisadorLexico(FonteDeCaracteres fonte, MotorLexico motor) {
+        this(fonte, motor, new TabelaDeNomes());
+    }
+
+    // Os ids dos identificadores vêm da tabela de nomes dada (compartilhável entre lexers)
+    public AnalisadorLexico(FonteDeCaracteres fonte, MotorLexico motor, TabelaDeNomes nomes) {
+        this.fonte = fonte;
+        this.motor = motor;
+        this.nomes = nomes;
+        this.latin1 = fonte.textoLatin1();
     }
 
     private char charAtual() {
-        if (posicaoAtual >= codigoFonte.length()) {
-            return '\0'; // Caractere nulo para representar o fim do arquivo
-        }
-        return codigoFonte.charAt(posicaoAtual);
+        return fonte.charEm(posicaoAtual); // '\0' representa o fim do arquivo
     }
 
     public void avancar() {
@@ -46,21 +126,42 @@ public class AnalisadorLexico {
     }
 
     private char proximoChar() {
-        if (posicaoAtual + 1 >= codigoFonte.length()) {
-            return '\0';
-        }
-        return codigoFonte.charAt(posicaoAtual + 1);
+        return fonte.charEm(posicaoAtual + 1);
     }
     
     // Método principal para obter o próximo token
     public Token proximoToken() {
+        TipoToken tipo = proximoTipo();
+        return new Token(tipo, lexemaAtual(), linhaToken, idToken);
+    }
+
+    // Reconhece o próximo token sem criar objetos: o resultado fica disponível
+    // em inicioAtual(), comprimentoAtual() e linhaAtual() até a próxima chamada
+    public TipoToken proximoTipo() {
+        if (motor == MotorLexico.TABELA) {
+            return proximoTipoPorTabela();
+        }
+        return proximoTipoClassico();
+    }
+
+    private TipoToken proximoTipoClassico() {
         while (charAtual() != '\0') {
+            fonte.descartarAte(posicaoAtual); // nada antes daqui será relido
             char c = charAtual();
 
             // Ignorar espaços em branco e quebras de linha
             if (Character.isWhitespace(c)) {
-                if (c == '\n') linha++;
                 avancar();
+                if (c == '\n') {
+                    linha++;
+                    // A indentação que segue a quebra em blocos, quando a fonte é Latin-1; os
+                    // espaços curtos entre tokens saem mais baratos um por vez
+                    if (latin1 != null && Character.isWhitespace(charAtual())) {
+                        int fim = VarreduraEmBloco.fimDosEspacos(latin1, posicaoAtual);
+                        linha += VarreduraEmBloco.quebras(latin1, posicaoAtual, fim);
+                        posicaoAtual = fim;
+                    }
+                }
                 continue;
             }
 
@@ -68,8 +169,14 @@ public class AnalisadorLexico {
             if (c == '/' && proximoChar() == '*') {
                 avancar(); // Pula o '/'
                 avancar(); // Pula o '*'
+                if (latin1 != null) {
+                    int fim = VarreduraEmBloco.fimDoComentario(latin1, posicaoAtual);
+                    linha += VarreduraEmBloco.quebras(latin1, posicaoAtual, fim);
+                    posicaoAtual = fim;
+                }
                 while (charAtual() != '\0' && !(charAtual() == '*' && proximoChar() == '/')) {
                     if (charAtual() == '\n') linha++;
+                    fonte.descartarAte(posicaoAtual);
                     avancar();
                 }
                 avancar(); // Pula o '*'
@@ -87,86 +194,267 @@ public class AnalisadorLexico {
                 return numero();
             }
 
+            int inicio = posicaoAtual;
+
             // Operadores e pontuação
             switch (c) {
-                case ';': avancar(); return new Token(TipoToken.PONTO_E_VIRGULA, ";", linha);
-                case ',': avancar(); return new Token(TipoToken.VIRGULA, ",", linha);
-                case '(': avancar(); return new Token(TipoToken.ABRE_PARENTESES, "(", linha);
-                case ')': avancar(); return new Token(TipoToken.FECHA_PARENTESES, ")", linha);
-                case '{': avancar(); return new Token(TipoToken.ABRE_CHAVES, "{", linha);
-                case '}': avancar(); return new Token(TipoToken.FECHA_CHAVES, "}", linha);
-                case ':': avancar(); return new Token(TipoToken.DOIS_PONTOS, ":", linha);
-                case '+': avancar(); return new Token(TipoToken.MAIS, "+", linha);
-                case '-': avancar(); return new Token(TipoToken.MENOS, "-", linha);
-                case '*': avancar(); return new Token(TipoToken.VEZES, "*", linha);
-                case '/': avancar(); return new Token(TipoToken.DIVISAO, "/", linha);
+                case ';': avancar(); return reconhecer(TipoToken.PONTO_E_VIRGULA, inicio);
+                case ',': avancar(); return reconhecer(TipoToken.VIRGULA, inicio);
+                case '(': avancar(); return reconhecer(TipoToken.ABRE_PARENTESES, inicio);
+                case ')': avancar(); return reconhecer(TipoToken.FECHA_PARENTESES, inicio);
+                case '{': avancar(); return reconhecer(TipoToken.ABRE_CHAVES, inicio);
+                case '}': avancar(); return reconhecer(TipoToken.FECHA_CHAVES, inicio);
+                case ':': avancar(); return reconhecer(TipoToken.DOIS_PONTOS, inicio);
+                case '+': avancar(); return reconhecer(TipoToken.MAIS, inicio);
+                case '-': avancar(); return reconhecer(TipoToken.MENOS, inicio);
+                case '*': avancar(); return reconhecer(TipoToken.VEZES, inicio);
+                case '/': avancar(); return reconhecer(TipoToken.DIVISAO, inicio);
                 case '=':
                     avancar();
                     if (charAtual() == '=') {
                         avancar();
-                        return new Token(TipoToken.IGUAL, "==", linha);
+                        return reconhecer(TipoToken.IGUAL, inicio);
                     }
-                    return new Token(TipoToken.ATRIBUICAO, "=", linha);
+                    return reconhecer(TipoToken.ATRIBUICAO, inicio);
                 case '!':
                     avancar();
                     if (charAtual() == '=') {
                         avancar();
-                        return new Token(TipoToken.DIFERENTE, "!=", linha);
+                        return reconhecer(TipoToken.DIFERENTE, inicio);
                     }
-                    return new Token(TipoToken.NAO_LOGICO, "!", linha);
+                    return reconhecer(TipoToken.NAO_LOGICO, inicio);
                 case '<':
                     avancar();
                     if (charAtual() == '=') {
                         avancar();
-                        return new Token(TipoToken.MENOR_IGUAL, "<=", linha);
+                        return reconhecer(TipoToken.MENOR_IGUAL, inicio);
                     }
-                    return new Token(TipoToken.MENOR, "<", linha);
+                    return reconhecer(TipoToken.MENOR, inicio);
                 case '>':
                     avancar();
                     if (charAtual() == '=') {
                         avancar();
-                        return new Token(TipoToken.MAIOR_IGUAL, ">=", linha);
+                        return reconhecer(TipoToken.MAIOR_IGUAL, inicio);
                     }
-                    return new Token(TipoToken.MAIOR, ">", linha);
+                    return reconhecer(TipoToken.MAIOR, inicio);
                 case '&':
                     avancar();
                     if (charAtual() == '&') {
                         avancar();
-                        return new Token(TipoToken.E_LOGICO, "&&", linha);
+                        return reconhecer(TipoToken.E_LOGICO, inicio);
                     }
-                    return new Token(TipoToken.ERRO, "&", linha);
+                    return reconhecer(TipoToken.ERRO, inicio);
                 case '|':
                     avancar();
                     if (charAtual() == '|') {
                         avancar();
-                        return new Token(TipoToken.OU_LOGICO, "||", linha);
+                        return reconhecer(TipoToken.OU_LOGICO, inicio);
                     }
             }
             
             // Se chegou até aqui, o caractere é inválido.
-            String caractereInvalido = String.valueOf(c);
             avancar(); // Pula o caractere inválido para não entrar em loop infinito
-            return new Token(TipoToken.ERRO, caractereInvalido, linha);
+            return reconhecer(TipoToken.ERRO, inicio, 1);
         }
-        return new Token(TipoToken.EOF, "", linha); // Fim do arquivo
+        int fim = fonte.limitarAoFim(posicaoAtual);
+        return reconhecer(TipoToken.EOF, fim, 0); // Fim do arquivo
     }
 
-    private Token identificador() {
+    private TipoToken identificador() {
         int inicio = posicaoAtual;
-        while (Character.isLetterOrDigit(charAtual()) || charAtual() == '_') {
+        int hash = 0; // calculado junto com a leitura, para a TabelaDeNomes não reler o nome
+        if (latin1 != null) {
+            // A parte ASCII em blocos; o laço abaixo continua se parou numa letra como 'é'
+            int fim = VarreduraEmBloco.fimDoIdentificador(latin1, posicaoAtual);
+            for (int i = posicaoAtual; i < fim; i++) {
+                hash = 31 * hash + latin1[i];
+            }
+            posicaoAtual = fim;
+        }
+        char c;
+        while (Character.isLetterOrDigit(c = charAtual()) || c == '_') {
+            hash = 31 * hash + c;
             avancar();
         }
-        String lexema = codigoFonte.substring(inicio, posicaoAtual);
-        TipoToken tipo = PALAVRAS_CHAVE.getOrDefault(lexema, TipoToken.IDENTIFICADOR);
-        return new Token(tipo, lexema, linha);
+        return palavraOuIdentificador(inicio, hash);
     }
 
-    private Token numero() {
+    // Palavra-chave ou identificador; um identificador já sai com o id do seu nome
+    private TipoToken palavraOuIdentificador(int inicio, int hash) {
+        int comprimento = posicaoAtual - inicio;
+        TipoToken tipo = reconhecer(palavraChave(inicio, comprimento), inicio, comprimento);
+        if (tipo == TipoToken.IDENTIFICADOR) {
+            idToken = nomes.idDe(fonte, inicio, comprimento, hash);
+        }
+        return tipo;
+    }
+
+    // Compara o trecho com a única palavra-chave candidata, caractere a caractere
+    private TipoToken palavraChave(int inicio, int comprimento) {
+        if (comprimento > MAIOR_PALAVRA_CHAVE) {
+            return TipoToken.IDENTIFICADOR;
+        }
+        char primeiro = fonte.charEm(inicio);
+        if (primeiro < 'a' || primeiro > 'z') {
+            return TipoToken.IDENTIFICADOR;
+        }
+        int chave = comprimento * 26 + (primeiro - 'a');
+        String palavra = PALAVRA_POR_CHAVE[chave];
+        if (palavra == null) {
+            return TipoToken.IDENTIFICADOR;
+        }
+        for (int i = 1; i < comprimento; i++) {
+            if (fonte.charEm(inicio + i) != palavra.charAt(i)) {
+                return TipoToken.IDENTIFICADOR;
+            }
+        }
+        return TIPO_POR_CHAVE[chave];
+    }
+
+    private TipoToken numero() {
         int inicio = posicaoAtual;
         while (Character.isDigit(charAtual())) {
             avancar();
         }
-        String lexema = codigoFonte.substring(inicio, posicaoAtual);
-        return new Token(TipoToken.NUMERO, lexema, linha);
+        return reconhecer(TipoToken.NUMERO, inicio);
+    }
+
+    // Mesmo resultado de proximoTipoClassico(), mas guiado pela TabelaLexica: uma consulta
+    // de classe e uma de transição por caractere, com Character.isXxx só fora do ASCII
+    private TipoToken proximoTipoPorTabela() {
+        int[] transicao = TabelaLexica.TRANSICAO;
+        byte[] classeAscii = TabelaLexica.CLASSE_ASCII;
+        int estado = TabelaLexica.INICIO;
+        int inicio = posicaoAtual;
+        while (true) {
+            if (estado == TabelaLexica.INICIO) {
+                inicio = posicaoAtual;
+                fonte.descartarAte(posicaoAtual);
+            } else if (estado == TabelaLexica.COMENTARIO) {
+                fonte.descartarAte(posicaoAtual);
+            }
+            char c = fonte.charEm(posicaoAtual);
+            int classe = c < 128 ? classeAscii[c] : TabelaLexica.classeNaoAscii(c);
+            int acao = transicao[estado * TabelaLexica.CLASSES + classe];
+            if ((acao & TabelaLexica.CONSUMIR) != 0) {
+                posicaoAtual++;
+                if ((acao & TabelaLexica.LINHA) != 0) linha++;
+            } else if ((acao & TabelaLexica.PULAR_DOIS) != 0) {
+                posicaoAtual += 2;
+            }
+            if ((acao & TabelaLexica.ACEITAR) != 0) {
+                TipoToken tipo = TIPOS[acao & 0xFF];
+                if (tipo == TipoToken.IDENTIFICADOR) {
+                    return palavraOuIdentificador(inicio, TabelaDeNomes.hash(fonte, inicio, posicaoAtual - inicio));
+                }
+                if (tipo == TipoToken.EOF) {
+                    return reconhecer(tipo, fonte.limitarAoFim(posicaoAtual), 0);
+                }
+                if ((acao & TabelaLexica.LEXEMA_UNITARIO) != 0) {
+                    return reconhecer(tipo, inicio, 1);
+                }
+                return reconhecer(tipo, inicio);
+            }
+            estado = acao & 0xFF;
+        }
+    }
+
+    private TipoToken reconhecer(TipoToken tipo, int inicio) {
+        return reconhecer(tipo, inicio, posicaoAtual - inicio);
+    }
+
+    private TipoToken reconhecer(TipoToken tipo, int inicio, int comprimento) {
+        tipoToken = tipo;
+        inicioToken = inicio;
+        comprimentoToken = comprimento;
+        linhaToken = linha;
+        idToken = -1;
+        return tipo;
+    }
+
+    // Recomeça a leitura numa posição arbitrária (usado para lexar pedaços da entrada)
+    public void posicionar(int posicao, int linha) {
+        this.posicaoAtual = posicao;
+        this.linha = linha;
+    }
+
+    // Posição logo depois do último token reconhecido (pode passar do lexema, ex.: '|' sozinho)
+    public int posicaoAtual() {
+        return posicaoAtual;
+    }
+
+    public TipoToken tipoAtual() {
+        return tipoToken;
+    }
+
+    public int inicioAtual() {
+        return inicioToken;
+    }
+
+    public int comprimentoAtual() {
+        return comprimentoToken;
+    }
+
+    public int linhaAtual() {
+        return linhaToken;
+    }
+
+    // Id do nome do identificador atual na tabela de nomes, ou -1 se o token não é um identificador
+    public int idAtual() {
+        return idToken;
+    }
+
+    public TabelaDeNomes nomes() {
+        return nomes;
+    }
+
+    // O lexema de um token que não tem lexema fixo está na fonte em [inicioAtual(), inicioAtual() + comprimentoAtual())
+    public FonteDeCaracteres fonte() {
+        return fonte;
+    }
+
+    // Materializa o lexema do token atual; só aloca para números e erros (nomes vêm da tabela)
+    public String lexemaAtual() {
+        if (idToken >= 0) {
+            return nomes.nome(idToken);
+        }
+        return lexema(fonte, tipoToken, inicioToken, comprimentoToken);
+    }
+
+    // Lexema constante do tipo, ou null se ele depende do código-fonte
+    public static String lexemaFixo(TipoToken tipo) {
+        return LEXEMAS_FIXOS[tipo.ordinal()];
+    }
+
+    public static String lexema(FonteDeCaracteres fonte, TipoToken tipo, int inicio, int comprimento) {
+        String fixo = LEXEMAS_FIXOS[tipo.ordinal()];
+        if (fixo != null) {
+            return fixo;
+        }
+        return fonte.trecho(inicio, inicio + comprimento);
+    }
+
+    // Tokeniza a entrada inteira de uma vez, sem criar um Token por token
+    public TokenBuffer tokenizarTudo() {
+        TokenBuffer buffer = new TokenBuffer(fonte, nomes);
+        tokenizar(buffer);
+        return buffer;
+    }
+
+    // Preenche o buffer (reaproveitando seus arrays) até o EOF, inclusive
+    public void tokenizar(TokenBuffer buffer) {
+        EventoLexico evento = new EventoLexico();
+        evento.begin();
+        buffer.limpar(nomes);
+        TipoToken tipo;
+        do {
+            tipo = proximoTipo();
+            buffer.adicionar(tipo, inicioToken, comprimentoToken, linhaToken, idToken);
+        } while (tipo != TipoToken.EOF);
+        if (evento.shouldCommit()) {
+            evento.caracteres = inicioToken; // início do EOF = tamanho da entrada
+            evento.tokens = buffer.tamanho();
+            evento.commit();
+        }
     }
-}
\ No newline at end of file
+}
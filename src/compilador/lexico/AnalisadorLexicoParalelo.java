@@ -0,0 +1,213 @@
+package compilador.lexico;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Tokeniza um código-fonte grande em pedaços, em paralelo num ForkJoinPool, e costura os
+// resultados. Cada pedaço é lexado como se começasse fora de comentários e com linha 0;
+// na costura, um pedaço só é aceito a partir do primeiro token que começa exatamente onde
+// o lexer sequencial também começaria um token (dali em diante os dois coincidem). O trecho
+// anterior a esse ponto é relexado sequencialmente, e as linhas relativas de cada pedaço
+// recebem o deslocamento acumulado dos pedaços anteriores. Cada pedaço interna os nomes
+// na sua própria TabelaDeNomes; na costura os ids são traduzidos para a tabela do resultado.
+public class AnalisadorLexicoParalelo {
+    private static final int TAMANHO_MINIMO_PEDACO = 1 << 20;
+
+    private AnalisadorLexicoParalelo() {
+    }
+
+    public static TokenBuffer tokenizar(String codigoFonte) {
+        return tokenizar(codigoFonte, MotorLexico.CLASSICO, ForkJoinPool.commonPool(), TAMANHO_MINIMO_PEDACO);
+    }
+
+    public static TokenBuffer tokenizar(String codigoFonte, MotorLexico motor, ForkJoinPool pool, int tamanhoMinimoPedaco) {
+        FonteDeCaracteres fonte = FonteDeCaracteres.daString(codigoFonte);
+        int[] limites = dividir(codigoFonte, pool.getParallelism(), Math.max(tamanhoMinimoPedaco, 1));
+        if (limites.length <= 2) {
+            return new AnalisadorLexico(fonte, motor).tokenizarTudo();
+        }
+
+        List<TarefaDePedaco> tarefas = new ArrayList<>();
+        for (int i = 0; i + 1 < limites.length; i++) {
+            boolean ultimo = i + 2 == limites.length;
+            int fim = ultimo ? Integer.MAX_VALUE : limites[i + 1]; // o último pedaço também recebe o EOF
+            tarefas.add(new TarefaDePedaco(fonte, motor, limites[i], fim, limites[i + 1] - limites[i], i == 0 ? 1 : 0));
+        }
+        Pedaco[] pedacos = pool.invoke(new RecursiveTask<Pedaco[]>() {
+            @Override
+            protected Pedaco[] compute() {
+                invokeAll(tarefas);
+                Pedaco[] resultado = new Pedaco[tarefas.size()];
+                for (int i = 0; i < resultado.length; i++) {
+                    resultado[i] = tarefas.get(i).join();
+                }
+                return resultado;
+            }
+        });
+        return costurar(fonte, motor, pedacos);
+    }
+
+    // Limites dos pedaços, sempre logo depois de uma quebra de linha para diminuir os reparos
+    private static int[] dividir(String codigoFonte, int paralelismo, int tamanhoMinimoPedaco) {
+        int tamanho = codigoFonte.length();
+        int quantidade = Math.min(paralelismo * 4, tamanho / tamanhoMinimoPedaco);
+        if (quantidade <= 1) {
+            return new int[] { 0, tamanho };
+        }
+        int passo = tamanho / quantidade;
+        List<Integer> limites = new ArrayList<>();
+        limites.add(0);
+        for (int i = 1; i < quantidade; i++) {
+            int limite = codigoFonte.indexOf('\n', i * passo);
+            if (limite < 0) {
+                break;
+            }
+            limite++;
+            if (limite > limites.get(limites.size() - 1) && limite < tamanho) {
+                limites.add(limite);
+            }
+        }
+        limites.add(tamanho);
+        return limites.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static TokenBuffer costurar(FonteDeCaracteres fonte, MotorLexico motor, Pedaco[] pedacos) {
+        int total = 0;
+        for (Pedaco pedaco : pedacos) {
+            total += pedaco.tokens.tamanho();
+        }
+        TokenBuffer saida = new TokenBuffer(fonte, new TabelaDeNomes(), total + 1);
+        int[][] mapasDeIds = new int[pedacos.length][];
+
+        // O pedaço 0 começa no mesmo estado do lexer sequencial
+        int atual = 0;
+        int inicio = 0;
+        int deltaLinha = 0;
+        int posicaoAposUltimo = 0;
+        int linhaAposUltimo = 1;
+        while (true) {
+            Pedaco pedaco = pedacos[atual];
+            TokenBuffer tokens = pedaco.tokens;
+            int tamanho = tokens.tamanho();
+            if (mapasDeIds[atual] == null) {
+                mapasDeIds[atual] = saida.nomes().incorporar(tokens.nomes());
+            }
+            saida.adicionarTrecho(tokens, inicio, tamanho, deltaLinha, mapasDeIds[atual]);
+            if (tamanho > inicio) {
+                if (tokens.tipoOrdinal(tamanho - 1) == TipoToken.EOF.ordinal()) {
+                    return saida;
+                }
+                posicaoAposUltimo = pedaco.posicaoAposUltimo;
+                linhaAposUltimo = tokens.linha(tamanho - 1) + deltaLinha;
+            }
+
+            // O próximo token verdadeiro é o primeiro que o pedaço atual deixou de fora
+            int proximoInicio = pedaco.proximoInicio;
+            int proximaLinha = pedaco.proximaLinha + deltaLinha;
+            atual++;
+            Pedaco seguinte = pedacos[atual];
+            if (seguinte.primeiroInicio() == proximoInicio) {
+                inicio = 0;
+                deltaLinha = proximaLinha - seguinte.primeiraLinha();
+                continue;
+            }
+
+            // Sem sincronia: relexa sequencialmente até coincidir com algum token de um pedaço
+            AnalisadorLexico reparo = new AnalisadorLexico(fonte, motor, saida.nomes());
+            reparo.posicionar(posicaoAposUltimo, linhaAposUltimo);
+            int j = 0;
+            while (true) {
+                TipoToken tipo = reparo.proximoTipo();
+                int t = reparo.inicioAtual();
+                while (true) {
+                    TokenBuffer candidatos = pedacos[atual].tokens;
+                    if (j < candidatos.tamanho() && candidatos.inicio(j) < t) {
+                        j++;
+                    } else if (j >= candidatos.tamanho() && atual + 1 < pedacos.length
+                            && t >= pedacos[atual + 1].limiteInicio) {
+                        atual++;
+                        j = 0;
+                    } else {
+                        break;
+                    }
+                }
+                TokenBuffer candidatos = pedacos[atual].tokens;
+                if (j < candidatos.tamanho() && candidatos.inicio(j) == t) {
+                    inicio = j;
+                    deltaLinha = reparo.linhaAtual() - candidatos.linha(j);
+                    break;
+                }
+                saida.adicionar(tipo, t, reparo.comprimentoAtual(), reparo.linhaAtual(), reparo.idAtual());
+                if (tipo == TipoToken.EOF) {
+                    return saida;
+                }
+                posicaoAposUltimo = reparo.posicaoAtual();
+                linhaAposUltimo = reparo.linhaAtual();
+            }
+        }
+    }
+
+    // Tokens que começam dentro do pedaço, com linhas relativas ao seu início
+    private static class Pedaco {
+        final int limiteInicio;
+        final TokenBuffer tokens;
+        int posicaoAposUltimo;
+        int proximoInicio;  // início do primeiro token que já pertence ao pedaço seguinte
+        int proximaLinha;
+
+        Pedaco(int limiteInicio, TokenBuffer tokens) {
+            this.limiteInicio = limiteInicio;
+            this.tokens = tokens;
+        }
+
+        int primeiroInicio() {
+            return tokens.tamanho() > 0 ? tokens.inicio(0) : proximoInicio;
+        }
+
+        int primeiraLinha() {
+            return tokens.tamanho() > 0 ? tokens.linha(0) : proximaLinha;
+        }
+    }
+
+    private static class TarefaDePedaco extends RecursiveTask<Pedaco> {
+        private final FonteDeCaracteres fonte;
+        private final MotorLexico motor;
+        private final int inicio;
+        private final int fim;
+        private final int tamanho;
+        private final int linhaInicial;
+
+        TarefaDePedaco(FonteDeCaracteres fonte, MotorLexico motor, int inicio, int fim, int tamanho, int linhaInicial) {
+            this.fonte = fonte;
+            this.motor = motor;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.tamanho = tamanho;
+            this.linhaInicial = linhaInicial;
+        }
+
+        @Override
+        protected Pedaco compute() {
+            AnalisadorLexico lexer = new AnalisadorLexico(fonte, motor);
+            lexer.posicionar(inicio, linhaInicial);
+            Pedaco pedaco = new Pedaco(inicio, new TokenBuffer(fonte, lexer.nomes(), Math.max(tamanho / 4, 16)));
+            pedaco.posicaoAposUltimo = inicio;
+            while (true) {
+                TipoToken tipo = lexer.proximoTipo();
+                if (lexer.inicioAtual() >= fim) {
+                    pedaco.proximoInicio = lexer.inicioAtual();
+                    pedaco.proximaLinha = lexer.linhaAtual();
+                    return pedaco;
+                }
+                pedaco.tokens.adicionar(tipo, lexer.inicioAtual(), lexer.comprimentoAtual(), lexer.linhaAtual(), lexer.idAtual());
+                pedaco.posicaoAposUltimo = lexer.posicaoAtual();
+                if (tipo == TipoToken.EOF) {
+                    pedaco.proximoInicio = Integer.MAX_VALUE;
+                    return pedaco;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package compilador.lexico;
+
+// Percorre um TokenBuffer já preenchido, sem criar objetos por token
+public class CursorDeTokens implements FluxoDeTokens {
+    private final TokenBuffer buffer;
+    private int indice;
+
+    public CursorDeTokens(TokenBuffer buffer) {
+        this.buffer = buffer;
+        this.indice = 0;
+    }
+
+    @Override
+    public TipoToken tipo() {
+        return buffer.tipo(indice);
+    }
+
+    @Override
+    public String lexema() {
+        return buffer.lexema(indice);
+    }
+
+    @Override
+    public int linha() {
+        return buffer.linha(indice);
+    }
+
+    @Override
+    public int id() {
+        return buffer.id(indice);
+    }
+
+    @Override
+    public TabelaDeNomes nomes() {
+        return buffer.nomes();
+    }
+
+    @Override
+    public void avancar() {
+        if (indice < buffer.tamanho() - 1) {
+            indice++;
+        }
+    }
+
+    // Posição do token atual no buffer
+    @Override
+    public int indice() {
+        return indice;
+    }
+
+    public TokenBuffer buffer() {
+        return buffer;
+    }
+}
@@ -0,0 +1,51 @@
+package compilador.lexico;
+
+// Consome os tokens diretamente do AnalisadorLexico, sem criar um objeto Token por token
+public class CursorLexico implements FluxoDeTokens {
+    private final AnalisadorLexico lexer;
+    private TipoToken tipo;
+    private int indice = 0;
+
+    public CursorLexico(AnalisadorLexico lexer) {
+        this.lexer = lexer;
+        this.tipo = lexer.proximoTipo();
+    }
+
+    @Override
+    public TipoToken tipo() {
+        return tipo;
+    }
+
+    @Override
+    public String lexema() {
+        return lexer.lexemaAtual();
+    }
+
+    @Override
+    public int linha() {
+        return lexer.linhaAtual();
+    }
+
+    @Override
+    public int id() {
+        return lexer.idAtual();
+    }
+
+    @Override
+    public TabelaDeNomes nomes() {
+        return lexer.nomes();
+    }
+
+    @Override
+    public int indice() {
+        return indice;
+    }
+
+    @Override
+    public void avancar() {
+        if (tipo != TipoToken.EOF) {
+            indice++;
+        }
+        tipo = lexer.proximoTipo();
+    }
+}
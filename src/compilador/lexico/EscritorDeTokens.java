@@ -0,0 +1,170 @@
+package compilador.lexico;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Grava os tokens de um AnalisadorLexico no formato binário lido pelo LeitorDeTokens:
+//
+//   cabeçalho: MAGIA (4 bytes, big-endian), que inclui a VERSAO no último byte
+//   por token, um byte com o ordinal do TipoToken nos 6 bits baixos e, nos 2 altos, a
+//   posição do token em relação ao anterior ("folga" é o que há entre o fim do anterior e o
+//   início deste, medido com o comprimento do lexema):
+//     MESMA_LINHA_JUNTO     mesma linha, folga 0
+//     MESMA_LINHA_ESPACO    mesma linha, folga 1
+//     PROXIMA_LINHA         linha seguinte; segue a folga (varint zigzag)
+//     OUTRA_LINHA           segue a diferença de linhas (varint) e a folga (varint zigzag)
+//   e, só para tipos sem lexema fixo (identificadores, números, erros), uma referência à
+//   tabela de lexemas: 0 para um lexema novo, seguido do comprimento em caracteres, do tamanho
+//   em bytes e do texto em CESU-8 (ele vira a próxima entrada), ou n para a entrada n - 1
+//   o último token é o EOF
+//
+// Os varints usam 7 bits por byte, com o bit alto dizendo que há mais bytes. A tabela de
+// lexemas é montada enquanto o fluxo é escrito e lido, então o formato pode ser gravado num
+// pipe e lido sem voltar atrás. Cada nome aparece uma vez no arquivo inteiro, e a maioria dos
+// tokens ocupa 1 byte (2 para nomes), menos que os caracteres do próprio código-fonte.
+public class EscritorDeTokens {
+    public static final int VERSAO = 2; // 2: lexemas em CESU-8 (TextoCesu8) em vez de UTF-8
+    public static final int MAGIA = 0x544F4B00 | VERSAO; // "TOK" + versão
+
+    static final int MESMA_LINHA_JUNTO = 0;
+    static final int MESMA_LINHA_ESPACO = 1;
+    static final int PROXIMA_LINHA = 2;
+    static final int OUTRA_LINHA = 3;
+
+    private final OutputStream saida;
+    private final byte[] bytes = new byte[64 * 1024];
+    private int tamanho = 0;
+
+    // Entrada da tabela de lexemas de cada id da TabelaDeNomes do lexer (+ 1; 0 se ainda não há)
+    private int[] entradaDoNome = new int[256];
+    // Entrada dos lexemas variáveis que não são nomes
+    private final Map<String, Integer> entradaDoLexema = new HashMap<>();
+    private int entradas = 0;
+
+    public EscritorDeTokens(OutputStream saida) {
+        this.saida = saida;
+    }
+
+    // Grava num arquivo todos os tokens do lexer, até o EOF inclusive; devolve quantos
+    public static long gravar(AnalisadorLexico lexer, Path arquivo) throws IOException {
+        try (OutputStream saida = new BufferedOutputStream(Files.newOutputStream(arquivo))) {
+            return new EscritorDeTokens(saida).escrever(lexer);
+        }
+    }
+
+    // Escreve o cabeçalho e os tokens do lexer até o EOF inclusive, e devolve quantos foram
+    public long escrever(AnalisadorLexico lexer) throws IOException {
+        escreverInt(MAGIA);
+        long quantidade = 0;
+        int fimAnterior = 0;
+        int linhaAnterior = 1;
+        TipoToken tipo;
+        do {
+            tipo = lexer.proximoTipo();
+            int inicio = lexer.inicioAtual();
+            int folga = inicio - fimAnterior;
+            int linhas = lexer.linhaAtual() - linhaAnterior;
+            garantir(1 + 2 * 5);
+            if (linhas == 0 && (folga == 0 || folga == 1)) {
+                bytes[tamanho++] = (byte) (tipo.ordinal() | (folga == 0 ? MESMA_LINHA_JUNTO : MESMA_LINHA_ESPACO) << 6);
+            } else if (linhas == 1) {
+                bytes[tamanho++] = (byte) (tipo.ordinal() | PROXIMA_LINHA << 6);
+                escreverVarint(zigzag(folga));
+            } else {
+                bytes[tamanho++] = (byte) (tipo.ordinal() | OUTRA_LINHA << 6);
+                escreverVarint(linhas);
+                escreverVarint(zigzag(folga));
+            }
+            String fixo = AnalisadorLexico.lexemaFixo(tipo);
+            if (fixo == null) {
+                escreverLexema(lexer);
+                fimAnterior = inicio + lexer.comprimentoAtual();
+            } else {
+                fimAnterior = inicio + fixo.length();
+            }
+            linhaAnterior = lexer.linhaAtual();
+            quantidade++;
+        } while (tipo != TipoToken.EOF);
+        descarregar();
+        saida.flush();
+        return quantidade;
+    }
+
+    private void escreverLexema(AnalisadorLexico lexer) throws IOException {
+        int id = lexer.idAtual();
+        if (id >= 0) {
+            if (id >= entradaDoNome.length) {
+                entradaDoNome = Arrays.copyOf(entradaDoNome, Math.max(id + 1, entradaDoNome.length * 2));
+            }
+            if (entradaDoNome[id] != 0) {
+                garantir(5);
+                escreverVarint(entradaDoNome[id]);
+                return;
+            }
+            entradaDoNome[id] = ++entradas;
+            escreverNovo(lexer.nomes().nome(id), lexer.comprimentoAtual());
+            return;
+        }
+        String lexema = lexer.lexemaAtual();
+        Integer entrada = entradaDoLexema.get(lexema);
+        if (entrada != null) {
+            garantir(5);
+            escreverVarint(entrada);
+            return;
+        }
+        entradaDoLexema.put(lexema, ++entradas);
+        escreverNovo(lexema, lexer.comprimentoAtual());
+    }
+
+    private void escreverNovo(String lexema, int comprimento) throws IOException {
+        byte[] texto = TextoCesu8.codificar(lexema);
+        garantir(3 * 5);
+        escreverVarint(0);
+        escreverVarint(comprimento);
+        escreverVarint(texto.length);
+        if (texto.length > bytes.length - tamanho) {
+            descarregar();
+            saida.write(texto);
+            return;
+        }
+        System.arraycopy(texto, 0, bytes, tamanho, texto.length);
+        tamanho += texto.length;
+    }
+
+    private void escreverInt(int valor) throws IOException {
+        garantir(4);
+        bytes[tamanho++] = (byte) (valor >>> 24);
+        bytes[tamanho++] = (byte) (valor >>> 16);
+        bytes[tamanho++] = (byte) (valor >>> 8);
+        bytes[tamanho++] = (byte) valor;
+    }
+
+    private void escreverVarint(int valor) {
+        while ((valor & ~0x7F) != 0) {
+            bytes[tamanho++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        bytes[tamanho++] = (byte) valor;
+    }
+
+    static int zigzag(int valor) {
+        return (valor << 1) ^ (valor >> 31);
+    }
+
+    private void garantir(int espaco) throws IOException {
+        if (bytes.length - tamanho < espaco) {
+            descarregar();
+        }
+    }
+
+    private void descarregar() throws IOException {
+        saida.write(bytes, 0, tamanho);
+        tamanho = 0;
+    }
+}
@@ -0,0 +1,23 @@
+package compilador.lexico;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Evento do JDK Flight Recorder para cada tokenização até o EOF (AnalisadorLexico.tokenizar).
+// Com o JFR desligado, custa um objeto descartável por arquivo, nada por token.
+@Name("compilador.AnaliseLexica")
+@Label("Análise léxica")
+@Description("Tokenização de uma entrada inteira")
+@Category("Compilador")
+@StackTrace(false)
+final class EventoLexico extends Event {
+    @Label("Caracteres")
+    int caracteres;
+
+    @Label("Tokens")
+    int tokens;
+}
@@ -0,0 +1,25 @@
+package compilador.lexico;
+
+// Sequência de tokens consumida pelo Parser, um token por vez, sem exigir um objeto Token
+public interface FluxoDeTokens {
+    // Tipo do token atual
+    TipoToken tipo();
+
+    // Lexema do token atual (materializado sob demanda)
+    String lexema();
+
+    // Linha do token atual
+    int linha();
+
+    // Id do nome do identificador atual em nomes(), ou -1 se não for identificador
+    int id();
+
+    // Tabela de nomes que dá sentido aos ids
+    TabelaDeNomes nomes();
+
+    // Posição do token atual na sequência (0 é o primeiro token)
+    int indice();
+
+    // Passa para o próximo token; no EOF permanece no EOF
+    void avancar();
+}
@@ -0,0 +1,283 @@
+package compilador.lexico;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+// Lexer e Parser em threads separadas: o AnalisadorLexico roda numa thread própria e publica os
+// tokens em lotes num anel de CAPACIDADE lotes, com um produtor e um consumidor e sem locks (só
+// os contadores voláteis 'produzidos' e 'consumidos'). Quando o anel está cheio o lexer espera
+// o Parser (contrapressão), e quando está vazio o Parser espera o lexer. Com dois núcleos livres,
+// o tempo total tende ao da etapa mais lenta em vez da soma das duas.
+//
+// Cada lote traz os tipos, as linhas, os ids e a posição dos tokens e os nomes vistos pela
+// primeira vez nele. Os lexemas que não são nomes nem fixos (números e erros) são lidos da fonte
+// só quando pedidos, se ela é uma String (imutável, então pode ser lida pelas duas threads); de
+// outras fontes, que o lexer vai descartando, eles já vêm copiados no lote. A TabelaDeNomes do
+// lexer fica só na thread dele; os nomes novos são internados na tabela deste fluxo (a do
+// Parser) quando o lote é consumido.
+//
+// Feche o fluxo (close) se a análise parar antes do EOF, para o lexer não ficar esperando.
+public class FluxoEmPipeline implements FluxoDeTokens, AutoCloseable {
+    private static final int CAPACIDADE = 16;          // lotes no anel (potência de 2)
+    private static final int TAMANHO_DO_LOTE = 4096;   // tokens por lote
+    // Com um só processador, girar só atrasa a outra thread
+    private static final int GIROS_ANTES_DE_DORMIR = Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+
+    private final Lote[] anel = new Lote[CAPACIDADE];
+    private volatile long produzidos = 0; // escrito só pelo lexer
+    private volatile long consumidos = 0; // escrito só pelo consumidor
+    private volatile boolean terminou = false;
+    private volatile Throwable falha;
+    private volatile boolean fechado = false;
+    private final Thread lexer;
+    private final FonteDeCaracteres fonteCompartilhada; // null se a fonte só pode ser lida pelo lexer
+    // Thread dormindo à espera da outra (null se nenhuma): quem publica ou libera um lote a acorda
+    private volatile Thread lexerDormindo;
+    private volatile Thread consumidorDormindo;
+
+    // Lado do consumidor
+    private final TabelaDeNomes nomes = new TabelaDeNomes();
+    private int[] traducao = new int[256]; // id na tabela do lexer -> id em 'nomes'
+    private int nomesRecebidos = 0;
+    private Lote atual;
+    private int posicao = 0;
+    private int indice = 0;
+
+    public FluxoEmPipeline(FonteDeCaracteres fonte) {
+        this(fonte, MotorLexico.CLASSICO);
+    }
+
+    // Começa a lexar na hora; o primeiro token já é esperado aqui
+    public FluxoEmPipeline(FonteDeCaracteres fonte, MotorLexico motor) {
+        for (int i = 0; i < CAPACIDADE; i++) {
+            anel[i] = new Lote();
+        }
+        fonteCompartilhada = fonte instanceof FonteDeString ? fonte : null;
+        AnalisadorLexico analisador = new AnalisadorLexico(fonte, motor);
+        lexer = new Thread(() -> produzir(analisador), "lexer-pipeline");
+        lexer.setDaemon(true);
+        lexer.start();
+        receberLote();
+    }
+
+    // --- thread do lexer ---
+
+    private void produzir(AnalisadorLexico analisador) {
+        try {
+            TabelaDeNomes nomesDoLexer = analisador.nomes();
+            int nomesPublicados = 0;
+            TipoToken tipo = null;
+            while (tipo != TipoToken.EOF) {
+                long vaga = produzidos;
+                if (!esperar(() -> vaga - consumidos < CAPACIDADE, true)) {
+                    return; // fechado pelo consumidor
+                }
+                Lote lote = anel[(int) (vaga & (CAPACIDADE - 1))];
+                lote.tamanho = 0;
+                lote.quantidadeDeNomes = 0;
+                while (lote.tamanho < TAMANHO_DO_LOTE && tipo != TipoToken.EOF) {
+                    tipo = analisador.proximoTipo();
+                    int i = lote.tamanho++;
+                    int id = analisador.idAtual();
+                    lote.tipos[i] = tipo.ordinal();
+                    lote.linhas[i] = analisador.linhaAtual();
+                    lote.ids[i] = id;
+                    lote.inicios[i] = analisador.inicioAtual();
+                    lote.comprimentos[i] = analisador.comprimentoAtual();
+                    if (id == nomesPublicados) {
+                        lote.adicionarNome(nomesDoLexer.nome(id));
+                        nomesPublicados++;
+                    } else if (id < 0 && fonteCompartilhada == null && AnalisadorLexico.lexemaFixo(tipo) == null) {
+                        lote.lexemas[i] = analisador.lexemaAtual();
+                    }
+                }
+                produzidos = vaga + 1; // publica o lote (escrita volátil depois de preenchê-lo)
+                acordar(consumidorDormindo);
+            }
+        } catch (Throwable e) {
+            falha = e;
+        } finally {
+            terminou = true;
+            acordar(consumidorDormindo);
+        }
+    }
+
+    // --- thread do consumidor ---
+
+    // Passa para o próximo lote publicado, esperando o lexer se preciso
+    private void receberLote() {
+        long proximo = consumidos;
+        if (!esperar(() -> produzidos > proximo || terminou, false) || produzidos <= proximo) {
+            // o lexer terminou sem publicar o EOF
+            Throwable erro = falha;
+            if (erro instanceof RuntimeException excecao) {
+                throw excecao;
+            }
+            if (erro instanceof Error grave) {
+                throw grave;
+            }
+            throw new IllegalStateException("O lexer do pipeline parou antes do EOF", erro);
+        }
+        atual = anel[(int) (proximo & (CAPACIDADE - 1))];
+        posicao = 0;
+        for (int j = 0; j < atual.quantidadeDeNomes; j++) {
+            if (nomesRecebidos == traducao.length) {
+                traducao = Arrays.copyOf(traducao, nomesRecebidos * 2);
+            }
+            traducao[nomesRecebidos++] = nomes.idDe(atual.nomes[j]);
+        }
+    }
+
+    @Override
+    public void avancar() {
+        if (tipo() == TipoToken.EOF) {
+            return;
+        }
+        indice++;
+        if (++posicao == atual.tamanho) {
+            if (fonteCompartilhada == null) {
+                atual.limparLexemas();
+            }
+            consumidos = consumidos + 1; // devolve o lote ao lexer
+            acordar(lexerDormindo);
+            receberLote();
+        }
+    }
+
+    @Override
+    public TipoToken tipo() {
+        return TIPOS[atual.tipos[posicao]];
+    }
+
+    // Tipo do token 'k' posições à frente do atual (0 é o atual), sem consumir nada; pode esperar o
+    // lexer. Depois do EOF, é EOF. 'k' vai até o que cabe no anel menos o lote atual.
+    public TipoToken tipoAFrente(int k) {
+        if (k < 0 || k > (CAPACIDADE - 1) * TAMANHO_DO_LOTE) {
+            throw new IllegalArgumentException("Lookahead fora da janela do pipeline: " + k);
+        }
+        Lote lote = atual;
+        int p = posicao + k;
+        long seguinte = consumidos + 1;
+        while (p >= lote.tamanho) {
+            if (TIPOS[lote.tipos[lote.tamanho - 1]] == TipoToken.EOF) {
+                return TipoToken.EOF;
+            }
+            p -= lote.tamanho;
+            long vaga = seguinte++;
+            if (!esperar(() -> produzidos > vaga || terminou, false) || produzidos <= vaga) {
+                return TipoToken.EOF; // o erro do lexer aparece quando o token for consumido
+            }
+            lote = anel[(int) (vaga & (CAPACIDADE - 1))];
+        }
+        return TIPOS[lote.tipos[p]];
+    }
+
+    @Override
+    public String lexema() {
+        int id = atual.ids[posicao];
+        if (id >= 0) {
+            return nomes.nome(traducao[id]);
+        }
+        if (fonteCompartilhada != null) {
+            return AnalisadorLexico.lexema(fonteCompartilhada, tipo(), atual.inicios[posicao], atual.comprimentos[posicao]);
+        }
+        String fixo = AnalisadorLexico.lexemaFixo(tipo());
+        return fixo != null ? fixo : atual.lexemas[posicao];
+    }
+
+    @Override
+    public int linha() {
+        return atual.linhas[posicao];
+    }
+
+    @Override
+    public int id() {
+        int id = atual.ids[posicao];
+        return id < 0 ? -1 : traducao[id];
+    }
+
+    @Override
+    public TabelaDeNomes nomes() {
+        return nomes;
+    }
+
+    @Override
+    public int indice() {
+        return indice;
+    }
+
+    // Libera o lexer se ele estiver esperando vaga no anel; os tokens que faltam são descartados
+    @Override
+    public void close() {
+        fechado = true;
+        LockSupport.unpark(lexer);
+    }
+
+    // Gira um pouco e depois dorme até a condição valer; false se o fluxo foi fechado antes. Quem
+    // dorme se anuncia antes de conferir a condição de novo, e a outra thread confere o anúncio
+    // depois de mudar a condição (as duas escritas são voláteis), então o aviso não se perde; o
+    // tempo máximo de sono é só uma garantia a mais.
+    private boolean esperar(Condicao condicao, boolean souLexer) {
+        for (int giros = 0; !condicao.vale(); giros++) {
+            if (fechado) {
+                return false;
+            }
+            if (giros < GIROS_ANTES_DE_DORMIR) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Thread eu = Thread.currentThread();
+            if (souLexer) {
+                lexerDormindo = eu;
+            } else {
+                consumidorDormindo = eu;
+            }
+            if (!condicao.vale() && !fechado) {
+                LockSupport.parkNanos(1_000_000);
+            }
+            if (souLexer) {
+                lexerDormindo = null;
+            } else {
+                consumidorDormindo = null;
+            }
+        }
+        return true;
+    }
+
+    private static void acordar(Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private interface Condicao {
+        boolean vale();
+    }
+
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    // Um lote de tokens em colunas, reaproveitado pelo anel
+    private static final class Lote {
+        final int[] tipos = new int[TAMANHO_DO_LOTE];
+        final int[] linhas = new int[TAMANHO_DO_LOTE];
+        final int[] ids = new int[TAMANHO_DO_LOTE];
+        final int[] inicios = new int[TAMANHO_DO_LOTE];
+        final int[] comprimentos = new int[TAMANHO_DO_LOTE];
+        final String[] lexemas = new String[TAMANHO_DO_LOTE];
+        int tamanho;
+        String[] nomes = new String[64];
+        int quantidadeDeNomes;
+
+        void adicionarNome(String nome) {
+            if (quantidadeDeNomes == nomes.length) {
+                nomes = Arrays.copyOf(nomes, quantidadeDeNomes * 2);
+            }
+            nomes[quantidadeDeNomes++] = nome;
+        }
+
+        // Solta as Strings antes de o lote voltar ao lexer
+        void limparLexemas() {
+            Arrays.fill(lexemas, 0, tamanho, null);
+        }
+    }
+}
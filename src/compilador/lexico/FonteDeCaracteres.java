@@ -0,0 +1,67 @@
+package compilador.lexico;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// Entrada do AnalisadorLexico. O lexer só avança, então fontes em janela podem
+// descartar tudo o que fica antes do token atual e ler a entrada aos pedaços.
+public interface FonteDeCaracteres extends Closeable {
+    int JANELA_PADRAO = 64 * 1024;
+
+    // Caractere na posição absoluta, ou '\0' depois do fim da entrada
+    char charEm(int posicao);
+
+    // Texto entre as posições [inicio, fim); só é garantido a partir do último descarte
+    String trecho(int inicio, int fim);
+
+    // Avisa que as posições anteriores a esta não serão mais lidas
+    default void descartarAte(int posicao) {
+    }
+
+    // Limita a posição ao tamanho da entrada (só precisa ser exato depois do fim)
+    int limitarAoFim(int posicao);
+
+    // Se trechos antigos continuam disponíveis depois de descartarAte
+    default boolean retemTexto() {
+        return false;
+    }
+
+    // O texto inteiro com um byte por caractere, quando a fonte o tem assim (todos os
+    // caracteres até U+00FF); o lexer então varre espaços, comentários e identificadores 8
+    // caracteres por vez (VarreduraEmBloco). null se não: o lexer lê um caractere por vez.
+    default byte[] textoLatin1() {
+        return null;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    static FonteDeCaracteres daString(String codigoFonte) {
+        return new FonteDeString(codigoFonte);
+    }
+
+    // Lê de um Reader em pedaços, mantendo na memória só a janela do token atual
+    static FonteDeCaracteres doLeitor(Reader leitor) {
+        return new FonteDeLeitor(leitor, JANELA_PADRAO);
+    }
+
+    static FonteDeCaracteres doLeitor(Reader leitor, int janela) {
+        return new FonteDeLeitor(leitor, janela);
+    }
+
+    // Lê bytes UTF-8 de um canal em pedaços
+    static FonteDeCaracteres doCanal(ReadableByteChannel canal) {
+        return new FonteDeLeitor(Channels.newReader(canal, StandardCharsets.UTF_8), JANELA_PADRAO);
+    }
+
+    // Mapeia o arquivo na memória e decodifica UTF-8 direto das páginas mapeadas
+    static FonteDeCaracteres mapear(Path arquivo) throws IOException {
+        return new FonteMapeada(arquivo, JANELA_PADRAO);
+    }
+}
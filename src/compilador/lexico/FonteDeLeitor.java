@@ -0,0 +1,24 @@
+package compilador.lexico;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Fonte lida de um Reader (ou de um canal de bytes convertido em Reader)
+class FonteDeLeitor extends FonteEmJanela {
+    private final Reader leitor;
+
+    FonteDeLeitor(Reader leitor, int tamanhoJanela) {
+        super(tamanhoJanela);
+        this.leitor = leitor;
+    }
+
+    @Override
+    protected int ler(char[] destino, int inicio, int quantidade) throws IOException {
+        return leitor.read(destino, inicio, quantidade);
+    }
+
+    @Override
+    public void close() throws IOException {
+        leitor.close();
+    }
+}
@@ -0,0 +1,66 @@
+package compilador.lexico;
+
+import java.nio.charset.StandardCharsets;
+
+// Código-fonte inteiro já carregado na memória. Quando todos os caracteres cabem em um byte
+// (Latin-1, o caso de quase todo código-fonte), o texto fica num byte[], que o lexer varre
+// em blocos; senão, fica a String.
+class FonteDeString implements FonteDeCaracteres {
+    private final String codigoFonte; // null quando o texto está em latin1
+    private final byte[] latin1;
+
+    FonteDeString(String codigoFonte) {
+        byte[] bytes = emLatin1(codigoFonte);
+        this.latin1 = bytes;
+        this.codigoFonte = bytes == null ? codigoFonte : null;
+    }
+
+    // Os caracteres como bytes, ou null se algum não é Latin-1 (o getBytes troca esses por '?',
+    // e um par de surrogates por um '?' só)
+    private static byte[] emLatin1(String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.ISO_8859_1);
+        if (bytes.length != texto.length()) {
+            return null;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '?' && texto.charAt(i) != '?') {
+                return null;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public char charEm(int posicao) {
+        if (latin1 != null) {
+            return posicao < latin1.length ? (char) (latin1[posicao] & 0xFF) : '\0';
+        }
+        if (posicao >= codigoFonte.length()) {
+            return '\0'; // Caractere nulo para representar o fim do arquivo
+        }
+        return codigoFonte.charAt(posicao);
+    }
+
+    @Override
+    public String trecho(int inicio, int fim) {
+        if (latin1 != null) {
+            return new String(latin1, inicio, fim - inicio, StandardCharsets.ISO_8859_1);
+        }
+        return codigoFonte.substring(inicio, fim);
+    }
+
+    @Override
+    public int limitarAoFim(int posicao) {
+        return Math.min(posicao, latin1 != null ? latin1.length : codigoFonte.length());
+    }
+
+    @Override
+    public boolean retemTexto() {
+        return true;
+    }
+
+    @Override
+    public byte[] textoLatin1() {
+        return latin1;
+    }
+}
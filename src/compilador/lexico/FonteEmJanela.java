@@ -0,0 +1,77 @@
+package compilador.lexico;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+// Base das fontes lidas aos pedaços: guarda só os caracteres a partir do último
+// descarte. A janela só cresce se um único token for maior que ela.
+abstract class FonteEmJanela implements FonteDeCaracteres {
+    private char[] janela;
+    private int base = 0;        // posição absoluta de janela[0]
+    private int preenchido = 0;  // caracteres válidos na janela
+    private int descarte = 0;    // posições anteriores podem ser descartadas
+    private boolean terminou = false;
+
+    FonteEmJanela(int tamanhoJanela) {
+        this.janela = new char[Math.max(tamanhoJanela, 16)];
+    }
+
+    // Lê até 'quantidade' caracteres em destino[inicio..]; -1 no fim da entrada
+    protected abstract int ler(char[] destino, int inicio, int quantidade) throws IOException;
+
+    @Override
+    public char charEm(int posicao) {
+        int i = posicao - base;
+        if (i < preenchido) {
+            return janela[i];
+        }
+        while (!terminou && posicao - base >= preenchido) {
+            carregar();
+        }
+        i = posicao - base;
+        return i < preenchido ? janela[i] : '\0';
+    }
+
+    private void carregar() {
+        int manter = Math.min(descarte, base + preenchido) - base;
+        if (manter > 0) {
+            System.arraycopy(janela, manter, janela, 0, preenchido - manter);
+            preenchido -= manter;
+            base += manter;
+        }
+        if (preenchido == janela.length) {
+            janela = Arrays.copyOf(janela, janela.length * 2);
+        }
+        try {
+            int lidos = ler(janela, preenchido, janela.length - preenchido);
+            if (lidos < 0) {
+                terminou = true;
+            } else {
+                preenchido += lidos;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String trecho(int inicio, int fim) {
+        if (inicio < base) {
+            throw new IllegalStateException("Trecho " + inicio + " já foi descartado da janela");
+        }
+        charEm(fim - 1);
+        return new String(janela, inicio - base, fim - inicio);
+    }
+
+    @Override
+    public void descartarAte(int posicao) {
+        descarte = posicao;
+    }
+
+    @Override
+    public int limitarAoFim(int posicao) {
+        charEm(posicao);
+        return terminou ? Math.min(posicao, base + preenchido) : posicao;
+    }
+}
@@ -0,0 +1,63 @@
+package compilador.lexico;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Decodifica UTF-8 (ou ASCII) direto de um arquivo mapeado na memória. O arquivo é
+// mapeado em segmentos, então nem o heap nem um único mapeamento limitam o tamanho.
+class FonteMapeada extends FonteEmJanela {
+    private static final long SEGMENTO = 64L * 1024 * 1024;
+
+    private final FileChannel canal;
+    private final long tamanhoArquivo;
+    private final CharsetDecoder decodificador;
+    private MappedByteBuffer segmento;
+    private long inicioSegmento = 0;
+    private boolean decodificouFim = false;
+
+    FonteMapeada(Path arquivo, int tamanhoJanela) throws IOException {
+        super(tamanhoJanela);
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        this.tamanhoArquivo = canal.size();
+        this.decodificador = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        mapearSegmento(0);
+    }
+
+    private void mapearSegmento(long inicio) throws IOException {
+        inicioSegmento = inicio;
+        segmento = canal.map(FileChannel.MapMode.READ_ONLY, inicio, Math.min(SEGMENTO, tamanhoArquivo - inicio));
+    }
+
+    @Override
+    protected int ler(char[] destino, int inicio, int quantidade) throws IOException {
+        if (decodificouFim) {
+            return -1;
+        }
+        CharBuffer saida = CharBuffer.wrap(destino, inicio, quantidade);
+        boolean ultimoSegmento = inicioSegmento + segmento.limit() >= tamanhoArquivo;
+        decodificador.decode(segmento, saida, ultimoSegmento);
+        if (ultimoSegmento && !segmento.hasRemaining()) {
+            decodificador.flush(saida);
+            decodificouFim = true;
+        } else if (!ultimoSegmento && segmento.remaining() < 4) {
+            // Sequência UTF-8 cortada no fim do segmento: remapeia a partir dela
+            mapearSegmento(inicioSegmento + segmento.position());
+        }
+        int lidos = saida.position() - inicio;
+        return lidos == 0 && decodificouFim ? -1 : lidos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
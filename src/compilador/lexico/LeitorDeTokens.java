@@ -0,0 +1,269 @@
+package compilador.lexico;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Lê um fluxo gravado pelo EscritorDeTokens direto da memória mapeada do arquivo, um token por
+// vez, e serve de FluxoDeTokens para o Parser: assim a análise léxica e a sintática podem rodar
+// em processos separados. Os tokens são decodificados no lugar; um lexema só vira String quando
+// é pedido, e cada nome só é internado na TabelaDeNomes na primeira vez que aparece. Como na
+// FonteMapeada, o arquivo é mapeado em segmentos.
+public class LeitorDeTokens implements FluxoDeTokens, AutoCloseable {
+    private static final long SEGMENTO = 64L * 1024 * 1024;
+    private static final int MAIOR_REGISTRO = 1 + 5 * 5; // um token sem o texto do lexema
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    private final FileChannel canal; // null quando o fluxo todo já está num ByteBuffer
+    private final long tamanhoTotal;
+    private ByteBuffer dados;
+    private long inicioDoSegmento = 0;
+
+    private final TabelaDeNomes nomes = new TabelaDeNomes();
+    // Tabela de lexemas: onde está o texto de cada entrada no fluxo, o comprimento dele no
+    // código-fonte e o id do nome (-1 se ainda não foi internado); os textos que não são nomes
+    // ficam guardados depois de pedidos
+    private long[] posicoes = new long[256];
+    private int[] tamanhos = new int[256];
+    private int[] comprimentos = new int[256];
+    private int[] ids = new int[256];
+    private String[] textos = new String[256];
+    private int entradas = 0;
+
+    private TipoToken tipo;
+    private int inicio = 0;
+    private int fim = 0; // do token atual, no código-fonte
+    private int linha = 1;
+    private int entrada = -1; // entrada do lexema do token atual, -1 se o lexema é fixo
+    private int indice = -1;
+
+    // Lê um fluxo que já está na memória (da posição atual até o limite do buffer)
+    public LeitorDeTokens(ByteBuffer dados) {
+        this.canal = null;
+        this.dados = dados.slice();
+        this.tamanhoTotal = this.dados.limit();
+        lerCabecalho();
+    }
+
+    private LeitorDeTokens(FileChannel canal) throws IOException {
+        this.canal = canal;
+        this.tamanhoTotal = canal.size();
+        mapear(0);
+        lerCabecalho();
+    }
+
+    // Mapeia o arquivo e lê o primeiro token
+    public static LeitorDeTokens abrir(Path arquivo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            return new LeitorDeTokens(canal);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private void lerCabecalho() {
+        if (dados.remaining() < 4 || dados.getInt() != EscritorDeTokens.MAGIA) {
+            throw new IllegalArgumentException("Não é um fluxo de tokens na versão " + EscritorDeTokens.VERSAO);
+        }
+        avancar();
+    }
+
+    private void mapear(long posicao) throws IOException {
+        inicioDoSegmento = posicao;
+        dados = canal.map(FileChannel.MapMode.READ_ONLY, posicao, Math.min(SEGMENTO, tamanhoTotal - posicao));
+    }
+
+    // Garante que os próximos 'quantidade' bytes (ou o que resta do fluxo) estão no segmento
+    private void garantir(int quantidade) {
+        if (canal == null || dados.remaining() >= quantidade) {
+            return;
+        }
+        long posicao = inicioDoSegmento + dados.position();
+        if (posicao + dados.remaining() < tamanhoTotal) {
+            try {
+                mapear(posicao);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void avancar() {
+        if (tipo == TipoToken.EOF) {
+            return;
+        }
+        try {
+            garantir(MAIOR_REGISTRO);
+            int cabecalho = dados.get() & 0xFF;
+            int ordinal = cabecalho & 0x3F;
+            if (ordinal >= TIPOS.length) {
+                throw new IllegalStateException("Tipo de token inválido no fluxo: " + ordinal);
+            }
+            tipo = TIPOS[ordinal];
+            switch (cabecalho >>> 6) {
+                case EscritorDeTokens.MESMA_LINHA_JUNTO -> inicio = fim;
+                case EscritorDeTokens.MESMA_LINHA_ESPACO -> inicio = fim + 1;
+                case EscritorDeTokens.PROXIMA_LINHA -> {
+                    linha++;
+                    inicio = fim + deszigzag(lerVarint());
+                }
+                default -> {
+                    linha += lerVarint();
+                    inicio = fim + deszigzag(lerVarint());
+                }
+            }
+            String fixo = AnalisadorLexico.lexemaFixo(tipo);
+            if (fixo == null) {
+                entrada = lerEntrada();
+                fim = inicio + comprimentos[entrada];
+            } else {
+                entrada = -1;
+                fim = inicio + fixo.length();
+            }
+            indice++;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("O fluxo de tokens terminou antes do EOF");
+        }
+    }
+
+    private int lerEntrada() {
+        int referencia = lerVarint();
+        if (referencia > entradas) {
+            throw new IllegalStateException("Referência a um lexema que não existe: " + referencia);
+        }
+        if (referencia > 0) {
+            return referencia - 1;
+        }
+        int comprimento = lerVarint();
+        int tamanho = lerVarint();
+        if (entradas == posicoes.length) {
+            int capacidade = entradas * 2;
+            posicoes = Arrays.copyOf(posicoes, capacidade);
+            tamanhos = Arrays.copyOf(tamanhos, capacidade);
+            comprimentos = Arrays.copyOf(comprimentos, capacidade);
+            ids = Arrays.copyOf(ids, capacidade);
+            textos = Arrays.copyOf(textos, capacidade);
+        }
+        long posicao = inicioDoSegmento + dados.position();
+        if (posicao + tamanho > tamanhoTotal) {
+            throw new BufferUnderflowException();
+        }
+        posicoes[entradas] = posicao;
+        tamanhos[entradas] = tamanho;
+        comprimentos[entradas] = comprimento;
+        ids[entradas] = -1;
+        // Pula o texto; se ele passa do segmento, o próximo segmento começa depois dele
+        if (dados.remaining() >= tamanho) {
+            dados.position(dados.position() + tamanho);
+        } else {
+            try {
+                mapear(posicao + tamanho);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return entradas++;
+    }
+
+    private int lerVarint() {
+        int valor = 0;
+        for (int deslocamento = 0; deslocamento < 32; deslocamento += 7) {
+            byte b = dados.get();
+            valor |= (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalStateException("Varint malformado no fluxo de tokens");
+    }
+
+    private static int deszigzag(int valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    // Decodifica o texto de uma entrada, do segmento atual ou (se já ficou para trás) do arquivo
+    private String texto(int e) {
+        byte[] bytes = new byte[tamanhos[e]];
+        long deslocamento = posicoes[e] - inicioDoSegmento;
+        if (deslocamento >= 0 && deslocamento + bytes.length <= dados.limit()) {
+            dados.get((int) deslocamento, bytes);
+        } else {
+            try {
+                ByteBuffer destino = ByteBuffer.wrap(bytes);
+                while (destino.hasRemaining()) {
+                    if (canal.read(destino, posicoes[e] + destino.position()) < 0) {
+                        throw new IllegalStateException("O fluxo de tokens terminou antes do EOF");
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return TextoCesu8.decodificar(bytes);
+    }
+
+    @Override
+    public TipoToken tipo() {
+        return tipo;
+    }
+
+    @Override
+    public String lexema() {
+        if (entrada < 0) {
+            return AnalisadorLexico.lexemaFixo(tipo);
+        }
+        if (tipo == TipoToken.IDENTIFICADOR) {
+            return nomes.nome(id());
+        }
+        if (textos[entrada] == null) {
+            textos[entrada] = texto(entrada);
+        }
+        return textos[entrada];
+    }
+
+    @Override
+    public int linha() {
+        return linha;
+    }
+
+    // Posição do token atual no código-fonte original
+    public int inicio() {
+        return inicio;
+    }
+
+    @Override
+    public int id() {
+        if (tipo != TipoToken.IDENTIFICADOR) {
+            return -1;
+        }
+        if (ids[entrada] < 0) {
+            ids[entrada] = nomes.idDe(texto(entrada));
+        }
+        return ids[entrada];
+    }
+
+    @Override
+    public TabelaDeNomes nomes() {
+        return nomes;
+    }
+
+    @Override
+    public int indice() {
+        return indice;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            canal.close();
+        }
+    }
+}
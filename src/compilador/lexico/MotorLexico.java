@@ -0,0 +1,9 @@
+package compilador.lexico;
+
+// Implementação usada pelo AnalisadorLexico; as duas produzem exatamente os mesmos tokens
+public enum MotorLexico {
+    // switch sobre o caractere atual, com Character.isXxx a cada passo
+    CLASSICO,
+    // autômato dirigido por tabela de transições, com classes ASCII pré-calculadas
+    TABELA
+}
@@ -0,0 +1,137 @@
+package compilador.lexico;
+
+import java.util.Arrays;
+
+// Conjunto de nomes (identificadores) internados: cada nome distinto recebe um id inteiro
+// denso (0, 1, 2, ...) na primeira vez que aparece, e todas as ocorrências dele passam a
+// usar o mesmo id e a mesma String. A busca é feita direto nos caracteres da fonte, então
+// só a primeira ocorrência de cada nome aloca. Não é thread-safe: cada lexer paralelo usa
+// a sua e elas são juntadas com incorporar().
+public class TabelaDeNomes {
+    private String[] nomes = new String[256];
+    private int[] hashes = new int[256];
+    private int quantidade = 0;
+
+    // Endereçamento aberto: id + 1 de cada posição, 0 quando livre
+    private int[] posicoes = new int[512];
+
+    // Id do nome que ocupa [inicio, inicio + comprimento) na fonte, internando se for novo
+    public int idDe(FonteDeCaracteres fonte, int inicio, int comprimento) {
+        return idDe(fonte, inicio, comprimento, hash(fonte, inicio, comprimento));
+    }
+
+    // Idem, com o hash do trecho já calculado por quem o leu
+    public int idDe(FonteDeCaracteres fonte, int inicio, int comprimento, int hash) {
+        int mascara = posicoes.length - 1;
+        int p = espalhar(hash) & mascara;
+        while (posicoes[p] != 0) {
+            int id = posicoes[p] - 1;
+            if (hashes[id] == hash && iguais(nomes[id], fonte, inicio, comprimento)) {
+                return id;
+            }
+            p = (p + 1) & mascara;
+        }
+        return inserir(p, fonte.trecho(inicio, inicio + comprimento), hash);
+    }
+
+    public int idDe(String nome) {
+        int id = idExistente(nome);
+        if (id >= 0) {
+            return id;
+        }
+        int hash = nome.hashCode();
+        int mascara = posicoes.length - 1;
+        int p = espalhar(hash) & mascara;
+        while (posicoes[p] != 0) {
+            p = (p + 1) & mascara;
+        }
+        return inserir(p, nome, hash);
+    }
+
+    // Id de um nome já internado, ou -1
+    public int idExistente(String nome) {
+        int hash = nome.hashCode();
+        int mascara = posicoes.length - 1;
+        int p = espalhar(hash) & mascara;
+        while (posicoes[p] != 0) {
+            int id = posicoes[p] - 1;
+            if (hashes[id] == hash && nomes[id].equals(nome)) {
+                return id;
+            }
+            p = (p + 1) & mascara;
+        }
+        return -1;
+    }
+
+    // O mesmo valor de String.hashCode() para o trecho
+    public static int hash(FonteDeCaracteres fonte, int inicio, int comprimento) {
+        int hash = 0;
+        for (int i = 0; i < comprimento; i++) {
+            hash = 31 * hash + fonte.charEm(inicio + i);
+        }
+        return hash;
+    }
+
+    public String nome(int id) {
+        return nomes[id];
+    }
+
+    public int tamanho() {
+        return quantidade;
+    }
+
+    // Interna aqui todos os nomes da outra tabela; o resultado leva cada id de lá ao id daqui
+    public int[] incorporar(TabelaDeNomes outra) {
+        int[] mapa = new int[outra.quantidade];
+        for (int id = 0; id < outra.quantidade; id++) {
+            mapa[id] = idDe(outra.nomes[id]);
+        }
+        return mapa;
+    }
+
+    private int inserir(int posicao, String nome, int hash) {
+        if (quantidade == nomes.length) {
+            nomes = Arrays.copyOf(nomes, quantidade * 2);
+            hashes = Arrays.copyOf(hashes, quantidade * 2);
+        }
+        int id = quantidade++;
+        nomes[id] = nome;
+        hashes[id] = hash;
+        posicoes[posicao] = id + 1;
+        if (quantidade * 2 > posicoes.length) {
+            redimensionar();
+        }
+        return id;
+    }
+
+    private void redimensionar() {
+        posicoes = new int[posicoes.length * 2];
+        int mascara = posicoes.length - 1;
+        for (int id = 0; id < quantidade; id++) {
+            int p = espalhar(hashes[id]) & mascara;
+            while (posicoes[p] != 0) {
+                p = (p + 1) & mascara;
+            }
+            posicoes[p] = id + 1;
+        }
+    }
+
+    private static boolean iguais(String nome, FonteDeCaracteres fonte, int inicio, int comprimento) {
+        if (nome.length() != comprimento) {
+            return false;
+        }
+        for (int i = 0; i < comprimento; i++) {
+            if (nome.charAt(i) != fonte.charEm(inicio + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Nomes parecidos (v1, v2, ...) têm hashCode quase consecutivos; multiplicar espalha os
+    // valores e evita longas sequências de posições ocupadas na sondagem linear
+    private static int espalhar(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
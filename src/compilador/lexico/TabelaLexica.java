@@ -0,0 +1,145 @@
+package compilador.lexico;
+
+// Tabelas do autômato usado pelo MotorLexico.TABELA. Cada entrada de TRANSICAO combina
+// o próximo estado (ou o TipoToken aceito) com as ações a executar no caractere atual.
+final class TabelaLexica {
+    // Classes de caractere
+    static final int NULO = 0, ESPACO = 1, NOVA_LINHA = 2, LETRA = 3, DIGITO = 4, SUBLINHADO = 5,
+            BARRA = 6, ASTERISCO = 7, IGUAL = 8, EXCLAMACAO = 9, MENOR = 10, MAIOR = 11,
+            ECOMERCIAL = 12, BARRA_VERTICAL = 13, PONTO_E_VIRGULA = 14, VIRGULA = 15,
+            ABRE_PARENTESES = 16, FECHA_PARENTESES = 17, ABRE_CHAVES = 18, FECHA_CHAVES = 19,
+            DOIS_PONTOS = 20, MAIS = 21, MENOS = 22, OUTRO = 23;
+    static final int CLASSES = 24;
+
+    // Estados
+    static final int INICIO = 0, APOS_BARRA = 1, COMENTARIO = 2, COMENTARIO_ASTERISCO = 3,
+            IDENTIFICADOR = 4, NUMERO = 5, APOS_IGUAL = 6, APOS_EXCLAMACAO = 7, APOS_MENOR = 8,
+            APOS_MAIOR = 9, APOS_ECOMERCIAL = 10, APOS_BARRA_VERTICAL = 11;
+    static final int ESTADOS = 12;
+
+    // Ações (os 8 bits baixos são o próximo estado ou, com ACEITAR, o ordinal do TipoToken)
+    static final int CONSUMIR = 1 << 8;        // avança um caractere
+    static final int ACEITAR = 1 << 9;         // termina o token
+    static final int LINHA = 1 << 10;          // o caractere consumido é uma quebra de linha
+    static final int LEXEMA_UNITARIO = 1 << 11; // o lexema é só o primeiro caractere
+    static final int PULAR_DOIS = 1 << 12;     // comentário interrompido por '\0': pula ele e o seguinte
+
+    static final byte[] CLASSE_ASCII = new byte[128];
+    static final int[] TRANSICAO = new int[ESTADOS * CLASSES];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            CLASSE_ASCII[c] = (byte) classeGeral(c);
+        }
+        CLASSE_ASCII['_'] = SUBLINHADO;
+        CLASSE_ASCII['/'] = BARRA;
+        CLASSE_ASCII['*'] = ASTERISCO;
+        CLASSE_ASCII['='] = IGUAL;
+        CLASSE_ASCII['!'] = EXCLAMACAO;
+        CLASSE_ASCII['<'] = MENOR;
+        CLASSE_ASCII['>'] = MAIOR;
+        CLASSE_ASCII['&'] = ECOMERCIAL;
+        CLASSE_ASCII['|'] = BARRA_VERTICAL;
+        CLASSE_ASCII[';'] = PONTO_E_VIRGULA;
+        CLASSE_ASCII[','] = VIRGULA;
+        CLASSE_ASCII['('] = ABRE_PARENTESES;
+        CLASSE_ASCII[')'] = FECHA_PARENTESES;
+        CLASSE_ASCII['{'] = ABRE_CHAVES;
+        CLASSE_ASCII['}'] = FECHA_CHAVES;
+        CLASSE_ASCII[':'] = DOIS_PONTOS;
+        CLASSE_ASCII['+'] = MAIS;
+        CLASSE_ASCII['-'] = MENOS;
+
+        // INICIO: pula espaços, abre operadores compostos e aceita pontuação simples
+        for (int classe = 0; classe < CLASSES; classe++) {
+            definir(INICIO, classe, CONSUMIR | ACEITAR | TipoToken.ERRO.ordinal());
+        }
+        definir(INICIO, NULO, ACEITAR | TipoToken.EOF.ordinal());
+        definir(INICIO, ESPACO, CONSUMIR | INICIO);
+        definir(INICIO, NOVA_LINHA, CONSUMIR | LINHA | INICIO);
+        definir(INICIO, LETRA, CONSUMIR | IDENTIFICADOR);
+        definir(INICIO, DIGITO, CONSUMIR | NUMERO);
+        definir(INICIO, BARRA, CONSUMIR | APOS_BARRA);
+        definir(INICIO, IGUAL, CONSUMIR | APOS_IGUAL);
+        definir(INICIO, EXCLAMACAO, CONSUMIR | APOS_EXCLAMACAO);
+        definir(INICIO, MENOR, CONSUMIR | APOS_MENOR);
+        definir(INICIO, MAIOR, CONSUMIR | APOS_MAIOR);
+        definir(INICIO, ECOMERCIAL, CONSUMIR | APOS_ECOMERCIAL);
+        definir(INICIO, BARRA_VERTICAL, CONSUMIR | APOS_BARRA_VERTICAL);
+        definir(INICIO, ASTERISCO, CONSUMIR | ACEITAR | TipoToken.VEZES.ordinal());
+        definir(INICIO, PONTO_E_VIRGULA, CONSUMIR | ACEITAR | TipoToken.PONTO_E_VIRGULA.ordinal());
+        definir(INICIO, VIRGULA, CONSUMIR | ACEITAR | TipoToken.VIRGULA.ordinal());
+        definir(INICIO, ABRE_PARENTESES, CONSUMIR | ACEITAR | TipoToken.ABRE_PARENTESES.ordinal());
+        definir(INICIO, FECHA_PARENTESES, CONSUMIR | ACEITAR | TipoToken.FECHA_PARENTESES.ordinal());
+        definir(INICIO, ABRE_CHAVES, CONSUMIR | ACEITAR | TipoToken.ABRE_CHAVES.ordinal());
+        definir(INICIO, FECHA_CHAVES, CONSUMIR | ACEITAR | TipoToken.FECHA_CHAVES.ordinal());
+        definir(INICIO, DOIS_PONTOS, CONSUMIR | ACEITAR | TipoToken.DOIS_PONTOS.ordinal());
+        definir(INICIO, MAIS, CONSUMIR | ACEITAR | TipoToken.MAIS.ordinal());
+        definir(INICIO, MENOS, CONSUMIR | ACEITAR | TipoToken.MENOS.ordinal());
+
+        // '/' pode abrir um comentário
+        preencher(APOS_BARRA, ACEITAR | TipoToken.DIVISAO.ordinal());
+        definir(APOS_BARRA, ASTERISCO, CONSUMIR | COMENTARIO);
+
+        // Dentro do comentário só '*' seguido de '/' fecha; '\0' interrompe
+        preencher(COMENTARIO, CONSUMIR | COMENTARIO);
+        definir(COMENTARIO, NOVA_LINHA, CONSUMIR | LINHA | COMENTARIO);
+        definir(COMENTARIO, ASTERISCO, CONSUMIR | COMENTARIO_ASTERISCO);
+        definir(COMENTARIO, NULO, PULAR_DOIS | INICIO);
+        preencher(COMENTARIO_ASTERISCO, CONSUMIR | COMENTARIO);
+        definir(COMENTARIO_ASTERISCO, NOVA_LINHA, CONSUMIR | LINHA | COMENTARIO);
+        definir(COMENTARIO_ASTERISCO, ASTERISCO, CONSUMIR | COMENTARIO_ASTERISCO);
+        definir(COMENTARIO_ASTERISCO, BARRA, CONSUMIR | INICIO);
+        definir(COMENTARIO_ASTERISCO, NULO, PULAR_DOIS | INICIO);
+
+        preencher(IDENTIFICADOR, ACEITAR | TipoToken.IDENTIFICADOR.ordinal());
+        definir(IDENTIFICADOR, LETRA, CONSUMIR | IDENTIFICADOR);
+        definir(IDENTIFICADOR, DIGITO, CONSUMIR | IDENTIFICADOR);
+        definir(IDENTIFICADOR, SUBLINHADO, CONSUMIR | IDENTIFICADOR);
+
+        preencher(NUMERO, ACEITAR | TipoToken.NUMERO.ordinal());
+        definir(NUMERO, DIGITO, CONSUMIR | NUMERO);
+
+        operadorComposto(APOS_IGUAL, IGUAL, TipoToken.IGUAL, TipoToken.ATRIBUICAO);
+        operadorComposto(APOS_EXCLAMACAO, IGUAL, TipoToken.DIFERENTE, TipoToken.NAO_LOGICO);
+        operadorComposto(APOS_MENOR, IGUAL, TipoToken.MENOR_IGUAL, TipoToken.MENOR);
+        operadorComposto(APOS_MAIOR, IGUAL, TipoToken.MAIOR_IGUAL, TipoToken.MAIOR);
+        operadorComposto(APOS_ECOMERCIAL, ECOMERCIAL, TipoToken.E_LOGICO, TipoToken.ERRO);
+
+        // Um '|' sozinho é erro e, como no motor clássico, engole o caractere seguinte
+        preencher(APOS_BARRA_VERTICAL, CONSUMIR | ACEITAR | LEXEMA_UNITARIO | TipoToken.ERRO.ordinal());
+        definir(APOS_BARRA_VERTICAL, BARRA_VERTICAL, CONSUMIR | ACEITAR | TipoToken.OU_LOGICO.ordinal());
+    }
+
+    private TabelaLexica() {
+    }
+
+    // Caminho lento, só para caracteres fora do ASCII
+    static int classeNaoAscii(char c) {
+        return classeGeral(c);
+    }
+
+    private static int classeGeral(char c) {
+        if (c == '\0') return NULO;
+        if (c == '\n') return NOVA_LINHA;
+        if (Character.isWhitespace(c)) return ESPACO;
+        if (Character.isLetter(c)) return LETRA;
+        if (Character.isDigit(c)) return DIGITO;
+        return OUTRO;
+    }
+
+    private static void definir(int estado, int classe, int acao) {
+        TRANSICAO[estado * CLASSES + classe] = acao;
+    }
+
+    private static void preencher(int estado, int acao) {
+        for (int classe = 0; classe < CLASSES; classe++) {
+            definir(estado, classe, acao);
+        }
+    }
+
+    private static void operadorComposto(int estado, int segundo, TipoToken composto, TipoToken simples) {
+        preencher(estado, ACEITAR | simples.ordinal());
+        definir(estado, segundo, CONSUMIR | ACEITAR | composto.ordinal());
+    }
+}
@@ -1,20 +1,45 @@
 package compilador.lexico;
 
+import compilador.saida.EscritorDeSaida;
+import compilador.saida.FormatoDeSaida;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
+// Uso: java compilador.lexico.TestadorLexico [--formato texto|jsonl|csv] [arquivo [saida]] (padrão: codigo.txt).
+// Com uma saida .tok, grava os tokens no formato binário do EscritorDeTokens; com outra saída,
+// escreve neste arquivo a lista de tokens no formato pedido (ver FormatoDeSaida). Em jsonl e
+// csv, os erros léxicos também vão para a lista e as mensagens de progresso vão para System.err.
 public class TestadorLexico {
     public static void main(String[] args) {
+        FormatoDeSaida formato = FormatoDeSaida.TEXTO;
+        List<String> posicionais = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--formato") && i + 1 < args.length) {
+                formato = FormatoDeSaida.de(args[++i]);
+                if (formato == null) {
+                    System.err.println("Formato desconhecido '" + args[i] + "' (use texto, jsonl ou csv)");
+                    return;
+                }
+            } else {
+                posicionais.add(args[i]);
+            }
+        }
         // 1. Especifique o nome do arquivo a ser lido.
-        String nomeDoArquivo = "codigo.txt";
-        String codigoFonte;
+        String nomeDoArquivo = posicionais.size() > 0 ? posicionais.get(0) : "codigo.txt";
+        String nomeDaSaida = posicionais.size() > 1 ? posicionais.get(1) : null;
+        // Em jsonl e csv a saída padrão fica só com a lista
+        PrintStream progresso = formato == FormatoDeSaida.TEXTO ? System.out : System.err;
+        FonteDeCaracteres fonte;
 
         try {
-            codigoFonte = new String(Files.readAllBytes(Paths.get(nomeDoArquivo)));
-            System.out.println("--- ARQUIVO '" + nomeDoArquivo + "' LIDO COM SUCESSO ---");
+            // O arquivo é mapeado na memória e lido aos pedaços, sem carregá-lo inteiro no heap
+            fonte = FonteDeCaracteres.mapear(Paths.get(nomeDoArquivo));
+            progresso.println("--- ARQUIVO '" + nomeDoArquivo + "' LIDO COM SUCESSO ---");
         } 
         catch (IOException e) {
             System.err.println("Erro ao ler o arquivo '" + nomeDoArquivo + "': " + e.getMessage());
@@ -23,27 +48,59 @@ public class TestadorLexico {
 
         // --- FIM DA MODIFICAÇÃO ---
 
-        System.out.println("--- INICIANDO ANÁLISE LÉXICA ---");
-        AnalisadorLexico lexico = new AnalisadorLexico(codigoFonte);
+        if (nomeDaSaida != null && nomeDaSaida.endsWith(".tok")) {
+            Path saida = Paths.get(nomeDaSaida);
+            try (fonte) {
+                long tokens = EscritorDeTokens.gravar(new AnalisadorLexico(fonte), saida);
+                System.out.println(tokens + " tokens gravados em " + saida);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Erro ao gravar os tokens em '" + saida + "': " + e.getMessage());
+            }
+            return;
+        }
+
+        progresso.println("--- INICIANDO ANÁLISE LÉXICA ---");
+        AnalisadorLexico lexico = new AnalisadorLexico(fonte);
         
-        Token token;
+        TipoToken tipo;
         List<String> erros = new ArrayList<>();
+        int[] porTipo = new int[TipoToken.values().length];
  
-        do {
-            token = lexico.proximoToken();
-            if (token.tipo == TipoToken.ERRO) {
-                String mensagemDeErro = "--> Erro Léxico Encontrado: Caractere inesperado '" + token.lexema + "' na linha " + token.linha;
-                erros.add(mensagemDeErro);
-            } else if (token.tipo != TipoToken.EOF) {
-                System.out.println(token);
-            }
-        } while (token.tipo != TipoToken.EOF);
+        // Os tokens são codificados direto para o buffer do EscritorDeSaida, sem criar um Token
+        // (nem uma String) por token
+        try (fonte; EscritorDeSaida saida = nomeDaSaida != null
+                ? EscritorDeSaida.abrir(Paths.get(nomeDaSaida), formato)
+                : EscritorDeSaida.saidaPadrao(formato)) {
+            do {
+                tipo = lexico.proximoTipo();
+                porTipo[tipo.ordinal()]++;
+                if (tipo == TipoToken.ERRO) {
+                    String mensagemDeErro = "--> Erro Léxico Encontrado: Caractere inesperado '" + lexico.lexemaAtual() + "' na linha " + lexico.linhaAtual();
+                    erros.add(mensagemDeErro);
+                    if (formato != FormatoDeSaida.TEXTO) {
+                        saida.erroLexico(lexico.lexemaAtual(), lexico.linhaAtual());
+                    }
+                } else if (tipo != TipoToken.EOF) {
+                    saida.token(lexico);
+                }
+            } while (tipo != TipoToken.EOF);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erro ao ler o arquivo '" + nomeDoArquivo + "' ou ao escrever os tokens: " + e.getMessage());
+            return;
+        }
  
-        System.out.println("--- FIM DA ANÁLISE LÉXICA ---");
+        progresso.println("--- FIM DA ANÁLISE LÉXICA ---");
+
+        progresso.println("\nTokens por tipo:");
+        for (TipoToken t : TipoToken.values()) {
+            if (porTipo[t.ordinal()] > 0 && t != TipoToken.EOF) {
+                progresso.println("  " + t + ": " + porTipo[t.ordinal()]);
+            }
+        }
 
         // 3. VERIFIQUE SE HÁ ERROS E IMPRIMA O RELATÓRIO NO FINAL
         if (erros.isEmpty()) {
-            System.out.println("\nNenhum erro léxico encontrado.");
+            progresso.println("\nNenhum erro léxico encontrado.");
         } else {
             System.err.println("\n--- RELATÓRIO DE ERROS LÉXICOS ---");
             for (String erro : erros) {
@@ -0,0 +1,84 @@
+package compilador.lexico;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Uso: java -cp bin compilador.lexico.TesteFluxoDeTokens [arquivo...]
+// Grava os tokens de cada entrada com o EscritorDeTokens, lê de volta com o LeitorDeTokens (da
+// memória e de um arquivo) e confere token a token com um AnalisadorLexico novo: tipo, lexema,
+// linha e início. As entradas fixas têm caracteres fora do BMP, que o lexer separa em dois
+// tokens de erro. Sai com código 1 se alguma entrada não voltar igual.
+public class TesteFluxoDeTokens {
+    private static int falhas = 0;
+
+    public static void main(String[] args) throws IOException {
+        List<String[]> casos = new ArrayList<>();
+        casos.add(new String[] { "emoji depois de um número", "programa p; x = 1 😀 ;" });
+        casos.add(new String[] { "emoji repetido e colado a nomes",
+                "programa p;\nint x😀y;\nx = 😀😀 + y;\nescreva(😃);" });
+        casos.add(new String[] { "metade de par sozinha", "programa p; x = \uD83D 1; y = \uDE00;" });
+        casos.add(new String[] { "acentos e símbolos do BMP", "programa p; int ação; ação = 3 € 4 ¬ 𝄞;" });
+        for (String arquivo : args) {
+            casos.add(new String[] { arquivo, Files.readString(Paths.get(arquivo), StandardCharsets.UTF_8) });
+        }
+        for (String[] caso : casos) {
+            conferir(caso[0] + " (memória)", caso[1], lerDaMemoria(caso[1]));
+            Path arquivo = Files.createTempFile("teste-fluxo", ".tok");
+            try {
+                EscritorDeTokens.gravar(new AnalisadorLexico(caso[1]), arquivo);
+                try (LeitorDeTokens leitor = LeitorDeTokens.abrir(arquivo)) {
+                    conferir(caso[0] + " (arquivo)", caso[1], leitor);
+                }
+            } finally {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+        if (falhas > 0) {
+            System.out.println(falhas + " caso(s) falharam");
+            System.exit(1);
+        }
+        System.out.println("Todos os casos passaram");
+    }
+
+    private static LeitorDeTokens lerDaMemoria(String codigo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new EscritorDeTokens(bytes).escrever(new AnalisadorLexico(codigo));
+        return new LeitorDeTokens(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    private static void conferir(String nome, String codigo, LeitorDeTokens leitor) {
+        AnalisadorLexico lexer = new AnalisadorLexico(codigo);
+        TipoToken tipo;
+        int indice = 0;
+        do {
+            tipo = lexer.proximoTipo();
+            String esperado = descrever(tipo, lexer.lexemaAtual(), lexer.linhaAtual(), lexer.inicioAtual());
+            String lido = descrever(leitor.tipo(), leitor.lexema(), leitor.linha(), leitor.inicio());
+            if (!esperado.equals(lido)) {
+                falhas++;
+                System.out.println("FALHOU: " + nome + ", token " + indice + ": esperado " + esperado + ", lido " + lido);
+                return;
+            }
+            leitor.avancar();
+            indice++;
+        } while (tipo != TipoToken.EOF);
+        System.out.println("ok: " + nome + " (" + indice + " tokens)");
+    }
+
+    // Os lexemas aparecem como unidades UTF-16, para que uma metade de par não vire '?' na saída.
+    // O lexema de um nome vem da TabelaDeNomes do leitor, pelo id.
+    private static String descrever(TipoToken tipo, String lexema, int linha, int inicio) {
+        StringBuilder texto = new StringBuilder().append(tipo).append(" [");
+        for (int i = 0; i < lexema.length(); i++) {
+            texto.append(i == 0 ? "" : " ").append(String.format("%04X", (int) lexema.charAt(i)));
+        }
+        return texto.append("] linha ").append(linha).append(" início ").append(inicio).toString();
+    }
+}
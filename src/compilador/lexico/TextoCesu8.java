@@ -0,0 +1,61 @@
+package compilador.lexico;
+
+// Codifica texto em CESU-8: cada unidade UTF-16 vira 1 a 3 bytes, como no UTF-8, inclusive as
+// metades de um par substituto. O UTF-8 troca uma metade sozinha por '?', e o lexer separa um
+// caractere fora do BMP em dois tokens de erro, um para cada metade; aqui o texto volta igual.
+// Para texto ASCII os bytes são os mesmos do UTF-8.
+public final class TextoCesu8 {
+    private TextoCesu8() {
+    }
+
+    public static byte[] codificar(String texto) {
+        int tamanho = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            tamanho += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        byte[] bytes = new byte[tamanho];
+        int p = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                bytes[p++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[p++] = (byte) (0xC0 | c >> 6);
+                bytes[p++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                bytes[p++] = (byte) (0xE0 | c >> 12);
+                bytes[p++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[p++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return bytes;
+    }
+
+    public static String decodificar(byte[] bytes) {
+        char[] texto = new char[bytes.length];
+        int n = 0;
+        int i = 0;
+        while (i < bytes.length) {
+            int b = bytes[i++] & 0xFF;
+            if (b < 0x80) {
+                texto[n++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                texto[n++] = (char) ((b & 0x1F) << 6 | continuacao(bytes, i++));
+            } else if ((b & 0xF0) == 0xE0) {
+                int meio = continuacao(bytes, i++);
+                texto[n++] = (char) ((b & 0x0F) << 12 | meio << 6 | continuacao(bytes, i++));
+            } else {
+                throw new IllegalArgumentException("Texto CESU-8 malformado");
+            }
+        }
+        return new String(texto, 0, n);
+    }
+
+    private static int continuacao(byte[] bytes, int i) {
+        if (i >= bytes.length || (bytes[i] & 0xC0) != 0x80) {
+            throw new IllegalArgumentException("Texto CESU-8 malformado");
+        }
+        return bytes[i] & 0x3F;
+    }
+}
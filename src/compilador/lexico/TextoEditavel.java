@@ -0,0 +1,91 @@
+package compilador.lexico;
+
+import java.util.Arrays;
+
+// Texto de um documento sendo editado, guardado com uma lacuna (gap buffer) na posição da
+// última edição: editar perto da edição anterior custa proporcional ao tamanho da edição.
+public class TextoEditavel implements FonteDeCaracteres {
+    private char[] texto;
+    private int lacunaInicio;
+    private int lacunaFim;
+
+    public TextoEditavel(String conteudo) {
+        this.texto = Arrays.copyOf(conteudo.toCharArray(), Math.max(conteudo.length() * 2, 64));
+        this.lacunaInicio = conteudo.length();
+        this.lacunaFim = texto.length;
+    }
+
+    public int tamanho() {
+        return texto.length - (lacunaFim - lacunaInicio);
+    }
+
+    @Override
+    public char charEm(int posicao) {
+        if (posicao < lacunaInicio) {
+            return texto[posicao];
+        }
+        int i = posicao + (lacunaFim - lacunaInicio);
+        return i < texto.length ? texto[i] : '\0';
+    }
+
+    @Override
+    public String trecho(int inicio, int fim) {
+        if (fim <= lacunaInicio) {
+            return new String(texto, inicio, fim - inicio);
+        }
+        int lacuna = lacunaFim - lacunaInicio;
+        if (inicio >= lacunaInicio) {
+            return new String(texto, inicio + lacuna, fim - inicio);
+        }
+        StringBuilder sb = new StringBuilder(fim - inicio);
+        sb.append(texto, inicio, lacunaInicio - inicio);
+        sb.append(texto, lacunaFim, fim - lacunaInicio);
+        return sb.toString();
+    }
+
+    @Override
+    public int limitarAoFim(int posicao) {
+        return Math.min(posicao, tamanho());
+    }
+
+    @Override
+    public boolean retemTexto() {
+        return true;
+    }
+
+    // Troca 'removidos' caracteres a partir de 'posicao' pelo texto inserido
+    public void substituir(int posicao, int removidos, String inserido) {
+        moverLacuna(posicao);
+        lacunaFim += removidos;
+        int necessario = inserido.length();
+        if (lacunaFim - lacunaInicio < necessario) {
+            int sufixo = texto.length - lacunaFim;
+            char[] novo = new char[Math.max(texto.length * 2, tamanho() + necessario + 64)];
+            System.arraycopy(texto, 0, novo, 0, lacunaInicio);
+            System.arraycopy(texto, lacunaFim, novo, novo.length - sufixo, sufixo);
+            lacunaFim = novo.length - sufixo;
+            texto = novo;
+        }
+        inserido.getChars(0, necessario, texto, lacunaInicio);
+        lacunaInicio += necessario;
+    }
+
+    private void moverLacuna(int posicao) {
+        if (posicao < lacunaInicio) {
+            int n = lacunaInicio - posicao;
+            System.arraycopy(texto, posicao, texto, lacunaFim - n, n);
+            lacunaInicio -= n;
+            lacunaFim -= n;
+        } else if (posicao > lacunaInicio) {
+            int n = posicao - lacunaInicio;
+            System.arraycopy(texto, lacunaFim, texto, lacunaInicio, n);
+            lacunaInicio += n;
+            lacunaFim += n;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return trecho(0, tamanho());
+    }
+}
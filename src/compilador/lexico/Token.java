@@ -4,11 +4,17 @@ public class Token {
     public final TipoToken tipo;
     public final String lexema;
     public final int linha;
+    public final int id; // id do nome na TabelaDeNomes; -1 se não for identificador
 
     public Token(TipoToken tipo, String lexema, int linha) {
+        this(tipo, lexema, linha, -1);
+    }
+
+    public Token(TipoToken tipo, String lexema, int linha, int id) {
         this.tipo = tipo;
         this.lexema = lexema;
         this.linha = linha;
+        this.id = id;
     }
 
     @Override
@@ -0,0 +1,182 @@
+package compilador.lexico;
+
+import java.util.Arrays;
+
+// Sequência de tokens guardada em colunas (um array de int por campo), sem um objeto por token.
+// Os lexemas só são materializados quando pedidos; se a fonte é lida em janela (e não
+// guarda o texto), os lexemas variáveis são copiados na hora em que o token é lido.
+// Identificadores guardam o id do nome na TabelaDeNomes e usam a String de lá.
+public class TokenBuffer {
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    private final FonteDeCaracteres fonte;
+    private TabelaDeNomes nomes;
+    private int[] tipos;
+    private int[] inicios;
+    private int[] comprimentos;
+    private int[] linhas;
+    private int[] ids;
+    private String[] lexemas; // só usado quando a fonte não retém o texto
+    private int tamanho = 0;
+
+    public TokenBuffer(String codigoFonte) {
+        this(FonteDeCaracteres.daString(codigoFonte));
+    }
+
+    public TokenBuffer(FonteDeCaracteres fonte) {
+        this(fonte, 1024);
+    }
+
+    public TokenBuffer(FonteDeCaracteres fonte, int capacidadeInicial) {
+        this(fonte, new TabelaDeNomes(), capacidadeInicial);
+    }
+
+    public TokenBuffer(FonteDeCaracteres fonte, TabelaDeNomes nomes) {
+        this(fonte, nomes, 1024);
+    }
+
+    public TokenBuffer(FonteDeCaracteres fonte, TabelaDeNomes nomes, int capacidadeInicial) {
+        this.fonte = fonte;
+        this.nomes = nomes;
+        int capacidade = Math.max(capacidadeInicial, 16);
+        this.tipos = new int[capacidade];
+        this.inicios = new int[capacidade];
+        this.comprimentos = new int[capacidade];
+        this.linhas = new int[capacidade];
+        this.ids = new int[capacidade];
+        if (!fonte.retemTexto()) {
+            this.lexemas = new String[capacidade];
+        }
+    }
+
+    // Recria um buffer a partir das colunas guardadas por outro (ex.: no CacheDeAnalise); os
+    // arrays passam a ser do buffer. 'fonte' deve ser o mesmo texto de onde os tokens vieram,
+    // inteiro na memória, porque os lexemas são lidos dela depois.
+    public static TokenBuffer deColunas(FonteDeCaracteres fonte, TabelaDeNomes nomes, int[] tipos, int[] inicios,
+            int[] comprimentos, int[] linhas, int[] ids, int tamanho) {
+        if (!fonte.retemTexto()) {
+            throw new IllegalArgumentException("A fonte de um TokenBuffer restaurado precisa reter o texto");
+        }
+        TokenBuffer buffer = new TokenBuffer(fonte, nomes, 16);
+        buffer.tipos = tipos;
+        buffer.inicios = inicios;
+        buffer.comprimentos = comprimentos;
+        buffer.linhas = linhas;
+        buffer.ids = ids;
+        buffer.tamanho = tamanho;
+        return buffer;
+    }
+
+    void adicionar(TipoToken tipo, int inicio, int comprimento, int linha, int id) {
+        if (tamanho == tipos.length) {
+            crescer();
+        }
+        if (lexemas != null && id < 0) {
+            lexemas[tamanho] = AnalisadorLexico.lexema(fonte, tipo, inicio, comprimento);
+        }
+        tipos[tamanho] = tipo.ordinal();
+        inicios[tamanho] = inicio;
+        comprimentos[tamanho] = comprimento;
+        linhas[tamanho] = linha;
+        ids[tamanho] = id;
+        tamanho++;
+    }
+
+    // Copia os tokens [de, ate) de outro buffer somando deltaLinha às linhas; mapaDeIds leva
+    // os ids da tabela de nomes da origem aos desta (null se as duas usam a mesma tabela)
+    void adicionarTrecho(TokenBuffer origem, int de, int ate, int deltaLinha, int[] mapaDeIds) {
+        int quantidade = ate - de;
+        if (quantidade <= 0) {
+            return;
+        }
+        while (tamanho + quantidade > tipos.length) {
+            crescer();
+        }
+        System.arraycopy(origem.tipos, de, tipos, tamanho, quantidade);
+        System.arraycopy(origem.inicios, de, inicios, tamanho, quantidade);
+        System.arraycopy(origem.comprimentos, de, comprimentos, tamanho, quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            linhas[tamanho + i] = origem.linhas[de + i] + deltaLinha;
+            int id = origem.ids[de + i];
+            ids[tamanho + i] = id < 0 || mapaDeIds == null ? id : mapaDeIds[id];
+        }
+        if (lexemas != null) {
+            for (int i = 0; i < quantidade; i++) {
+                if (ids[tamanho + i] < 0) {
+                    lexemas[tamanho + i] = origem.lexema(de + i);
+                }
+            }
+        }
+        tamanho += quantidade;
+    }
+
+    private void crescer() {
+        int novaCapacidade = tipos.length * 2;
+        tipos = Arrays.copyOf(tipos, novaCapacidade);
+        inicios = Arrays.copyOf(inicios, novaCapacidade);
+        comprimentos = Arrays.copyOf(comprimentos, novaCapacidade);
+        linhas = Arrays.copyOf(linhas, novaCapacidade);
+        ids = Arrays.copyOf(ids, novaCapacidade);
+        if (lexemas != null) {
+            lexemas = Arrays.copyOf(lexemas, novaCapacidade);
+        }
+    }
+
+    // Esvazia o buffer; os ids dos próximos tokens serão da tabela de nomes dada
+    void limpar(TabelaDeNomes nomes) {
+        this.nomes = nomes;
+        tamanho = 0;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public TipoToken tipo(int i) {
+        return TIPOS[tipos[i]];
+    }
+
+    public int tipoOrdinal(int i) {
+        return tipos[i];
+    }
+
+    public int inicio(int i) {
+        return inicios[i];
+    }
+
+    public int comprimento(int i) {
+        return comprimentos[i];
+    }
+
+    public int linha(int i) {
+        return linhas[i];
+    }
+
+    // Id do nome do identificador em nomes(), ou -1 se o token não é um identificador
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public TabelaDeNomes nomes() {
+        return nomes;
+    }
+
+    public FonteDeCaracteres fonte() {
+        return fonte;
+    }
+
+    // Cria a String do lexema; pontuação e palavras-chave usam constantes compartilhadas
+    public String lexema(int i) {
+        if (ids[i] >= 0) {
+            return nomes.nome(ids[i]);
+        }
+        if (lexemas != null) {
+            return lexemas[i];
+        }
+        return AnalisadorLexico.lexema(fonte, TIPOS[tipos[i]], inicios[i], comprimentos[i]);
+    }
+
+    public Token token(int i) {
+        return new Token(tipo(i), lexema(i), linhas[i], ids[i]);
+    }
+}
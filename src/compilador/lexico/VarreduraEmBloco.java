@@ -0,0 +1,123 @@
+package compilador.lexico;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// Varreduras de 8 caracteres por passo sobre o texto em Latin-1 (um byte por caractere), para
+// o AnalisadorLexico pular espaços, corpos de comentário e identificadores longos. Cada passo
+// lê um long e classifica os 8 bytes de uma vez com aritmética de bytes dentro do long (SWAR):
+// um byte do resultado vale 0x80 quando o byte correspondente passa no teste e 0 senão, sem
+// vai-um entre bytes. O long é lido em little-endian, então o byte i da posição fica nos bits
+// 8i..8i+7 e o primeiro byte que falha é numberOfTrailingZeros / 8. O fim (menos de 8 bytes) é
+// lido um byte por vez.
+final class VarreduraEmBloco {
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long UNS = 0x0101010101010101L;
+    private static final long ALTOS = 0x8080808080808080L;
+    private static final long BAIXOS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long MINUSCULAS = 0x2020202020202020L;
+
+    private VarreduraEmBloco() {
+    }
+
+    // Primeira posição a partir de 'inicio' cujo caractere não é ' ', '\t', '\n' nem '\r'
+    // (texto.length se o texto acaba antes)
+    static int fimDosEspacos(byte[] texto, int inicio) {
+        int i = inicio;
+        while (i + 8 <= texto.length) {
+            long x = (long) LONG.get(texto, i);
+            if (x == UNS * ' ') { // o caso comum da indentação: 8 espaços
+                i += 8;
+                continue;
+            }
+            long espacos = iguais(x, ' ') | iguais(x, '\n') | iguais(x, '\t') | iguais(x, '\r');
+            if (espacos != ALTOS) {
+                return i + Long.numberOfTrailingZeros(~espacos & ALTOS) / 8;
+            }
+            i += 8;
+        }
+        while (i < texto.length && (texto[i] == ' ' || texto[i] == '\n' || texto[i] == '\t' || texto[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    // Posição do primeiro "*/" ou '\0' a partir de 'inicio' (texto.length se não há), que é onde
+    // o laço de um caractere por vez sobre o corpo de um comentário pararia
+    static int fimDoComentario(byte[] texto, int inicio) {
+        int i = inicio;
+        while (i + 8 <= texto.length) {
+            long x = (long) LONG.get(texto, i);
+            long candidatos = iguais(x, '*') | iguais(x, 0);
+            while (candidatos != 0) {
+                int p = i + Long.numberOfTrailingZeros(candidatos) / 8;
+                if (texto[p] == 0 || (p + 1 < texto.length && texto[p + 1] == '/')) {
+                    return p;
+                }
+                candidatos &= candidatos - 1;
+            }
+            i += 8;
+        }
+        for (; i < texto.length; i++) {
+            if (texto[i] == 0 || (texto[i] == '*' && i + 1 < texto.length && texto[i + 1] == '/')) {
+                return i;
+            }
+        }
+        return texto.length;
+    }
+
+    // Primeira posição a partir de 'inicio' cujo caractere não é letra ASCII, dígito ASCII ou
+    // '_'. Letras fora do ASCII (como 'é') param a varredura; o lexer continua a partir delas.
+    static int fimDoIdentificador(byte[] texto, int inicio) {
+        int i = inicio;
+        while (i + 8 <= texto.length) {
+            long x = (long) LONG.get(texto, i);
+            // Com o bit 0x20 ligado, 'A'..'Z' viram 'a'..'z' e nenhum outro byte cai entre eles
+            long letras = entre(x | MINUSCULAS, 'a', 'z');
+            long partes = letras | entre(x, '0', '9') | iguais(x, '_');
+            if (partes != ALTOS) {
+                return i + Long.numberOfTrailingZeros(~partes & ALTOS) / 8;
+            }
+            i += 8;
+        }
+        while (i < texto.length && parteDeIdentificador(texto[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    // Quantidade de '\n' em [inicio, fim)
+    static int quebras(byte[] texto, int inicio, int fim) {
+        int quantidade = 0;
+        int i = inicio;
+        while (i + 8 <= fim) {
+            quantidade += Long.bitCount(iguais((long) LONG.get(texto, i), '\n'));
+            i += 8;
+        }
+        for (; i < fim; i++) {
+            if (texto[i] == '\n') {
+                quantidade++;
+            }
+        }
+        return quantidade;
+    }
+
+    // 0x80 nos bytes iguais a b
+    private static long iguais(long x, int b) {
+        long y = x ^ (UNS * b);
+        return ~(((y & BAIXOS) + BAIXOS) | y | BAIXOS);
+    }
+
+    // 0x80 nos bytes ASCII entre menor e maior (inclusive; maior < 0x7F)
+    private static long entre(long x, int menor, int maior) {
+        long baixos = x & BAIXOS;
+        long aPartirDoMenor = baixos + UNS * (0x80 - menor);
+        long depoisDoMaior = baixos + UNS * (0x80 - (maior + 1));
+        return aPartirDoMenor & ~depoisDoMaior & ~x & ALTOS;
+    }
+
+    private static boolean parteDeIdentificador(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+}
@@ -0,0 +1,54 @@
+package compilador.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Repassa uma chamada do Main para o Servidor e copia a resposta para a saída padrão.
+// Os caminhos vão absolutos, porque o servidor roda em outro diretório.
+public class Cliente {
+    private Cliente() {
+    }
+
+    // Devolve o código de saída do pedido. Lança IOException só se não conseguir se conectar ao
+    // servidor (aí nada foi enviado nem recebido, e o Main pode analisar aqui mesmo); um erro
+    // depois disso, com parte da resposta já copiada, dá o código 2.
+    public static int enviar(Path socket, List<String> argumentos) throws IOException {
+        try (SocketChannel canal = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            try {
+                return conversar(canal, argumentos);
+            } catch (IOException | NumberFormatException e) {
+                System.out.flush();
+                System.err.println("Resposta do servidor incompleta: " + e.getMessage());
+                return 2;
+            }
+        }
+    }
+
+    private static int conversar(SocketChannel canal, List<String> argumentos) throws IOException {
+        Writer pedido = Channels.newWriter(canal, StandardCharsets.UTF_8);
+        for (String argumento : argumentos) {
+            pedido.write(argumento.startsWith("--") ? argumento : Paths.get(argumento).toAbsolutePath().toString());
+            pedido.write('\n');
+        }
+        pedido.write('\n');
+        pedido.flush();
+
+        BufferedReader resposta = new BufferedReader(Channels.newReader(canal, StandardCharsets.UTF_8));
+        for (String linha = resposta.readLine(); linha != null; linha = resposta.readLine()) {
+            if (linha.startsWith(Servidor.SAIDA)) {
+                System.out.flush();
+                return Integer.parseInt(linha.substring(Servidor.SAIDA.length()));
+            }
+            System.out.println(linha);
+        }
+        throw new IOException("o servidor fechou a conexão antes do fim da resposta");
+    }
+}
@@ -0,0 +1,195 @@
+package compilador.main;
+
+import compilador.cache.CacheDeAnalise;
+import compilador.cache.EntradaDoCache;
+import compilador.lexico.AnalisadorLexico;
+import compilador.lexico.TokenBuffer;
+import compilador.metricas.EstatisticasLexicas;
+import compilador.metricas.Metricas;
+import compilador.sintatico.Arvore;
+import compilador.sintatico.Diagnosticos;
+import compilador.sintatico.Parser;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Analisa muitos arquivos numa só JVM: cada arquivo é uma tarefa num pool com um número fixo
+// de threads, que limita quantos arquivos estão na memória ao mesmo tempo. Cada análise tem o
+// seu próprio AnalisadorLexico, TabelaDeNomes, Parser e TabelaDeSimbolos; o único estado
+// compartilhado entre as threads são as tabelas estáticas do lexer (palavras-chave e classes
+// de caracteres), preenchidas na inicialização da classe e só lidas depois.
+//
+// O pool vive enquanto o objeto não é fechado, e pode ser usado por vários lotes ao mesmo tempo
+// (o Servidor usa um só para todos os pedidos).
+public class CompilacaoEmLote implements AutoCloseable {
+    // O Parser é recursivo, então as threads do lote têm pilha maior que a padrão
+    private static final long TAMANHO_DA_PILHA = 16L * 1024 * 1024;
+
+    private final int threads;
+    private final ExecutorService pool;
+    private final Metricas metricas; // null: sem instrumentação
+    private final CacheDeAnalise cache; // null: sem cache
+
+    public CompilacaoEmLote(int threads) {
+        this(threads, null, null);
+    }
+
+    public CompilacaoEmLote(int threads, Metricas metricas) {
+        this(threads, metricas, null);
+    }
+
+    // Com 'metricas', cada arquivo é tokenizado num TokenBuffer e analisado montando a Arvore,
+    // para contar tokens e nós; sem, o Parser lê direto do lexer. Com 'cache', um arquivo cujo
+    // conteúdo já foi analisado usa os diagnósticos guardados (e não entra nas métricas).
+    public CompilacaoEmLote(int threads, Metricas metricas, CacheDeAnalise cache) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("O lote precisa de pelo menos uma thread");
+        }
+        this.threads = threads;
+        this.metricas = metricas;
+        this.cache = cache;
+        AtomicInteger contador = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(null, tarefa, "lote-" + contador.incrementAndGet(), TAMANHO_DA_PILHA);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public Metricas getMetricas() {
+        return metricas;
+    }
+
+    public CacheDeAnalise getCache() {
+        return cache;
+    }
+
+    // Resultados na mesma ordem dos arquivos
+    public List<ResultadoDoArquivo> analisar(List<Path> arquivos) throws InterruptedException {
+        List<Future<ResultadoDoArquivo>> futuros = new ArrayList<>(arquivos.size());
+        try {
+            for (Path arquivo : arquivos) {
+                futuros.add(pool.submit(() -> analisar(arquivo)));
+            }
+            List<ResultadoDoArquivo> resultados = new ArrayList<>(arquivos.size());
+            for (Future<ResultadoDoArquivo> futuro : futuros) {
+                try {
+                    resultados.add(futuro.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause()); // analisar(Path) não lança
+                }
+            }
+            return resultados;
+        } finally {
+            for (Future<ResultadoDoArquivo> futuro : futuros) {
+                futuro.cancel(false); // só tem efeito se o lote foi interrompido no meio
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    // Um arquivo, com recuperação de erros: todos os diagnósticos de uma vez
+    private ResultadoDoArquivo analisar(Path arquivo) {
+        long inicio = System.nanoTime();
+        if (cache != null) {
+            return analisarComCache(arquivo, inicio);
+        }
+        String codigo;
+        try {
+            codigo = Files.readString(arquivo, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return new ResultadoDoArquivo(arquivo, null, "erro ao ler: " + e.getMessage(), System.nanoTime() - inicio);
+        }
+        try {
+            if (metricas != null) {
+                return analisarComMetricas(arquivo, codigo, inicio);
+            }
+            Diagnosticos diagnosticos = new Parser(new AnalisadorLexico(codigo)).parseProgramaComRecuperacao();
+            return new ResultadoDoArquivo(arquivo, diagnosticos, null, System.nanoTime() - inicio);
+        } catch (RuntimeException | StackOverflowError e) {
+            return new ResultadoDoArquivo(arquivo, null, "a análise falhou: " + e, System.nanoTime() - inicio);
+        }
+    }
+
+    private ResultadoDoArquivo analisarComMetricas(Path arquivo, String codigo, long inicio) {
+        TokenBuffer buffer = new AnalisadorLexico(codigo).tokenizarTudo();
+        Arvore arvore = new Arvore();
+        Parser parser = new Parser(buffer).comArvore(arvore);
+        Diagnosticos diagnosticos = parser.parseProgramaComRecuperacao();
+        long nanos = System.nanoTime() - inicio;
+        // As contagens ficam fora do tempo medido
+        metricas.registrar(nanos, EstatisticasLexicas.de(buffer), arvore.tamanho(), diagnosticos.tamanho(),
+                parser.profundidadeMaximaDeEscopos());
+        return new ResultadoDoArquivo(arquivo, diagnosticos, null, nanos);
+    }
+
+    // Lê os bytes para calcular a chave, e só decodifica o texto se a análise não está no cache
+    private ResultadoDoArquivo analisarComCache(Path arquivo, long inicio) {
+        CacheDeAnalise.Chave chave;
+        String codigo;
+        try {
+            byte[] bytes = Files.readAllBytes(arquivo);
+            chave = cache.chave(bytes);
+            EntradaDoCache entrada = cache.buscar(chave);
+            if (entrada != null) {
+                return new ResultadoDoArquivo(arquivo, entrada.getDiagnosticos(), null, System.nanoTime() - inicio);
+            }
+            // Como o Files.readString: bytes que não são UTF-8 válido são um erro de leitura
+            codigo = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (IOException e) {
+            return new ResultadoDoArquivo(arquivo, null, "erro ao ler: " + e.getMessage(), System.nanoTime() - inicio);
+        }
+        try {
+            TokenBuffer buffer = new AnalisadorLexico(codigo).tokenizarTudo();
+            Arvore arvore = metricas != null ? new Arvore() : null;
+            Parser parser = new Parser(buffer).comArvore(arvore);
+            Diagnosticos diagnosticos = parser.parseProgramaComRecuperacao();
+            long nanos = System.nanoTime() - inicio;
+            if (metricas != null) {
+                metricas.registrar(nanos, EstatisticasLexicas.de(buffer), arvore.tamanho(), diagnosticos.tamanho(),
+                        parser.profundidadeMaximaDeEscopos());
+            }
+            cache.gravar(chave, buffer, diagnosticos, parser.simbolosGlobais());
+            return new ResultadoDoArquivo(arquivo, diagnosticos, null, nanos);
+        } catch (RuntimeException | StackOverflowError e) {
+            return new ResultadoDoArquivo(arquivo, null, "a análise falhou: " + e, System.nanoTime() - inicio);
+        }
+    }
+
+    // Os arquivos dados e os .txt dentro dos diretórios dados (com subdiretórios), em ordem
+    public static List<Path> listar(List<String> caminhos) throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        for (String caminho : caminhos) {
+            Path path = Paths.get(caminho);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> dentro = Files.walk(path)) {
+                    dentro.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".txt"))
+                            .sorted()
+                            .forEach(arquivos::add);
+                }
+            } else {
+                arquivos.add(path);
+            }
+        }
+        return arquivos;
+    }
+}
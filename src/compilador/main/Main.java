@@ -1,7 +1,202 @@
 package compilador.main;
 
+import compilador.cache.CacheDeAnalise;
+import compilador.metricas.Metricas;
+import compilador.sintatico.Diagnosticos;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Análise sintática em lote: lê os arquivos (ou os .txt dos diretórios) dados, analisa todos
+// em paralelo e imprime um relatório só, com os erros de cada arquivo e os totais. Sai com
+// código 1 se algum arquivo tiver erro.
+//
+// Uso: java compilador.main.Main [--threads N] [--todos] [--metricas] [--cache dir] arquivo-ou-diretorio...
+//      java compilador.main.Main --servidor [--socket caminho] [--threads N] [--conexoes N] [--metricas] [--cache dir]
+//      java compilador.main.Main --cliente [--socket caminho] [--todos] [--metricas] arquivo-ou-diretorio...
+//      java compilador.main.Main --cliente [--socket caminho] --parar
+//   --threads N   quantos arquivos são analisados ao mesmo tempo (padrão: um por processador)
+//   --todos       lista também os arquivos sem erros
+//   --servidor    fica no ar num socket Unix atendendo pedidos (ver Servidor)
+//   --conexoes N  quantos pedidos o servidor atende ao mesmo tempo (padrão: 4)
+//   --cliente     manda o pedido para o servidor; sem servidor, analisa aqui mesmo
+//   --parar       desliga o servidor
+//   --metricas    no lote e no servidor: conta tokens, nós, comentários e latência por arquivo
+//                 (ver Metricas); no cliente: pede as métricas acumuladas do servidor
+//   --cache dir   no lote e no servidor: guarda a análise de cada arquivo em dir e a reaproveita
+//                 enquanto o conteúdo do arquivo e o compilador não mudam (ver CacheDeAnalise)
+//   --cache-maximo MB  tamanho máximo do cache (padrão: 256 MB)
 public class Main {
+    static final String METRICAS = "--metricas";
+    private static final String USO = "Uso: java compilador.main.Main [--threads N] [--todos] [--metricas] [--cache dir] arquivo-ou-diretorio...\n"
+            + "     java compilador.main.Main --servidor [--socket caminho] [--threads N] [--conexoes N] [--metricas] [--cache dir]\n"
+            + "     java compilador.main.Main --cliente [--socket caminho] [--todos | --parar | --metricas] arquivo-ou-diretorio...";
+
     public static void main(String[] args) throws Exception {
-        System.out.println("Hello, World!");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int conexoes = 4;
+        boolean todos = false;
+        boolean servidor = false;
+        boolean cliente = false;
+        boolean parar = false;
+        boolean comMetricas = false;
+        Path diretorioDoCache = null;
+        long cacheMaximo = 256L * 1024 * 1024;
+        Path socket = Servidor.socketPadrao();
+        List<String> caminhos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--conexoes" -> conexoes = Integer.parseInt(args[++i]);
+                case "--socket" -> socket = Paths.get(args[++i]);
+                case "--todos" -> todos = true;
+                case "--servidor" -> servidor = true;
+                case "--cliente" -> cliente = true;
+                case Servidor.PARAR -> parar = true;
+                case METRICAS -> comMetricas = true;
+                case "--cache" -> diretorioDoCache = Paths.get(args[++i]);
+                case "--cache-maximo" -> cacheMaximo = Long.parseLong(args[++i]) * 1024 * 1024;
+                default -> caminhos.add(args[i]);
+            }
+        }
+
+        CacheDeAnalise cache = null;
+        if (diretorioDoCache != null) {
+            try {
+                cache = new CacheDeAnalise(diretorioDoCache, cacheMaximo);
+            } catch (IOException e) {
+                System.err.println("Erro ao abrir o cache: " + e.getMessage());
+                System.exit(2);
+            }
+        }
+
+        if (servidor) {
+            try {
+                servir(new Servidor(socket, conexoes, threads, comMetricas ? new Metricas() : null, cache));
+            } catch (IOException e) {
+                System.err.println("Erro no servidor: " + e.getMessage());
+                System.exit(2);
+            }
+            return;
+        }
+        if (cliente && (parar || comMetricas || !caminhos.isEmpty())) {
+            List<String> pedido = new ArrayList<>(caminhos);
+            if (todos) {
+                pedido.add(0, "--todos");
+            }
+            if (comMetricas) {
+                pedido.add(0, METRICAS);
+            }
+            if (parar) {
+                pedido = List.of(Servidor.PARAR);
+            }
+            try {
+                System.exit(Cliente.enviar(socket, pedido));
+            } catch (IOException e) {
+                if (parar || caminhos.isEmpty()) {
+                    System.err.println("Nenhum servidor em " + socket);
+                    System.exit(2);
+                }
+                System.err.println("Sem servidor em " + socket + " (" + e.getMessage() + "); analisando aqui");
+            }
+        }
+        if (caminhos.isEmpty()) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+
+        long inicio = System.nanoTime();
+        List<ResultadoDoArquivo> resultados;
+        Metricas metricas = comMetricas ? new Metricas() : null;
+        try (CompilacaoEmLote lote = new CompilacaoEmLote(threads, metricas, cache)) {
+            resultados = lote.analisar(CompilacaoEmLote.listar(caminhos));
+        } catch (IOException e) {
+            System.err.println("Erro ao listar os arquivos: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        int codigoDeSaida = relatorio(resultados, todos, segundos, threads, System.out);
+        if (metricas != null) {
+            System.out.print(metricas.retrato());
+        }
+        if (cache != null) {
+            System.err.println("Cache: " + cache.acertos() + " acerto(s), " + cache.faltas() + " falta(s)");
+            limitarCache(cache);
+        }
+        if (codigoDeSaida != 0) {
+            System.exit(codigoDeSaida);
+        }
+    }
+
+    // Roda o servidor até ele receber --parar; SIGTERM/Ctrl+C também o param com calma
+    private static void servir(Servidor servidor) throws IOException, InterruptedException {
+        Thread principal = Thread.currentThread();
+        Thread aoSair = new Thread(() -> {
+            servidor.parar();
+            try {
+                principal.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(aoSair);
+        try {
+            servidor.executar();
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(aoSair);
+            } catch (IllegalStateException e) {
+                // a JVM já está saindo e o gancho está esperando esta thread
+            }
+        }
+    }
+
+    // Um erro ao limpar o cache não atrapalha a análise, que já terminou
+    static void limitarCache(CacheDeAnalise cache) {
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.aplicarLimite();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Aviso: não foi possível limitar o cache: " + e.getMessage());
+        }
+    }
+
+    // Imprime os erros de cada arquivo e os totais, e devolve o código de saída
+    static int relatorio(List<ResultadoDoArquivo> resultados, boolean todos, double segundos, int threads,
+            PrintStream saida) {
+        int comErros = 0;
+        int erros = 0;
+        int falhas = 0;
+        for (ResultadoDoArquivo resultado : resultados) {
+            if (resultado.getFalha() != null) {
+                falhas++;
+                saida.println(resultado.getArquivo() + ": " + resultado.getFalha());
+                continue;
+            }
+            Diagnosticos diagnosticos = resultado.getDiagnosticos();
+            if (diagnosticos.vazio()) {
+                if (todos) {
+                    saida.println(resultado.getArquivo() + ": OK");
+                }
+                continue;
+            }
+            comErros++;
+            erros += diagnosticos.tamanho();
+            saida.println(resultado.getArquivo() + ": " + diagnosticos.tamanho() + " erro(s)");
+            for (int i = 0; i < diagnosticos.tamanho(); i++) {
+                saida.println("  " + diagnosticos.mensagem(i));
+            }
+        }
+        saida.printf("Total: %d arquivo(s), %d sem erros, %d com erros (%d erro(s)), %d não analisado(s); "
+                + "%.2f s com %d thread(s) (%.0f arquivos/s)%n", resultados.size(),
+                resultados.size() - comErros - falhas, comErros, erros, falhas, segundos, threads,
+                resultados.size() / segundos);
+        return comErros > 0 || falhas > 0 ? 1 : 0;
     }
 }
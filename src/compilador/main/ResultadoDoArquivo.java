@@ -0,0 +1,40 @@
+package compilador.main;
+
+import compilador.sintatico.Diagnosticos;
+import java.nio.file.Path;
+
+// Resultado da análise de um arquivo no lote: os diagnósticos, ou o erro que impediu a análise
+public class ResultadoDoArquivo {
+    private final Path arquivo;
+    private final Diagnosticos diagnosticos; // null se a análise não terminou
+    private final String falha;              // null se a análise terminou
+    private final long nanos;
+
+    ResultadoDoArquivo(Path arquivo, Diagnosticos diagnosticos, String falha, long nanos) {
+        this.arquivo = arquivo;
+        this.diagnosticos = diagnosticos;
+        this.falha = falha;
+        this.nanos = nanos;
+    }
+
+    public Path getArquivo() {
+        return arquivo;
+    }
+
+    public Diagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
+    // Por que o arquivo não pôde ser analisado (não foi lido, ou a análise falhou)
+    public String getFalha() {
+        return falha;
+    }
+
+    public boolean semErros() {
+        return falha == null && diagnosticos.vazio();
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,172 @@
+package compilador.main;
+
+import compilador.cache.CacheDeAnalise;
+import compilador.metricas.Metricas;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Servidor de análise num socket Unix: fica no ar com o lexer e o parser já compilados pelo
+// JIT, e cada pedido é um lote como o do Main. Protocolo, em UTF-8, uma linha por argumento:
+//
+//   pedido:   argumentos do Main (--todos e caminhos absolutos), e uma linha vazia
+//   resposta: o relatório do Main, e a última linha "#saida N" com o código de saída
+//
+// O pedido "--parar" desliga o servidor: ele para de aceitar conexões, termina os pedidos em
+// andamento e apaga o arquivo do socket. No máximo 'conexoes' pedidos são atendidos ao mesmo
+// tempo (os outros esperam na fila), e todos dividem as threads de um só CompilacaoEmLote.
+// Um pedido com "--metricas" recebe, depois do relatório, as métricas acumuladas do servidor
+// (se ele foi iniciado com métricas). Com um CacheDeAnalise, o limite de tamanho do cache é
+// aplicado depois de cada pedido.
+public class Servidor {
+    static final String PARAR = "--parar";
+    static final String SAIDA = "#saida ";
+
+    private static final long ESPERA_AO_PARAR_SEGUNDOS = 30;
+
+    private final Path socket;
+    private final int conexoes;
+    private final int threads;
+    private final Metricas metricas;
+    private final CacheDeAnalise cache;
+    private volatile ServerSocketChannel canal;
+    private volatile boolean parando;
+
+    public Servidor(Path socket, int conexoes, int threads, Metricas metricas, CacheDeAnalise cache) {
+        if (conexoes < 1) {
+            throw new IllegalArgumentException("O servidor precisa aceitar pelo menos uma conexão");
+        }
+        this.socket = socket;
+        this.conexoes = conexoes;
+        this.threads = threads;
+        this.metricas = metricas;
+        this.cache = cache;
+    }
+
+    // Socket padrão, um por usuário no diretório temporário
+    public static Path socketPadrao() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "compilador-" + System.getProperty("user.name") + ".sock");
+    }
+
+    // Atende pedidos até receber --parar (ou até parar() ser chamado)
+    public void executar() throws IOException, InterruptedException {
+        liberarSocket();
+        ExecutorService atendentes = Executors.newFixedThreadPool(conexoes);
+        try (CompilacaoEmLote lote = new CompilacaoEmLote(threads, metricas, cache);
+                ServerSocketChannel servidor = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            servidor.bind(UnixDomainSocketAddress.of(socket));
+            canal = servidor;
+            System.err.println("Servidor no ar em " + socket + " (" + conexoes + " conexões, " + threads + " threads)");
+            while (!parando) {
+                SocketChannel cliente;
+                try {
+                    cliente = servidor.accept();
+                } catch (AsynchronousCloseException e) {
+                    break; // parar() fechou o canal
+                }
+                atendentes.execute(() -> atender(cliente, lote));
+            }
+            atendentes.shutdown();
+            if (!atendentes.awaitTermination(ESPERA_AO_PARAR_SEGUNDOS, TimeUnit.SECONDS)) {
+                System.err.println("Servidor: pedidos ainda em andamento foram abandonados");
+            }
+        } finally {
+            atendentes.shutdownNow();
+            Files.deleteIfExists(socket);
+        }
+        System.err.println("Servidor parado");
+    }
+
+    // Para de aceitar conexões; os pedidos em andamento terminam normalmente
+    public void parar() {
+        parando = true;
+        ServerSocketChannel servidor = canal;
+        if (servidor != null) {
+            try {
+                servidor.close();
+            } catch (IOException e) {
+                // já está fechando
+            }
+        }
+    }
+
+    // Um arquivo de socket que sobrou de um servidor que morreu é apagado; se outro servidor
+    // ainda responde nele, não
+    private void liberarSocket() throws IOException {
+        if (!Files.exists(socket)) {
+            return;
+        }
+        boolean emUso;
+        try (SocketChannel outro = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            emUso = outro.isConnected();
+        } catch (IOException e) {
+            emUso = false;
+        }
+        if (emUso) {
+            throw new IOException("Já existe um servidor em " + socket);
+        }
+        Files.delete(socket);
+    }
+
+    private void atender(SocketChannel cliente, CompilacaoEmLote lote) {
+        try (cliente) {
+            BufferedReader entrada = new BufferedReader(Channels.newReader(cliente, StandardCharsets.UTF_8));
+            PrintStream saida = new PrintStream(Channels.newOutputStream(cliente), false, StandardCharsets.UTF_8);
+            List<String> argumentos = new ArrayList<>();
+            for (String linha = entrada.readLine(); linha != null && !linha.isEmpty(); linha = entrada.readLine()) {
+                argumentos.add(linha);
+            }
+            int codigoDeSaida = responder(argumentos, lote, saida);
+            saida.println(SAIDA + codigoDeSaida);
+            saida.flush();
+        } catch (IOException e) {
+            System.err.println("Servidor: conexão perdida: " + e.getMessage());
+        }
+    }
+
+    private int responder(List<String> argumentos, CompilacaoEmLote lote, PrintStream saida) {
+        if (argumentos.contains(PARAR)) {
+            saida.println("Servidor parando");
+            parar();
+            return 0;
+        }
+        boolean todos = argumentos.remove("--todos");
+        boolean comMetricas = argumentos.remove(Main.METRICAS);
+        long inicio = System.nanoTime();
+        try {
+            int codigoDeSaida = 0;
+            if (!argumentos.isEmpty() || !comMetricas) {
+                List<ResultadoDoArquivo> resultados = lote.analisar(CompilacaoEmLote.listar(argumentos));
+                codigoDeSaida = Main.relatorio(resultados, todos, (System.nanoTime() - inicio) / 1e9,
+                        lote.getThreads(), saida);
+                Main.limitarCache(cache);
+            }
+            if (comMetricas) {
+                saida.print(metricas != null ? metricas.retrato() : "Servidor sem métricas (inicie com --metricas)\n");
+            }
+            return codigoDeSaida;
+        } catch (IOException e) {
+            saida.println("Erro ao listar os arquivos: " + e.getMessage());
+            return 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            saida.println("Servidor: pedido interrompido");
+            return 2;
+        }
+    }
+}
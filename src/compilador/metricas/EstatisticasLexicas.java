@@ -0,0 +1,84 @@
+package compilador.metricas;
+
+import compilador.lexico.FonteDeCaracteres;
+import compilador.lexico.TipoToken;
+import compilador.lexico.TokenBuffer;
+
+// Contagens de um TokenBuffer já pronto: tokens por TipoToken e caracteres de comentário.
+// Contar depois, sobre o buffer, deixa o lexer sem nenhum contador no caminho quente.
+//
+// Os comentários são achados nos intervalos entre um token e o seguinte (onde só há espaços
+// e comentários), então a fonte do buffer precisa guardar o texto (FonteDeCaracteres.retemTexto).
+public class EstatisticasLexicas {
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    private final int[] porTipo = new int[TIPOS.length];
+    private int caracteres;
+    private int caracteresDeComentario;
+
+    public static EstatisticasLexicas de(TokenBuffer buffer) {
+        EstatisticasLexicas estatisticas = new EstatisticasLexicas();
+        FonteDeCaracteres fonte = buffer.fonte();
+        int fimAnterior = 0;
+        for (int i = 0; i < buffer.tamanho(); i++) {
+            estatisticas.porTipo[buffer.tipoOrdinal(i)]++;
+            int inicio = buffer.inicio(i);
+            if (inicio > fimAnterior) {
+                estatisticas.caracteresDeComentario += comentarios(fonte, fimAnterior, inicio);
+            }
+            fimAnterior = Math.max(fimAnterior, inicio + buffer.comprimento(i));
+        }
+        int tamanho = buffer.tamanho();
+        estatisticas.caracteres = tamanho == 0 ? 0 : buffer.inicio(tamanho - 1); // início do EOF
+        return estatisticas;
+    }
+
+    // Caracteres dentro de /* ... */ (inclusive) em [inicio, fim); um comentário sem fim vai até 'fim'
+    private static int comentarios(FonteDeCaracteres fonte, int inicio, int fim) {
+        int total = 0;
+        int i = inicio;
+        while (i + 1 < fim) {
+            if (fonte.charEm(i) == '/' && fonte.charEm(i + 1) == '*') {
+                int j = i + 2;
+                while (j < fim && !(fonte.charEm(j - 1) == '*' && fonte.charEm(j) == '/' && j - 1 > i + 1)) {
+                    j++;
+                }
+                j = Math.min(j + 1, fim);
+                total += j - i;
+                i = j;
+            } else {
+                i++;
+            }
+        }
+        return total;
+    }
+
+    public int tokens(TipoToken tipo) {
+        return porTipo[tipo.ordinal()];
+    }
+
+    // Tokens sem contar o EOF
+    public int tokens() {
+        int total = 0;
+        for (int quantidade : porTipo) {
+            total += quantidade;
+        }
+        return total - porTipo[TipoToken.EOF.ordinal()];
+    }
+
+    public int tokensDeErro() {
+        return porTipo[TipoToken.ERRO.ordinal()];
+    }
+
+    public int caracteres() {
+        return caracteres;
+    }
+
+    public int caracteresDeComentario() {
+        return caracteresDeComentario;
+    }
+
+    int[] porTipo() {
+        return porTipo;
+    }
+}
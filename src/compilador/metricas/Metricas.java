@@ -0,0 +1,177 @@
+package compilador.metricas;
+
+import compilador.lexico.TipoToken;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas acumuladas de muitas análises, seguras para várias threads registrarem ao mesmo
+// tempo sem travar: contadores LongAdder e um histograma de latência por arquivo com baldes
+// log-lineares (8 por potência de 2, erro de no máximo 12,5% nos percentis).
+public class Metricas {
+    private static final TipoToken[] TIPOS = TipoToken.values();
+    private static final int BALDES = 8 * 62;
+
+    private final long criacao = System.nanoTime();
+    private final LongAdder arquivos = new LongAdder();
+    private final LongAdder caracteres = new LongAdder();
+    private final LongAdder caracteresDeComentario = new LongAdder();
+    private final LongAdder nos = new LongAdder();
+    private final LongAdder diagnosticos = new LongAdder();
+    private final LongAdder nanosSomados = new LongAdder();
+    private final LongAccumulator profundidadeMaxima = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray tokensPorTipo = new AtomicLongArray(TIPOS.length);
+    private final AtomicLongArray latencias = new AtomicLongArray(BALDES);
+
+    // Uma análise terminada: quanto tempo levou, o que o lexer viu e o que o parser produziu
+    public void registrar(long nanos, EstatisticasLexicas lexicas, int nosDaArvore, int erros, int profundidade) {
+        arquivos.increment();
+        nanosSomados.add(nanos);
+        latencias.incrementAndGet(balde(nanos));
+        caracteres.add(lexicas.caracteres());
+        caracteresDeComentario.add(lexicas.caracteresDeComentario());
+        int[] porTipo = lexicas.porTipo();
+        for (int i = 0; i < porTipo.length; i++) {
+            if (porTipo[i] != 0) {
+                tokensPorTipo.addAndGet(i, porTipo[i]);
+            }
+        }
+        nos.add(nosDaArvore);
+        diagnosticos.add(erros);
+        profundidadeMaxima.accumulate(profundidade);
+    }
+
+    // Valores < 8 têm um balde cada; acima disso, 8 baldes por potência de 2
+    static int balde(long valor) {
+        if (valor < 8) {
+            return (int) Math.max(valor, 0);
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        return (expoente - 2) * 8 + (int) ((valor >>> (expoente - 3)) & 7);
+    }
+
+    // Menor valor que cai no balde
+    static long limite(int balde) {
+        if (balde < 8) {
+            return balde;
+        }
+        int expoente = balde / 8 + 2;
+        return (1L << expoente) + ((long) (balde % 8) << (expoente - 3));
+    }
+
+    // Fotografia dos valores atuais (cada contador é lido uma vez, sem parar quem registra)
+    public Retrato retrato() {
+        long[] porTipo = new long[TIPOS.length];
+        for (int i = 0; i < porTipo.length; i++) {
+            porTipo[i] = tokensPorTipo.get(i);
+        }
+        long[] baldes = new long[BALDES];
+        for (int i = 0; i < BALDES; i++) {
+            baldes[i] = latencias.get(i);
+        }
+        return new Retrato(System.nanoTime() - criacao, arquivos.sum(), caracteres.sum(),
+                caracteresDeComentario.sum(), nos.sum(), diagnosticos.sum(), nanosSomados.sum(),
+                (int) profundidadeMaxima.get(), porTipo, percentil(baldes, 0.50), percentil(baldes, 0.99));
+    }
+
+    private static long percentil(long[] baldes, double fracao) {
+        long total = 0;
+        for (long quantidade : baldes) {
+            total += quantidade;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long posicao = (long) Math.ceil(total * fracao);
+        long acumulado = 0;
+        for (int i = 0; i < baldes.length; i++) {
+            acumulado += baldes[i];
+            if (acumulado >= posicao) {
+                return limite(i);
+            }
+        }
+        return limite(baldes.length - 1);
+    }
+
+    // Valores de um momento; os percentis são de latência por arquivo, em nanossegundos
+    public static class Retrato {
+        public final long nanosDesdeACriacao;
+        public final long arquivos;
+        public final long caracteres;
+        public final long caracteresDeComentario;
+        public final long nos;
+        public final long diagnosticos;
+        public final long nanosSomados;
+        public final int profundidadeMaxima;
+        private final long[] tokensPorTipo;
+        public final long p50;
+        public final long p99;
+
+        Retrato(long nanosDesdeACriacao, long arquivos, long caracteres, long caracteresDeComentario, long nos,
+                long diagnosticos, long nanosSomados, int profundidadeMaxima, long[] tokensPorTipo, long p50, long p99) {
+            this.nanosDesdeACriacao = nanosDesdeACriacao;
+            this.arquivos = arquivos;
+            this.caracteres = caracteres;
+            this.caracteresDeComentario = caracteresDeComentario;
+            this.nos = nos;
+            this.diagnosticos = diagnosticos;
+            this.nanosSomados = nanosSomados;
+            this.profundidadeMaxima = profundidadeMaxima;
+            this.tokensPorTipo = tokensPorTipo;
+            this.p50 = p50;
+            this.p99 = p99;
+        }
+
+        public long tokens(TipoToken tipo) {
+            return tokensPorTipo[tipo.ordinal()];
+        }
+
+        // Sem contar os EOF
+        public long tokens() {
+            long total = 0;
+            for (long quantidade : tokensPorTipo) {
+                total += quantidade;
+            }
+            return total - tokensPorTipo[TipoToken.EOF.ordinal()];
+        }
+
+        // Arquivos por segundo de relógio desde a criação das Metricas
+        public double arquivosPorSegundo() {
+            return nanosDesdeACriacao == 0 ? 0 : arquivos / (nanosDesdeACriacao / 1e9);
+        }
+
+        // Caracteres por segundo de análise (somando o tempo de todas as threads)
+        public double caracteresPorSegundo() {
+            return nanosSomados == 0 ? 0 : caracteres / (nanosSomados / 1e9);
+        }
+
+        // Uma métrica por linha, "nome valor", fácil de ler e de passar adiante
+        @Override
+        public String toString() {
+            StringBuilder saida = new StringBuilder();
+            linha(saida, "arquivos", arquivos);
+            linha(saida, "arquivos_por_segundo", String.format(Locale.ROOT, "%.1f", arquivosPorSegundo()));
+            linha(saida, "caracteres", caracteres);
+            linha(saida, "caracteres_por_segundo", String.format(Locale.ROOT, "%.0f", caracteresPorSegundo()));
+            linha(saida, "latencia_p50_us", String.format(Locale.ROOT, "%.1f", p50 / 1e3));
+            linha(saida, "latencia_p99_us", String.format(Locale.ROOT, "%.1f", p99 / 1e3));
+            linha(saida, "tokens", tokens());
+            linha(saida, "tokens_de_erro", tokens(TipoToken.ERRO));
+            linha(saida, "caracteres_de_comentario", caracteresDeComentario);
+            linha(saida, "nos", nos);
+            linha(saida, "diagnosticos", diagnosticos);
+            linha(saida, "profundidade_maxima_de_escopos", profundidadeMaxima);
+            for (TipoToken tipo : TIPOS) {
+                if (tipo != TipoToken.EOF && tokensPorTipo[tipo.ordinal()] > 0) {
+                    linha(saida, "tokens." + tipo, tokensPorTipo[tipo.ordinal()]);
+                }
+            }
+            return saida.toString();
+        }
+
+        private static void linha(StringBuilder saida, String nome, Object valor) {
+            saida.append(nome).append(' ').append(valor).append('\n');
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package compilador.saida;
+
+import compilador.lexico.AnalisadorLexico;
+import compilador.lexico.FonteDeCaracteres;
+import compilador.lexico.TipoToken;
+import compilador.sintatico.Diagnosticos;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Escreve tokens e diagnósticos num canal (arquivo ou saída padrão) num dos FormatoDeSaida.
+// Cada registro é codificado direto dos campos do token para um buffer grande, sem montar
+// Strings: o que não muda entre tokens do mesmo tipo (nome do tipo, lexema fixo e a pontuação
+// do formato) é preparado uma vez no construtor, e a cada token só o lexema variável e a linha
+// são codificados. O buffer vai para o canal só quando enche, em descarregar() ou em close().
+public class EscritorDeSaida implements Closeable {
+    public static final int CAPACIDADE_PADRAO = 1024 * 1024;
+    private static final TipoToken[] TIPOS = TipoToken.values();
+    private static final byte[] HEXA = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel canal;
+    private final boolean fecharCanal;
+    private final FormatoDeSaida formato;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private int tamanho = 0;
+    private long descarregados = 0;
+
+    // Por tipo de token: o começo do registro até o lexema e, para os tipos de lexema fixo, o
+    // registro inteiro até a linha
+    private final byte[][] antesDoLexema = new byte[TIPOS.length][];
+    private final byte[][] antesDaLinhaComLexemaFixo = new byte[TIPOS.length][];
+    private final byte[] antesDaLinha;
+    private final byte[] fimDoRegistro;
+
+    public EscritorDeSaida(WritableByteChannel canal, FormatoDeSaida formato) {
+        this(canal, true, formato, CAPACIDADE_PADRAO);
+    }
+
+    public EscritorDeSaida(WritableByteChannel canal, FormatoDeSaida formato, int capacidade) {
+        this(canal, true, formato, capacidade);
+    }
+
+    private EscritorDeSaida(WritableByteChannel canal, boolean fecharCanal, FormatoDeSaida formato, int capacidade) {
+        this.canal = canal;
+        this.fecharCanal = fecharCanal;
+        this.formato = formato;
+        bytes = new byte[Math.max(capacidade, 1024)];
+        buffer = ByteBuffer.wrap(bytes);
+        try {
+            antesDaLinha = preparar(switch (formato) {
+                case TEXTO -> "', linha=";
+                case JSONL -> "\",\"linha\":";
+                case CSV -> ",";
+            });
+            fimDoRegistro = preparar(formato == FormatoDeSaida.TEXTO ? "]\n" : formato == FormatoDeSaida.JSONL ? "}\n" : "\n");
+            for (TipoToken tipo : TIPOS) {
+                antesDoLexema[tipo.ordinal()] = preparar(switch (formato) {
+                    case TEXTO -> "Token [tipo=" + tipo + ", lexema='";
+                    case JSONL -> "{\"tipo\":\"" + tipo + "\",\"lexema\":\"";
+                    case CSV -> "token," + tipo + ",";
+                });
+                String fixo = AnalisadorLexico.lexemaFixo(tipo);
+                if (fixo != null) {
+                    copiar(antesDoLexema[tipo.ordinal()]);
+                    campo(fixo);
+                    copiar(antesDaLinha);
+                    antesDaLinhaComLexemaFixo[tipo.ordinal()] = Arrays.copyOf(bytes, tamanho);
+                    tamanho = 0;
+                }
+            }
+            if (formato == FormatoDeSaida.CSV) {
+                ascii("registro,tipo,texto,linha\n");
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e); // o buffer não enche no construtor
+        }
+    }
+
+    // Cria (ou trunca) o arquivo
+    public static EscritorDeSaida abrir(Path arquivo, FormatoDeSaida formato) throws IOException {
+        return new EscritorDeSaida(FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), formato);
+    }
+
+    // Escreve direto no descritor da saída padrão, sem passar pelo System.out (que é descarregado
+    // antes). Enquanto o escritor está aberto, nada mais deve ser impresso no System.out; close()
+    // não fecha a saída padrão.
+    public static EscritorDeSaida saidaPadrao(FormatoDeSaida formato) {
+        System.out.flush();
+        return new EscritorDeSaida(new FileOutputStream(FileDescriptor.out).getChannel(), false, formato,
+                CAPACIDADE_PADRAO);
+    }
+
+    // O token atual do lexer (o reconhecido pela última chamada a proximoTipo())
+    public void token(AnalisadorLexico lexer) throws IOException {
+        token(lexer.tipoAtual(), lexer.fonte(), lexer.inicioAtual(), lexer.comprimentoAtual(), lexer.linhaAtual());
+    }
+
+    // O lexema variável é lido da fonte em [inicio, inicio + comprimento)
+    public void token(TipoToken tipo, FonteDeCaracteres fonte, int inicio, int comprimento, int linha)
+            throws IOException {
+        byte[] fixo = antesDaLinhaComLexemaFixo[tipo.ordinal()];
+        if (fixo != null) {
+            copiar(fixo);
+        } else {
+            copiar(antesDoLexema[tipo.ordinal()]);
+            lexema(fonte, inicio, inicio + comprimento);
+            copiar(antesDaLinha);
+        }
+        inteiro(linha);
+        copiar(fimDoRegistro);
+    }
+
+    // Um caractere que o lexer não reconheceu (token ERRO)
+    public void erroLexico(String lexema, int linha) throws IOException {
+        String detalhe = "Caractere inesperado '" + lexema + "'";
+        erro("lexico", linha, detalhe, "Erro léxico na linha " + linha + ": " + detalhe);
+    }
+
+    public void diagnosticos(Diagnosticos diagnosticos) throws IOException {
+        for (int i = 0; i < diagnosticos.tamanho(); i++) {
+            erro(diagnosticos.ehSemantico(i) ? "semantico" : "sintatico", diagnosticos.linha(i),
+                    diagnosticos.detalhe(i), diagnosticos.mensagem(i));
+        }
+    }
+
+    private void erro(String categoria, int linha, String detalhe, String mensagem) throws IOException {
+        switch (formato) {
+            case TEXTO -> {
+                campo(mensagem);
+                ascii("\n");
+            }
+            case JSONL -> {
+                ascii("{\"erro\":\"");
+                ascii(categoria);
+                ascii("\",\"detalhe\":\"");
+                campo(detalhe);
+                ascii("\",\"linha\":");
+                inteiro(linha);
+                ascii("}\n");
+            }
+            case CSV -> {
+                ascii("erro,");
+                ascii(categoria);
+                ascii(",");
+                campo(detalhe);
+                ascii(",");
+                inteiro(linha);
+                ascii("\n");
+            }
+        }
+    }
+
+    // Bytes escritos até agora, inclusive os que ainda estão no buffer
+    public long bytesEscritos() {
+        return descarregados + tamanho;
+    }
+
+    // Manda para o canal o que está no buffer
+    public void descarregar() throws IOException {
+        buffer.clear().limit(tamanho);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        descarregados += tamanho;
+        tamanho = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            descarregar();
+        } finally {
+            if (fecharCanal) {
+                canal.close();
+            }
+        }
+    }
+
+    // Texto com o escape do formato: entre aspas no CSV se for preciso, escapado no JSONL
+    private void campo(String texto) throws IOException {
+        boolean aspas = formato == FormatoDeSaida.CSV && precisaDeAspas(texto);
+        if (aspas) {
+            ascii("\"");
+        }
+        int i = 0;
+        while (i < texto.length()) {
+            char c = texto.charAt(i++);
+            if (aspas && c == '"') {
+                ascii("\"");
+            }
+            if (Character.isHighSurrogate(c) && i < texto.length() && Character.isLowSurrogate(texto.charAt(i))) {
+                pontoDeCodigo(Character.toCodePoint(c, texto.charAt(i++)));
+            } else {
+                pontoDeCodigo(c);
+            }
+        }
+        if (aspas) {
+            ascii("\"");
+        }
+    }
+
+    // Como campo(), lendo da fonte
+    private void lexema(FonteDeCaracteres fonte, int inicio, int fim) throws IOException {
+        boolean aspas = formato == FormatoDeSaida.CSV && precisaDeAspas(fonte, inicio, fim);
+        if (aspas) {
+            ascii("\"");
+        }
+        int i = inicio;
+        while (i < fim) {
+            char c = fonte.charEm(i++);
+            if (aspas && c == '"') {
+                ascii("\"");
+            }
+            if (Character.isHighSurrogate(c) && i < fim && Character.isLowSurrogate(fonte.charEm(i))) {
+                pontoDeCodigo(Character.toCodePoint(c, fonte.charEm(i++)));
+            } else {
+                pontoDeCodigo(c);
+            }
+        }
+        if (aspas) {
+            ascii("\"");
+        }
+    }
+
+    private static boolean precisaDeAspas(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (especialNoCsv(texto.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean precisaDeAspas(FonteDeCaracteres fonte, int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if (especialNoCsv(fonte.charEm(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean especialNoCsv(char c) {
+        return c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+
+    // Em UTF-8; no JSONL, com escape de aspas, barra invertida e caracteres de controle. Um
+    // surrogate sem par vira '?', como no System.out.
+    private void pontoDeCodigo(int c) throws IOException {
+        garantir(6);
+        if (c < 0x80) {
+            if (formato == FormatoDeSaida.JSONL && (c == '"' || c == '\\' || c < 0x20)) {
+                bytes[tamanho++] = '\\';
+                switch (c) {
+                    case '"', '\\' -> bytes[tamanho++] = (byte) c;
+                    case '\n' -> bytes[tamanho++] = 'n';
+                    case '\r' -> bytes[tamanho++] = 'r';
+                    case '\t' -> bytes[tamanho++] = 't';
+                    default -> {
+                        bytes[tamanho++] = 'u';
+                        bytes[tamanho++] = '0';
+                        bytes[tamanho++] = '0';
+                        bytes[tamanho++] = HEXA[c >> 4];
+                        bytes[tamanho++] = HEXA[c & 0xF];
+                    }
+                }
+            } else {
+                bytes[tamanho++] = (byte) c;
+            }
+        } else if (c < 0x800) {
+            bytes[tamanho++] = (byte) (0xC0 | c >> 6);
+            bytes[tamanho++] = (byte) (0x80 | c & 0x3F);
+        } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+            bytes[tamanho++] = '?';
+        } else if (c < 0x10000) {
+            bytes[tamanho++] = (byte) (0xE0 | c >> 12);
+            bytes[tamanho++] = (byte) (0x80 | c >> 6 & 0x3F);
+            bytes[tamanho++] = (byte) (0x80 | c & 0x3F);
+        } else {
+            bytes[tamanho++] = (byte) (0xF0 | c >> 18);
+            bytes[tamanho++] = (byte) (0x80 | c >> 12 & 0x3F);
+            bytes[tamanho++] = (byte) (0x80 | c >> 6 & 0x3F);
+            bytes[tamanho++] = (byte) (0x80 | c & 0x3F);
+        }
+    }
+
+    private void inteiro(int valor) throws IOException {
+        garantir(11);
+        long v = valor;
+        if (v < 0) {
+            bytes[tamanho++] = '-';
+            v = -v;
+        }
+        int digitos = 1;
+        for (long resto = v; resto >= 10; resto /= 10) {
+            digitos++;
+        }
+        int fim = tamanho + digitos;
+        for (int p = fim - 1; p >= tamanho; p--) {
+            bytes[p] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        tamanho = fim;
+    }
+
+    // Texto da estrutura do formato (só ASCII, sem escape)
+    private void ascii(String texto) throws IOException {
+        garantir(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            bytes[tamanho++] = (byte) texto.charAt(i);
+        }
+    }
+
+    private void copiar(byte[] parte) throws IOException {
+        garantir(parte.length);
+        System.arraycopy(parte, 0, bytes, tamanho, parte.length);
+        tamanho += parte.length;
+    }
+
+    private byte[] preparar(String texto) throws IOException {
+        ascii(texto);
+        byte[] parte = Arrays.copyOf(bytes, tamanho);
+        tamanho = 0;
+        return parte;
+    }
+
+    private void garantir(int espaco) throws IOException {
+        if (bytes.length - tamanho < espaco) {
+            descarregar();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package compilador.saida;
+
+// Formatos do EscritorDeSaida. Em todos, um registro por linha, na ordem em que foram escritos:
+//   TEXTO  como Token.toString() e Diagnosticos.mensagem()
+//   JSONL  {"tipo":"IDENTIFICADOR","lexema":"x","linha":3}
+//          {"erro":"sintatico","detalhe":"...","linha":3}
+//   CSV    cabeçalho registro,tipo,texto,linha; depois token,IDENTIFICADOR,x,3 ou erro,sintatico,"...",3
+public enum FormatoDeSaida {
+    TEXTO, JSONL, CSV;
+
+    // Pelo nome, sem diferenciar maiúsculas (texto, jsonl, csv); null se não existe
+    public static FormatoDeSaida de(String nome) {
+        for (FormatoDeSaida formato : values()) {
+            if (formato.name().equalsIgnoreCase(nome)) {
+                return formato;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,184 @@
+package compilador.sintatico;
+
+import compilador.lexico.TabelaDeNomes;
+import compilador.lexico.TipoToken;
+import java.util.Arrays;
+
+// AST guardada numa arena: um nó é um índice, e cada campo é uma coluna (array de int).
+// Os filhos de um nó formam uma lista ligada por primeiroFilho/proximoIrmao. Nomes ficam
+// como ids da TabelaDeNomes do lexer. Um milhão de nós ocupa só estes sete arrays.
+public class Arvore {
+    private static final TipoNo[] TIPOS = TipoNo.values();
+    private static final TipoToken[] TOKENS = TipoToken.values();
+
+    private int[] tipos;
+    private int[] primeirosFilhos;
+    private int[] proximosIrmaos;
+    private int[] tokens;    // índice do token que originou o nó na sequência de tokens
+    private int[] operadores; // ordinal de TipoToken, ou -1
+    private int[] valores;   // id do nome, valor do número ou do lógico (ver TipoNo)
+    private int[] linhas;
+    private int tamanho = 0;
+    private int raiz = -1;
+    private TabelaDeNomes nomes;
+
+    public Arvore() {
+        this(1024);
+    }
+
+    public Arvore(int capacidadeInicial) {
+        int capacidade = Math.max(capacidadeInicial, 16);
+        tipos = new int[capacidade];
+        primeirosFilhos = new int[capacidade];
+        proximosIrmaos = new int[capacidade];
+        tokens = new int[capacidade];
+        operadores = new int[capacidade];
+        valores = new int[capacidade];
+        linhas = new int[capacidade];
+    }
+
+    // Cria um nó sem filhos e devolve o seu índice
+    int novo(TipoNo tipo, TipoToken operador, int valor, int token, int linha) {
+        if (tamanho == tipos.length) {
+            crescer();
+        }
+        int no = tamanho++;
+        tipos[no] = tipo.ordinal();
+        primeirosFilhos[no] = -1;
+        proximosIrmaos[no] = -1;
+        tokens[no] = token;
+        operadores[no] = operador == null ? -1 : operador.ordinal();
+        valores[no] = valor;
+        linhas[no] = linha;
+        return no;
+    }
+
+    // Põe 'filho' depois de 'ultimo' na lista de filhos de 'pai' (ultimo = -1 se a lista está vazia)
+    // e devolve o novo último filho
+    int anexar(int pai, int ultimo, int filho) {
+        if (filho < 0) {
+            return ultimo;
+        }
+        if (ultimo < 0) {
+            primeirosFilhos[pai] = filho;
+        } else {
+            proximosIrmaos[ultimo] = filho;
+        }
+        return filho;
+    }
+
+    // Descarta 'no' e todos os nós criados depois dele
+    void descartarDesde(int no) {
+        tamanho = no;
+    }
+
+    private void crescer() {
+        int capacidade = tipos.length * 2;
+        tipos = Arrays.copyOf(tipos, capacidade);
+        primeirosFilhos = Arrays.copyOf(primeirosFilhos, capacidade);
+        proximosIrmaos = Arrays.copyOf(proximosIrmaos, capacidade);
+        tokens = Arrays.copyOf(tokens, capacidade);
+        operadores = Arrays.copyOf(operadores, capacidade);
+        valores = Arrays.copyOf(valores, capacidade);
+        linhas = Arrays.copyOf(linhas, capacidade);
+    }
+
+    // Esvazia a arena para uma nova análise, reaproveitando os arrays
+    void limpar(TabelaDeNomes nomes) {
+        this.nomes = nomes;
+        tamanho = 0;
+        raiz = -1;
+    }
+
+    void definirRaiz(int raiz) {
+        this.raiz = raiz;
+    }
+
+    public int raiz() {
+        return raiz;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public TipoNo tipo(int no) {
+        return TIPOS[tipos[no]];
+    }
+
+    public int primeiroFilho(int no) {
+        return primeirosFilhos[no];
+    }
+
+    // Próximo filho do mesmo pai, ou -1
+    public int proximoIrmao(int no) {
+        return proximosIrmaos[no];
+    }
+
+    public int token(int no) {
+        return tokens[no];
+    }
+
+    public TipoToken operador(int no) {
+        return operadores[no] < 0 ? null : TOKENS[operadores[no]];
+    }
+
+    public int valor(int no) {
+        return valores[no];
+    }
+
+    public int linha(int no) {
+        return linhas[no];
+    }
+
+    public TabelaDeNomes nomes() {
+        return nomes;
+    }
+
+    // Nome guardado no valor do nó (para os tipos de nó que têm nome)
+    public String nome(int no) {
+        return nomes.nome(valores[no]);
+    }
+
+    public int quantidadeDeFilhos(int no) {
+        int quantidade = 0;
+        for (int filho = primeirosFilhos[no]; filho >= 0; filho = proximosIrmaos[filho]) {
+            quantidade++;
+        }
+        return quantidade;
+    }
+
+    // Forma de texto, uma linha por nó, para depuração
+    @Override
+    public String toString() {
+        StringBuilder saida = new StringBuilder();
+        if (raiz >= 0) {
+            escrever(saida, raiz, 0);
+        }
+        return saida.toString();
+    }
+
+    private void escrever(StringBuilder saida, int no, int nivel) {
+        for (int i = 0; i < nivel; i++) {
+            saida.append("  ");
+        }
+        TipoNo tipo = tipo(no);
+        saida.append(tipo);
+        if (operadores[no] >= 0) {
+            saida.append(' ').append(operador(no));
+        }
+        switch (tipo) {
+            case PROGRAMA, VARIAVEL, DECL_FUNCAO, DECL_PROCEDIMENTO, PARAMETRO, ATRIBUICAO, CHAMADA, LEIA, NOME -> {
+                if (valores[no] >= 0) {
+                    saida.append(' ').append(nome(no));
+                }
+            }
+            case NUMERO, LOGICO -> saida.append(' ').append(valores[no]);
+            default -> { }
+        }
+        saida.append('\n');
+        for (int filho = primeirosFilhos[no]; filho >= 0; filho = proximosIrmaos[filho]) {
+            escrever(saida, filho, nivel + 1);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package compilador.sintatico;
+
+// Recebe as unidades de nível superior do programa uma a uma, assim que cada uma termina de
+// ser analisada (ver Parser.parseProgramaEmFluxo)
+public interface ConsumidorDeUnidades {
+    // 'unidade' é a raiz da unidade na árvore: DECL_VAR, DECL_FUNCAO, DECL_PROCEDIMENTO ou um
+    // comando. Os nós só valem durante a chamada, porque a próxima unidade reaproveita a arena;
+    // arvore.raiz() é o nó PROGRAMA, que fica até o fim (sem filhos).
+    void unidade(Arvore arvore, int unidade);
+}
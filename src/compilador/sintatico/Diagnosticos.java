@@ -0,0 +1,80 @@
+package compilador.sintatico;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Erros sintáticos e semânticos encontrados numa análise, em colunas (linha, tipo, detalhe),
+// na ordem em que foram encontrados. As mensagens completas só são montadas quando pedidas.
+public class Diagnosticos {
+    private static final byte SINTATICO = 0;
+    private static final byte SEMANTICO = 1;
+
+    private int[] linhas = new int[16];
+    private byte[] tipos = new byte[16];
+    private String[] detalhes = new String[16];
+    private int tamanho = 0;
+
+    // Recria diagnósticos guardados fora do Parser (ex.: no CacheDeAnalise), na mesma ordem
+    public static Diagnosticos de(int[] linhas, boolean[] semanticos, String[] detalhes) {
+        Diagnosticos diagnosticos = new Diagnosticos();
+        for (int i = 0; i < linhas.length; i++) {
+            diagnosticos.adicionar(semanticos[i] ? SEMANTICO : SINTATICO, linhas[i], detalhes[i]);
+        }
+        return diagnosticos;
+    }
+
+    void sintatico(int linha, String detalhe) {
+        adicionar(SINTATICO, linha, detalhe);
+    }
+
+    void semantico(int linha, String detalhe) {
+        adicionar(SEMANTICO, linha, detalhe);
+    }
+
+    private void adicionar(byte tipo, int linha, String detalhe) {
+        if (tamanho == linhas.length) {
+            linhas = Arrays.copyOf(linhas, tamanho * 2);
+            tipos = Arrays.copyOf(tipos, tamanho * 2);
+            detalhes = Arrays.copyOf(detalhes, tamanho * 2);
+        }
+        linhas[tamanho] = linha;
+        tipos[tamanho] = tipo;
+        detalhes[tamanho] = detalhe;
+        tamanho++;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean vazio() {
+        return tamanho == 0;
+    }
+
+    public int linha(int i) {
+        return linhas[i];
+    }
+
+    public boolean ehSemantico(int i) {
+        return tipos[i] == SEMANTICO;
+    }
+
+    // Mensagem sem o prefixo com o tipo e a linha
+    public String detalhe(int i) {
+        return detalhes[i];
+    }
+
+    public String mensagem(int i) {
+        String prefixo = tipos[i] == SEMANTICO ? "Erro Semântico na linha " : "Erro sintático na linha ";
+        return prefixo + linhas[i] + ": " + detalhes[i];
+    }
+
+    public List<String> mensagens() {
+        List<String> mensagens = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            mensagens.add(mensagem(i));
+        }
+        return mensagens;
+    }
+}
@@ -0,0 +1,303 @@
+package compilador.sintatico;
+
+import compilador.lexico.AnalisadorLexico;
+import compilador.lexico.FluxoDeTokens;
+import compilador.lexico.TabelaDeNomes;
+import compilador.lexico.TextoEditavel;
+import compilador.lexico.TipoToken;
+import compilador.lexico.Token;
+import compilador.sintatico.exceptions.SyntaxError;
+import compilador.tabela.Simbolo;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Documento aberto num editor: a cada edição relexa só a região danificada, até a sequência de
+// tokens voltar a coincidir com a anterior, e reanalisa só as unidades de nível superior
+// (cabeçalho, declarações e comandos de parsePrograma) que contêm tokens alterados.
+//
+// Cada unidade é analisada isoladamente. Declarações globais repetidas entre unidades diferentes
+// são detectadas por uma contagem de nomes mantida junto com as unidades.
+public class DocumentoIncremental {
+    private final TextoEditavel texto;
+    private final TokensDoDocumento tokens;
+    private final TabelaDeNomes nomes = new TabelaDeNomes(); // ids dos nomes, estáveis entre edições
+    private final Map<String, Integer> declaracoesGlobais = new HashMap<>();
+
+    // Resultado da análise de uma unidade de nível superior. A linha de um erro sintático
+    // não é guardada: é lida do token onde ele ocorreu, que se desloca junto com o documento.
+    static class Unidade {
+        final List<Simbolo> globais;
+        final String erro;
+        final int tokenDoErro; // relativo ao início da unidade; -1 se o erro não tem linha
+
+        Unidade(List<Simbolo> globais, String erro, int tokenDoErro) {
+            this.globais = globais;
+            this.erro = erro;
+            this.tokenDoErro = tokenDoErro;
+        }
+    }
+
+    public DocumentoIncremental(String conteudo) {
+        this.texto = new TextoEditavel(conteudo);
+        this.tokens = new TokensDoDocumento(conteudo.length() / 4, conteudo.length());
+        AnalisadorLexico lexer = new AnalisadorLexico(texto);
+        TipoToken tipo;
+        do {
+            tipo = lexer.proximoTipo();
+            tokens.inserirNaLacuna(tipo, lexer.inicioAtual(), lexer.comprimentoAtual(), lexer.linhaAtual());
+        } while (tipo != TipoToken.EOF);
+        reanalisar(0, tokens.tamanho());
+    }
+
+    // Substitui 'removidos' caracteres a partir de 'posicao' pelo texto inserido
+    public void editar(int posicao, int removidos, String inserido) {
+        // 1. Último token que o lexer terminou de ler antes da edição: recomeça logo depois dele
+        int anterior = ultimoTokenAntesDe(posicao);
+        int primeiroNovo = anterior + 1;
+        int posicaoReinicio = anterior >= 0 ? fimConsumido(anterior) : 0;
+        int linhaReinicio = anterior >= 0 ? tokens.linha(anterior) : 1;
+        if (primeiroNovo == 0) {
+            // o cabeçalho só vale no token 0; se o antigo primeiro token sobreviver, ele vira uma unidade comum
+            descartar(tokens.unidade(0));
+            tokens.definirUnidade(0, null);
+        }
+
+        // 2. Aplica a edição; os tokens depois da lacuna já passam a valer nas novas coordenadas
+        tokens.moverLacuna(primeiroNovo);
+        texto.substituir(posicao, removidos, inserido);
+        tokens.deslocarTexto(inserido.length() - removidos);
+        int fimDaEdicao = posicao + inserido.length();
+        while (tokens.primeiroAposLacuna() >= 0 && tokens.inicio(tokens.primeiroAposLacuna()) < fimDaEdicao) {
+            descartar(tokens.removerAposLacuna());
+        }
+
+        // 3. Relexa até produzir um token que começa onde um token antigo começava
+        AnalisadorLexico lexer = new AnalisadorLexico(texto);
+        lexer.posicionar(posicaoReinicio, linhaReinicio);
+        while (true) {
+            TipoToken tipo = lexer.proximoTipo();
+            int inicio = lexer.inicioAtual();
+            while (tokens.primeiroAposLacuna() >= 0 && tokens.inicio(tokens.primeiroAposLacuna()) < inicio) {
+                descartar(tokens.removerAposLacuna());
+            }
+            int antigo = tokens.primeiroAposLacuna();
+            if (antigo >= 0 && tokens.inicio(antigo) == inicio) {
+                tokens.deslocarLinhas(lexer.linhaAtual() - tokens.linha(antigo));
+                break;
+            }
+            tokens.inserirNaLacuna(tipo, inicio, lexer.comprimentoAtual(), lexer.linhaAtual());
+            if (tipo == TipoToken.EOF) {
+                while (tokens.primeiroAposLacuna() >= 0) {
+                    descartar(tokens.removerAposLacuna());
+                }
+                break;
+            }
+        }
+
+        // 4. Reanalisa a partir da unidade que contém o token anterior à região alterada
+        int fimAlterado = tokens.primeiroAposLacuna() >= 0 ? tokens.primeiroAposLacuna() : tokens.tamanho();
+        int unidade = Math.max(primeiroNovo - 1, 0);
+        while (unidade > 0 && tokens.unidade(unidade) == null) {
+            unidade--;
+        }
+        reanalisar(unidade, fimAlterado);
+    }
+
+    // Maior índice de token cujo fim lido pelo lexer fica antes da posição, ou -1
+    private int ultimoTokenAntesDe(int posicao) {
+        int baixo = 0;
+        int alto = tokens.tamanho() - 2; // o EOF nunca serve de ponto de reinício
+        int resultado = -1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (fimConsumido(meio) < posicao) {
+                resultado = meio;
+                baixo = meio + 1;
+            } else {
+                alto = meio - 1;
+            }
+        }
+        return resultado;
+    }
+
+    // Onde o lexer parou depois do token: um '|' sozinho também engole o caractere seguinte
+    private int fimConsumido(int i) {
+        int inicio = tokens.inicio(i);
+        int fim = inicio + tokens.comprimento(i);
+        if (tokens.tipo(i) == TipoToken.ERRO && texto.charEm(inicio) == '|') {
+            fim++;
+        }
+        return fim;
+    }
+
+    // Analisa unidades a partir do token 'primeira' até voltar a uma fronteira antiga depois de 'fimAlterado'
+    private void reanalisar(int primeira, int fimAlterado) {
+        int eof = tokens.tamanho() - 1;
+        int atual = primeira;
+        while (atual < eof || atual == 0) { // o cabeçalho é analisado mesmo num documento vazio
+            if (atual >= fimAlterado && atual != primeira && tokens.unidade(atual) != null) {
+                return; // daqui em diante as unidades antigas continuam válidas
+            }
+            descartar(tokens.unidade(atual));
+            tokens.definirUnidade(atual, null);
+
+            CursorDoDocumento cursor = new CursorDoDocumento(atual);
+            Parser parser = new Parser(cursor);
+            parser.entrarEscopoDoPrograma();
+            String erro = null;
+            int tokenDoErro = -1;
+            try {
+                if (atual == 0) {
+                    parser.parseCabecalho();
+                } else {
+                    parser.parseUnidade();
+                }
+            } catch (SyntaxError e) {
+                erro = e.getDetalhe();
+                tokenDoErro = cursor.indice - atual;
+                sincronizar(cursor, atual);
+            } catch (RuntimeException e) {
+                erro = e.getMessage();
+                sincronizar(cursor, atual);
+            }
+            int fim = Math.max(cursor.indice, atual + 1);
+            for (int i = atual + 1; i < fim; i++) {
+                descartar(tokens.unidade(i));
+                tokens.definirUnidade(i, null);
+            }
+            Unidade unidade = new Unidade(parser.simbolosDoPrograma(), erro, tokenDoErro);
+            for (Simbolo simbolo : unidade.globais) {
+                declaracoesGlobais.merge(simbolo.nome(), 1, Integer::sum);
+            }
+            tokens.definirUnidade(atual, unidade);
+            atual = fim;
+        }
+        for (int i = atual; i < tokens.tamanho(); i++) {
+            descartar(tokens.unidade(i));
+            tokens.definirUnidade(i, null);
+        }
+    }
+
+    // Depois de um erro, pula até um token que possa começar uma declaração de nível superior
+    private void sincronizar(CursorDoDocumento cursor, int inicioUnidade) {
+        int profundidade = 0;
+        for (int i = inicioUnidade; i < cursor.indice; i++) {
+            if (tokens.tipo(i) == TipoToken.ABRE_CHAVES) profundidade++;
+            if (tokens.tipo(i) == TipoToken.FECHA_CHAVES) profundidade--;
+        }
+        if (cursor.indice == inicioUnidade) {
+            cursor.avancar();
+        }
+        while (cursor.tipo() != TipoToken.EOF) {
+            TipoToken tipo = cursor.tipo();
+            if (profundidade <= 0 && (tipo == TipoToken.INT || tipo == TipoToken.BOOL
+                    || tipo == TipoToken.FUNCAO || tipo == TipoToken.PROCEDIMENTO)) {
+                return;
+            }
+            if (tipo == TipoToken.ABRE_CHAVES) profundidade++;
+            if (tipo == TipoToken.FECHA_CHAVES) profundidade--;
+            cursor.avancar();
+        }
+    }
+
+    private void descartar(Unidade unidade) {
+        if (unidade == null) {
+            return;
+        }
+        for (Simbolo simbolo : unidade.globais) {
+            declaracoesGlobais.merge(simbolo.nome(), -1, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    // Erros de todas as unidades, na ordem do documento, seguidos das declarações globais repetidas
+    public List<String> erros() {
+        List<String> erros = new ArrayList<>();
+        for (int i = 0; i < tokens.tamanho(); i++) {
+            Unidade unidade = tokens.unidade(i);
+            if (unidade != null && unidade.tokenDoErro >= 0) {
+                erros.add("Erro sintático na linha " + tokens.linha(i + unidade.tokenDoErro) + ": " + unidade.erro);
+            } else if (unidade != null && unidade.erro != null) {
+                erros.add(unidade.erro);
+            }
+        }
+        for (Map.Entry<String, Integer> entrada : declaracoesGlobais.entrySet()) {
+            if (entrada.getValue() > 1) {
+                erros.add("Erro Semântico: Identificador '" + entrada.getKey() + "' já foi declarado.");
+            }
+        }
+        return erros;
+    }
+
+    public String texto() {
+        return texto.toString();
+    }
+
+    public int quantidadeDeTokens() {
+        return tokens.tamanho();
+    }
+
+    public Token token(int i) {
+        TipoToken tipo = tokens.tipo(i);
+        return new Token(tipo, AnalisadorLexico.lexema(texto, tipo, tokens.inicio(i), tokens.comprimento(i)), tokens.linha(i));
+    }
+
+    public int inicioDoToken(int i) {
+        return tokens.inicio(i);
+    }
+
+    // Lê os tokens do documento a partir de um índice, para o Parser
+    private class CursorDoDocumento implements FluxoDeTokens {
+        private int indice;
+
+        CursorDoDocumento(int indice) {
+            this.indice = indice;
+        }
+
+        @Override
+        public TipoToken tipo() {
+            return tokens.tipo(indice);
+        }
+
+        @Override
+        public String lexema() {
+            int id = id();
+            if (id >= 0) {
+                return nomes.nome(id);
+            }
+            return AnalisadorLexico.lexema(texto, tokens.tipo(indice), tokens.inicio(indice), tokens.comprimento(indice));
+        }
+
+        // Os nomes são internados na hora em que o Parser os pede
+        @Override
+        public int id() {
+            if (tokens.tipo(indice) != TipoToken.IDENTIFICADOR) {
+                return -1;
+            }
+            return nomes.idDe(texto, tokens.inicio(indice), tokens.comprimento(indice));
+        }
+
+        @Override
+        public TabelaDeNomes nomes() {
+            return nomes;
+        }
+
+        @Override
+        public int linha() {
+            return tokens.linha(indice);
+        }
+
+        @Override
+        public int indice() {
+            return indice;
+        }
+
+        @Override
+        public void avancar() {
+            if (indice < tokens.tamanho() - 1) {
+                indice++;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package compilador.sintatico;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Evento do JDK Flight Recorder para cada análise de um programa inteiro pelo Parser
+// (parsePrograma e parseProgramaComRecuperacao)
+@Name("compilador.AnaliseSintatica")
+@Label("Análise sintática")
+@Description("Análise de um programa inteiro, com as verificações semânticas feitas pelo Parser")
+@Category("Compilador")
+@StackTrace(false)
+final class EventoSintatico extends Event {
+    @Label("Tokens")
+    int tokens;
+
+    @Label("Nós da árvore")
+    @Description("0 quando o Parser não está montando a Arvore")
+    int nos;
+
+    @Label("Erros")
+    int erros;
+
+    @Label("Profundidade máxima de escopos")
+    int profundidade;
+}
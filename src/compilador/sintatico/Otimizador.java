@@ -0,0 +1,303 @@
+package compilador.sintatico;
+
+import compilador.lexico.TipoToken;
+
+// Passo de otimização sobre a Arvore: copia o programa para uma Arvore nova
+//   - calculando as subexpressões constantes (aritméticas, relacionais, lógicas, ! e - unário),
+//     com a mesma semântica da execução: aritmética de int com estouro, && e || em curto-circuito
+//     e divisão por zero deixada para a execução, que dá o erro na linha certa;
+//   - trocando se/enquanto de condição constante pelo bloco que sobra (ou por nada);
+//   - descartando os comandos depois de retorne/pare/continue no mesmo bloco.
+// As declarações de variáveis do código descartado são mantidas no lugar, porque o escopo das
+// variáveis é a rotina inteira e elas continuam podendo ser usadas depois.
+public class Otimizador {
+    private final Arvore origem;
+    private Arvore destino;
+    private boolean terminou; // o bloco atual já passou por um retorne/pare/continue
+
+    public Otimizador(Arvore origem) {
+        this.origem = origem;
+    }
+
+    // Devolve o programa otimizado numa Arvore nova (a origem não muda)
+    public Arvore otimizar() {
+        destino = new Arvore(origem.tamanho());
+        destino.limpar(origem.nomes());
+        int raiz = origem.raiz();
+        if (raiz >= 0) {
+            int programa = copia(raiz);
+            terminou = false;
+            lista(raiz, programa, -1);
+            destino.definirRaiz(programa);
+        }
+        return destino;
+    }
+
+    // Quantos nós a última otimização eliminou
+    public int eliminados() {
+        return destino == null ? 0 : origem.tamanho() - destino.tamanho();
+    }
+
+    // Copia os filhos de 'pai' (um PROGRAMA ou BLOCO da origem) para o fim da lista de filhos de
+    // 'novoPai', e devolve o novo último filho
+    private int lista(int pai, int novoPai, int ultimo) {
+        for (int filho = origem.primeiroFilho(pai); filho >= 0; filho = origem.proximoIrmao(filho)) {
+            if (terminou) {
+                ultimo = declaracoes(filho, novoPai, ultimo);
+            } else {
+                ultimo = comando(filho, novoPai, ultimo);
+            }
+        }
+        return ultimo;
+    }
+
+    private int comando(int no, int novoPai, int ultimo) {
+        switch (origem.tipo(no)) {
+            case DECL_VAR -> {
+                return destino.anexar(novoPai, ultimo, subarvore(no));
+            }
+            case DECL_FUNCAO, DECL_PROCEDIMENTO -> {
+                int rotina = copia(no);
+                int ultimoDaRotina = -1;
+                for (int filho = origem.primeiroFilho(no); filho >= 0; filho = origem.proximoIrmao(filho)) {
+                    ultimoDaRotina = destino.anexar(rotina, ultimoDaRotina,
+                            origem.tipo(filho) == TipoNo.BLOCO ? bloco(filho) : subarvore(filho));
+                }
+                return destino.anexar(novoPai, ultimo, rotina);
+            }
+            case SE -> {
+                int condicao = origem.primeiroFilho(no);
+                int entao = origem.proximoIrmao(condicao);
+                int senao = origem.proximoIrmao(entao);
+                int inicio = destino.tamanho();
+                int novaCondicao = expressao(condicao);
+                if (constante(novaCondicao)) {
+                    boolean verdadeira = destino.valor(novaCondicao) != 0;
+                    destino.descartarDesde(inicio);
+                    // O bloco que sobra entra no lugar do se; do outro só ficam as declarações
+                    if (verdadeira) {
+                        ultimo = lista(entao, novoPai, ultimo);
+                        return senao >= 0 ? declaracoes(senao, novoPai, ultimo) : ultimo;
+                    }
+                    ultimo = declaracoes(entao, novoPai, ultimo);
+                    return senao >= 0 ? lista(senao, novoPai, ultimo) : ultimo;
+                }
+                int se = copia(no);
+                int ultimoDoSe = destino.anexar(se, -1, novaCondicao);
+                ultimoDoSe = destino.anexar(se, ultimoDoSe, bloco(entao));
+                if (senao >= 0) {
+                    destino.anexar(se, ultimoDoSe, bloco(senao));
+                }
+                return destino.anexar(novoPai, ultimo, se);
+            }
+            case ENQUANTO -> {
+                int condicao = origem.primeiroFilho(no);
+                int corpo = origem.proximoIrmao(condicao);
+                int inicio = destino.tamanho();
+                int novaCondicao = expressao(condicao);
+                if (constante(novaCondicao) && destino.valor(novaCondicao) == 0) {
+                    destino.descartarDesde(inicio);
+                    return declaracoes(corpo, novoPai, ultimo);
+                }
+                int enquanto = copia(no);
+                destino.anexar(enquanto, destino.anexar(enquanto, -1, novaCondicao), bloco(corpo));
+                return destino.anexar(novoPai, ultimo, enquanto);
+            }
+            case ATRIBUICAO, ESCREVA, RETORNE -> {
+                int comando = copia(no);
+                int filho = origem.primeiroFilho(no);
+                if (filho >= 0) {
+                    destino.anexar(comando, -1, expressao(filho));
+                }
+                terminou = origem.tipo(no) == TipoNo.RETORNE;
+                return destino.anexar(novoPai, ultimo, comando);
+            }
+            case PARE, CONTINUE -> {
+                terminou = true;
+                return destino.anexar(novoPai, ultimo, copia(no));
+            }
+            default -> {
+                // CHAMADA, LEIA
+                return destino.anexar(novoPai, ultimo, expressao(no));
+            }
+        }
+    }
+
+    // Um BLOCO de se/enquanto/rotina; o que vem depois dele continua alcançável
+    private int bloco(int no) {
+        int bloco = copia(no);
+        lista(no, bloco, -1);
+        terminou = false;
+        return bloco;
+    }
+
+    // Código inalcançável: só as declarações de variáveis, na ordem em que aparecem
+    private int declaracoes(int no, int novoPai, int ultimo) {
+        switch (origem.tipo(no)) {
+            case DECL_VAR -> {
+                return destino.anexar(novoPai, ultimo, subarvore(no));
+            }
+            case BLOCO, SE, ENQUANTO -> {
+                for (int filho = origem.primeiroFilho(no); filho >= 0; filho = origem.proximoIrmao(filho)) {
+                    ultimo = declaracoes(filho, novoPai, ultimo);
+                }
+                return ultimo;
+            }
+            default -> {
+                return ultimo;
+            }
+        }
+    }
+
+    private int expressao(int no) {
+        switch (origem.tipo(no)) {
+            case UNARIA -> {
+                int inicio = destino.tamanho();
+                int operando = expressao(origem.primeiroFilho(no));
+                if (constante(operando)) {
+                    int valor = destino.valor(operando);
+                    destino.descartarDesde(inicio);
+                    return origem.operador(no) == TipoToken.MENOS ? numero(no, -valor) : logico(no, valor == 0);
+                }
+                int unaria = copia(no);
+                destino.anexar(unaria, -1, operando);
+                return unaria;
+            }
+            case BINARIA -> {
+                return binaria(no);
+            }
+            case CHAMADA -> {
+                int chamada = copia(no);
+                int ultimo = -1;
+                for (int argumento = origem.primeiroFilho(no); argumento >= 0; argumento = origem.proximoIrmao(argumento)) {
+                    ultimo = destino.anexar(chamada, ultimo, expressao(argumento));
+                }
+                return chamada;
+            }
+            default -> {
+                // NOME, NUMERO, LOGICO, LEIA
+                return copia(no);
+            }
+        }
+    }
+
+    private int binaria(int no) {
+        TipoToken operador = origem.operador(no);
+        int esquerda = origem.primeiroFilho(no);
+        int direita = origem.proximoIrmao(esquerda);
+        int inicio = destino.tamanho();
+        int novaEsquerda = expressao(esquerda);
+
+        if (operador == TipoToken.E_LOGICO || operador == TipoToken.OU_LOGICO) {
+            boolean ou = operador == TipoToken.OU_LOGICO;
+            if (constante(novaEsquerda)) {
+                boolean valor = destino.valor(novaEsquerda) != 0;
+                destino.descartarDesde(inicio);
+                if (valor == ou) {
+                    return logico(no, ou); // curto-circuito: a direita nunca é avaliada
+                }
+                int novaDireita = expressao(direita);
+                if (constante(novaDireita)) {
+                    boolean resultado = destino.valor(novaDireita) != 0;
+                    destino.descartarDesde(inicio);
+                    return logico(no, resultado);
+                }
+                if (sempreLogica(novaDireita)) {
+                    return novaDireita;
+                }
+                // x pode valer mais que 1, então a constante da esquerda (já descartada) volta
+                return juntar(no, logico(no, valor), novaDireita);
+            }
+            int novaDireita = expressao(direita);
+            // x && falso e x || verdadeiro só podem ser trocados pela constante se x não tem efeito
+            if (constante(novaDireita) && (destino.valor(novaDireita) != 0) == ou && semEfeito(novaEsquerda)) {
+                destino.descartarDesde(inicio);
+                return logico(no, ou);
+            }
+            return juntar(no, novaEsquerda, novaDireita);
+        }
+
+        int novaDireita = expressao(direita);
+        if (constante(novaEsquerda) && constante(novaDireita)) {
+            int a = destino.valor(novaEsquerda);
+            int b = destino.valor(novaDireita);
+            if (operador != TipoToken.DIVISAO || b != 0) {
+                destino.descartarDesde(inicio);
+                return switch (operador) {
+                    case MAIS -> numero(no, a + b);
+                    case MENOS -> numero(no, a - b);
+                    case VEZES -> numero(no, a * b);
+                    case DIVISAO -> numero(no, a / b);
+                    case IGUAL -> logico(no, a == b);
+                    case DIFERENTE -> logico(no, a != b);
+                    case MENOR -> logico(no, a < b);
+                    case MENOR_IGUAL -> logico(no, a <= b);
+                    case MAIOR -> logico(no, a > b);
+                    default -> logico(no, a >= b);
+                };
+            }
+        }
+        return juntar(no, novaEsquerda, novaDireita);
+    }
+
+    private int juntar(int no, int esquerda, int direita) {
+        int binaria = copia(no);
+        destino.anexar(binaria, destino.anexar(binaria, -1, esquerda), direita);
+        return binaria;
+    }
+
+    private boolean constante(int no) {
+        TipoNo tipo = destino.tipo(no);
+        return tipo == TipoNo.NUMERO || tipo == TipoNo.LOGICO;
+    }
+
+    // Expressões que sempre valem 0 ou 1, como o resultado de && e ||
+    private boolean sempreLogica(int no) {
+        return switch (destino.tipo(no)) {
+            case LOGICO -> true;
+            case UNARIA -> destino.operador(no) == TipoToken.NAO_LOGICO;
+            case BINARIA -> switch (destino.operador(no)) {
+                case MAIS, MENOS, VEZES, DIVISAO -> false;
+                default -> true;
+            };
+            default -> false;
+        };
+    }
+
+    // Sem chamadas (que podem escrever ou ler) e sem divisões (que podem falhar)
+    private boolean semEfeito(int no) {
+        TipoNo tipo = destino.tipo(no);
+        if (tipo == TipoNo.CHAMADA || (tipo == TipoNo.BINARIA && destino.operador(no) == TipoToken.DIVISAO)) {
+            return false;
+        }
+        for (int filho = destino.primeiroFilho(no); filho >= 0; filho = destino.proximoIrmao(filho)) {
+            if (!semEfeito(filho)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int numero(int no, int valor) {
+        return destino.novo(TipoNo.NUMERO, null, valor, origem.token(no), origem.linha(no));
+    }
+
+    private int logico(int no, boolean valor) {
+        return destino.novo(TipoNo.LOGICO, null, valor ? 1 : 0, origem.token(no), origem.linha(no));
+    }
+
+    // Nó igual ao da origem, ainda sem filhos
+    private int copia(int no) {
+        return destino.novo(origem.tipo(no), origem.operador(no), origem.valor(no), origem.token(no), origem.linha(no));
+    }
+
+    // Cópia do nó com todos os descendentes, sem mudanças
+    private int subarvore(int no) {
+        int copia = copia(no);
+        int ultimo = -1;
+        for (int filho = origem.primeiroFilho(no); filho >= 0; filho = origem.proximoIrmao(filho)) {
+            ultimo = destino.anexar(copia, ultimo, subarvore(filho));
+        }
+        return copia;
+    }
+}
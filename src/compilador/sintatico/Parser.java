@@ -1,148 +1,452 @@
 package compilador.sintatico;
 
 import compilador.lexico.AnalisadorLexico;
+import compilador.lexico.CursorDeTokens;
+import compilador.lexico.CursorLexico;
+import compilador.lexico.FluxoDeTokens;
 import compilador.lexico.TipoToken;
-import compilador.lexico.Token;
+import compilador.lexico.TokenBuffer;
 import compilador.sintatico.exceptions.SyntaxError;
 import compilador.tabela.Simbolo;
 import compilador.tabela.TabelaDeSimbolos;
+import java.util.Arrays;
+import java.util.List;
 
 public class Parser {
-    private final AnalisadorLexico lexer;
-    private Token lookahead;
+    private final FluxoDeTokens tokens;
+    private TipoToken lookahead;
     private final TabelaDeSimbolos tabela;
     private boolean inFunction = false;
     private int inLoop = 0;
 
+    // Só não é nulo durante parseProgramaComRecuperacao(): aí os erros são anotados aqui e a
+    // análise continua depois de sincronizar, em vez de parar no primeiro
+    private Diagnosticos diagnosticos;
+    private int consumidos = 0; // tokens já consumidos, para a recuperação sempre andar
+    // Sem stack trace e sem exceções suprimidas, então é imutável e pode ser lançado por
+    // parsers em threads diferentes
+    private static final SyntaxError RECUPERANDO = new SyntaxError("recuperando");
+
+    // Não nulo quando a AST está sendo construída (ver comArvore); os métodos parseXxx
+    // devolvem o nó que criaram, ou -1 sem árvore
+    private Arvore arvore;
+
+    // Declarações do escopo do programa na última análise (variáveis globais e rotinas)
+    private List<Simbolo> simbolosGlobais = List.of();
+
+    // Precedência de cada TipoToken como operador binário (0 se não é); '!' e '-' unários
+    // ficam acima de todos
+    private static final int[] PRECEDENCIA = new int[TipoToken.values().length];
+    private static final int PRECEDENCIA_UNARIA = 6;
+
+    static {
+        PRECEDENCIA[TipoToken.OU_LOGICO.ordinal()] = 1;
+        PRECEDENCIA[TipoToken.E_LOGICO.ordinal()] = 2;
+        for (TipoToken relacional : new TipoToken[] { TipoToken.IGUAL, TipoToken.DIFERENTE, TipoToken.MENOR,
+                TipoToken.MENOR_IGUAL, TipoToken.MAIOR, TipoToken.MAIOR_IGUAL }) {
+            PRECEDENCIA[relacional.ordinal()] = 3;
+        }
+        PRECEDENCIA[TipoToken.MAIS.ordinal()] = 4;
+        PRECEDENCIA[TipoToken.MENOS.ordinal()] = 4;
+        PRECEDENCIA[TipoToken.VEZES.ordinal()] = 5;
+        PRECEDENCIA[TipoToken.DIVISAO.ordinal()] = 5;
+    }
+
+    // Pilha de parseExpr(): o tipo de cada quadro, o nó dele, a precedência (0 para parênteses
+    // e chamadas, que só saem com o ')') e o último filho já anexado
+    private static final int BINARIO = 0;
+    private static final int UNARIO = 1;
+    private static final int PARENTESES = 2;
+    private static final int CHAMADA = 3;
+    private static final int CHAMADA_ABERTA = -2; // devolvido por parseOperando(); nós são >= -1
+    private int[] quadros = new int[32];
+    private int[] nosPendentes = new int[32];
+    private int[] precedencias = new int[32];
+    private int[] ultimos = new int[32];
+    private int topo = 0;
+
     public Parser(AnalisadorLexico lexer) {
-        this.lexer = lexer;
-        this.lookahead = lexer.proximoToken();
-        this.tabela = new TabelaDeSimbolos();
+        this(new CursorLexico(lexer));
+    }
+
+    // Consome tokens já armazenados em colunas, sem um objeto por token
+    public Parser(TokenBuffer buffer) {
+        this(new CursorDeTokens(buffer));
+    }
+
+    public Parser(FluxoDeTokens tokens) {
+        this.tokens = tokens;
+        this.lookahead = tokens.tipo();
+        this.tabela = new TabelaDeSimbolos(tokens.nomes());
+    }
+
+    // Passa a construir a AST das próximas análises em 'arvore', reaproveitando seus arrays
+    public Parser comArvore(Arvore arvore) {
+        this.arvore = arvore;
+        return this;
+    }
+
+    // Cria um nó da AST no token atual
+    private int no(TipoNo tipo, TipoToken operador, int valor) {
+        if (arvore == null) {
+            return -1;
+        }
+        return arvore.novo(tipo, operador, valor, tokens.indice(), tokens.linha());
+    }
+
+    private int anexar(int pai, int ultimo, int filho) {
+        return arvore == null ? -1 : arvore.anexar(pai, ultimo, filho);
     }
 
     private void match(TipoToken esperado) throws SyntaxError {
-        if (lookahead.tipo == esperado) {
-            lookahead = lexer.proximoToken();
+        if (lookahead == esperado) {
+            avancar();
         } else {
-            error("Esperado " + esperado + " mas veio " + lookahead.tipo);
+            error("Esperado " + esperado + " mas veio " + lookahead);
         }
     }
 
+    private void avancar() {
+        tokens.avancar();
+        lookahead = tokens.tipo();
+        consumidos++;
+    }
+
     private void error(String msg) throws SyntaxError {
-        throw new SyntaxError("Erro sintático na linha " + lookahead.linha + ": " + msg);
+        if (diagnosticos != null) {
+            diagnosticos.sintatico(tokens.linha(), msg);
+            throw RECUPERANDO; // sem stack trace e sem alocar: o erro já foi anotado
+        }
+        throw new SyntaxError(tokens.linha(), msg);
     }
 
     public void parsePrograma() throws SyntaxError {
+        EventoSintatico evento = new EventoSintatico();
+        evento.begin();
+        boolean erro = true;
+        try {
+            analisarPrograma(null);
+            erro = false;
+        } finally {
+            registrar(evento, erro ? 1 : 0);
+        }
+    }
 
-        match(TipoToken.PROGRAMA);
-        match(TipoToken.IDENTIFICADOR);
-        match(TipoToken.PONTO_E_VIRGULA);
+    // Como parsePrograma(), mas entrega cada unidade de nível superior ao consumidor assim que
+    // ela termina e reaproveita a arena da árvore para a próxima: a memória fica limitada pela
+    // maior unidade, e não pelo tamanho do programa. Da tabela de símbolos só as declarações
+    // globais ficam (as das rotinas saem com o escopo delas). Usa a árvore de comArvore(), ou
+    // uma só para esta análise.
+    public void parseProgramaEmFluxo(ConsumidorDeUnidades consumidor) throws SyntaxError {
+        Arvore anterior = arvore;
+        if (arvore == null) {
+            arvore = new Arvore(256);
+        }
+        EventoSintatico evento = new EventoSintatico();
+        evento.begin();
+        boolean erro = true;
+        try {
+            analisarPrograma(consumidor);
+            erro = false;
+        } finally {
+            registrar(evento, erro ? 1 : 0);
+            arvore = anterior;
+        }
+    }
+
+    private void analisarPrograma(ConsumidorDeUnidades consumidor) throws SyntaxError {
+        if (arvore != null) {
+            arvore.limpar(tokens.nomes());
+        }
+
+        int programa = parseCabecalho();
+        if (consumidor != null) {
+            arvore.definirRaiz(programa);
+        }
 
         tabela.entrarEscopo();
 
-        while (lookahead.tipo != TipoToken.EOF) {
-            if (lookahead.tipo == TipoToken.INT || lookahead.tipo == TipoToken.BOOL) {
-                parseDeclVar();
-            } else if (lookahead.tipo == TipoToken.PROCEDIMENTO
-                    || lookahead.tipo == TipoToken.FUNCAO) {
-                parseDecl();
-            } else if (isStartCmd(lookahead.tipo)) {
-                parseCmd(); // qualquer comando que existe (atribuição, if...
+        int ultimo = -1;
+        while (lookahead != TipoToken.EOF) {
+            int unidade = parseUnidade();
+            if (consumidor == null) {
+                ultimo = anexar(programa, ultimo, unidade);
             } else {
-                error("Esperado declVar, declRotina ou comando mas veio " + lookahead.tipo);
+                consumidor.unidade(arvore, unidade);
+                arvore.descartarDesde(programa + 1); // fica só o nó PROGRAMA
             }
         }
 
+        simbolosGlobais = simbolosDoPrograma();
         tabela.sairEscopo();
 
         match(TipoToken.EOF);
+        if (arvore != null) {
+            arvore.definirRaiz(programa);
+        }
+    }
+
+    // Analisa o programa inteiro sem parar no primeiro erro: cada erro sintático ou semântico
+    // é anotado e a análise recomeça no próximo ';', '}' ou início de comando/declaração
+    public Diagnosticos parseProgramaComRecuperacao() {
+        EventoSintatico evento = new EventoSintatico();
+        evento.begin();
+        Diagnosticos resultado = analisarComRecuperacao();
+        registrar(evento, resultado.tamanho());
+        return resultado;
+    }
+
+    private void registrar(EventoSintatico evento, int erros) {
+        if (evento.shouldCommit()) {
+            evento.tokens = tokens.indice();
+            evento.nos = arvore == null ? 0 : arvore.tamanho();
+            evento.erros = erros;
+            evento.profundidade = tabela.profundidadeMaxima();
+            evento.commit();
+        }
+    }
+
+    // Maior quantidade de escopos abertos ao mesmo tempo na tabela de símbolos até agora
+    public int profundidadeMaximaDeEscopos() {
+        return tabela.profundidadeMaxima();
+    }
+
+    private Diagnosticos analisarComRecuperacao() {
+        diagnosticos = new Diagnosticos();
+        if (arvore != null) {
+            arvore.limpar(tokens.nomes());
+        }
+        int programa = -1;
+        try {
+            programa = parseCabecalho();
+        } catch (SyntaxError e) {
+            sincronizar();
+        }
+        if (programa < 0) {
+            programa = no(TipoNo.PROGRAMA, null, -1); // cabeçalho com erro: programa sem nome
+        }
+
+        tabela.entrarEscopo();
+
+        int ultimo = -1;
+        while (lookahead != TipoToken.EOF) {
+            int nivel = tabela.nivel();
+            int antes = consumidos;
+            try {
+                ultimo = anexar(programa, ultimo, parseUnidade());
+            } catch (SyntaxError e) {
+                recuperar(nivel, false, 0, antes);
+                if (lookahead == TipoToken.FECHA_CHAVES) {
+                    avancar(); // '}' sobrando no nível do programa (o erro já foi anotado)
+                }
+            }
+        }
+
+        simbolosGlobais = simbolosDoPrograma();
+        tabela.sairEscopo();
+        if (arvore != null) {
+            arvore.definirRaiz(programa);
+        }
+
+        Diagnosticos resultado = diagnosticos;
+        diagnosticos = null;
+        return resultado;
+    }
+
+    // Volta ao estado de antes do comando que falhou e pula até um ponto seguro
+    private void recuperar(int nivel, boolean emFuncao, int lacos, int consumidosAntes) {
+        while (tabela.nivel() > nivel) {
+            tabela.sairEscopo();
+        }
+        inFunction = emFuncao;
+        inLoop = lacos;
+        if (consumidos == consumidosAntes && lookahead != TipoToken.EOF) {
+            avancar(); // o erro foi no primeiro token: descarta-o para não repetir o mesmo erro
+        }
+        sincronizar();
+    }
+
+    // Modo pânico: descarta tokens até depois de um ';', ou até um '}' ou um token que comece
+    // comando ou declaração. Blocos { } inteiros no caminho são descartados juntos.
+    private void sincronizar() {
+        int profundidade = 0;
+        while (lookahead != TipoToken.EOF) {
+            if (lookahead == TipoToken.ABRE_CHAVES) {
+                profundidade++;
+            } else if (lookahead == TipoToken.FECHA_CHAVES) {
+                if (profundidade == 0) {
+                    return;
+                }
+                profundidade--;
+            } else if (profundidade == 0) {
+                if (lookahead == TipoToken.PONTO_E_VIRGULA) {
+                    avancar();
+                    return;
+                }
+                if (isStartCmd(lookahead) || lookahead == TipoToken.INT || lookahead == TipoToken.BOOL
+                        || lookahead == TipoToken.FUNCAO || lookahead == TipoToken.PROCEDIMENTO) {
+                    return;
+                }
+            }
+            avancar();
+        }
     }
 
-    private void parseDecl() throws SyntaxError {
-        if (lookahead.tipo == TipoToken.PROCEDIMENTO) {
-            parseDeclProcedimento();
-        } else if (lookahead.tipo == TipoToken.FUNCAO) {
-            parseDeclFuncao();
+    // programa <identificador>;
+    int parseCabecalho() throws SyntaxError {
+        match(TipoToken.PROGRAMA);
+        int programa = no(TipoNo.PROGRAMA, null, tokens.id());
+        match(TipoToken.IDENTIFICADOR);
+        match(TipoToken.PONTO_E_VIRGULA);
+        return programa;
+    }
+
+    // Uma unidade de nível superior: declaração de variáveis, de rotina ou um comando
+    int parseUnidade() throws SyntaxError {
+        if (lookahead == TipoToken.INT || lookahead == TipoToken.BOOL) {
+            return parseDeclVar();
+        } else if (lookahead == TipoToken.PROCEDIMENTO
+                || lookahead == TipoToken.FUNCAO) {
+            return parseDecl();
+        } else if (isStartCmd(lookahead)) {
+            return parseCmd(); // qualquer comando que existe (atribuição, if...
         } else {
-            error("Esperado declaração mas veio " + lookahead.tipo);
+            error("Esperado declVar, declRotina ou comando mas veio " + lookahead);
+            return -1;
         }
     }
 
-    private void parseDeclVar() throws SyntaxError {
-        TipoToken tipo = lookahead.tipo;
-        match(tipo);
-        String nome = lookahead.lexema;
+    // Usado para analisar unidades isoladas: abre o escopo do programa, como parsePrograma()
+    void entrarEscopoDoPrograma() {
+        tabela.entrarEscopo();
+    }
+
+    // Variáveis globais e rotinas declaradas no programa da última análise completa, na ordem
+    // de declaração (o escopo do programa já foi fechado quando a análise termina)
+    public List<Simbolo> simbolosGlobais() {
+        return simbolosGlobais;
+    }
+
+    // Declarações feitas no escopo aberto por parsePrograma()/entrarEscopoDoPrograma()
+    List<Simbolo> simbolosDoPrograma() {
+        return tabela.simbolosDoEscopo(1);
+    }
+
+    TipoToken lookahead() {
+        return lookahead;
+    }
+
+    // Consome o identificador de uma declaração e o declara no escopo atual; na AST vira um
+    // nó 'tipoNo' com o tipo declarado como operador
+    private int declararIdentificador(TipoToken tipo, TipoNo tipoNo) throws SyntaxError {
+        Simbolo simbolo = new Simbolo(tokens.id(), tokens.lexema(), tipo);
+        int linha = tokens.linha();
+        int no = no(tipoNo, tipo, simbolo.id());
         match(TipoToken.IDENTIFICADOR);
-        tabela.adicionar(new Simbolo(nome, tipo));
-        while (lookahead.tipo == TipoToken.VIRGULA) {
+        if (diagnosticos == null) {
+            tabela.adicionar(simbolo);
+        } else if (!tabela.declarar(simbolo)) {
+            diagnosticos.semantico(linha, "Identificador '" + simbolo.nome() + "' já foi declarado.");
+        }
+        return no;
+    }
+
+    private int parseDecl() throws SyntaxError {
+        if (lookahead == TipoToken.PROCEDIMENTO) {
+            return parseDeclProcedimento();
+        } else if (lookahead == TipoToken.FUNCAO) {
+            return parseDeclFuncao();
+        } else {
+            error("Esperado declaração mas veio " + lookahead);
+            return -1;
+        }
+    }
+
+    private int parseDeclVar() throws SyntaxError {
+        TipoToken tipo = lookahead;
+        int decl = no(TipoNo.DECL_VAR, tipo, 0);
+        match(tipo);
+        int ultimo = anexar(decl, -1, declararIdentificador(tipo, TipoNo.VARIAVEL));
+        while (lookahead == TipoToken.VIRGULA) {
             match(TipoToken.VIRGULA);
-            nome = lookahead.lexema;
-            match(TipoToken.IDENTIFICADOR);
-            tabela.adicionar(new Simbolo(nome, tipo));
+            ultimo = anexar(decl, ultimo, declararIdentificador(tipo, TipoNo.VARIAVEL));
         }
         match(TipoToken.PONTO_E_VIRGULA);
+        return decl;
     }
 
-    private void parseDeclProcedimento() throws SyntaxError {
+    private int parseDeclProcedimento() throws SyntaxError {
         match(TipoToken.PROCEDIMENTO);
-        String nome = lookahead.lexema;
-        match(TipoToken.IDENTIFICADOR);
-        tabela.adicionar(new Simbolo(nome, TipoToken.PROCEDIMENTO));
+        int decl = declararIdentificador(TipoToken.PROCEDIMENTO, TipoNo.DECL_PROCEDIMENTO);
         match(TipoToken.ABRE_PARENTESES);
         tabela.entrarEscopo(); // escopo de parâmetros e corpo
-        if (lookahead.tipo == TipoToken.INT || lookahead.tipo == TipoToken.BOOL) {
-            parseParametros();
+        int ultimo = -1;
+        if (lookahead == TipoToken.INT || lookahead == TipoToken.BOOL) {
+            ultimo = parseParametros(decl);
         }
         match(TipoToken.FECHA_PARENTESES);
-        parseCorpo();
+        anexar(decl, ultimo, parseCorpo());
         tabela.sairEscopo();
+        return decl;
     }
 
-    private void parseDeclFuncao() throws SyntaxError {
+    private int parseDeclFuncao() throws SyntaxError {
         match(TipoToken.FUNCAO);
-        TipoToken tipoRetorno = lookahead.tipo;
+        TipoToken tipoRetorno = lookahead;
         match(tipoRetorno);
-        String nome = lookahead.lexema;
-        match(TipoToken.IDENTIFICADOR);
-        tabela.adicionar(new Simbolo(nome, tipoRetorno));
+        int decl = declararIdentificador(tipoRetorno, TipoNo.DECL_FUNCAO);
         match(TipoToken.ABRE_PARENTESES);
         tabela.entrarEscopo(); // escopo de parâmetros e corpo
-        if (lookahead.tipo == TipoToken.INT || lookahead.tipo == TipoToken.BOOL) {
-            parseParametros();
+        int ultimo = -1;
+        if (lookahead == TipoToken.INT || lookahead == TipoToken.BOOL) {
+            ultimo = parseParametros(decl);
         }
         match(TipoToken.FECHA_PARENTESES);
         inFunction = true;
-        parseCorpo();
+        anexar(decl, ultimo, parseCorpo());
         inFunction = false;
         tabela.sairEscopo();
+        return decl;
     }
 
-    private void parseParametros() throws SyntaxError {
-        TipoToken tipo = lookahead.tipo;
+    // Anexa os parâmetros à declaração e devolve o último
+    private int parseParametros(int decl) throws SyntaxError {
+        TipoToken tipo = lookahead;
         match(tipo);
-        String nome = lookahead.lexema;
-        match(TipoToken.IDENTIFICADOR);
-        tabela.adicionar(new Simbolo(nome, tipo));
-        while (lookahead.tipo == TipoToken.VIRGULA) {
+        int ultimo = anexar(decl, -1, declararIdentificador(tipo, TipoNo.PARAMETRO));
+        while (lookahead == TipoToken.VIRGULA) {
             match(TipoToken.VIRGULA);
-            tipo = lookahead.tipo;
+            tipo = lookahead;
             match(tipo);
-            nome = lookahead.lexema;
-            match(TipoToken.IDENTIFICADOR);
-            tabela.adicionar(new Simbolo(nome, tipo));
+            ultimo = anexar(decl, ultimo, declararIdentificador(tipo, TipoNo.PARAMETRO));
         }
+        return ultimo;
     }
 
-    private void parseCorpo() throws SyntaxError {
+    private int parseCorpo() throws SyntaxError {
+        int bloco = no(TipoNo.BLOCO, null, 0);
         match(TipoToken.ABRE_CHAVES);
-        while (lookahead.tipo == TipoToken.INT || lookahead.tipo == TipoToken.BOOL || isStartCmd(lookahead.tipo)) {
-            if (lookahead.tipo == TipoToken.INT || lookahead.tipo == TipoToken.BOOL) {
-                parseDeclVar();
-            } else {
-                parseCmd();
+        int ultimo = -1;
+        while (lookahead == TipoToken.INT || lookahead == TipoToken.BOOL || isStartCmd(lookahead)) {
+            int nivel = tabela.nivel();
+            boolean emFuncao = inFunction;
+            int lacos = inLoop;
+            int antes = consumidos;
+            try {
+                if (lookahead == TipoToken.INT || lookahead == TipoToken.BOOL) {
+                    ultimo = anexar(bloco, ultimo, parseDeclVar());
+                } else {
+                    ultimo = anexar(bloco, ultimo, parseCmd());
+                }
+            } catch (SyntaxError e) {
+                if (diagnosticos == null) {
+                    throw e;
+                }
+                recuperar(nivel, emFuncao, lacos, antes);
             }
         }
         match(TipoToken.FECHA_CHAVES);
+        return bloco;
     }
 
     /**
@@ -166,93 +470,118 @@ public class Parser {
      * <comando de parada> ::= pare;
      * <comando de continuação> ::= continue;
      */
-    private void parseCmd() throws SyntaxError {
-        switch (lookahead.tipo) {
+    private int parseCmd() throws SyntaxError {
+        switch (lookahead) {
             case SE -> {
+                int se = no(TipoNo.SE, null, 0);
                 match(TipoToken.SE);
                 match(TipoToken.ABRE_PARENTESES);
-                parseExpr();
+                int ultimo = anexar(se, -1, parseExpr());
                 match(TipoToken.FECHA_PARENTESES);
                 match(TipoToken.ENTAO);
-                parseCorpo();
-                if (lookahead.tipo == TipoToken.SENAO) {
+                ultimo = anexar(se, ultimo, parseCorpo());
+                if (lookahead == TipoToken.SENAO) {
                     match(TipoToken.SENAO);
-                    parseCorpo();
+                    anexar(se, ultimo, parseCorpo());
                 }
+                return se;
             }
             case ENQUANTO -> {
                 inLoop++;
+                int enquanto = no(TipoNo.ENQUANTO, null, 0);
                 match(TipoToken.ENQUANTO);
                 match(TipoToken.ABRE_PARENTESES);
-                parseExpr();
+                int ultimo = anexar(enquanto, -1, parseExpr());
                 match(TipoToken.FECHA_PARENTESES);
-                parseCorpo();
+                anexar(enquanto, ultimo, parseCorpo());
                 inLoop--;
+                return enquanto;
             }
             case LEIA -> {
                 match(TipoToken.LEIA);
                 match(TipoToken.ABRE_PARENTESES);
+                int leia = no(TipoNo.LEIA, null, tokens.id());
                 match(TipoToken.IDENTIFICADOR);
                 match(TipoToken.FECHA_PARENTESES);
                 match(TipoToken.PONTO_E_VIRGULA);
+                return leia;
             }
             case ESCREVA -> {
+                int escreva = no(TipoNo.ESCREVA, null, 0);
                 match(TipoToken.ESCREVA);
                 match(TipoToken.ABRE_PARENTESES);
-                parseExpr();
+                anexar(escreva, -1, parseExpr());
                 match(TipoToken.FECHA_PARENTESES);
                 match(TipoToken.PONTO_E_VIRGULA);
+                return escreva;
             }
             case PARE -> {
                 if (inLoop == 0) {
                     error("'pare' só pode aparecer dentro de um laço");
                 }
+                int pare = no(TipoNo.PARE, null, 0);
                 match(TipoToken.PARE);
                 match(TipoToken.PONTO_E_VIRGULA);
+                return pare;
             }
             case CONTINUE -> {
                 if (inLoop == 0) {
                     error("'continue' só pode aparecer dentro de um laço");
                 }
+                int continua = no(TipoNo.CONTINUE, null, 0);
                 match(TipoToken.CONTINUE);
                 match(TipoToken.PONTO_E_VIRGULA);
+                return continua;
             }
             case RETORNE -> {
                 if (!inFunction) {
                     error("'retorne' só pode aparecer dentro de função");
                 }
+                int retorne = no(TipoNo.RETORNE, null, 0);
                 match(TipoToken.RETORNE);
-                parseExpr();
+                anexar(retorne, -1, parseExpr());
                 match(TipoToken.PONTO_E_VIRGULA);
+                return retorne;
             }
             case IDENTIFICADOR -> {
-                String id = lookahead.lexema;
+                // Só depois do identificador se sabe se é atribuição ou chamada
+                int token = arvore == null ? -1 : tokens.indice();
+                int linha = tokens.linha();
+                int id = tokens.id();
                 match(TipoToken.IDENTIFICADOR);
-                if (lookahead.tipo == TipoToken.ATRIBUICAO) {
+                if (lookahead == TipoToken.ATRIBUICAO) {
+                    int atribuicao = arvore == null ? -1 : arvore.novo(TipoNo.ATRIBUICAO, null, id, token, linha);
                     match(TipoToken.ATRIBUICAO);
-                    parseExpr();
+                    anexar(atribuicao, -1, parseExpr());
                     match(TipoToken.PONTO_E_VIRGULA);
+                    return atribuicao;
                 } else {
+                    int chamada = arvore == null ? -1 : arvore.novo(TipoNo.CHAMADA, null, id, token, linha);
                     match(TipoToken.ABRE_PARENTESES);
-                    if (lookahead.tipo != TipoToken.FECHA_PARENTESES) {
-                        parseListaExpressao();
+                    if (lookahead != TipoToken.FECHA_PARENTESES) {
+                        parseListaExpressao(chamada);
                     }
                     match(TipoToken.FECHA_PARENTESES);
                     match(TipoToken.PONTO_E_VIRGULA);
+                    return chamada;
                 }
             }
-            default -> error("Esperado comando mas veio " + lookahead.tipo);
+            default -> {
+                error("Esperado comando mas veio " + lookahead);
+                return -1;
+            }
         }
     }
 
     /**
      * <listaExpressao> ::= <expr> { ',' <expr> }
+     * Os argumentos viram filhos de 'chamada'
      */
-    private void parseListaExpressao() throws SyntaxError {
-        parseExpr();
-        while (lookahead.tipo == TipoToken.VIRGULA) {
+    private void parseListaExpressao(int chamada) throws SyntaxError {
+        int ultimo = anexar(chamada, -1, parseExpr());
+        while (lookahead == TipoToken.VIRGULA) {
             match(TipoToken.VIRGULA);
-            parseExpr();
+            ultimo = anexar(chamada, ultimo, parseExpr());
         }
     }
 
@@ -263,97 +592,156 @@ public class Parser {
         };
     }
 
-    private void parseExpr() throws SyntaxError {
-        parseExprOr();
-    }
-
-    private void parseExprOr() throws SyntaxError {
-        parseExprAnd();
-        while (lookahead.tipo == TipoToken.OU_LOGICO) {
-            match(TipoToken.OU_LOGICO);
-            parseExprAnd();
-        }
-    }
-
-    private void parseExprAnd() throws SyntaxError {
-        parseExprRelacional();
-        while (lookahead.tipo == TipoToken.E_LOGICO) {
-            match(TipoToken.E_LOGICO);
-            parseExprRelacional();
-        }
-    }
-
-    private void parseExprRelacional() throws SyntaxError {
-        parseExprAdd();
-        while (lookahead.tipo == TipoToken.IGUAL
-                || lookahead.tipo == TipoToken.DIFERENTE
-                || lookahead.tipo == TipoToken.MENOR
-                || lookahead.tipo == TipoToken.MENOR_IGUAL
-                || lookahead.tipo == TipoToken.MAIOR
-                || lookahead.tipo == TipoToken.MAIOR_IGUAL) {
-            TipoToken op = lookahead.tipo;
-            match(op);
-            parseExprAdd();
-        }
+    // Nó BINARIA no token do operador, com 'esquerda' já como primeiro filho
+    private int binaria(TipoToken op, int esquerda) {
+        int binaria = no(TipoNo.BINARIA, op, 0);
+        anexar(binaria, -1, esquerda);
+        return binaria;
     }
 
     /**
+     * <expr> ::= <exprAnd> { '||' <exprAnd> }
+     * <exprAnd> ::= <exprRel> { '&&' <exprRel> }
+     * <exprRel> ::= <exprAdd> { ('==' | '!=' | '<' | '<=' | '>' | '>=') <exprAdd> }
      * <exprAdd> ::= <exprMul> { ('+' | '-') <exprMul> }
+     * <exprMul> ::= <exprUnaria> { ('*' | '/') <exprUnaria> }
+     * <exprUnaria> ::= ('!' | '-') <exprUnaria> | <primario>
+     * <primario> ::= <identificador> [ '(' [<listaExpressao>] ')' ] | <numero> | verdadeiro
+     * | falso | '(' <expr> ')'
+     *
+     * Precedência por tabela (PRECEDENCIA), com todos os binários associativos à esquerda, e
+     * uma pilha explícita no lugar da recursão: os operadores que ainda esperam o operando da
+     * direita, os parênteses e as chamadas abertas. Assim a profundidade dos parênteses, das
+     * chamadas e das cadeias de '!' e '-' não gasta pilha da JVM. Os nós são criados na mesma
+     * ordem da descida recursiva (o operador quando é consumido, já com o filho da esquerda).
      */
-    private void parseExprAdd() throws SyntaxError {
-        parseExprMul();
-        while (lookahead.tipo == TipoToken.MAIS || lookahead.tipo == TipoToken.MENOS) {
-            TipoToken op = lookahead.tipo;
-            match(op);
-            parseExprMul();
-        }
-    }
-
-    private void parseExprMul() throws SyntaxError {
-        parseExprUnary();
-        while (lookahead.tipo == TipoToken.VEZES || lookahead.tipo == TipoToken.DIVISAO) {
-            TipoToken op = lookahead.tipo;
-            match(op);
-            parseExprUnary();
+    private int parseExpr() throws SyntaxError {
+        int base = topo;
+        try {
+            while (true) {
+                int operando = parseOperando();
+                if (operando == CHAMADA_ABERTA) {
+                    continue; // o primeiro argumento é o próximo operando
+                }
+                // Operadores binários e fechamentos depois de um operando completo
+                while (true) {
+                    int precedencia = PRECEDENCIA[lookahead.ordinal()];
+                    while (topo > base && precedencias[topo - 1] >= Math.max(precedencia, 1)) {
+                        operando = reduzir(operando);
+                    }
+                    if (precedencia > 0) {
+                        TipoToken op = lookahead;
+                        int binaria = binaria(op, operando);
+                        match(op);
+                        empilhar(BINARIO, binaria, precedencia, operando);
+                        break;
+                    }
+                    if (topo == base) {
+                        return operando;
+                    }
+                    if (quadros[topo - 1] == PARENTESES) {
+                        match(TipoToken.FECHA_PARENTESES); // parênteses não viram nó
+                        topo--;
+                        continue;
+                    }
+                    // Argumento de uma chamada
+                    int chamada = nosPendentes[topo - 1];
+                    ultimos[topo - 1] = anexar(chamada, ultimos[topo - 1], operando);
+                    if (lookahead == TipoToken.VIRGULA) {
+                        match(TipoToken.VIRGULA);
+                        break;
+                    }
+                    match(TipoToken.FECHA_PARENTESES);
+                    topo--;
+                    operando = chamada;
+                }
+            }
+        } finally {
+            topo = base; // depois de um erro a pilha pode ter sobrado
         }
     }
 
-    private void parseExprUnary() throws SyntaxError {
-        if (lookahead.tipo == TipoToken.NAO_LOGICO) {
-            match(TipoToken.NAO_LOGICO);
-            parseExprUnary();
-        } else if (lookahead.tipo == TipoToken.MENOS) {
-            match(TipoToken.MENOS);
-            parseExprUnary();
-        } else {
-            parseExprPrimary();
+    // Empilha os prefixos ('!', '-' e '(') e devolve o operando que vem depois deles, ou
+    // CHAMADA_ABERTA se ele é uma chamada com argumentos (a chamada fica na pilha)
+    private int parseOperando() throws SyntaxError {
+        while (true) {
+            if (lookahead == TipoToken.NAO_LOGICO || lookahead == TipoToken.MENOS) {
+                TipoToken op = lookahead;
+                int unaria = no(TipoNo.UNARIA, op, 0);
+                match(op);
+                empilhar(UNARIO, unaria, PRECEDENCIA_UNARIA, -1);
+            } else if (lookahead == TipoToken.ABRE_PARENTESES) {
+                match(TipoToken.ABRE_PARENTESES);
+                empilhar(PARENTESES, -1, 0, -1);
+            } else {
+                break;
+            }
         }
-    }
 
-    private void parseExprPrimary() throws SyntaxError {
-        if (lookahead.tipo == TipoToken.IDENTIFICADOR) {
-            String nome = lookahead.lexema;
+        if (lookahead == TipoToken.IDENTIFICADOR) {
+            int token = arvore == null ? -1 : tokens.indice();
+            int linha = tokens.linha();
+            int id = tokens.id();
             match(TipoToken.IDENTIFICADOR);
             // novo: chamada de função
-            if (lookahead.tipo == TipoToken.ABRE_PARENTESES) {
+            if (lookahead == TipoToken.ABRE_PARENTESES) {
+                int chamada = arvore == null ? -1 : arvore.novo(TipoNo.CHAMADA, null, id, token, linha);
                 match(TipoToken.ABRE_PARENTESES);
-                if (lookahead.tipo != TipoToken.FECHA_PARENTESES) {
-                    parseListaExpressao();
+                if (lookahead != TipoToken.FECHA_PARENTESES) {
+                    empilhar(CHAMADA, chamada, 0, -1);
+                    return CHAMADA_ABERTA;
                 }
                 match(TipoToken.FECHA_PARENTESES);
+                return chamada;
             }
-        } else if (lookahead.tipo == TipoToken.NUMERO) {
+            return arvore == null ? -1 : arvore.novo(TipoNo.NOME, null, id, token, linha);
+        } else if (lookahead == TipoToken.NUMERO) {
+            int numero = arvore == null ? -1 : no(TipoNo.NUMERO, null, valorDoNumero(tokens.lexema()));
             match(TipoToken.NUMERO);
-        } else if (lookahead.tipo == TipoToken.VERDADEIRO) {
+            return numero;
+        } else if (lookahead == TipoToken.VERDADEIRO) {
+            int logico = no(TipoNo.LOGICO, null, 1);
             match(TipoToken.VERDADEIRO);
-        } else if (lookahead.tipo == TipoToken.FALSO) {
+            return logico;
+        } else if (lookahead == TipoToken.FALSO) {
+            int logico = no(TipoNo.LOGICO, null, 0);
             match(TipoToken.FALSO);
-        } else if (lookahead.tipo == TipoToken.ABRE_PARENTESES) {
-            match(TipoToken.ABRE_PARENTESES);
-            parseExpr();
-            match(TipoToken.FECHA_PARENTESES);
+            return logico;
         } else {
-            error("Esperado expressão mas veio " + lookahead.tipo);
+            error("Esperado expressão mas veio " + lookahead);
+            return -1;
+        }
+    }
+
+    // Dá ao operador do topo o seu último operando e devolve o nó dele, que é o novo operando
+    private int reduzir(int operando) {
+        topo--;
+        int no = nosPendentes[topo];
+        anexar(no, ultimos[topo], operando);
+        return no;
+    }
+
+    private void empilhar(int quadro, int no, int precedencia, int ultimo) {
+        if (topo == quadros.length) {
+            int capacidade = topo * 2;
+            quadros = Arrays.copyOf(quadros, capacidade);
+            nosPendentes = Arrays.copyOf(nosPendentes, capacidade);
+            precedencias = Arrays.copyOf(precedencias, capacidade);
+            ultimos = Arrays.copyOf(ultimos, capacidade);
+        }
+        quadros[topo] = quadro;
+        nosPendentes[topo] = no;
+        precedencias[topo] = precedencia;
+        ultimos[topo] = ultimo;
+        topo++;
+    }
+
+    // Valor do literal com aritmética de int (números grandes demais dão a volta)
+    private static int valorDoNumero(String lexema) {
+        int valor = 0;
+        for (int i = 0; i < lexema.length(); i++) {
+            valor = valor * 10 + Character.digit(lexema.charAt(i), 10);
         }
+        return valor;
     }
 }
@@ -0,0 +1,162 @@
+package compilador.sintatico;
+
+import java.util.Arrays;
+
+// Resultado do Resolvedor: cada uso de nome ligado à sua declaração, e o formato de cada
+// símbolo em colunas indexadas pelo número do símbolo, para as etapas seguintes não
+// precisarem procurar nomes. Os símbolos são numerados assim:
+//   - as rotinas primeiro, na ordem do programa: a rotina r é o símbolo r;
+//   - depois os parâmetros de todas as rotinas, juntos por rotina (ver primeiroParametro);
+//   - depois as variáveis globais e locais, na ordem em que são declaradas.
+// Variáveis globais têm uma posição na área de globais; parâmetros e variáveis locais, uma
+// posição no quadro da rotina (primeiro os parâmetros, depois as locais em ordem).
+public class Resolucao {
+    // Tipos (de símbolos e de expressões)
+    public static final byte NENHUM = 0; // comando, procedimento ou expressão com erro
+    public static final byte INT = 1;
+    public static final byte BOOL = 2;
+
+    // Categorias de símbolo
+    public static final byte FUNCAO = 0;
+    public static final byte PROCEDIMENTO = 1;
+    public static final byte PARAMETRO = 2;
+    public static final byte LOCAL = 3;
+    public static final byte GLOBAL = 4;
+
+    private static final String[] NOMES_DOS_TIPOS = { "-", "int", "bool" };
+    private static final String[] NOMES_DAS_CATEGORIAS = { "funcao", "procedimento", "parametro", "local", "global" };
+
+    final Arvore arvore;
+    final Diagnosticos diagnosticos;
+
+    // Por nó da Arvore
+    final int[] simbolosDosNos; // símbolo declarado ou usado pelo nó, ou -1
+    final byte[] tiposDosNos;   // tipo das expressões
+
+    // Por símbolo
+    int quantidadeDeSimbolos;
+    int[] nomes;       // id na TabelaDeNomes
+    byte[] categorias;
+    byte[] tipos;      // tipo da variável ou de retorno da função (NENHUM para procedimento)
+    int[] posicoes;    // posição no quadro, na área de globais, ou o número da rotina
+    int[] donos;       // rotina de um parâmetro ou local, senão -1
+    int[] declaracoes; // nó da declaração
+
+    // Por rotina
+    final int quantidadeDeRotinas;
+    final int[] aridades;
+    final int[] quadros; // parâmetros + variáveis locais
+    final int[] primeirosParametros;
+
+    int quantidadeDeGlobais;
+
+    Resolucao(Arvore arvore, Diagnosticos diagnosticos, int rotinas, int capacidade) {
+        this.arvore = arvore;
+        this.diagnosticos = diagnosticos;
+        simbolosDosNos = new int[arvore.tamanho()];
+        tiposDosNos = new byte[arvore.tamanho()];
+        Arrays.fill(simbolosDosNos, -1);
+        nomes = new int[capacidade];
+        categorias = new byte[capacidade];
+        tipos = new byte[capacidade];
+        posicoes = new int[capacidade];
+        donos = new int[capacidade];
+        declaracoes = new int[capacidade];
+        quantidadeDeRotinas = rotinas;
+        aridades = new int[rotinas];
+        quadros = new int[rotinas];
+        primeirosParametros = new int[rotinas];
+    }
+
+    // Erros de nome e de tipo encontrados (todos semânticos); vazio se o programa está correto
+    public Diagnosticos diagnosticos() {
+        return diagnosticos;
+    }
+
+    public Arvore arvore() {
+        return arvore;
+    }
+
+    // Símbolo de um nó VARIAVEL, PARAMETRO, DECL_FUNCAO, DECL_PROCEDIMENTO, NOME, ATRIBUICAO,
+    // LEIA ou CHAMADA; -1 para os outros nós e para nomes que não foram resolvidos
+    public int simbolo(int no) {
+        return simbolosDosNos[no];
+    }
+
+    // Tipo de um nó de expressão (NENHUM para os outros nós)
+    public byte tipo(int no) {
+        return tiposDosNos[no];
+    }
+
+    public int quantidadeDeSimbolos() {
+        return quantidadeDeSimbolos;
+    }
+
+    public String nomeDoSimbolo(int simbolo) {
+        return arvore.nomes().nome(nomes[simbolo]);
+    }
+
+    public byte categoria(int simbolo) {
+        return categorias[simbolo];
+    }
+
+    public byte tipoDoSimbolo(int simbolo) {
+        return tipos[simbolo];
+    }
+
+    public int posicao(int simbolo) {
+        return posicoes[simbolo];
+    }
+
+    public int dono(int simbolo) {
+        return donos[simbolo];
+    }
+
+    public int declaracao(int simbolo) {
+        return declaracoes[simbolo];
+    }
+
+    public int quantidadeDeRotinas() {
+        return quantidadeDeRotinas;
+    }
+
+    public int aridade(int rotina) {
+        return aridades[rotina];
+    }
+
+    public int tamanhoDoQuadro(int rotina) {
+        return quadros[rotina];
+    }
+
+    // Os parâmetros da rotina são os símbolos primeiroParametro(r) .. primeiroParametro(r) + aridade(r) - 1
+    public int primeiroParametro(int rotina) {
+        return primeirosParametros[rotina];
+    }
+
+    public int quantidadeDeGlobais() {
+        return quantidadeDeGlobais;
+    }
+
+    public static String nomeDoTipo(byte tipo) {
+        return NOMES_DOS_TIPOS[tipo];
+    }
+
+    // Um símbolo por linha, para depuração
+    @Override
+    public String toString() {
+        StringBuilder saida = new StringBuilder();
+        for (int s = 0; s < quantidadeDeSimbolos; s++) {
+            saida.append(String.format("%5d  %-13s %-5s %-20s", s, NOMES_DAS_CATEGORIAS[categorias[s]],
+                    NOMES_DOS_TIPOS[tipos[s]], nomeDoSimbolo(s)));
+            switch (categorias[s]) {
+                case FUNCAO, PROCEDIMENTO -> saida.append("rotina ").append(posicoes[s])
+                        .append(", aridade ").append(aridades[posicoes[s]])
+                        .append(", quadro ").append(quadros[posicoes[s]]);
+                case GLOBAL -> saida.append("global ").append(posicoes[s]);
+                default -> saida.append(nomeDoSimbolo(donos[s])).append('[').append(posicoes[s]).append(']');
+            }
+            saida.append('\n');
+        }
+        return saida.toString();
+    }
+}
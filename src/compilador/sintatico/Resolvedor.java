@@ -0,0 +1,433 @@
+package compilador.sintatico;
+
+import compilador.lexico.TipoToken;
+import java.util.Arrays;
+
+// Passo semântico sobre a Arvore: liga cada nome usado à sua declaração, dá a cada variável
+// uma posição (no quadro da rotina ou na área de globais) e confere os tipos int e bool de
+// atribuições, condições, argumentos, retornos e de todos os operadores. Os erros são
+// anotados em Diagnosticos e a resolução continua; uma expressão com erro de nome fica com
+// tipo NENHUM, que é aceito em qualquer lugar, para o mesmo erro não se repetir acima dela.
+//
+// As regras de escopo são as mesmas do CompiladorDeBytecode: as rotinas podem ser chamadas
+// antes de declaradas; variáveis só depois da declaração; o escopo de uma variável local é a
+// rotina inteira a partir da declaração (os blocos de se/enquanto não abrem escopo). Como no
+// Parser, um nome não pode ser declarado duas vezes no mesmo escopo: o do programa (variáveis
+// globais e rotinas) ou o de uma rotina (parâmetros e variáveis locais).
+public class Resolvedor {
+    private final Arvore arvore;
+    private final Diagnosticos diagnosticos = new Diagnosticos();
+    private Resolucao resolucao;
+
+    // Por id de nome: o símbolo visível com aquele nome, ou -1
+    private final int[] globais;
+    private final int[] locais;
+    private final int[] rotinas;
+    private final boolean[] noPrograma; // nome já declarado no escopo do programa, na ordem do texto
+
+    private int rotinaAtual = -1;
+    private int[] declaradosNaRotina = new int[16]; // ids dos locais, para limpar no fim da rotina
+    private int quantidadeDeclarada = 0;
+    private int chamadaComoComando = -1; // a chamada de procedimento que não está numa expressão
+
+    // Pilha das expressões: um nó ainda não visitado, ou ~nó para tipar depois dos filhos
+    private int[] pilha = new int[64];
+    private int topo = 0;
+
+    public Resolvedor(Arvore arvore) {
+        this.arvore = arvore;
+        int nomes = arvore.nomes() == null ? 0 : arvore.nomes().tamanho();
+        globais = new int[nomes];
+        locais = new int[nomes];
+        rotinas = new int[nomes];
+        noPrograma = new boolean[nomes];
+        Arrays.fill(globais, -1);
+        Arrays.fill(locais, -1);
+        Arrays.fill(rotinas, -1);
+    }
+
+    public Resolucao resolver() {
+        int programa = arvore.raiz();
+        int declaracoes = 0;
+        int quantidadeDeRotinas = 0;
+        for (int no = 0; no < arvore.tamanho(); no++) {
+            switch (arvore.tipo(no)) {
+                case VARIAVEL, PARAMETRO -> declaracoes++;
+                case DECL_FUNCAO, DECL_PROCEDIMENTO -> {
+                    declaracoes++;
+                    quantidadeDeRotinas++;
+                }
+                default -> { }
+            }
+        }
+        resolucao = new Resolucao(arvore, diagnosticos, quantidadeDeRotinas, declaracoes);
+        if (programa < 0) {
+            return resolucao;
+        }
+        declararRotinas(programa);
+        for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.DECL_FUNCAO || tipo == TipoNo.DECL_PROCEDIMENTO) {
+                rotina(no);
+            } else {
+                comando(no);
+            }
+        }
+        return resolucao;
+    }
+
+    // As rotinas e os seus parâmetros são declarados antes de tudo, para que uma chamada feita
+    // antes da declaração já tenha aridade e tipos dos parâmetros para conferir
+    private void declararRotinas(int programa) {
+        int r = 0;
+        for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.DECL_FUNCAO || tipo == TipoNo.DECL_PROCEDIMENTO) {
+                boolean funcao = tipo == TipoNo.DECL_FUNCAO;
+                novoSimbolo(no, funcao ? Resolucao.FUNCAO : Resolucao.PROCEDIMENTO,
+                        funcao ? tipoDeclarado(no) : Resolucao.NENHUM, r, -1);
+                if (arvore.valor(no) >= 0) {
+                    rotinas[arvore.valor(no)] = r;
+                }
+                r++;
+            }
+        }
+        r = 0;
+        for (int no = arvore.primeiroFilho(programa); no >= 0; no = arvore.proximoIrmao(no)) {
+            TipoNo tipo = arvore.tipo(no);
+            if (tipo == TipoNo.DECL_FUNCAO || tipo == TipoNo.DECL_PROCEDIMENTO) {
+                resolucao.primeirosParametros[r] = resolucao.quantidadeDeSimbolos;
+                int aridade = 0;
+                for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+                    if (arvore.tipo(filho) == TipoNo.PARAMETRO) {
+                        novoSimbolo(filho, Resolucao.PARAMETRO, tipoDeclarado(filho), aridade++, r);
+                    }
+                }
+                resolucao.aridades[r] = aridade;
+                r++;
+            }
+        }
+    }
+
+    private void rotina(int no) {
+        int r = resolucao.simbolosDosNos[no];
+        declararNoPrograma(no);
+        rotinaAtual = r;
+        int parametro = resolucao.primeirosParametros[r];
+        resolucao.quadros[r] = resolucao.aridades[r]; // as locais vêm depois dos parâmetros
+        for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+            if (arvore.tipo(filho) == TipoNo.PARAMETRO) {
+                conferirLocal(filho);
+                tornarLocal(filho, parametro++);
+            } else {
+                bloco(filho);
+            }
+        }
+        for (int i = 0; i < quantidadeDeclarada; i++) {
+            locais[declaradosNaRotina[i]] = -1;
+        }
+        quantidadeDeclarada = 0;
+        rotinaAtual = -1;
+    }
+
+    private void bloco(int no) {
+        for (int filho = arvore.primeiroFilho(no); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+            comando(filho);
+        }
+    }
+
+    private void comando(int no) {
+        switch (arvore.tipo(no)) {
+            case DECL_VAR -> {
+                for (int v = arvore.primeiroFilho(no); v >= 0; v = arvore.proximoIrmao(v)) {
+                    if (rotinaAtual >= 0) {
+                        conferirLocal(v);
+                        int simbolo = novoSimbolo(v, Resolucao.LOCAL, tipoDeclarado(v),
+                                resolucao.quadros[rotinaAtual], rotinaAtual);
+                        resolucao.quadros[rotinaAtual]++;
+                        tornarLocal(v, simbolo);
+                    } else {
+                        declararNoPrograma(v);
+                        int simbolo = novoSimbolo(v, Resolucao.GLOBAL, tipoDeclarado(v),
+                                resolucao.quantidadeDeGlobais++, -1);
+                        if (arvore.valor(v) >= 0) {
+                            globais[arvore.valor(v)] = simbolo;
+                        }
+                    }
+                }
+            }
+            case ATRIBUICAO -> {
+                int variavel = variavel(no);
+                int expressao = arvore.primeiroFilho(no);
+                byte tipo = expressao(expressao);
+                if (variavel >= 0 && !compativeis(resolucao.tipos[variavel], tipo)) {
+                    erro(no, "Não é possível atribuir um valor " + Resolucao.nomeDoTipo(tipo) + " à variável '"
+                            + arvore.nome(no) + "', que é " + Resolucao.nomeDoTipo(resolucao.tipos[variavel]) + ".");
+                }
+            }
+            case CHAMADA -> {
+                chamadaComoComando = no;
+                expressao(no);
+            }
+            case SE, ENQUANTO -> {
+                int condicao = arvore.primeiroFilho(no);
+                byte tipo = expressao(condicao);
+                if (!compativeis(Resolucao.BOOL, tipo)) {
+                    erro(condicao, "A condição do " + (arvore.tipo(no) == TipoNo.SE ? "se" : "enquanto")
+                            + " deve ser bool mas é " + Resolucao.nomeDoTipo(tipo) + ".");
+                }
+                for (int bloco = arvore.proximoIrmao(condicao); bloco >= 0; bloco = arvore.proximoIrmao(bloco)) {
+                    bloco(bloco);
+                }
+            }
+            case LEIA -> variavel(no);
+            case ESCREVA -> expressao(arvore.primeiroFilho(no));
+            case PARE, CONTINUE -> { }
+            case RETORNE -> {
+                int expressao = arvore.primeiroFilho(no);
+                byte tipo = expressao >= 0 ? expressao(expressao) : Resolucao.NENHUM;
+                if (rotinaAtual >= 0 && resolucao.categorias[rotinaAtual] == Resolucao.FUNCAO
+                        && !compativeis(resolucao.tipos[rotinaAtual], tipo)) {
+                    erro(no, "A função '" + resolucao.nomeDoSimbolo(rotinaAtual) + "' devolve "
+                            + Resolucao.nomeDoTipo(resolucao.tipos[rotinaAtual]) + " mas o retorne tem um valor "
+                            + Resolucao.nomeDoTipo(tipo) + ".");
+                }
+            }
+            default -> throw new IllegalStateException("Nó inesperado no lugar de um comando: " + arvore.tipo(no));
+        }
+    }
+
+    // Calcula o tipo de cada nó da expressão, dos operandos para cima, sem recursão (a
+    // expressão pode ter qualquer profundidade, como no Parser)
+    private byte expressao(int raiz) {
+        int base = topo;
+        empilhar(raiz);
+        while (topo > base) {
+            int item = pilha[--topo];
+            if (item < 0) {
+                resolucao.tiposDosNos[~item] = operacao(~item);
+                continue;
+            }
+            switch (arvore.tipo(item)) {
+                case NUMERO -> resolucao.tiposDosNos[item] = Resolucao.INT;
+                case LOGICO -> resolucao.tiposDosNos[item] = Resolucao.BOOL;
+                case NOME -> {
+                    int variavel = variavel(item);
+                    resolucao.tiposDosNos[item] = variavel >= 0 ? resolucao.tipos[variavel] : Resolucao.NENHUM;
+                }
+                case CHAMADA, UNARIA, BINARIA -> {
+                    if (arvore.tipo(item) == TipoNo.CHAMADA) {
+                        rotinaChamada(item);
+                    }
+                    empilhar(~item);
+                    // Os filhos ficam na pilha do último para o primeiro, para serem visitados
+                    // (e os erros anotados) da esquerda para a direita
+                    int filhos = arvore.quantidadeDeFilhos(item);
+                    if (topo + filhos > pilha.length) {
+                        pilha = Arrays.copyOf(pilha, Math.max(pilha.length * 2, topo + filhos));
+                    }
+                    int i = topo + filhos;
+                    for (int filho = arvore.primeiroFilho(item); filho >= 0; filho = arvore.proximoIrmao(filho)) {
+                        pilha[--i] = filho;
+                    }
+                    topo += filhos;
+                }
+                default -> throw new IllegalStateException("Nó inesperado no lugar de uma expressão: " + arvore.tipo(item));
+            }
+        }
+        return resolucao.tiposDosNos[raiz];
+    }
+
+    // Tipo de um operador ou chamada cujos filhos já têm tipo
+    private byte operacao(int no) {
+        byte[] tipos = resolucao.tiposDosNos;
+        int primeiro = arvore.primeiroFilho(no);
+        switch (arvore.tipo(no)) {
+            case UNARIA -> {
+                TipoToken operador = arvore.operador(no);
+                byte esperado = operador == TipoToken.NAO_LOGICO ? Resolucao.BOOL : Resolucao.INT;
+                if (!compativeis(esperado, tipos[primeiro])) {
+                    erro(no, "O operador '" + simbolo(operador) + "' espera um operando " + Resolucao.nomeDoTipo(esperado)
+                            + " mas recebeu " + Resolucao.nomeDoTipo(tipos[primeiro]) + ".");
+                }
+                return esperado;
+            }
+            case BINARIA -> {
+                TipoToken operador = arvore.operador(no);
+                byte esquerda = tipos[primeiro];
+                byte direita = tipos[arvore.proximoIrmao(primeiro)];
+                if (operador == TipoToken.IGUAL || operador == TipoToken.DIFERENTE) {
+                    if (!compativeis(esquerda, direita)) {
+                        erro(no, "O operador '" + simbolo(operador) + "' compara valores do mesmo tipo mas recebeu "
+                                + Resolucao.nomeDoTipo(esquerda) + " e " + Resolucao.nomeDoTipo(direita) + ".");
+                    }
+                    return Resolucao.BOOL;
+                }
+                byte esperado = operador == TipoToken.E_LOGICO || operador == TipoToken.OU_LOGICO
+                        ? Resolucao.BOOL : Resolucao.INT;
+                if (!compativeis(esperado, esquerda) || !compativeis(esperado, direita)) {
+                    erro(no, "O operador '" + simbolo(operador) + "' espera operandos " + Resolucao.nomeDoTipo(esperado)
+                            + " mas recebeu " + Resolucao.nomeDoTipo(esquerda) + " e " + Resolucao.nomeDoTipo(direita) + ".");
+                }
+                return switch (operador) {
+                    case MAIS, MENOS, VEZES, DIVISAO -> Resolucao.INT;
+                    default -> Resolucao.BOOL;
+                };
+            }
+            default -> { // CHAMADA
+                int r = resolucao.simbolosDosNos[no];
+                if (r < 0) {
+                    return Resolucao.NENHUM;
+                }
+                if (resolucao.aridades[r] == arvore.quantidadeDeFilhos(no)) {
+                    int parametro = resolucao.primeirosParametros[r];
+                    int i = 1;
+                    for (int argumento = primeiro; argumento >= 0; argumento = arvore.proximoIrmao(argumento)) {
+                        byte esperado = resolucao.tipos[parametro];
+                        if (!compativeis(esperado, tipos[argumento])) {
+                            erro(argumento, "O argumento " + i + " de '" + arvore.nome(no) + "' deve ser "
+                                    + Resolucao.nomeDoTipo(esperado) + " mas é " + Resolucao.nomeDoTipo(tipos[argumento]) + ".");
+                        }
+                        parametro++;
+                        i++;
+                    }
+                }
+                return resolucao.tipos[r];
+            }
+        }
+    }
+
+    // Liga a chamada à rotina e confere se ela pode ser chamada ali
+    private void rotinaChamada(int no) {
+        int id = arvore.valor(no);
+        int r = id >= 0 ? rotinas[id] : -1;
+        if (r < 0 || locais[id] >= 0) {
+            naoDeclarado(no, "rotina");
+            return;
+        }
+        resolucao.simbolosDosNos[no] = r;
+        if (resolucao.categorias[r] == Resolucao.PROCEDIMENTO && no != chamadaComoComando) {
+            erro(no, "O procedimento '" + arvore.nome(no) + "' não devolve valor e não pode ser usado numa expressão.");
+        }
+        int argumentos = arvore.quantidadeDeFilhos(no);
+        if (argumentos != resolucao.aridades[r]) {
+            erro(no, "A rotina '" + arvore.nome(no) + "' espera " + resolucao.aridades[r]
+                    + " argumento(s) mas recebeu " + argumentos + ".");
+        }
+    }
+
+    // Variável de um NOME, ATRIBUICAO ou LEIA; -1 (e um erro anotado) se o nome não é uma variável visível
+    private int variavel(int no) {
+        int id = arvore.valor(no);
+        if (id < 0) {
+            return -1;
+        }
+        int simbolo = rotinaAtual >= 0 && locais[id] >= 0 ? locais[id] : globais[id];
+        if (simbolo < 0) {
+            naoDeclarado(no, "variável");
+            return -1;
+        }
+        resolucao.simbolosDosNos[no] = simbolo;
+        return simbolo;
+    }
+
+    private void naoDeclarado(int no, String esperado) {
+        int id = arvore.valor(no);
+        if (id < 0) {
+            return;
+        }
+        if ((rotinaAtual >= 0 && locais[id] >= 0) || globais[id] >= 0 || rotinas[id] >= 0) {
+            erro(no, "'" + arvore.nome(no) + "' não é uma " + esperado + ".");
+        } else {
+            erro(no, "Identificador '" + arvore.nome(no) + "' não foi declarado.");
+        }
+    }
+
+    // Anota o nome de uma variável global ou rotina no escopo do programa; um erro se já estava lá
+    private void declararNoPrograma(int no) {
+        int id = arvore.valor(no);
+        if (id < 0) {
+            return;
+        }
+        if (noPrograma[id]) {
+            jaDeclarado(no);
+        }
+        noPrograma[id] = true;
+    }
+
+    // Um parâmetro ou variável local com o nome de outro da mesma rotina
+    private void conferirLocal(int no) {
+        int id = arvore.valor(no);
+        if (id >= 0 && locais[id] >= 0) {
+            jaDeclarado(no);
+        }
+    }
+
+    private void jaDeclarado(int no) {
+        erro(no, "Identificador '" + arvore.nome(no) + "' já foi declarado.");
+    }
+
+    private int novoSimbolo(int no, byte categoria, byte tipo, int posicao, int dono) {
+        int s = resolucao.quantidadeDeSimbolos++;
+        resolucao.nomes[s] = arvore.valor(no);
+        resolucao.categorias[s] = categoria;
+        resolucao.tipos[s] = tipo;
+        resolucao.posicoes[s] = posicao;
+        resolucao.donos[s] = dono;
+        resolucao.declaracoes[s] = no;
+        resolucao.simbolosDosNos[no] = s;
+        return s;
+    }
+
+    // O nome da declaração passa a ser o local 'simbolo' até o fim da rotina
+    private void tornarLocal(int no, int simbolo) {
+        int id = arvore.valor(no);
+        if (id < 0) {
+            return;
+        }
+        locais[id] = simbolo;
+        if (quantidadeDeclarada == declaradosNaRotina.length) {
+            declaradosNaRotina = Arrays.copyOf(declaradosNaRotina, quantidadeDeclarada * 2);
+        }
+        declaradosNaRotina[quantidadeDeclarada++] = id;
+    }
+
+    private byte tipoDeclarado(int no) {
+        return arvore.operador(no) == TipoToken.BOOL ? Resolucao.BOOL : Resolucao.INT;
+    }
+
+    // NENHUM (expressão com erro ou procedimento) é aceito em qualquer lugar
+    private static boolean compativeis(byte esperado, byte tipo) {
+        return esperado == tipo || esperado == Resolucao.NENHUM || tipo == Resolucao.NENHUM;
+    }
+
+    private void empilhar(int item) {
+        if (topo == pilha.length) {
+            pilha = Arrays.copyOf(pilha, topo * 2);
+        }
+        pilha[topo++] = item;
+    }
+
+    private void erro(int no, String detalhe) {
+        diagnosticos.semantico(arvore.linha(no), detalhe);
+    }
+
+    private static String simbolo(TipoToken operador) {
+        return switch (operador) {
+            case OU_LOGICO -> "||";
+            case E_LOGICO -> "&&";
+            case NAO_LOGICO -> "!";
+            case IGUAL -> "==";
+            case DIFERENTE -> "!=";
+            case MENOR -> "<";
+            case MENOR_IGUAL -> "<=";
+            case MAIOR -> ">";
+            case MAIOR_IGUAL -> ">=";
+            case MAIS -> "+";
+            case MENOS -> "-";
+            case VEZES -> "*";
+            case DIVISAO -> "/";
+            default -> operador.name();
+        };
+    }
+}
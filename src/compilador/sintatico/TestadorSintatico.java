@@ -1,30 +1,136 @@
 package compilador.sintatico;
 
 import compilador.lexico.AnalisadorLexico;
+import compilador.lexico.FluxoEmPipeline;
+import compilador.lexico.FonteDeCaracteres;
+import compilador.lexico.LeitorDeTokens;
+import compilador.saida.EscritorDeSaida;
+import compilador.saida.FormatoDeSaida;
 import compilador.sintatico.exceptions.SyntaxError;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
 
+// Uso: java compilador.sintatico.TestadorSintatico [--pipeline] [--formato texto|jsonl|csv] [--unidades] [arquivo]
+// (padrão: teste_sintatico.txt).
+// Um arquivo .tok é um fluxo de tokens gravado pelo TestadorLexico, e é analisado sem o lexer.
+// Com --pipeline, o lexer roda numa thread separada (ver FluxoEmPipeline).
+// Com --formato jsonl ou csv, os erros vão para a saída padrão nesse formato (ver FormatoDeSaida).
+// Com --unidades, a análise para no primeiro erro e mostra cada declaração ou comando de nível
+// superior assim que termina, sem guardar a árvore do programa inteiro (ver parseProgramaEmFluxo).
+// Para muitos arquivos de uma vez, use compilador.main.Main.
 public class TestadorSintatico {
     public static void main(String[] args) {
+        boolean pipeline = false;
+        boolean unidades = false;
+        FormatoDeSaida formato = null;
         String nomeDoArquivo = "teste_sintatico.txt";
-        String codigoFonte;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--pipeline")) {
+                pipeline = true;
+            } else if (args[i].equals("--unidades")) {
+                unidades = true;
+            } else if (args[i].equals("--formato") && i + 1 < args.length) {
+                formato = FormatoDeSaida.de(args[++i]);
+                if (formato == null) {
+                    System.err.println("Formato desconhecido '" + args[i] + "' (use texto, jsonl ou csv)");
+                    return;
+                }
+            } else {
+                nomeDoArquivo = args[i];
+            }
+        }
+        // Com --formato a saída padrão fica só com os erros
+        PrintStream progresso = formato == null ? System.out : System.err;
+        if (nomeDoArquivo.endsWith(".tok")) {
+            try (LeitorDeTokens tokens = LeitorDeTokens.abrir(Paths.get(nomeDoArquivo))) {
+                progresso.println("--- INICIANDO ANÁLISE SINTÁTICA (TOKENS GRAVADOS) ---");
+                relatar(new Parser(tokens).parseProgramaComRecuperacao(), formato);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erro ao ler os tokens de '" + nomeDoArquivo + "': " + e.getMessage());
+            }
+            return;
+        }
+        FonteDeCaracteres fonte;
         try {
-            codigoFonte = Files.readString(Paths.get(nomeDoArquivo));
+            fonte = FonteDeCaracteres.mapear(Paths.get(nomeDoArquivo));
         } catch (IOException e) {
             System.err.println("Erro ao ler arquivo '" + nomeDoArquivo + "': " + e.getMessage());
             return;
         }
 
-        System.out.println("--- INICIANDO ANÁLISE SINTÁTICA ---");
-        AnalisadorLexico lexico = new AnalisadorLexico(codigoFonte);
-        Parser parser = new Parser(lexico);
+        progresso.println("--- INICIANDO ANÁLISE SINTÁTICA ---");
+        try (fonte) {
+            if (unidades) {
+                listarUnidades(new Parser(new AnalisadorLexico(fonte)));
+                return;
+            }
+            // Todos os erros de uma vez, em vez de parar no primeiro
+            if (pipeline) {
+                try (FluxoEmPipeline tokens = new FluxoEmPipeline(fonte)) {
+                    relatar(new Parser(tokens).parseProgramaComRecuperacao(), formato);
+                }
+            } else {
+                relatar(new Parser(new AnalisadorLexico(fonte)).parseProgramaComRecuperacao(), formato);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erro ao ler arquivo '" + nomeDoArquivo + "': " + e.getMessage());
+        }
+    }
+
+    private static void listarUnidades(Parser parser) {
+        ListaDeUnidades lista = new ListaDeUnidades();
         try {
-            parser.parsePrograma();
-            System.out.println("Sucesso: análise sintática completada sem erros.");
+            parser.parseProgramaEmFluxo(lista);
+            System.out.println("Sucesso: " + lista.unidades + " unidades, " + lista.nos + " nós; a maior tem "
+                    + lista.maior + " nós.");
         } catch (SyntaxError e) {
-            System.err.println("Erro sintático: " + e.getMessage());
+            System.err.println(e.getMessage());
+        }
+    }
+
+    // Uma linha por unidade: linha, tipo do nó, nome declarado ou usado e tamanho em nós
+    private static class ListaDeUnidades implements ConsumidorDeUnidades {
+        long unidades = 0;
+        long nos = 0;
+        int maior = 0;
+
+        @Override
+        public void unidade(Arvore arvore, int unidade) {
+            int tamanho = arvore.tamanho() - unidade; // a unidade e tudo depois dela
+            StringBuilder linha = new StringBuilder();
+            linha.append("linha ").append(arvore.linha(unidade)).append(": ").append(arvore.tipo(unidade));
+            switch (arvore.tipo(unidade)) {
+                case DECL_FUNCAO, DECL_PROCEDIMENTO, ATRIBUICAO, CHAMADA, LEIA -> linha.append(' ').append(arvore.nome(unidade));
+                case DECL_VAR -> linha.append(' ').append(arvore.operador(unidade))
+                        .append(' ').append(arvore.nome(arvore.primeiroFilho(unidade)));
+                default -> { }
+            }
+            System.out.println(linha.append(" (").append(tamanho).append(" nós)"));
+            unidades++;
+            nos += tamanho;
+            maior = Math.max(maior, tamanho);
+        }
+    }
+
+    private static void relatar(Diagnosticos diagnosticos, FormatoDeSaida formato) {
+        if (formato != null) {
+            try (EscritorDeSaida saida = EscritorDeSaida.saidaPadrao(formato)) {
+                saida.diagnosticos(diagnosticos);
+            } catch (IOException e) {
+                System.err.println("Erro ao escrever os diagnósticos: " + e.getMessage());
+            }
+            System.err.println("A análise encontrou " + diagnosticos.tamanho() + " erro(s).");
+            return;
+        }
+        if (diagnosticos.vazio()) {
+            System.out.println("Sucesso: análise sintática completada sem erros.");
+        } else {
+            for (String mensagem : diagnosticos.mensagens()) {
+                System.err.println(mensagem);
+            }
+            System.err.println("A análise encontrou " + diagnosticos.tamanho() + " erro(s).");
         }
     }
 }
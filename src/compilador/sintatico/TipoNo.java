@@ -0,0 +1,30 @@
+package compilador.sintatico;
+
+// Tipos de nó da Arvore. Entre parênteses: o que o nó guarda em operador/valor e quais são os filhos.
+public enum TipoNo {
+    PROGRAMA,          // valor = nome; filhos: declarações e comandos
+    DECL_VAR,          // operador = INT/BOOL; filhos: VARIAVEL
+    VARIAVEL,          // valor = nome declarado
+    DECL_FUNCAO,       // operador = tipo de retorno, valor = nome; filhos: PARAMETRO..., BLOCO
+    DECL_PROCEDIMENTO, // operador = PROCEDIMENTO, valor = nome; filhos: PARAMETRO..., BLOCO
+    PARAMETRO,         // operador = INT/BOOL, valor = nome
+    BLOCO,             // filhos: declarações e comandos entre { }
+
+    // Comandos
+    ATRIBUICAO,        // valor = nome; filho: expressão
+    CHAMADA,           // valor = nome; filhos: argumentos (comando ou expressão)
+    SE,                // filhos: condição, BLOCO do entao, [BLOCO do senao]
+    ENQUANTO,          // filhos: condição, BLOCO
+    LEIA,              // valor = nome
+    ESCREVA,           // filho: expressão
+    PARE,
+    CONTINUE,
+    RETORNE,           // filho: expressão
+
+    // Expressões
+    BINARIA,           // operador = OU_LOGICO, E_LOGICO, relacional ou aritmético; filhos: esquerda, direita
+    UNARIA,            // operador = NAO_LOGICO/MENOS; filho: operando
+    NOME,              // valor = nome
+    NUMERO,            // valor = o número (aritmética de int, com estouro)
+    LOGICO             // valor = 1 (verdadeiro) ou 0 (falso)
+}
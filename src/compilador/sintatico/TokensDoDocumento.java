@@ -0,0 +1,151 @@
+package compilador.sintatico;
+
+import compilador.lexico.TipoToken;
+import java.util.Arrays;
+
+// Tokens de um DocumentoIncremental em colunas, com uma lacuna (gap buffer) no ponto da última
+// edição. Os tokens depois da lacuna guardam início e linha relativos ao fim do documento, então
+// uma edição desloca todos eles de uma vez, só ajustando tamanhoTexto e linhaFinal.
+class TokensDoDocumento {
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    private int[] tipos;
+    private int[] inicios;
+    private int[] comprimentos;
+    private int[] linhas;
+    private DocumentoIncremental.Unidade[] unidades; // não nulo só no primeiro token de cada unidade
+    private int lacunaInicio = 0;
+    private int lacunaFim;
+    private int tamanhoTexto;
+    private int linhaFinal;
+
+    TokensDoDocumento(int capacidade, int tamanhoTexto) {
+        capacidade = Math.max(capacidade, 16);
+        this.tipos = new int[capacidade];
+        this.inicios = new int[capacidade];
+        this.comprimentos = new int[capacidade];
+        this.linhas = new int[capacidade];
+        this.unidades = new DocumentoIncremental.Unidade[capacidade];
+        this.lacunaFim = capacidade;
+        this.tamanhoTexto = tamanhoTexto;
+    }
+
+    int tamanho() {
+        return tipos.length - (lacunaFim - lacunaInicio);
+    }
+
+    private int indice(int i) {
+        return i < lacunaInicio ? i : i + (lacunaFim - lacunaInicio);
+    }
+
+    TipoToken tipo(int i) {
+        return TIPOS[tipos[indice(i)]];
+    }
+
+    int inicio(int i) {
+        int j = indice(i);
+        return j < lacunaInicio ? inicios[j] : tamanhoTexto - inicios[j];
+    }
+
+    int comprimento(int i) {
+        return comprimentos[indice(i)];
+    }
+
+    int linha(int i) {
+        int j = indice(i);
+        return j < lacunaInicio ? linhas[j] : linhaFinal - linhas[j];
+    }
+
+    DocumentoIncremental.Unidade unidade(int i) {
+        return unidades[indice(i)];
+    }
+
+    void definirUnidade(int i, DocumentoIncremental.Unidade unidade) {
+        unidades[indice(i)] = unidade;
+    }
+
+    // Todos os tokens depois da lacuna andam 'delta' caracteres
+    void deslocarTexto(int delta) {
+        tamanhoTexto += delta;
+    }
+
+    // Todos os tokens depois da lacuna andam 'delta' linhas
+    void deslocarLinhas(int delta) {
+        linhaFinal += delta;
+    }
+
+    // Posiciona a lacuna antes do token i, convertendo as coordenadas dos tokens movidos
+    void moverLacuna(int i) {
+        while (lacunaInicio > i) {
+            lacunaInicio--;
+            lacunaFim--;
+            mover(lacunaInicio, lacunaFim);
+            inicios[lacunaFim] = tamanhoTexto - inicios[lacunaFim];
+            linhas[lacunaFim] = linhaFinal - linhas[lacunaFim];
+        }
+        while (lacunaInicio < i) {
+            mover(lacunaFim, lacunaInicio);
+            inicios[lacunaInicio] = tamanhoTexto - inicios[lacunaInicio];
+            linhas[lacunaInicio] = linhaFinal - linhas[lacunaInicio];
+            lacunaInicio++;
+            lacunaFim++;
+        }
+    }
+
+    private void mover(int de, int para) {
+        tipos[para] = tipos[de];
+        inicios[para] = inicios[de];
+        comprimentos[para] = comprimentos[de];
+        linhas[para] = linhas[de];
+        unidades[para] = unidades[de];
+        if (de != para) { // com a lacuna vazia o token não sai do lugar
+            unidades[de] = null;
+        }
+    }
+
+    // Primeiro token depois da lacuna (o próximo token antigo ainda não descartado), ou -1
+    int primeiroAposLacuna() {
+        return lacunaFim < tipos.length ? lacunaInicio : -1;
+    }
+
+    // Descarta o primeiro token depois da lacuna, devolvendo a unidade que começava nele
+    DocumentoIncremental.Unidade removerAposLacuna() {
+        DocumentoIncremental.Unidade unidade = unidades[lacunaFim];
+        unidades[lacunaFim] = null;
+        lacunaFim++;
+        return unidade;
+    }
+
+    // Acrescenta um token antes da lacuna, em coordenadas absolutas
+    void inserirNaLacuna(TipoToken tipo, int inicio, int comprimento, int linha) {
+        if (lacunaInicio == lacunaFim) {
+            crescer();
+        }
+        tipos[lacunaInicio] = tipo.ordinal();
+        inicios[lacunaInicio] = inicio;
+        comprimentos[lacunaInicio] = comprimento;
+        linhas[lacunaInicio] = linha;
+        unidades[lacunaInicio] = null;
+        lacunaInicio++;
+    }
+
+    private void crescer() {
+        int capacidade = tipos.length * 2;
+        int sufixo = tipos.length - lacunaFim;
+        tipos = realocar(tipos, capacidade, sufixo);
+        inicios = realocar(inicios, capacidade, sufixo);
+        comprimentos = realocar(comprimentos, capacidade, sufixo);
+        linhas = realocar(linhas, capacidade, sufixo);
+        DocumentoIncremental.Unidade[] novas = Arrays.copyOf(unidades, capacidade);
+        System.arraycopy(unidades, lacunaFim, novas, capacidade - sufixo, sufixo);
+        Arrays.fill(novas, lacunaFim, capacidade - sufixo, null);
+        unidades = novas;
+        lacunaFim = capacidade - sufixo;
+    }
+
+    private int[] realocar(int[] antigo, int capacidade, int sufixo) {
+        int[] novo = Arrays.copyOf(antigo, capacidade);
+        System.arraycopy(antigo, antigo.length - sufixo, novo, capacidade - sufixo, sufixo);
+        return novo;
+    }
+}
@@ -1,7 +1,29 @@
 package compilador.sintatico.exceptions;
 
+// Não guarda stack trace: a mensagem e a linha já dizem onde está o erro, e o Parser
+// lança um destes a cada erro recuperado
 public class SyntaxError extends Exception {
+    private final int linha;
+    private final String detalhe;
+
     public SyntaxError(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.linha = 0;
+        this.detalhe = message;
+    }
+
+    public SyntaxError(int linha, String detalhe) {
+        super("Erro sintático na linha " + linha + ": " + detalhe, null, false, false);
+        this.linha = linha;
+        this.detalhe = detalhe;
+    }
+
+    public int getLinha() {
+        return linha;
+    }
+
+    // Mensagem sem o prefixo com a linha
+    public String getDetalhe() {
+        return detalhe;
     }
 }
@@ -6,10 +6,28 @@ import compilador.lexico.TipoToken;
 public class Simbolo {
     String nome;
     TipoToken tipo; // int, bool, etc.
+    int id; // id do nome na TabelaDeNomes da TabelaDeSimbolos; -1 se ainda não foi internado
     // Você pode adicionar mais informações, como categoria (variável, função)
     
     public Simbolo(String nome, TipoToken tipo) {
+        this(-1, nome, tipo);
+    }
+
+    public Simbolo(int id, String nome, TipoToken tipo) {
+        this.id = id;
         this.nome = nome;
         this.tipo = tipo;
     }
+
+    public String nome() {
+        return nome;
+    }
+
+    public TipoToken tipo() {
+        return tipo;
+    }
+
+    public int id() {
+        return id;
+    }
 }
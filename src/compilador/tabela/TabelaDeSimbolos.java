@@ -1,45 +1,145 @@
 package compilador.tabela;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Stack;
+import compilador.lexico.TabelaDeNomes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.List;
 
+// Uma única tabela para todos os escopos, indexada pelo id do nome na TabelaDeNomes. Cada
+// nome aponta para a sua declaração mais interna, e cada declaração aponta para a que ela
+// esconde (de um escopo mais externo). As declarações ficam num log na ordem em que foram
+// feitas; sair de um escopo desfaz só as entradas do log que aquele escopo acrescentou.
+// Buscar não depende da profundidade nem calcula hash, e entrar num escopo não aloca nada.
 public class TabelaDeSimbolos {
-    private Stack<Map<String, Simbolo>> escopos;
+    private final TabelaDeNomes nomes;
+
+    // Índice no log da declaração mais interna de cada id, ou -1
+    private int[] cabecas = new int[0];
+
+    // Log de declarações, em ordem
+    private Simbolo[] simbolos = new Simbolo[64];
+    private int[] niveis = new int[64];
+    private int[] escondidas = new int[64]; // declaração do mesmo nome que esta esconde, ou -1
+    private int topo = 0;
+
+    // Onde cada escopo aberto começa no log
+    private int[] inicioDosEscopos = new int[16];
+    private int nivel = -1;
+    private int nivelMaximo = -1;
 
     public TabelaDeSimbolos() {
-        this.escopos = new Stack<>();
+        this(new TabelaDeNomes());
+    }
+
+    // Os ids dos símbolos são desta tabela de nomes (a mesma do lexer que leu o programa)
+    public TabelaDeSimbolos(TabelaDeNomes nomes) {
+        this.nomes = nomes;
         entrarEscopo(); // Inicia o escopo global
     }
 
     // Entra em um novo escopo (ex: ao entrar em uma função)
     public void entrarEscopo() {
-        escopos.push(new HashMap<>());
+        nivel++;
+        if (nivel == inicioDosEscopos.length) {
+            inicioDosEscopos = Arrays.copyOf(inicioDosEscopos, nivel * 2);
+        }
+        inicioDosEscopos[nivel] = topo;
+        if (nivel > nivelMaximo) {
+            nivelMaximo = nivel;
+        }
+    }
+
+    // Maior quantidade de escopos abertos ao mesmo tempo desde a criação da tabela
+    public int profundidadeMaxima() {
+        return nivelMaximo + 1;
     }
 
     // Sai do escopo atual (ex: ao sair de uma função)
     public void sairEscopo() {
-        if (!escopos.isEmpty()) {
-            escopos.pop();
+        if (nivel < 0) {
+            return;
         }
+        int inicio = inicioDosEscopos[nivel];
+        for (int i = topo - 1; i >= inicio; i--) {
+            cabecas[simbolos[i].id] = escondidas[i];
+            simbolos[i] = null;
+        }
+        topo = inicio;
+        nivel--;
     }
 
     // Adiciona um novo símbolo ao escopo atual
     public void adicionar(Simbolo simbolo) {
-        if (escopos.peek().containsKey(simbolo.nome)) {
+        if (!declarar(simbolo)) {
             // Erro: Símbolo já declarado neste escopo
             throw new RuntimeException("Erro Semântico: Identificador '" + simbolo.nome + "' já foi declarado.");
         }
-        escopos.peek().put(simbolo.nome, simbolo);
+    }
+
+    // Como adicionar(), mas devolve false em vez de lançar quando o nome já existe no escopo atual
+    public boolean declarar(Simbolo simbolo) {
+        if (nivel < 0) {
+            throw new EmptyStackException();
+        }
+        if (simbolo.id < 0) {
+            simbolo.id = nomes.idDe(simbolo.nome);
+        }
+        int id = simbolo.id;
+        if (id >= cabecas.length) {
+            int antigo = cabecas.length;
+            cabecas = Arrays.copyOf(cabecas, Math.max(id + 1, Math.max(nomes.tamanho(), antigo * 2)));
+            Arrays.fill(cabecas, antigo, cabecas.length, -1);
+        }
+        int anterior = cabecas[id];
+        if (anterior >= 0 && niveis[anterior] == nivel) {
+            return false;
+        }
+        if (topo == simbolos.length) {
+            int capacidade = topo * 2;
+            simbolos = Arrays.copyOf(simbolos, capacidade);
+            niveis = Arrays.copyOf(niveis, capacidade);
+            escondidas = Arrays.copyOf(escondidas, capacidade);
+        }
+        simbolos[topo] = simbolo;
+        niveis[topo] = nivel;
+        escondidas[topo] = anterior;
+        cabecas[id] = topo;
+        topo++;
+        return true;
     }
 
     // Busca um símbolo em todos os escopos, do mais interno para o mais externo
     public Simbolo buscar(String nome) {
-        for (int i = escopos.size() - 1; i >= 0; i--) {
-            if (escopos.get(i).containsKey(nome)) {
-                return escopos.get(i).get(nome);
-            }
+        return buscar(nomes.idExistente(nome));
+    }
+
+    public Simbolo buscar(int id) {
+        if (id < 0 || id >= cabecas.length || cabecas[id] < 0) {
+            return null; // Símbolo não encontrado
         }
-        return null; // Símbolo não encontrado
+        return simbolos[cabecas[id]];
+    }
+
+    // Símbolos declarados num escopo (0 é o global), na ordem de declaração
+    public List<Simbolo> simbolosDoEscopo(int nivel) {
+        List<Simbolo> resultado = new ArrayList<>();
+        if (nivel > this.nivel) {
+            return resultado;
+        }
+        int fim = nivel == this.nivel ? topo : inicioDosEscopos[nivel + 1];
+        for (int i = inicioDosEscopos[nivel]; i < fim; i++) {
+            resultado.add(simbolos[i]);
+        }
+        return resultado;
+    }
+
+    // Quantidade de escopos abertos menos um (0 quando só o global está aberto)
+    public int nivel() {
+        return nivel;
+    }
+
+    public TabelaDeNomes nomes() {
+        return nomes;
     }
-}
\ No newline at end of file
+}